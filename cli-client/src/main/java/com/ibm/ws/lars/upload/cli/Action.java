@@ -45,7 +45,7 @@ public enum Action implements HelpMessage {
 
         @Override
         public String getUsage() {
-            return "upload [FILE]...";
+            return "upload [--parallel=N] [FILE]...";
         }
 
         @Override
@@ -53,7 +53,9 @@ public enum Action implements HelpMessage {
             return "Uploads one or more features to a LARS server. "
                    + "For each argument, if the argument is a file with the extension .esa then this is treated as a Liberty feature and uploaded. "
                    + "If the argument is a directory then any .esa files within that directory are treated as Liberty features and uploaded. "
-                   + "Note that subdirectories are not recursively searched.";
+                   + "Note that subdirectories are not recursively searched. "
+                   + "By default features are uploaded one at a time. If --parallel is specified then up to N features are uploaded at once, "
+                   + "reading the next features while earlier ones are being uploaded. Progress is still reported in the order the features were given.";
         }
     },
     FIND("find") {
@@ -32,6 +32,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +42,7 @@ import java.util.regex.Pattern;
 
 import com.ibm.ws.lars.upload.cli.ClientException.HelpDisplay;
 import com.ibm.ws.massive.esa.MassiveEsa;
+import com.ibm.ws.massive.esa.MassiveEsa.EsaUploadListener;
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.connections.RepositoryConnection;
 import com.ibm.ws.repository.connections.RestRepositoryConnection;
@@ -53,6 +55,7 @@ import com.ibm.ws.repository.resources.EsaResource;
 import com.ibm.ws.repository.resources.RepositoryResource;
 import com.ibm.ws.repository.resources.writeable.RepositoryResourceWritable;
 import com.ibm.ws.repository.strategies.writeable.AddThenDeleteStrategy;
+import com.ibm.ws.repository.strategies.writeable.UploadStrategy;
 
 public class Main {
 
@@ -63,6 +66,7 @@ public class Main {
     static final String ASSET_NOT_FOUND = "Asset not found in repository.";
     static final String SERVER_ERROR = "The repository server returned an error.";
     static final String NO_FILES = "No files to upload. The files to upload must be provided as arguments.";
+    static final String INVALID_PARALLEL = "The value of --parallel must be a whole number greater than zero: ";
 
     private static Pattern versionPattern = Pattern.compile("productVersion=\"?([0-9\\.+]+)");
 
@@ -267,6 +271,7 @@ public class Main {
      * @param remainingArgs a list of file paths to ESAs which should be uploaded.
      */
     private void doUpload(List<String> remainingArgs) throws ClientException {
+        int parallelism = getParallelism();
         RepositoryConnection repoConnection = createRepoConnection();
         List<File> files = new ArrayList<File>();
         for (String arg : remainingArgs) {
@@ -307,6 +312,11 @@ public class Main {
             throw new ClientException("An error occurred while connecting to the repository: " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
         }
 
+        if (parallelism > 1) {
+            doParallelUpload(uploader, files, parallelism);
+            return;
+        }
+
         int size = files.size();
         for (int i = 0; i < size; i++) {
             File file = files.get(i);
@@ -315,30 +325,116 @@ public class Main {
                 List<RepositoryResource> deletedResources = new ArrayList<>();
                 AddThenDeleteStrategy uploadStrategy = new AddThenDeleteStrategy(State.PUBLISHED, State.PUBLISHED, true, null, deletedResources);
                 uploader.addEsasToMassive(Collections.singleton(file), uploadStrategy);
-
-                // Did this upload operation cause us to delete one or more existing assets?
-                if (deletedResources.size() > 1) {
-                    // This is an unusual case: we replaced more than one existing (duplicate) assets
-                    output.println("done, replacing multiple duplicate assets:");
-                    for (RepositoryResource deletedResource : deletedResources) {
-                        output.println(resourceToString(deletedResource));
-                    }
-                } else if (deletedResources.size() == 1) {
-                    // More common case: we replaced one asset. Effectively, we are updating that asset.
-                    output.println("done, replacing existing asset " + resourceToString(deletedResources.get(0)));
-                } else {
-                    // Most common case... we didn't replace anything and just
-                    // uploaded this new asset
-                    output.println("done");
-                }
+                printUploadDone(deletedResources);
             } catch (RepositoryException ex) {
-                if (!file.getPath().endsWith(".esa")) {
-                    throw new ClientException("\nAn error occurred while uploading " + file.toString() + ": "
-                                              + "file does not appear to be an esa file.", 1, HelpDisplay.NO_HELP, ex);
-                } else
-                    throw new ClientException("\nAn error occurred while uploading " + file.toString() + ": " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
+                throw createUploadException("\n", file, ex);
+            }
+        }
+    }
+
+    /**
+     * Uploads a list of ESAs, several at a time.
+     * <p>
+     * Progress is reported in the same order and format as a sequential upload. If an ESA fails,
+     * the ESAs which were already being uploaded are allowed to finish before the error is
+     * reported.
+     */
+    private void doParallelUpload(MassiveEsa uploader, List<File> files, int parallelism) throws ClientException {
+        final int size = files.size();
+
+        // Use identity so that the same file named twice on the command line is counted twice
+        final Map<File, Integer> positions = new IdentityHashMap<File, Integer>();
+        for (int i = 0; i < size; i++) {
+            positions.put(files.get(i), i + 1);
+        }
+
+        final Map<File, List<RepositoryResource>> deletedResources = new IdentityHashMap<File, List<RepositoryResource>>();
+        final List<File> failedFiles = new ArrayList<File>();
+
+        EsaUploadListener listener = new EsaUploadListener() {
+            @Override
+            public UploadStrategy getStrategy(File esa) {
+                List<RepositoryResource> deleted = new ArrayList<>();
+                deletedResources.put(esa, deleted);
+                return new AddThenDeleteStrategy(State.PUBLISHED, State.PUBLISHED, true, null, deleted);
+            }
+
+            @Override
+            public void uploaded(File esa, EsaResource resource) {
+                output.print(positions.get(esa) + " of " + size + ": Uploading " + esa.toString() + " ... ");
+                printUploadDone(deletedResources.remove(esa));
+            }
+
+            @Override
+            public void failed(File esa, RepositoryException e) {
+                output.println(positions.get(esa) + " of " + size + ": Uploading " + esa.toString() + " ... failed");
+                failedFiles.add(esa);
+            }
+        };
+
+        try {
+            uploader.addEsasToMassive(files, parallelism, listener);
+        } catch (RepositoryException ex) {
+            File file = failedFiles.isEmpty() ? null : failedFiles.get(0);
+            throw createUploadException("", file, ex);
+        }
+    }
+
+    /**
+     * Finishes the progress line for an ESA which has been uploaded
+     *
+     * @param deletedResources the existing resources which were replaced by the upload
+     */
+    private void printUploadDone(List<RepositoryResource> deletedResources) {
+        // Did this upload operation cause us to delete one or more existing assets?
+        if (deletedResources.size() > 1) {
+            // This is an unusual case: we replaced more than one existing (duplicate) assets
+            output.println("done, replacing multiple duplicate assets:");
+            for (RepositoryResource deletedResource : deletedResources) {
+                output.println(resourceToString(deletedResource));
             }
+        } else if (deletedResources.size() == 1) {
+            // More common case: we replaced one asset. Effectively, we are updating that asset.
+            output.println("done, replacing existing asset " + resourceToString(deletedResources.get(0)));
+        } else {
+            // Most common case... we didn't replace anything and just
+            // uploaded this new asset
+            output.println("done");
+        }
+    }
+
+    private ClientException createUploadException(String prefix, File file, RepositoryException ex) {
+        if (file == null) {
+            return new ClientException(prefix + "An error occurred while uploading: " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
+        } else if (!file.getPath().endsWith(".esa")) {
+            return new ClientException(prefix + "An error occurred while uploading " + file.toString() + ": "
+                                       + "file does not appear to be an esa file.", 1, HelpDisplay.NO_HELP, ex);
+        } else {
+            return new ClientException(prefix + "An error occurred while uploading " + file.toString() + ": " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
+        }
+    }
+
+    /**
+     * Reads the value of the --parallel option
+     *
+     * @return the number of ESAs to upload at once, 1 if the option isn't set
+     */
+    private int getParallelism() throws ClientException {
+        if (!options.containsKey(Option.PARALLEL)) {
+            return 1;
+        }
+
+        String value = options.get(Option.PARALLEL);
+        int parallelism;
+        try {
+            parallelism = value == null ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            parallelism = 0;
+        }
+        if (parallelism < 1) {
+            throw new ClientException(INVALID_PARALLEL + value, 1, HelpDisplay.SHOW_HELP);
         }
+        return parallelism;
     }
 
     private void doListAll(List<String> params) throws ClientException {
@@ -30,7 +30,10 @@ public enum Option {
     NAME("name"),
 
     // options for the delete command
-    NO_PROMPTS("noPrompts");
+    NO_PROMPTS("noPrompts"),
+
+    // options for the upload command
+    PARALLEL("parallel");
 
     private String argument;
 
@@ -111,7 +111,7 @@ public class MainTest {
 
     @Test
     public void shouldPrintHelpForUpload() throws ClientException {
-        MainRunner runner = new MainRunner(null, 31);
+        MainRunner runner = new MainRunner(null, 35);
         runner.run("--help", "upload");
         assertThat(runner.stdout, containsString("Uploads one or more features to a LARS server."));
     }
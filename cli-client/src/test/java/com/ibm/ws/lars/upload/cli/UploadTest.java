@@ -47,6 +47,7 @@ import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.connections.RepositoryConnection;
 import com.ibm.ws.repository.connections.RestRepositoryConnection;
+import com.ibm.ws.repository.exceptions.RepositoryException;
 import com.ibm.ws.repository.resources.EsaResource;
 import com.ibm.ws.repository.resources.internal.EsaResourceImpl;
 import com.ibm.ws.repository.resources.RepositoryResource;
@@ -65,6 +66,7 @@ public class UploadTest {
     public static class MockUploader extends MockUp<MassiveEsa> {
         private RepositoryConnection repoConnection = null;
         private final List<String> filesUploaded = new ArrayList<>();
+        private int parallelism = 1;
 
         @Mock
         public void $init(RepositoryConnection repoConnection) {
@@ -79,6 +81,25 @@ public class UploadTest {
             return null;
         }
 
+        @Mock
+        public void addEsasToMassive(List<File> esas, int parallelism, MassiveEsa.EsaUploadListener listener) throws RepositoryException {
+            this.parallelism = parallelism;
+            for (File file : esas) {
+                UploadStrategy strategy = listener.getStrategy(file);
+                if (file.getName().startsWith("Broken")) {
+                    listener.failed(file, new RepositoryException("broken feature"));
+                    throw new RepositoryException("broken feature");
+                }
+                filesUploaded.add(file.getName());
+                assertNotNull("No strategy for " + file, strategy);
+                listener.uploaded(file, null);
+            }
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
         public RepositoryConnection getLoginInfoEntry() {
             return repoConnection;
         }
@@ -324,6 +345,65 @@ public class UploadTest {
         assertThat("Output incorrect", out.toString(), containsString("Uploading TestFile3.esa ... done"));
     }
 
+    @Test
+    public void testParallelUpload() throws ClientException {
+        new MockFile();
+        MockUploader uploader = new MockUploader();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Main main = new Main(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+        main.run(new String[] { "--upload", "--url=http://example.org", "--parallel=4", "TestFile.esa", "TestFile2.esa", "TestFile3.esa" });
+
+        assertEquals("Wrong parallelism", 4, uploader.getParallelism());
+        assertEquals("Wrong files uploaded", Arrays.asList("TestFile.esa", "TestFile2.esa", "TestFile3.esa"), uploader.getFilesUploaded());
+        String nl = System.getProperty("line.separator");
+        assertEquals("Output incorrect",
+                     "1 of 3: Uploading TestFile.esa ... done" + nl +
+                             "2 of 3: Uploading TestFile2.esa ... done" + nl +
+                             "3 of 3: Uploading TestFile3.esa ... done" + nl,
+                     out.toString());
+    }
+
+    @Test
+    public void testParallelUploadFailure() {
+        new MockFile();
+        MockUploader uploader = new MockUploader();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Main main = new Main(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+        try {
+            main.run(new String[] { "--upload", "--url=http://example.org", "--parallel=2", "TestFile.esa", "BrokenFile.esa", "TestFile3.esa" });
+            fail("ClientException not thrown");
+        } catch (ClientException ex) {
+            assertEquals("Wrong return code", 1, ex.getReturnCode());
+            assertEquals("Wrong error message", "An error occurred while uploading BrokenFile.esa: broken feature", ex.getMessage());
+        }
+
+        assertEquals("Wrong files uploaded", Arrays.asList("TestFile.esa"), uploader.getFilesUploaded());
+        assertThat("Output incorrect", out.toString(), containsString("2 of 3: Uploading BrokenFile.esa ... failed"));
+    }
+
+    @Test
+    public void testInvalidParallel() {
+        MockUploader uploader = new MockUploader();
+
+        for (String arg : new String[] { "--parallel", "--parallel=0", "--parallel=lots" }) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Main main = new Main(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+            try {
+                main.run(new String[] { "--upload", "--url=http://example.org", arg, "TestFile.esa" });
+                fail("ClientException not thrown for " + arg);
+            } catch (ClientException ex) {
+                assertEquals("Wrong return code", 1, ex.getReturnCode());
+                assertThat("Wrong error message", ex.getMessage(), containsString(Main.INVALID_PARALLEL));
+                assertEquals("Wrong help display", HelpDisplay.SHOW_HELP, ex.getHelpDisplay());
+            }
+        }
+        assertEquals("Nothing should be uploaded", 0, uploader.getFilesUploaded().size());
+    }
+
     @Test
     public void testCredentials() throws ClientException {
         new MockFile();
@@ -35,6 +35,7 @@ import org.junit.runners.Parameterized.Parameters;
 import com.ibm.ws.repository.common.enums.AttachmentType;
 import com.ibm.ws.repository.transport.client.AbstractFileClient;
 import com.ibm.ws.repository.transport.client.DirectoryClient;
+import com.ibm.ws.repository.transport.client.IndexedZipClient;
 import com.ibm.ws.repository.transport.client.ZipClient;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
@@ -58,7 +59,8 @@ public class FileClientLicenseTest {
         File resourcesDir = new File("resources");
         return new Object[][] {
                                { new DirectoryClient(new File(resourcesDir, "licenseTestRepo")), "Directory" },
-                               { new ZipClient(new File(resourcesDir, "licenseTestRepo.zip")), "Zip" }
+                               { new ZipClient(new File(resourcesDir, "licenseTestRepo.zip")), "Zip" },
+                               { new IndexedZipClient(new File(resourcesDir, "licenseTestRepo.zip")), "IndexedZip" }
         };
     }
 
@@ -34,6 +34,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -162,6 +163,22 @@ public class RepositoryClientTest {
     /**
      * This tests that custom attributes are created in Massive
      */
+    /**
+     * This method will test getting several assets by id at once
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetAssetsById() throws Exception {
+        Asset first = _writeableClient.addAsset(createTestAsset());
+        Asset second = _writeableClient.addAsset(createTestAsset());
+
+        List<Asset> gotAssets = _client.getAssetsById(Arrays.asList(second.get_id(), first.get_id(), second.get_id()));
+        assertEquals("Repeated ids should be left out", 2, gotAssets.size());
+        assertEquals("The assets should be in the order of their ids", second.get_id(), gotAssets.get(0).get_id());
+        assertEquals("The assets should be in the order of their ids", first.get_id(), gotAssets.get(1).get_id());
+    }
+
     @Test
     public void testCustomAttributes() throws Exception {
         Asset newAsset = createTestAsset();
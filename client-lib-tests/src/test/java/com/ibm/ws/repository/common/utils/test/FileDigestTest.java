@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.common.utils.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ibm.ws.repository.common.utils.internal.FileDigest;
+
+/**
+ * Tests for {@link FileDigest}
+ */
+public class FileDigestTest {
+
+    private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+    private static final long ABC_CRC = 0x352441c2L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDigest() throws Exception {
+        File file = writeFile("abc");
+        FileDigest digest = FileDigest.forFile(file);
+        assertEquals(3, digest.getLength());
+        assertEquals(ABC_CRC, digest.getCRC());
+        assertEquals(ABC_SHA256, digest.getSHA256());
+        assertSame("An unchanged file should not be digested again", digest, FileDigest.forFile(file));
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        File file = writeFile("abc");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileDigest digest = FileDigest.copy(file, out);
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        assertEquals(ABC_SHA256, digest.getSHA256());
+        assertSame("The digest from the copy should be cached", digest, FileDigest.forFile(file));
+    }
+
+    @Test
+    public void testChangedFile() throws Exception {
+        File file = writeFile("abc");
+        long lastModified = file.lastModified();
+        assertEquals(ABC_SHA256, FileDigest.forFile(file).getSHA256());
+
+        Files.write(file.toPath(), "abcd".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified + 2000);
+        FileDigest digest = FileDigest.forFile(file);
+        assertEquals(4, digest.getLength());
+        assertEquals("88d4266fd4e6338d13b845fcf289579d209c897823b9217da3e161936f031589", digest.getSHA256());
+    }
+
+    private File writeFile(String content) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
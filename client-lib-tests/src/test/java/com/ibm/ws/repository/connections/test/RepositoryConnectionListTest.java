@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.connections.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ibm.ws.lars.testutils.clients.DirectoryWriteableClient;
+import com.ibm.ws.repository.common.enums.ResourceType;
+import com.ibm.ws.repository.connections.DirectoryRepositoryConnection;
+import com.ibm.ws.repository.connections.RepositoryConnectionList;
+import com.ibm.ws.repository.connections.RestRepositoryConnection;
+import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.resources.RepositoryResource;
+import com.ibm.ws.repository.transport.client.test.AbstractFileClientTest;
+import com.ibm.ws.repository.transport.model.Asset;
+
+/**
+ * Tests for querying the repositories in a {@link RepositoryConnectionList} in parallel
+ */
+public class RepositoryConnectionListTest {
+
+    @Test
+    public void testParallelQueryKeepsFirstDuplicate() throws Exception {
+        List<DirectoryRepositoryConnection> connections = new ArrayList<DirectoryRepositoryConnection>();
+        for (int i = 0; i < 4; i++) {
+            File dir = AbstractFileClientTest.getTempDir();
+            DirectoryWriteableClient client = new DirectoryWriteableClient(dir);
+            client.addAsset(createAsset("shared"));
+            client.addAsset(createAsset("only in " + i));
+            connections.add(new SlowConnection(dir, (3 - i) * 50));
+        }
+
+        RepositoryConnectionList list = new RepositoryConnectionList(connections);
+        list.setParallelism(4);
+
+        Collection<? extends RepositoryResource> resources = list.getAllResources();
+        assertEquals("Duplicates should have been removed", 5, resources.size());
+        for (RepositoryResource resource : resources) {
+            if (resource.getName().equals("shared")) {
+                assertSame("The first repository in the list should win", connections.get(0), resource.getRepositoryConnection());
+            }
+        }
+
+        assertEquals("Duplicates should have been kept", 8, list.getAllResourcesWithDupes().size());
+    }
+
+    /**
+     * A repository which doesn't answer in time is left out rather than failing the whole query
+     */
+    @Test
+    public void testRepositoryTimeout() throws Exception {
+        File fastDir = AbstractFileClientTest.getTempDir();
+        new DirectoryWriteableClient(fastDir).addAsset(createAsset("fast"));
+        File slowDir = AbstractFileClientTest.getTempDir();
+        new DirectoryWriteableClient(slowDir).addAsset(createAsset("slow"));
+        File lastDir = AbstractFileClientTest.getTempDir();
+        new DirectoryWriteableClient(lastDir).addAsset(createAsset("last"));
+
+        RepositoryConnectionList list = new RepositoryConnectionList(new DirectoryRepositoryConnection(fastDir));
+        list.add(new SlowConnection(slowDir, 10000));
+        list.add(new DirectoryRepositoryConnection(lastDir));
+        list.setParallelism(2);
+        list.setRepositoryTimeout(200, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        Collection<? extends RepositoryResource> resources = list.getAllResources();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsed > 5000) {
+            fail("Waited " + elapsed + "ms for the slow repository");
+        }
+
+        List<String> names = new ArrayList<String>();
+        for (RepositoryResource resource : resources) {
+            names.add(resource.getName());
+        }
+        Collections.sort(names);
+        assertEquals("The slow repository should have been left out", Arrays.asList("fast", "last"), names);
+    }
+
+    /**
+     * Each repository gets the whole timeout once its query starts, so a repository which has to
+     * wait for a free thread isn't penalised for it
+     */
+    @Test
+    public void testRepositoryTimeoutIsPerRepository() throws Exception {
+        List<DirectoryRepositoryConnection> connections = new ArrayList<DirectoryRepositoryConnection>();
+        for (int i = 0; i < 3; i++) {
+            File dir = AbstractFileClientTest.getTempDir();
+            new DirectoryWriteableClient(dir).addAsset(createAsset("asset " + i));
+            connections.add(new SlowConnection(dir, 300));
+        }
+
+        RepositoryConnectionList list = new RepositoryConnectionList(connections);
+        list.setParallelism(2);
+        list.setRepositoryTimeout(1000, TimeUnit.MILLISECONDS);
+
+        assertEquals("The last repository should have had its own time to answer", 3, list.getAllResources().size());
+    }
+
+    /**
+     * The timeout is passed on to REST repositories so that their requests give up too
+     */
+    @Test
+    public void testRepositoryTimeoutSetOnConnections() {
+        RestRepositoryConnection before = new RestRepositoryConnection("http://localhost/before");
+        RepositoryConnectionList list = new RepositoryConnectionList(before);
+        list.setRepositoryTimeout(2, TimeUnit.SECONDS);
+        RestRepositoryConnection after = new RestRepositoryConnection("http://localhost/after");
+        list.add(after);
+
+        assertEquals(2000, before.getClientLoginInfo().getTimeout());
+        assertEquals(2000, after.getClientLoginInfo().getTimeout());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        new RepositoryConnectionList().setParallelism(0);
+    }
+
+    private static Asset createAsset(String name) {
+        Asset asset = new Asset();
+        asset.setName(name);
+        asset.setType(ResourceType.TOOL);
+        return asset;
+    }
+
+    /**
+     * A directory repository which is slow to list its resources
+     */
+    private static class SlowConnection extends DirectoryRepositoryConnection {
+        private final long delay;
+
+        SlowConnection(File root, long delay) {
+            super(root);
+            this.delay = delay;
+        }
+
+        @Override
+        public Collection<RepositoryResource> getAllResources() throws RepositoryBackendException {
+            sleep();
+            return super.getAllResources();
+        }
+
+        @Override
+        public Collection<RepositoryResource> getAllResourcesWithDupes() throws RepositoryBackendException {
+            sleep();
+            return super.getAllResourcesWithDupes();
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -18,9 +18,14 @@ package com.ibm.ws.repository.transport.client.test;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -36,6 +41,7 @@ import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.ClientFailureException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
 import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.Attachment;
 
 public class AbstractFileClientTest {
 
@@ -63,6 +69,45 @@ public class AbstractFileClientTest {
 
     }
 
+    @Test
+    public void testGetAttachmentFromOffset() throws Exception {
+        File repoDir = getTempDir();
+        File attachmentFile = new File(repoDir, "attachment.txt");
+        attachmentFile.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(attachmentFile)) {
+            out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Asset asset = new Asset();
+        Attachment attachment = new Attachment();
+        attachment.set_id("attachment.txt");
+
+        DirectoryClient client = new DirectoryClient(repoDir);
+        try (InputStream in = client.getAttachment(asset, attachment, 4)) {
+            assertEquals("The start of the attachment should have been skipped", "456789", readString(in));
+        }
+        try (InputStream in = client.getAttachment(asset, attachment, 10)) {
+            assertEquals("Nothing should be left after the end of the attachment", "", readString(in));
+        }
+
+        try {
+            client.getAttachment(asset, attachment, 11).close();
+            fail("An offset past the end of the attachment should fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
     public static File getTempDir() throws IOException {
         File tmpRepoRoot = File.createTempFile("tempRepoDir", null);
         tmpRepoRoot.delete();
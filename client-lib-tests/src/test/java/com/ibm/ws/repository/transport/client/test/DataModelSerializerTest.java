@@ -18,6 +18,7 @@ package com.ibm.ws.repository.transport.client.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -25,6 +26,7 @@ import static org.junit.Assert.fail;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -39,12 +41,15 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.ibm.ws.repository.common.enums.ChangeType;
 import com.ibm.ws.repository.common.enums.DisplayPolicy;
 import com.ibm.ws.repository.common.enums.Visibility;
 import com.ibm.ws.repository.transport.client.DataModelSerializer;
 import com.ibm.ws.repository.transport.client.JSONIgnore;
+import com.ibm.ws.repository.transport.client.ListElementHandler;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.AssetChanges;
 import com.ibm.ws.repository.transport.model.Provider;
 import com.ibm.ws.repository.transport.model.WlpInformation;
 
@@ -292,6 +297,70 @@ public class DataModelSerializerTest {
         }
     }
 
+    private static final String ASSET_LIST = "[{\"name\":\"first\", \"attachments\":[{\"name\":\"a.esa\", \"size\":2147484984}],"
+                                             + " \"wlpInformation\":{\"wlpInformationVersion\":\"1.0\", \"provideFeature\":[\"f1\", \"f2\"], \"mainAttachmentSize\":12}},"
+                                             + " {\"name\":\"tooNew\", \"wlpInformation\":{\"wlpInformationVersion\":\"3.0\"}},"
+                                             + " {\"name\":\"third\", \"description\":null}]";
+
+    /**
+     * Test that a list can be read one element at a time, with the same results as reading the
+     * whole list
+     */
+    @Test
+    public void testDeserializeListStreaming() throws Exception {
+        final List<Asset> streamed = new ArrayList<Asset>();
+        DataModelSerializer.deserializeList(new ByteArrayInputStream(ASSET_LIST.getBytes()), Asset.class, new ListElementHandler<Asset, RuntimeException>() {
+            @Override
+            public void handleElement(Asset element) {
+                streamed.add(element);
+            }
+        });
+
+        List<Asset> read = DataModelSerializer.deserializeList(new ByteArrayInputStream(ASSET_LIST.getBytes()), Asset.class);
+
+        // The element at an unsupported version is left out
+        assertEquals("Wrong number of assets", 2, streamed.size());
+        assertEquals("Wrong first asset", "first", streamed.get(0).getName());
+        assertEquals("Wrong attachment size", 2147484984L, streamed.get(0).getAttachments().get(0).getSize());
+        assertEquals("Wrong provide feature", Arrays.asList("f1", "f2"), new ArrayList<String>(streamed.get(0).getWlpInformation().getProvideFeature()));
+        assertEquals("Wrong main attachment size", 12, streamed.get(0).getWlpInformation().getMainAttachmentSize());
+        assertEquals("Wrong second asset", "third", streamed.get(1).getName());
+        assertEquals("Streaming and reading the whole list should give the same assets", read, streamed);
+    }
+
+    /**
+     * Test that an exception thrown by the handler stops the list being read and is passed back
+     */
+    @Test
+    public void testDeserializeListHandlerException() throws Exception {
+        final List<Asset> streamed = new ArrayList<Asset>();
+        try {
+            DataModelSerializer.deserializeList(new ByteArrayInputStream(ASSET_LIST.getBytes()), Asset.class, new ListElementHandler<Asset, BadVersionException>() {
+                @Override
+                public void handleElement(Asset element) throws BadVersionException {
+                    streamed.add(element);
+                    throw new BadVersionException("1.0", "2.0", "3.0");
+                }
+            });
+            fail("The handler's exception should have been thrown");
+        } catch (BadVersionException e) {
+            assertEquals("3.0", e.getBadVersion());
+        }
+        assertEquals("Reading should stop after the exception", 1, streamed.size());
+    }
+
+    @Test
+    public void testDeserializeListNotAList() throws Exception {
+        for (String json : new String[] { "{\"name\":\"notAList\"}", "[{\"name\":\"unfinished\"}", "[{\"name\":}]" }) {
+            try {
+                DataModelSerializer.deserializeList(new ByteArrayInputStream(json.getBytes()), Asset.class);
+                fail("IOException expected reading " + json);
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
     /**
      * A new "install" visibility was added for story 141811, test that we can read it
      *
@@ -636,6 +705,34 @@ public class DataModelSerializerTest {
         assertNull("Setter was invoked when it should not have been, so the data should be null", gotBack.getTestData());
     }
 
+    public static class ThrowingGetterTest {
+        public String getTestData() {
+            throw new UnsupportedOperationException("no data here");
+        }
+
+        public void setTestData(String testData) {}
+    }
+
+    /**
+     * Getters are called through a cached method handle, check that an exception from the getter
+     * is still reported the same way as when it was called by reflection
+     */
+    @Test
+    public void testGetterException() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                DataModelSerializer.serializeAsString(new ThrowingGetterTest());
+                fail("Exception from the getter should have been reported");
+            } catch (IOException e) {
+                Throwable cause = e.getCause();
+                assertTrue("Wrong cause: " + cause, cause instanceof IllegalStateException);
+                assertTrue("Wrong message: " + cause.getMessage(), cause.getMessage().contains("unable to invoke getter"));
+                assertTrue("Wrong cause: " + cause.getCause(), cause.getCause() instanceof InvocationTargetException);
+                assertTrue("Wrong target: " + cause.getCause().getCause(), cause.getCause().getCause() instanceof UnsupportedOperationException);
+            }
+        }
+    }
+
     @Test
     public void testIncompatibleChangesPutSomewhereElse() throws Exception {
         DataModelSerializer.IGNORE_UNKNOWN_FIELDS = true;
@@ -691,6 +788,26 @@ public class DataModelSerializerTest {
         assertEquals("The read in wlp inforamtion should say it has a visiblity of installer", Visibility.PUBLIC, reReadAsset.getWlpInformation().getVisibility());
     }
 
+    /**
+     * Reads a page of the change feed in the form the server writes it
+     */
+    @Test
+    public void testDeserializeAssetChanges() throws Exception {
+        String json = "{\"changes\":[{\"id\":\"1234\",\"type\":\"updated\",\"changedOn\":\"2026-10-17T10:15:30.0000000Z\"},"
+                      + "{\"id\":\"5678\",\"type\":\"deleted\",\"changedOn\":\"2026-10-17T10:16:00.0000000Z\"}],"
+                      + "\"token\":\"42\",\"more\":true,\"reset\":false}";
+        AssetChanges changes = DataModelSerializer.deserializeObject(new ByteArrayInputStream(json.getBytes()), AssetChanges.class);
+        assertEquals("42", changes.getToken());
+        assertTrue(changes.getMore());
+        assertFalse(changes.getReset());
+        assertEquals(2, changes.getChanges().size());
+        assertEquals("1234", changes.getChanges().get(0).getId());
+        assertEquals(ChangeType.UPDATED, changes.getChanges().get(0).getType());
+        assertNotNull(changes.getChanges().get(0).getChangedOn());
+        assertEquals("5678", changes.getChanges().get(1).getId());
+        assertEquals(ChangeType.DELETED, changes.getChanges().get(1).getType());
+    }
+
     private JsonObject parseStringToJson(String string) {
         StringReader reader = new StringReader(string);
         JsonReader jsonReader = Json.createReader(reader);
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.transport.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import com.ibm.ws.repository.common.enums.ResourceType;
+import com.ibm.ws.repository.transport.client.IndexedZipClient;
+import com.ibm.ws.repository.transport.client.JSONAssetConverter;
+import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.Attachment;
+
+/**
+ * Tests for the shared, reference counted zip file in {@link IndexedZipClient}
+ */
+public class IndexedZipClientTest {
+
+    @Test
+    public void testReopensWhenZipChanges() throws Exception {
+        File dir = AbstractFileClientTest.getTempDir();
+        File zip = new File(dir, "repo.zip");
+        writeRepository(zip, "one");
+
+        IndexedZipClient client = new IndexedZipClient(zip);
+        try {
+            assertEquals(1, client.getAllAssets().size());
+
+            // Replaced rather than rewritten, as the open zip would otherwise see the new content
+            File replacement = new File(dir, "replacement.zip");
+            writeRepository(replacement, "one", "two");
+            assertTrue(replacement.setLastModified(zip.lastModified() + 10000));
+            assertTrue(replacement.renameTo(zip));
+
+            assertEquals("The new asset should have been found", 2, client.getAllAssets().size());
+            assertEquals("content of two", readString(client.getAttachment(new Asset(), attachment("two"))));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testOpenStreamOutlivesClose() throws Exception {
+        File zip = new File(AbstractFileClientTest.getTempDir(), "repo.zip");
+        writeRepository(zip, "one");
+
+        IndexedZipClient client = new IndexedZipClient(zip);
+        InputStream in = client.getAttachment(new Asset(), attachment("one"));
+        client.close();
+
+        // The stream holds its own reference to the zip, so it can still be read
+        assertEquals("content of one", readString(in));
+    }
+
+    @Test
+    public void testOpenStreamOutlivesChangedZip() throws Exception {
+        File dir = AbstractFileClientTest.getTempDir();
+        File zip = new File(dir, "repo.zip");
+        writeRepository(zip, "one");
+
+        IndexedZipClient client = new IndexedZipClient(zip);
+        try {
+            InputStream in = client.getAttachment(new Asset(), attachment("one"));
+
+            File replacement = new File(dir, "replacement.zip");
+            writeRepository(replacement, "two");
+            assertTrue(replacement.setLastModified(zip.lastModified() + 10000));
+            assertTrue(replacement.renameTo(zip));
+
+            // Opens the new zip, and lets go of the old one, which the stream is still using
+            assertEquals(1, client.getAllAssets().size());
+            assertEquals("content of one", readString(in));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        File zip = new File(AbstractFileClientTest.getTempDir(), "repo.zip");
+        writeRepository(zip, "one", "two");
+
+        IndexedZipClient client = new IndexedZipClient(zip);
+        assertEquals(2, client.getAllAssets().size());
+        client.close();
+        client.close();
+
+        // The zip is opened again when it is next needed
+        assertNotNull(client.getAsset("one"));
+        assertEquals("content of two", readString(client.getAttachment(new Asset(), attachment("two"))));
+        client.close();
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        File zip = new File(AbstractFileClientTest.getTempDir(), "repo.zip");
+        final String[] names = new String[20];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "asset" + i;
+        }
+        writeRepository(zip, names);
+
+        final IndexedZipClient client = new IndexedZipClient(zip);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int repeat = 0; repeat < 10; repeat++) {
+                            assertEquals(names.length, client.getAllAssets().size());
+                            for (String name : names) {
+                                Asset asset = client.getAsset(name);
+                                assertEquals(name, asset.getName());
+                                assertEquals("content of " + name, readString(client.getAttachment(asset, attachment(name))));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                // Rethrows any failure from the thread
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+    }
+
+    /**
+     * Writes a zip holding an asset, and an attachment with the same id, for each name
+     */
+    private static void writeRepository(File zip, String... names) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+        for (String name : names) {
+            Asset asset = new Asset();
+            asset.setName(name);
+            asset.setType(ResourceType.TOOL);
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            JSONAssetConverter.writeValue(json, asset);
+            entries.put(name + ".json", json.toByteArray());
+            entries.put(name, ("content of " + name).getBytes(StandardCharsets.UTF_8));
+        }
+
+        zip.deleteOnExit();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static Attachment attachment(String id) {
+        Attachment attachment = new Attachment();
+        attachment.set_id(id);
+        return attachment;
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -15,15 +15,25 @@
  *******************************************************************************/
 package com.ibm.ws.repository.transport.client.test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -38,7 +48,10 @@ import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.transport.client.ClientLoginInfo;
 import com.ibm.ws.repository.transport.client.RestClient;
+import com.ibm.ws.repository.transport.client.RestartedInputStream;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
+import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.Attachment;
 
 public class RestClientUnitTest {
 
@@ -207,4 +220,134 @@ public class RestClientUnitTest {
         };
         client.checkRepositoryStatus();
     }
+
+    /**
+     * A resumed download should only get the rest of the content if it hasn't changed since the
+     * start of it was downloaded
+     */
+    @Test
+    public void testResumedDownloadSendsIfRange() throws Exception {
+        String url = "http://broken/attachments/ifrange";
+        FakeConnection first = new FakeConnection(url, HttpURLConnection.HTTP_OK, "\"abc\"", "0123456789".getBytes("UTF-8"));
+        FakeConnection second = new FakeConnection(url, HttpURLConnection.HTTP_PARTIAL, "\"abc\"", "456789".getBytes("UTF-8"));
+        RestClient client = createAttachmentClient(first, second);
+
+        readFully(client.getAttachment(new Asset(), new Attachment()));
+        assertNull(first.getRequestProperty("If-Range"));
+
+        InputStream rest = client.getAttachment(new Asset(), new Attachment(), 4);
+        assertEquals("bytes=4-", second.getRequestProperty("Range"));
+        assertEquals("\"abc\"", second.getRequestProperty("If-Range"));
+        assertFalse(rest instanceof RestartedInputStream);
+        assertArrayEquals("456789".getBytes("UTF-8"), readFully(rest));
+    }
+
+    /**
+     * If the server sends the whole content in reply to a ranged request, the download has to
+     * start again rather than skipping what may be different content
+     */
+    @Test
+    public void testResumedDownloadRestartsOnFullResponse() throws Exception {
+        String url = "http://broken/attachments/restart";
+        FakeConnection first = new FakeConnection(url, HttpURLConnection.HTTP_OK, "\"abc\"", "0123456789".getBytes("UTF-8"));
+        FakeConnection second = new FakeConnection(url, HttpURLConnection.HTTP_OK, "\"def\"", "abcdefghij".getBytes("UTF-8"));
+        FakeConnection third = new FakeConnection(url, HttpURLConnection.HTTP_PARTIAL, "\"def\"", "efghij".getBytes("UTF-8"));
+        RestClient client = createAttachmentClient(first, second, third);
+
+        readFully(client.getAttachment(new Asset(), new Attachment()));
+
+        InputStream restarted = client.getAttachment(new Asset(), new Attachment(), 4);
+        assertEquals("\"abc\"", second.getRequestProperty("If-Range"));
+        assertTrue(restarted instanceof RestartedInputStream);
+        assertArrayEquals("abcdefghij".getBytes("UTF-8"), readFully(restarted));
+
+        // Later resumes are checked against the new content
+        client.getAttachment(new Asset(), new Attachment(), 4).close();
+        assertEquals("\"def\"", third.getRequestProperty("If-Range"));
+    }
+
+    /**
+     * A weak entity tag can't be used in If-Range
+     */
+    @Test
+    public void testResumedDownloadIgnoresWeakTag() throws Exception {
+        String url = "http://broken/attachments/weak";
+        FakeConnection first = new FakeConnection(url, HttpURLConnection.HTTP_OK, "W/\"abc\"", "0123456789".getBytes("UTF-8"));
+        FakeConnection second = new FakeConnection(url, HttpURLConnection.HTTP_PARTIAL, "W/\"abc\"", "456789".getBytes("UTF-8"));
+        RestClient client = createAttachmentClient(first, second);
+
+        readFully(client.getAttachment(new Asset(), new Attachment()));
+        client.getAttachment(new Asset(), new Attachment(), 4).close();
+        assertNull(second.getRequestProperty("If-Range"));
+    }
+
+    /**
+     * Creates a client whose attachment requests are answered by the given connections, in order
+     */
+    private RestClient createAttachmentClient(FakeConnection... connections) {
+        final LinkedList<FakeConnection> remaining = new LinkedList<FakeConnection>(Arrays.asList(connections));
+        new MockUp<RestClient>() {
+            @Mock
+            HttpURLConnection createAttachmentConnection(Attachment attachment) {
+                return remaining.remove();
+            }
+        };
+        return new RestClient(new ClientLoginInfo("noone", "letmein", "123", "http://broken"));
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A connection which gives a fixed response without going near the network
+     */
+    private static class FakeConnection extends HttpURLConnection {
+        private final int code;
+        private final String entityTag;
+        private final byte[] body;
+
+        FakeConnection(String url, int code, String entityTag, byte[] body) throws IOException {
+            super(new URL(url));
+            this.code = code;
+            this.entityTag = entityTag;
+            this.body = body;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return code;
+        }
+
+        @Override
+        public String getHeaderField(String name) {
+            return "ETag".equalsIgnoreCase(name) ? entityTag : null;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void connect() {}
+
+        @Override
+        public void disconnect() {}
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.ibm.ws.repository.transport.client.ValidatorCache;
+
+public class ValidatorCacheTest {
+
+    private static final byte[] BODY = "0123456789".getBytes();
+
+    @Test
+    public void testCaptureOnEndOfStream() throws IOException {
+        ValidatorCache cache = new ValidatorCache(100, 100);
+        InputStream in = cache.capture("key", "\"tag\"", new ByteArrayInputStream(BODY));
+        assertNull("Nothing should be cached until the stream has been read", cache.get("key"));
+
+        byte[] buffer = new byte[3];
+        while (in.read(buffer) != -1) {
+            continue;
+        }
+
+        ValidatorCache.Entry entry = cache.get("key");
+        assertNotNull(entry);
+        assertEquals("\"tag\"", entry.getEntityTag());
+        assertArrayEquals(BODY, entry.getBody());
+    }
+
+    @Test
+    public void testCaptureOnClose() throws IOException {
+        ValidatorCache cache = new ValidatorCache(100, 100);
+        InputStream in = cache.capture("key", "\"tag\"", new ByteArrayInputStream(BODY));
+        assertEquals('0', in.read());
+        in.close();
+
+        assertArrayEquals("Unread data should be read on close", BODY, cache.get("key").getBody());
+    }
+
+    @Test
+    public void testTooBigToCapture() throws IOException {
+        ValidatorCache cache = new ValidatorCache(100, 5);
+        cache.put("key", "\"old\"", new byte[] { 1 });
+
+        InputStream in = cache.capture("key", "\"tag\"", new ByteArrayInputStream(BODY));
+        byte[] read = new byte[BODY.length];
+        assertEquals(BODY.length, in.read(read));
+        assertArrayEquals("The data should be passed through unchanged", BODY, read);
+        in.close();
+
+        assertNull("A body bigger than the maximum entry size should not be cached", cache.get("key"));
+    }
+
+    @Test
+    public void testEviction() {
+        ValidatorCache cache = new ValidatorCache(25, 10);
+        cache.put("a", "\"a\"", BODY);
+        cache.put("b", "\"b\"", BODY);
+        cache.get("a");
+        cache.put("c", "\"c\"", BODY);
+
+        assertNotNull(cache.get("a"));
+        assertNull("The least recently used entry should have been evicted", cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.common.enums;
+
+/**
+ * The kinds of change to an asset reported by the repository's change feed
+ */
+public enum ChangeType {
+    /**
+     * The asset has been added to the repository
+     */
+    CREATED("created"),
+    /**
+     * The asset or one of its attachments has been modified
+     */
+    UPDATED("updated"),
+    /**
+     * The asset has been deleted, or can no longer be seen by the user
+     */
+    DELETED("deleted");
+
+    private final String type;
+
+    private ChangeType(String type) {
+        this.type = type;
+    }
+
+    public String getValue() {
+        return type;
+    }
+
+    public static ChangeType forValue(String value) {
+        for (ChangeType type : ChangeType.values()) {
+            if (type.getValue().equals(value)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+}
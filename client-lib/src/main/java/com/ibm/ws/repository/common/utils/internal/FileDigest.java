@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.common.utils.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The length, CRC32 and SHA-256 hash of a file, all worked out in a single read of it.
+ * <p>
+ * The results are cached by the path of the file, and are used again for as long as the file's
+ * last modified time and length are unchanged. Adding an attachment and then uploading it
+ * therefore reads the file twice, once to digest it and once to send it, whichever of its
+ * properties are asked for.
+ */
+public class FileDigest {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /** The number of files whose digests are kept */
+    private static final int CACHE_SIZE = 100;
+
+    private static final Map<String, FileDigest> cache = new LinkedHashMap<String, FileDigest>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileDigest> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final long lastModified;
+    private final long length;
+    private final long crc;
+    private final String sha256;
+
+    private FileDigest(long lastModified, long length, long crc, String sha256) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.crc = crc;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * @return the number of bytes in the file
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the CRC32 checksum of the file
+     */
+    public long getCRC() {
+        return crc;
+    }
+
+    /**
+     * @return the hex SHA-256 hash of the file
+     */
+    public String getSHA256() {
+        return sha256;
+    }
+
+    /**
+     * Gets the digest of a file, reading it only if it has changed since it was last digested
+     *
+     * @param file the file to digest
+     * @return the digest of the file
+     * @throws IOException if the file can't be read
+     */
+    public static FileDigest forFile(File file) throws IOException {
+        return copy(file, null);
+    }
+
+    /**
+     * Writes the content of a file to a stream, working out its digest at the same time. The
+     * digest is cached, so asking for it again afterwards won't read the file again.
+     *
+     * @param file the file to copy
+     * @param out the stream to write the file to, or null to only digest the file
+     * @return the digest of the content that was written
+     * @throws IOException if the file can't be read or the stream can't be written to
+     */
+    public static FileDigest copy(final File file, OutputStream out) throws IOException {
+        final String key = file.getAbsolutePath();
+        long lastModified = lastModified(file);
+
+        if (out == null) {
+            FileDigest cached;
+            synchronized (cache) {
+                cached = cache.get(key);
+            }
+            if (cached != null && cached.lastModified == lastModified && cached.length == length(file)) {
+                return cached;
+            }
+        }
+
+        MessageDigest sha256 = HashUtils.getMessageDigest(HashUtils.SHA256);
+        CRC32 crc = new CRC32();
+        long length = 0;
+
+        InputStream in = open(file);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha256.update(buffer, 0, read);
+                crc.update(buffer, 0, read);
+                if (out != null) {
+                    out.write(buffer, 0, read);
+                }
+                length += read;
+            }
+        } finally {
+            in.close();
+        }
+
+        FileDigest digest = new FileDigest(lastModified, length, crc.getValue(), HashUtils.byteArrayToHexString(sha256.digest()));
+        // Only keep the result if the file wasn't changed while it was being read
+        if (lastModified(file) == lastModified && length(file) == length) {
+            synchronized (cache) {
+                cache.put(key, digest);
+            }
+        }
+        return digest;
+    }
+
+    private static InputStream open(final File file) throws IOException {
+        try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<InputStream>() {
+                @Override
+                public InputStream run() throws IOException {
+                    return new FileInputStream(file);
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    private static long lastModified(final File file) {
+        return AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return file.lastModified();
+            }
+        });
+    }
+
+    private static long length(final File file) {
+        return AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return file.length();
+            }
+        });
+    }
+}
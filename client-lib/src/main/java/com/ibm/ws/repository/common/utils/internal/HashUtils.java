@@ -28,7 +28,7 @@ import java.security.NoSuchAlgorithmException;
 public class HashUtils {
 
     private static final char hexDigits[] = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
-    private static final String SHA256 = "SHA-256";
+    static final String SHA256 = "SHA-256";
     private static final String MD5 = "MD5";
 
     /**
@@ -51,8 +51,8 @@ public class HashUtils {
      * @throws IOException
      */
     public static String getFileSHA256String(File file) throws IOException {
-        MessageDigest messageDigest = getMessageDigest(SHA256);
-        return getFileHashString(file, messageDigest);
+        // The digest also has the length and CRC needed for attachments, and is cached
+        return FileDigest.forFile(file).getSHA256();
     }
 
     private static String getFileHashString(File file, MessageDigest messagedigest) throws IOException {
@@ -60,7 +60,7 @@ public class HashUtils {
         try {
             fis = new FileInputStream(file);
 
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[64 * 1024];
             int numRead = 0;
             while ((numRead = fis.read(buffer)) > 0) {
                 messagedigest.update(buffer, 0, numRead);
@@ -76,7 +76,7 @@ public class HashUtils {
         return byteArrayToHexString(messagedigest.digest());
     }
 
-    private static String byteArrayToHexString(byte[] byteArray) {
+    static String byteArrayToHexString(byte[] byteArray) {
 
         StringBuffer stringbuffer = new StringBuffer(2 * byteArray.length);
         for (int i = 0; i < byteArray.length; i++) {
@@ -96,7 +96,7 @@ public class HashUtils {
      * @param digestType - MD5 or SHA-256
      * @return the MessageDigest of the requested type
      */
-    private static MessageDigest getMessageDigest(String digestType) {
+    static MessageDigest getMessageDigest(String digestType) {
         MessageDigest messageDigest;
         try {
             messageDigest = MessageDigest.getInstance(digestType);
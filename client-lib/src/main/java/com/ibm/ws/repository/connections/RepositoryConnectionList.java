@@ -24,6 +24,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 import com.ibm.ws.repository.common.enums.FilterPredicate;
 import com.ibm.ws.repository.common.enums.FilterableAttribute;
@@ -32,6 +44,7 @@ import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.Visibility;
 import com.ibm.ws.repository.connections.internal.AbstractRepositoryConnection;
 import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendIOException;
 import com.ibm.ws.repository.exceptions.RepositoryException;
 import com.ibm.ws.repository.resources.AdminScriptResource;
 import com.ibm.ws.repository.resources.ConfigSnippetResource;
@@ -51,14 +64,31 @@ import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolic
  * This class represents a list of RepositoryConnection objects used to connect to repositories.
  * Do not use a RepositoryConnection inside multiple RepositoryConnectionList objects as setting a userAgent in the RepositoryConnectionList object
  * will update each RepositoryConnection it contains.
+ * <p>
+ * By default the repositories are queried one after another. Calling {@link #setParallelism(int)} makes
+ * the list query several repositories at once; the results are still merged in list order, so where the
+ * same resource is in more than one repository, the one from the earliest repository in the list is kept.
+ * A repository which doesn't answer within the {@link #setRepositoryTimeout(long, TimeUnit) repository
+ * timeout} is left out of the results.
  */
 public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
 
     /** SerialVesionUID */
     private static final long serialVersionUID = -4525841713558054978L;
 
+    /** The most threads running parallel queries at once, across every list */
+    private static final int MAX_QUERY_THREADS = 16;
+
+    private static final ThreadPoolExecutor QUERY_EXECUTOR = createQueryExecutor();
+
+    private static final Logger logger = Logger.getLogger(RepositoryConnectionList.class.getName());
+
     private String _userAgent;
 
+    private int _parallelism = 1;
+
+    private long _repositoryTimeoutMillis = 0;
+
     /**
      * Creates an empty RepositoryConnectionList
      */
@@ -91,6 +121,9 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         boolean ret = super.add(repoConnection);
         if (repoConnection instanceof RestRepositoryConnection) {
             ((RestRepositoryConnection) repoConnection).setUserAgent(_userAgent);
+            if (_repositoryTimeoutMillis > 0) {
+                ((RestRepositoryConnection) repoConnection).setTimeout(getConnectionTimeout());
+            }
         }
         return ret;
     }
@@ -117,6 +150,66 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         }
     }
 
+    /**
+     * @return the maximum number of repositories which are queried at the same time
+     */
+    public int getParallelism() {
+        return _parallelism;
+    }
+
+    /**
+     * Sets the maximum number of repositories which are queried at the same time. The default of 1
+     * queries the repositories one after another on the calling thread.
+     *
+     * @param parallelism the maximum number of concurrent queries, must be at least 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1 but was " + parallelism);
+        }
+        _parallelism = parallelism;
+    }
+
+    /**
+     * @return the time in milliseconds to wait for each repository, or 0 to wait as long as it takes
+     */
+    public long getRepositoryTimeout() {
+        return _repositoryTimeoutMillis;
+    }
+
+    /**
+     * Sets how long to wait for each repository to answer a query when querying them in parallel.
+     * <p>
+     * Each repository has the whole timeout, counted from when its query starts rather than from
+     * when it was queued waiting for a thread. A repository which doesn't answer in time is left
+     * out, with a warning logged, and the results from the others are merged as usual.
+     * <p>
+     * The timeout is also set as the connect and read timeout of the REST repositories in the list,
+     * so that a query which has been given up on soon stops holding one of the threads shared by
+     * every list. Only the waiting for the answer is skipped when the parallelism is 1.
+     *
+     * @param timeout the time to wait, or 0 to wait as long as it takes
+     * @param unit the unit of <code>timeout</code>
+     */
+    public void setRepositoryTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative but was " + timeout);
+        }
+        _repositoryTimeoutMillis = unit.toMillis(timeout);
+        for (RepositoryConnection repoConnection : this) {
+            if (repoConnection instanceof RestRepositoryConnection) {
+                ((RestRepositoryConnection) repoConnection).setTimeout(getConnectionTimeout());
+            }
+        }
+    }
+
+    /**
+     * @return the repository timeout as a connection timeout, where 0 means the default
+     */
+    private int getConnectionTimeout() {
+        return (int) Math.min(_repositoryTimeoutMillis, Integer.MAX_VALUE);
+    }
+
     /*
      * ------------------------------------------------------------------------------------------------
      * The following methods all iterate through the list of repository connections and perform
@@ -128,6 +221,161 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         Collection<T> performActionOnRepository(RepositoryConnection connection) throws RepositoryBackendException;
     }
 
+    private interface RepositoryQuery<R> {
+        R query(RepositoryConnection connection) throws RepositoryBackendException;
+    }
+
+    /**
+     * Runs the query against every repository, in parallel if the parallelism allows it.
+     *
+     * @return the results, in the same order as the repositories in this list, leaving out any
+     *         repository which timed out
+     */
+    private <R> List<R> queryAll(final RepositoryQuery<R> query) throws RepositoryBackendException {
+        List<R> results = new ArrayList<R>(size());
+        int threads = Math.min(_parallelism, size());
+        if (threads <= 1) {
+            for (RepositoryConnection connection : this) {
+                results.add(query.query(connection));
+            }
+            return results;
+        }
+
+        final List<QueryTask<R>> tasks = new ArrayList<QueryTask<R>>(size());
+        for (final RepositoryConnection connection : this) {
+            tasks.add(new QueryTask<R>(new Callable<R>() {
+                @Override
+                public R call() throws RepositoryBackendException {
+                    return query.query(connection);
+                }
+            }));
+        }
+
+        // The executor is shared, so the parallelism is enforced by only handing it this many
+        // workers, each of which runs the queries one after another
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = next.getAndIncrement()) < tasks.size()) {
+                    tasks.get(index).run();
+                }
+            }
+        };
+        List<Future<?>> workers = new ArrayList<Future<?>>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.add(QUERY_EXECUTOR.submit(worker));
+            }
+
+            for (int i = 0; i < tasks.size(); i++) {
+                QueryTask<R> task = tasks.get(i);
+                try {
+                    results.add(waitFor(task, get(i)));
+                } catch (TimeoutException e) {
+                    logger.warning("Leaving out " + get(i).getRepositoryLocation() + " as it didn't answer within " + _repositoryTimeoutMillis + "ms");
+                    task.cancel(true);
+                    // The abandoned query holds on to its worker until the connection gives up, so
+                    // start another to keep the rest of the queries going
+                    if (next.get() < tasks.size()) {
+                        workers.add(QUERY_EXECUTOR.submit(worker));
+                    }
+                }
+            }
+            return results;
+        } finally {
+            // Abandon anything still running or queued, which is only the case if a query failed
+            for (Future<?> submitted : workers) {
+                submitted.cancel(false);
+            }
+            for (FutureTask<R> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor createQueryExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_QUERY_THREADS, MAX_QUERY_THREADS, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), QueryThreadFactory.INSTANCE);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Gets the result of a query, unwrapping any exception it threw
+     *
+     * @throws TimeoutException if the query has run for longer than the repository timeout
+     */
+    private <R> R waitFor(QueryTask<R> task, RepositoryConnection connection) throws RepositoryBackendException, TimeoutException {
+        try {
+            if (_repositoryTimeoutMillis > 0) {
+                // Time spent queued for a thread doesn't count against the repository
+                long deadline = task.awaitStart() + TimeUnit.MILLISECONDS.toNanos(_repositoryTimeoutMillis);
+                return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RepositoryBackendException) {
+                throw (RepositoryBackendException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RepositoryBackendIOException("Unexpected exception querying " + connection.getRepositoryLocation(), cause, connection);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryBackendIOException("Interrupted querying " + connection.getRepositoryLocation(), e, connection);
+        }
+    }
+
+    /**
+     * A query which records when it starts running
+     */
+    private static class QueryTask<R> extends FutureTask<R> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile long startTime;
+
+        QueryTask(Callable<R> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            started.countDown();
+            super.run();
+        }
+
+        /**
+         * Waits for the query to start running
+         *
+         * @return the {@link System#nanoTime()} when it started
+         */
+        long awaitStart() throws InterruptedException {
+            started.await();
+            return startTime;
+        }
+    }
+
+    /**
+     * Makes daemon threads, so that a query which has been abandoned after a timeout, or an idle
+     * thread, doesn't keep the JVM running
+     */
+    private static class QueryThreadFactory implements ThreadFactory {
+        private static final QueryThreadFactory INSTANCE = new QueryThreadFactory();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "RepositoryConnectionList-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private <T extends RepositoryResource> Collection<T> cycleThroughRepositories(RepositoryInvoker<T> invoker) throws RepositoryBackendException {
         return performCycle(invoker, new ResourceCollector<T>(DuplicatePolicy.FORBID_DUPLICATES));
     }
@@ -136,13 +384,18 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         return performCycle(invoker, new ResourceCollector<T>(DuplicatePolicy.ALLOW_DUPLICATES));
     }
 
-    private <T extends RepositoryResource> Collection<T> performCycle(RepositoryInvoker<T> invoker, ResourceCollector<T> resources) throws RepositoryBackendException {
+    private <T extends RepositoryResource> Collection<T> performCycle(final RepositoryInvoker<T> invoker, ResourceCollector<T> resources) throws RepositoryBackendException {
         if (this.size() == 1) {
             // Nothing to iterate over, just return the first result directly
             return invoker.performActionOnRepository(this.get(0));
         }
-        for (RepositoryConnection repoConnection : this) {
-            Collection<T> reses = invoker.performActionOnRepository(repoConnection);
+        List<Collection<T>> allReses = queryAll(new RepositoryQuery<Collection<T>>() {
+            @Override
+            public Collection<T> query(RepositoryConnection connection) throws RepositoryBackendException {
+                return invoker.performActionOnRepository(connection);
+            }
+        });
+        for (Collection<T> reses : allReses) {
             for (T res : reses) {
                 resources.add(res);
             }
@@ -534,9 +787,9 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
      *         no assets of that type were found
      * @throws RepositoryBackendException
      */
-    public Map<ResourceType, Collection<? extends RepositoryResource>> getResources(Collection<ProductDefinition> productDefinitions,
-                                                                                    Collection<ResourceType> types,
-                                                                                    Visibility visibility) throws RepositoryBackendException {
+    public Map<ResourceType, Collection<? extends RepositoryResource>> getResources(final Collection<ProductDefinition> productDefinitions,
+                                                                                    final Collection<ResourceType> types,
+                                                                                    final Visibility visibility) throws RepositoryBackendException {
         // If there's only one connection, just return the result from it
         if (this.size() == 1) {
             return this.get(0).getResources(productDefinitions, types, visibility);
@@ -545,10 +798,15 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         // Otherwise, we need to merge the results
         Map<ResourceType, ResourceCollector<RepositoryResource>> combinedMap = new HashMap<ResourceType, ResourceCollector<RepositoryResource>>();
 
-        for (RepositoryConnection connection : this) {
-            AbstractRepositoryConnection conn = (AbstractRepositoryConnection) connection;
+        List<Map<ResourceType, Collection<? extends RepositoryResource>>> allRepos = queryAll(new RepositoryQuery<Map<ResourceType, Collection<? extends RepositoryResource>>>() {
+            @Override
+            public Map<ResourceType, Collection<? extends RepositoryResource>> query(RepositoryConnection connection) throws RepositoryBackendException {
+                AbstractRepositoryConnection conn = (AbstractRepositoryConnection) connection;
+                return conn.getResources(productDefinitions, types, visibility);
+            }
+        });
 
-            Map<ResourceType, Collection<? extends RepositoryResource>> singleRepo = conn.getResources(productDefinitions, types, visibility);
+        for (Map<ResourceType, Collection<? extends RepositoryResource>> singleRepo : allRepos) {
             for (Entry<ResourceType, Collection<? extends RepositoryResource>> entry : singleRepo.entrySet()) {
 
                 Collection<? extends RepositoryResource> singleType = entry.getValue();
@@ -16,9 +16,18 @@
 
 package com.ibm.ws.repository.connections;
 
+import java.io.IOException;
+
 import com.ibm.ws.repository.connections.internal.AbstractRepositoryConnection;
+import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendIOException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendRequestFailureException;
+import com.ibm.ws.repository.exceptions.RepositoryBadDataException;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.client.RestClient;
+import com.ibm.ws.repository.transport.exceptions.BadVersionException;
+import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
+import com.ibm.ws.repository.transport.model.AssetChanges;
 
 public class RestRepositoryConnection extends AbstractRepositoryConnection implements RepositoryConnection {
 
@@ -35,6 +44,8 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
 
     private String userAgent;
 
+    private int timeout;
+
     private RestRepositoryConnectionProxy proxy;
 
     public RestRepositoryConnection(String repositoryUrl) {
@@ -134,6 +145,7 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
         if (proxy != null) {
             clientLogin.setProxy(proxy.getLoginInfoClientProxy());
         }
+        clientLogin.setTimeout(timeout);
         return clientLogin;
     }
 
@@ -145,6 +157,22 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
         return proxy;
     }
 
+    /**
+     * @return the connect and read timeout in milliseconds, or 0 for the default
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets how long to wait to connect to the repository, and for each read from it, before giving up
+     *
+     * @param timeout the timeout in milliseconds, or 0 for the default
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      * Returns a URL which represent the URL that can be used to view the asset in Massive. This is more
      * for testing purposes, the assets can be access programatically via various methods on this class.
@@ -191,6 +219,33 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
         return getRepositoryUrl();
     }
 
+    /**
+     * Gets the assets which have been created, updated or deleted since the last call, so that a
+     * local copy of the repository can be kept up to date without fetching every asset.
+     * <p>
+     * Start by calling this with <code>null</code>, which returns a token and sets
+     * {@link AssetChanges#getReset()}. Fetch every resource, then pass the token to the next call.
+     * Each call returns the token to use for the one after. Keep calling straight away while
+     * {@link AssetChanges#getMore()} is true. If reset is set again, the repository could not tell
+     * what has changed, so every resource must be fetched again.
+     *
+     * @param since the token returned by the previous call, or <code>null</code> to start
+     * @return the changed asset ids and the next token
+     * @throws RepositoryBackendException
+     * @throws RepositoryBadDataException
+     */
+    public AssetChanges getChanges(String since) throws RepositoryBackendException, RepositoryBadDataException {
+        try {
+            return new RestClient(getClientLoginInfo()).getChanges(since);
+        } catch (IOException ioe) {
+            throw new RepositoryBackendIOException("Failed to read the change feed", ioe, this);
+        } catch (BadVersionException bvx) {
+            throw new RepositoryBadDataException("BadVersion reading the change feed", null, bvx);
+        } catch (RequestFailureException bfe) {
+            throw new RepositoryBackendRequestFailureException(bfe, this);
+        }
+    }
+
     @Override
     public RepositoryReadableClient createClient() {
         return new RestClient(getClientLoginInfo());
@@ -15,24 +15,45 @@
  *******************************************************************************/
 package com.ibm.ws.repository.connections;
 
+import java.io.Closeable;
 import java.io.File;
 
 import com.ibm.ws.repository.connections.internal.AbstractRepositoryConnection;
+import com.ibm.ws.repository.transport.client.IndexedZipClient;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.client.ZipClient;
 
 /**
  *
  */
-public class ZipRepositoryConnection extends AbstractRepositoryConnection implements RepositoryConnection {
+public class ZipRepositoryConnection extends AbstractRepositoryConnection implements RepositoryConnection, Closeable {
 
     private final File _zip;
 
+    /** The client shared by every request when the connection is indexed, otherwise null */
+    private final IndexedZipClient _indexedClient;
+
     /**
      * @param type
      */
     public ZipRepositoryConnection(File zip) {
+        this(zip, false);
+    }
+
+    /**
+     * Creates a connection to a zip repository.
+     * <p>
+     * An indexed connection opens the zip once and keeps it open, along with an index of its
+     * entries and the licenses of the assets in it, which is much faster for large repositories.
+     * It must be closed when it is finished with to release the zip file.
+     *
+     * @param zip the zip file
+     * @param indexed <code>true</code> to keep the zip open between requests
+     * @see IndexedZipClient
+     */
+    public ZipRepositoryConnection(File zip, boolean indexed) {
         _zip = zip;
+        _indexedClient = indexed ? new IndexedZipClient(zip) : null;
     }
 
     public File getZip() {
@@ -47,7 +68,20 @@ public class ZipRepositoryConnection extends AbstractRepositoryConnection implem
 
     @Override
     public RepositoryReadableClient createClient() {
+        if (_indexedClient != null) {
+            return _indexedClient;
+        }
         return new ZipClient(getZip());
     }
 
+    /**
+     * Releases the zip file if this is an indexed connection, otherwise does nothing
+     */
+    @Override
+    public void close() {
+        if (_indexedClient != null) {
+            _indexedClient.close();
+        }
+    }
+
 }
@@ -45,6 +45,7 @@ import com.ibm.ws.repository.resources.internal.ResourceCollector;
 import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolicy;
 import com.ibm.ws.repository.resources.internal.ResourceFactory;
 import com.ibm.ws.repository.resources.internal.SampleResourceImpl;
+import com.ibm.ws.repository.transport.client.ListElementHandler;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
@@ -319,14 +320,16 @@ public abstract class AbstractRepositoryConnection implements RepositoryConnecti
      */
     public abstract RepositoryReadableClient createClient();
 
-    private Collection<RepositoryResource> getAllResources(ResourceCollector<RepositoryResource> resources) throws RepositoryBackendException {
+    private Collection<RepositoryResource> getAllResources(final ResourceCollector<RepositoryResource> resources) throws RepositoryBackendException {
         RepositoryReadableClient client = createClient();
-        Collection<Asset> assets;
         try {
-            assets = client.getAllAssets();
-            for (Asset ass : assets) {
-                resources.add(ResourceFactory.getInstance().createResourceFromAsset(ass, this));
-            }
+            // Each resource is made as soon as its asset has been read, so the assets are never all held at once
+            client.getAllAssets(new ListElementHandler<Asset, RepositoryBackendException>() {
+                @Override
+                public void handleElement(Asset ass) throws RepositoryBackendException {
+                    resources.add(ResourceFactory.getInstance().createResourceFromAsset(ass, AbstractRepositoryConnection.this));
+                }
+            });
         } catch (IOException ioe) {
             throw new RepositoryBackendIOException("Failed to obtain the assets from massive", ioe, this);
         } catch (RequestFailureException e) {
@@ -366,6 +366,22 @@ public class EsaResourceImpl extends RepositoryResourceImpl implements EsaResour
         return matchingData;
     }
 
+    /**
+     * Features are matched on their symbolic name rather than their name. Without a symbolic name
+     * the only thing to query on is the type, which would return every feature, so the server isn't
+     * asked.
+     */
+    @Override
+    protected Map<String, String> getMatchingQuery() {
+        if (getProvideFeature() == null) {
+            return null;
+        }
+        Map<String, String> query = new HashMap<String, String>();
+        query.put(FilterableAttribute.TYPE.getAttributeName(), getType().getValue());
+        query.put(FilterableAttribute.SYMBOLIC_NAME.getAttributeName(), getProvideFeature());
+        return query;
+    }
+
     @Override
     protected Collection<? extends RepositoryResource> getPotentiallyMatchingResources() throws RepositoryBackendException, RepositoryResourceNoConnectionException {
         Collection<RepositoryResource> resources;
@@ -16,7 +16,6 @@
 
 package com.ibm.ws.repository.resources.internal;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -25,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
@@ -36,9 +36,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Logger;
-import java.util.zip.CRC32;
-import java.util.zip.CheckedInputStream;
 
 import org.osgi.framework.Version;
 import org.osgi.framework.VersionRange;
@@ -47,12 +46,14 @@ import com.ibm.ws.repository.common.enums.AttachmentLinkType;
 import com.ibm.ws.repository.common.enums.AttachmentType;
 import com.ibm.ws.repository.common.enums.DisplayPolicy;
 import com.ibm.ws.repository.common.enums.DownloadPolicy;
+import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.LicenseType;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.ResourceTypeLabel;
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.common.enums.StateAction;
 import com.ibm.ws.repository.common.enums.Visibility;
+import com.ibm.ws.repository.common.utils.internal.FileDigest;
 import com.ibm.ws.repository.common.utils.internal.HashUtils;
 import com.ibm.ws.repository.connections.ProductDefinition;
 import com.ibm.ws.repository.connections.RepositoryConnection;
@@ -80,6 +81,8 @@ import com.ibm.ws.repository.resources.writeable.RepositoryResourceWritable;
 import com.ibm.ws.repository.strategies.writeable.UploadStrategy;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.client.RepositoryWriteableClient;
+import com.ibm.ws.repository.transport.client.RestClient;
+import com.ibm.ws.repository.transport.client.RestartedInputStream;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.ClientFailureException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
@@ -958,7 +961,11 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
     }
 
     protected List<RepositoryResourceImpl> performMatching() throws BadVersionException, RequestFailureException, RepositoryBadDataException, RepositoryBackendException, RepositoryResourceNoConnectionException {
-        List<RepositoryResourceImpl> matching = new ArrayList<RepositoryResourceImpl>();
+        List<RepositoryResourceImpl> matching = performServerSideMatching();
+        if (matching != null) {
+            return matching;
+        }
+        matching = new ArrayList<RepositoryResourceImpl>();
 
         @SuppressWarnings("unchecked")
         Collection<RepositoryResourceImpl> resources = (Collection<RepositoryResourceImpl>) getPotentiallyMatchingResources();
@@ -975,6 +982,68 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         return matching;
     }
 
+    /**
+     * Asks the server for the assets which could match this one, complete with their attachments,
+     * so that matching doesn't need a request for each candidate.
+     *
+     * @return the matching resources, or <code>null</code> if the repository can't be queried this
+     *         way, in which case the caller should fall back to {@link #getPotentiallyMatchingResources()}
+     */
+    private List<RepositoryResourceImpl> performServerSideMatching() throws RequestFailureException, RepositoryBackendException, RepositoryResourceNoConnectionException {
+        RepositoryConnection connection = getAndCheckRepositoryConnection();
+        Map<String, String> query = getMatchingQuery();
+        if (query == null || !(connection instanceof RestRepositoryConnection)) {
+            return null;
+        }
+        RepositoryReadableClient client = ((RestRepositoryConnection) connection).createClient();
+        if (!(client instanceof RestClient)) {
+            return null;
+        }
+
+        Collection<Asset> assets;
+        try {
+            assets = ((RestClient) client).getAssetsWithAttachments(query);
+        } catch (IOException e) {
+            throw new RepositoryBackendIOException("Failed to find matching assets", e, connection);
+        }
+        if (assets == null) {
+            return null;
+        }
+
+        List<RepositoryResourceImpl> matching = new ArrayList<RepositoryResourceImpl>();
+        RepositoryResourceMatchingData matchingData = createMatchingData();
+        for (Asset asset : assets) {
+            RepositoryResourceImpl resource = ResourceFactory.getInstance().createResourceFromAsset(asset, connection);
+            if (resource != null && matchingData.equals(resource.createMatchingData())) {
+                matching.add(resource);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the field values which every resource matching this one must have, as a map from the
+     * name of the field in the asset JSON to its value. The server uses these to find the
+     * candidates, which are then compared using {@link #createMatchingData()}, so the query may
+     * match more resources than really match but must never match fewer.
+     *
+     * @return the query, or <code>null</code> if there isn't a useful one
+     */
+    protected Map<String, String> getMatchingQuery() {
+        if (getType() == null) {
+            return null;
+        }
+        Map<String, String> query = new HashMap<String, String>();
+        query.put(FilterableAttribute.TYPE.getAttributeName(), getType().getValue());
+        if (getName() != null) {
+            query.put("name", getName());
+        }
+        if (getProviderName() != null) {
+            query.put("provider.name", getProviderName());
+        }
+        return query;
+    }
+
     /**
      * Returns a superset of resources to those returned by {@link #performMatching()}
      *
@@ -1260,8 +1329,8 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
                     try {
                         at.downloadToFile(tempFile);
                     } catch (IOException e) {
-                        // try once more, if we fail then give up on this asset
-                        at.downloadToFile(tempFile);
+                        // try once more, carrying on from where we got to, if we fail then give up on this asset
+                        at.resumeDownloadToFile(tempFile);
                     }
                     at.setURL(null);
                     at.setFile(tempFile);
@@ -1534,29 +1603,6 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         return "<MassiveResource@" + this.hashCode() + " <Asset=" + _asset + ">>";
     }
 
-    /*
-     * ------------------------------------------------------------------------------------------------
-     * PRIVATE INTERNAL METHODS
-     * ------------------------------------------------------------------------------------------------
-     */
-
-    /**
-     * Get the CRC of a file from an InputStream
-     *
-     * @param is The input stream to obtain the CRC from
-     * @return a long representing the CRC value of the data read from the supplied input stream
-     * @throws IOException
-     */
-    private static long getCRC(InputStream is) throws IOException {
-        CheckedInputStream check = new CheckedInputStream(is, new CRC32());
-        BufferedInputStream in = new BufferedInputStream(check);
-        while (in.read() != -1) {
-            // Read file in completely
-        }
-        long crc = check.getChecksum().getValue();
-        return crc;
-    }
-
     /*
      * ------------------------------------------------------------------------------------------------
      * ATTACHMENT CLASSES
@@ -1641,8 +1687,15 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         }
 
         private void setFileProps() throws RepositoryException {
-            setSize(getFileLength());
-            setCRC(calculateCRC());
+            if (_file == null) {
+                setSize(0);
+                setCRC(0);
+                return;
+            }
+            FileDigest digest = getFileDigest();
+            setSize(digest.getLength());
+            setCRC(digest.getCRC());
+            _attachment.setSha256(digest.getSHA256());
         }
 
         /**
@@ -1727,7 +1780,21 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         /** {@inheritDoc} */
         @Override
         public InputStream getInputStream() throws RepositoryBackendException, RepositoryBadDataException {
+            return getInputStream(0);
+        }
+
+        /**
+         * Gets the content of the attachment, leaving out the first <code>offset</code> bytes
+         *
+         * @param offset the number of bytes to leave out
+         * @return the content from <code>offset</code> onwards, or a {@link RestartedInputStream}
+         *         of all of it if the download can't be resumed
+         */
+        public InputStream getInputStream(long offset) throws RepositoryBackendException, RepositoryBadDataException {
             try {
+                if (offset > 0) {
+                    return _client.getAttachment(_asset, _attachment, offset);
+                }
                 return _client.getAttachment(_asset, _attachment);
             } catch (IOException e) {
                 throw new RepositoryBackendIOException("Failed to get read attachment", e, getRepositoryConnection());
@@ -1882,15 +1949,44 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
          * @throws RepositoryBadDataException
          */
         public void downloadToFile(final File fileToWriteTo) throws RepositoryBackendException, IOException, RepositoryBadDataException {
+            writeToFile(fileToWriteTo, 0);
+        }
+
+        /**
+         * Carries on downloading the attachment to a file which holds the start of it from an
+         * earlier, interrupted, download. Only the rest of the attachment is fetched. If the file is
+         * empty or doesn't exist, this is the same as {@link #downloadToFile(File)}.
+         *
+         * @param fileToWriteTo The file holding the start of the attachment
+         * @throws RepositoryBackendException
+         * @throws RepositoryBadDataException
+         */
+        public void resumeDownloadToFile(final File fileToWriteTo) throws RepositoryBackendException, IOException, RepositoryBadDataException {
+            long existingLength = AccessController.doPrivileged(new PrivilegedAction<Long>() {
+                @Override
+                public Long run() {
+                    return fileToWriteTo.length();
+                }
+            });
+            writeToFile(fileToWriteTo, existingLength);
+        }
+
+        /**
+         * Writes the attachment from <code>offset</code> onwards to the file, appending if the
+         * offset isn't 0. If the repository sends the whole attachment instead, the file is
+         * overwritten.
+         */
+        private void writeToFile(final File fileToWriteTo, final long offset) throws RepositoryBackendException, IOException, RepositoryBadDataException {
             FileOutputStream fos = null;
-            InputStream is = getInputStream();
+            InputStream is = getInputStream(offset);
+            final boolean append = offset > 0 && !(is instanceof RestartedInputStream);
             try {
                 try {
                     fos = AccessController.doPrivileged(
                                                         new PrivilegedExceptionAction<FileOutputStream>() {
                                                             @Override
                                                             public FileOutputStream run() throws FileNotFoundException {
-                                                                return new FileOutputStream(fileToWriteTo);
+                                                                return new FileOutputStream(fileToWriteTo, append);
                                                             }
                                                         });
                 } catch (PrivilegedActionException e) {
@@ -1898,7 +1994,7 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
                     throw (FileNotFoundException) e.getCause();
                 }
 
-                byte[] buffer = new byte[1024];
+                byte[] buffer = new byte[64 * 1024];
                 int read = 0;
                 while ((read = is.read(buffer)) != -1) {
                     fos.write(buffer, 0, read);
@@ -1922,70 +2018,18 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         }
 
         /**
-         * Gets the CRC value for the this attachment.
+         * Gets the length, CRC and SHA-256 hash of the file for this attachment, reading it at most
+         * once.
          *
-         * @return The CRC of the attachment or -1 if it wasn't found.
-         * @throws RepositoryException
-         * @throws RepositoryBackendException
+         * @return the digest of the file
+         * @throws RepositoryException if the file can't be read
          */
-        private long calculateCRC() throws RepositoryException {
-            if (_file == null) {
-                return 0l;
-            }
-            InputStream is = null;
+        private FileDigest getFileDigest() throws RepositoryException {
             try {
-                is = AccessController.doPrivileged(
-                                                   new PrivilegedExceptionAction<FileInputStream>() {
-                                                       @Override
-                                                       public FileInputStream run() throws FileNotFoundException {
-                                                           return new FileInputStream(_file);
-                                                       }
-                                                   });
-                return RepositoryResourceImpl.getCRC(is);
-            } catch (PrivilegedActionException e) {
-                // Creating a FileInputStream can only return a FileNotFoundException or NPE
-                Throwable cause = e.getCause();
-                if (cause instanceof IOException) {
-                    throw new RepositoryException(cause);
-                } else {
-                    throw (RuntimeException) cause;
-                }
+                return FileDigest.forFile(_file);
             } catch (IOException cause) {
                 throw new RepositoryException(cause);
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (IOException e) {
-                        // do nothing;
-                    }
-                }
-            }
-        }
-
-        /**
-         * Return the length of a file using a doPrivileged
-         *
-         * @param file
-         * @return long - length of file
-         * @throws RepositoryException
-         */
-        private long getFileLength() throws RepositoryException {
-            if (_file == null) {
-                return 0l;
-            }
-            Long fileSize;
-            try {
-                fileSize = AccessController.doPrivileged(new PrivilegedExceptionAction<Long>() {
-                    @Override
-                    public Long run() {
-                        return _file.length();
-                    }
-                });
-            } catch (PrivilegedActionException e) {
-                throw new RepositoryException(e.getCause());
             }
-            return fileSize.longValue();
         }
 
         /** {@inheritDoc} */
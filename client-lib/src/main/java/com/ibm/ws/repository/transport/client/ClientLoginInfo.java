@@ -31,6 +31,8 @@ public class ClientLoginInfo {
 
     private String userAgent;
 
+    private int timeout;
+
     private LoginInfoClientProxy proxy;
 
     public ClientLoginInfo(String userId, String password, String apiKey, String repositoryUrl,
@@ -127,6 +129,20 @@ public class ClientLoginInfo {
         return this.proxy;
     }
 
+    /**
+     * @return the connect and read timeout in milliseconds, or 0 for the default
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout the connect and read timeout in milliseconds, or 0 for the default
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      * @return the userAgent
      */
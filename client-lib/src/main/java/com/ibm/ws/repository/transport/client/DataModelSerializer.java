@@ -19,6 +19,10 @@ package com.ibm.ws.repository.transport.client;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
@@ -34,11 +38,13 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TimeZone;
@@ -59,6 +65,7 @@ import javax.json.JsonValue.ValueType;
 import javax.json.JsonWriter;
 import javax.json.JsonWriterFactory;
 import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonParser;
 
 import com.ibm.ws.repository.common.utils.internal.RepositoryCommonUtils;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
@@ -105,7 +112,7 @@ public class DataModelSerializer {
      * @param fieldName
      * @param j
      */
-    private static void addFieldToJsonObject(Method getter, Object o,
+    private static void addFieldToJsonObject(Accessor getter, Object o,
                                              String fieldName, JsonObjectBuilder j) {
         try {
             Object fieldValue = getter.invoke(o);
@@ -140,12 +147,12 @@ public class DataModelSerializer {
                 j.add(fieldName, (Byte) fieldValue);
 
             } else if (fieldValue instanceof Enum) {
-                try {
-                    // enums need careful handling.. look for get/set Value to use.
-                    Method getValueForEnumMethod = fieldValue.getClass().getMethod("getValue");
+                // enums need careful handling.. look for get/set Value to use.
+                Accessor getValueForEnumMethod = getDescriptor(fieldValue.getClass()).getEnumValueGetter();
+                if (getValueForEnumMethod != null) {
                     Object valueFromGetValueMethod = getValueForEnumMethod.invoke(fieldValue);
                     j.add(fieldName, valueFromGetValueMethod.toString());
-                } catch (NoSuchMethodException e) {
+                } else {
                     // else fallback to toString
                     j.add(fieldName, fieldValue.toString());
                 }
@@ -231,7 +238,6 @@ public class DataModelSerializer {
 
         // object wasn't a collection.. better see what we can do with it.
         JsonObjectBuilder mainObjectBuilder = Json.createObjectBuilder();
-        SortedMap<String, Method> gettersFromO = new TreeMap<String, Method>();
         Class<? extends Object> classOfO = o.getClass();
 
         // See if we have any breaking changes that need to go into a separate object
@@ -246,41 +252,11 @@ public class DataModelSerializer {
             }
         }
 
-        for (Method methodFromO : classOfO.getMethods()) {
-            if (methodFromO.getName().startsWith("get") && methodFromO.getName().length() > 3 && methodFromO.getParameterTypes().length == 0) {
-                Method old;
-                if ((old = gettersFromO.put(methodFromO.getName(), methodFromO)) != null) {
-                    throw new IllegalStateException(
-                                    "Data Model Error: duplicate getter for "
-                                                    + methodFromO + "(" + old + ") on "
-                                                    + o.getClass().getName());
-                }
-            }
-        }
-
-        for (Map.Entry<String, Method> entry : gettersFromO.entrySet()) {
-
-            String getterName = entry.getKey();
-
-            //not all getters are really for us ;p
-            if ("getClass".equals(getterName)) {
-                continue;
-            }
-
-            // If the field is marked as JSONIgnore then ignore it
-            if (entry.getValue().isAnnotationPresent(JSONIgnore.class)) {
-                continue;
-            }
-
-            String nameOfField = new StringBuilder()
-                            .append(getterName.substring(3, 4).toLowerCase())
-                            .append(getterName.substring(4))
-                            .toString();
-
-            if (haveIncompatibleFields && fieldsToPutInIncompatibleObject.contains(nameOfField)) {
-                addFieldToJsonObject(entry.getValue(), o, nameOfField, incompatibleFieldsObjectBuilder);
+        for (Getter getter : getDescriptor(classOfO).getGetters()) {
+            if (haveIncompatibleFields && fieldsToPutInIncompatibleObject.contains(getter.fieldName)) {
+                addFieldToJsonObject(getter.accessor, o, getter.fieldName, incompatibleFieldsObjectBuilder);
             } else {
-                addFieldToJsonObject(entry.getValue(), o, nameOfField, mainObjectBuilder);
+                addFieldToJsonObject(getter.accessor, o, getter.fieldName, mainObjectBuilder);
             }
         }
         JsonObject mainObject = mainObjectBuilder.build();
@@ -386,7 +362,211 @@ public class DataModelSerializer {
      */
     private static class ClassAndMethod {
         Class<?> cls;
-        Method m;
+        Accessor m;
+    }
+
+    /**
+     * The descriptor for each class, worked out the first time the class is serialized or
+     * deserialized. Using a ClassValue means the descriptor doesn't stop the class being unloaded.
+     */
+    private static final ClassValue<ClassDescriptor> DESCRIPTORS = new ClassValue<ClassDescriptor>() {
+        @Override
+        protected ClassDescriptor computeValue(Class<?> type) {
+            return new ClassDescriptor(type);
+        }
+    };
+
+    private static ClassDescriptor getDescriptor(Class<?> cls) {
+        return DESCRIPTORS.get(cls);
+    }
+
+    /**
+     * Everything the serializer needs to know about a class, found with reflection once rather
+     * than every time an instance is serialized or deserialized.
+     * <p>
+     * Any problem with the class, such as duplicate getters, is only reported when the part of
+     * the descriptor affected by it is used, so that the errors are the same as they were when
+     * the class was inspected each time.
+     */
+    private static class ClassDescriptor {
+        /** The getters to serialize, in the order of their names, or null if there is a duplicate */
+        private final List<Getter> getters;
+        private final String duplicateGetterError;
+
+        /** The first setter in {@link Class#getMethods()} order for each setter name */
+        private final Map<String, Accessor> setters = new HashMap<String, Accessor>();
+
+        /** The getValue method if there is one, used when the class is an enum */
+        private final Accessor enumValueGetter;
+
+        /** For enums, the public static fields by name */
+        private final Map<String, Object> staticFields = new HashMap<String, Object>();
+
+        /** For enums, the public static methods which take a single String */
+        private final List<Method> stringFactoryMethods = new ArrayList<Method>();
+
+        ClassDescriptor(Class<?> cls) {
+            SortedMap<String, Method> gettersFromO = new TreeMap<String, Method>();
+            String duplicateError = null;
+            Accessor valueGetter = null;
+            for (Method method : cls.getMethods()) {
+                String methodName = method.getName();
+                int parameterCount = method.getParameterTypes().length;
+                if (methodName.startsWith("get") && methodName.length() > 3 && parameterCount == 0) {
+                    Method old;
+                    if ((old = gettersFromO.put(methodName, method)) != null && duplicateError == null) {
+                        duplicateError = "Data Model Error: duplicate getter for "
+                                         + method + "(" + old + ") on "
+                                         + cls.getName();
+                    }
+                    if ("getValue".equals(methodName) && valueGetter == null) {
+                        valueGetter = new Accessor(method);
+                    }
+                } else if (methodName.startsWith("set") && parameterCount == 1 && !setters.containsKey(methodName)) {
+                    setters.put(methodName, new Accessor(method));
+                }
+                if (cls.isEnum() && Modifier.isStatic(method.getModifiers()) && parameterCount == 1 && method.getParameterTypes()[0].equals(String.class)) {
+                    stringFactoryMethods.add(method);
+                }
+            }
+
+            if (cls.isEnum()) {
+                for (Field field : cls.getFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        try {
+                            staticFields.put(field.getName(), field.get(null));
+                        } catch (IllegalAccessException e) {
+                            // Not usable, same as if it wasn't there
+                        }
+                    }
+                }
+            }
+            enumValueGetter = valueGetter;
+
+            this.duplicateGetterError = duplicateError;
+            if (duplicateError != null) {
+                this.getters = null;
+            } else {
+                List<Getter> getterList = new ArrayList<Getter>();
+                for (Map.Entry<String, Method> entry : gettersFromO.entrySet()) {
+                    String getterName = entry.getKey();
+
+                    //not all getters are really for us ;p
+                    if ("getClass".equals(getterName)) {
+                        continue;
+                    }
+
+                    // If the field is marked as JSONIgnore then ignore it
+                    if (entry.getValue().isAnnotationPresent(JSONIgnore.class)) {
+                        continue;
+                    }
+
+                    String nameOfField = new StringBuilder()
+                                    .append(getterName.substring(3, 4).toLowerCase())
+                                    .append(getterName.substring(4))
+                                    .toString();
+                    getterList.add(new Getter(nameOfField, new Accessor(entry.getValue())));
+                }
+                this.getters = Collections.unmodifiableList(getterList);
+            }
+        }
+
+        List<Getter> getGetters() {
+            if (duplicateGetterError != null) {
+                throw new IllegalStateException(duplicateGetterError);
+            }
+            return getters;
+        }
+
+        Accessor getSetter(String setterName) {
+            return setters.get(setterName);
+        }
+
+        Accessor getEnumValueGetter() {
+            return enumValueGetter;
+        }
+    }
+
+    /**
+     * A getter and the name of the JSON field it is written to
+     */
+    private static class Getter {
+        final String fieldName;
+        final Accessor accessor;
+
+        Getter(String fieldName, Accessor accessor) {
+            this.fieldName = fieldName;
+            this.accessor = accessor;
+        }
+    }
+
+    /**
+     * A getter or setter, called through a method handle rather than by reflection.
+     * <p>
+     * Exceptions are reported in the same way as {@link Method#invoke(Object, Object...)}, so
+     * callers handle them the same way. If a method handle can't be made for the method, for
+     * example because it is on a class which isn't public, it is called by reflection instead.
+     */
+    private static class Accessor {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        final Method method;
+        final Class<?> parameterType;
+        final Type genericParameterType;
+        final boolean ignored;
+        private final MethodHandle handle;
+
+        Accessor(Method method) {
+            this.method = method;
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            this.parameterType = parameterTypes.length == 1 ? parameterTypes[0] : null;
+            this.genericParameterType = parameterTypes.length == 1 ? method.getGenericParameterTypes()[0] : null;
+            this.ignored = method.isAnnotationPresent(JSONIgnore.class);
+
+            MethodHandle h;
+            try {
+                h = MethodHandles.publicLookup().unreflect(method).asType(parameterTypes.length == 0 ? GETTER_TYPE : SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                h = null;
+            }
+            this.handle = h;
+        }
+
+        String getName() {
+            return method.getName();
+        }
+
+        Object invoke(Object target) throws IllegalAccessException, InvocationTargetException {
+            if (handle == null) {
+                return method.invoke(target);
+            }
+            try {
+                return handle.invokeExact(target);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException(e);
+            } catch (WrongMethodTypeException e) {
+                throw new IllegalArgumentException(e);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        void invoke(Object target, Object value) throws IllegalAccessException, InvocationTargetException {
+            if (handle == null) {
+                method.invoke(target, value);
+                return;
+            }
+            try {
+                handle.invokeExact(target, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException(e);
+            } catch (WrongMethodTypeException e) {
+                throw new IllegalArgumentException(e);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
     }
 
     /**
@@ -442,23 +622,14 @@ public class DataModelSerializer {
      * @return instance of ClassAndMethod associating the class and method for the setter.
      */
     private static ClassAndMethod internalGetClassForFieldName(String fieldName, Class<?> classToLookForFieldIn, boolean isForArray) {
-        Method found = null;
-
         //precalc the field name as a setter to use for each method test.
         String fieldNameAsASetter = new StringBuilder("set")
                         .append(fieldName.substring(0, 1).toUpperCase()).append(fieldName.substring(1))
                         .toString();
 
         //hunt for any matching setter in the object
-        for (Method m : classToLookForFieldIn.getMethods()) {
-            String methodName = m.getName();
+        Accessor found = getDescriptor(classToLookForFieldIn).getSetter(fieldNameAsASetter);
 
-            //eligible setters must only accept a single argument.
-            if (m.getParameterTypes().length == 1 && methodName.equals(fieldNameAsASetter)) {
-                found = m;
-                break;
-            }
-        }
         //at the mo, if we don't match a setter, we sysout a warning, this will likely need to become a toggle.
         if (found == null) {
             if (DataModelSerializer.IGNORE_UNKNOWN_FIELDS) {
@@ -471,20 +642,19 @@ public class DataModelSerializer {
             cm.m = found;
             if (isForArray) {
                 //for an array we return the type of the collection, eg String for List<String> instead of List.
-                Type t = found.getGenericParameterTypes()[0];
-                cm.cls = getClassForType(t);
+                cm.cls = getClassForType(found.genericParameterType);
                 return cm;
             } else {
-                cm.cls = found.getParameterTypes()[0];
+                cm.cls = found.parameterType;
                 return cm;
             }
         }
     }
 
-    private static void invokeSetter(Method setter, Object targetObject, Object value) {
+    private static void invokeSetter(Accessor setter, Object targetObject, Object value) {
         try {
             // Only invoke the setter if it is not annotated with @ignore
-            if (!setter.isAnnotationPresent(JSONIgnore.class)) {
+            if (!setter.ignored) {
                 setter.invoke(targetObject, value);
             }
         } catch (IllegalAccessException e) {
@@ -601,57 +771,40 @@ public class DataModelSerializer {
                         //approach 1.. uppercase value, and look for matching enum.
                         Object o = null;
                         if (keyString.indexOf(' ') == -1) {
-                            try {
-                                Field enumInstance = fieldType.cls.getField(valueString.toUpperCase());
-                                if (enumInstance != null) {
-                                    o = enumInstance.get(null);
-                                }
-                            } catch (NoSuchFieldException e) {
-                                //handled later
-                            } catch (SecurityException e) {
-                                //handled later
-                            } catch (IllegalArgumentException e) {
-                                //handled later
-                            } catch (IllegalAccessException e) {
-                                //handled later
-                            }
+                            o = getDescriptor(fieldType.cls).staticFields.get(valueString.toUpperCase());
                         }
                         if (o == null) {
                             //approach 2.. look for a method on enum taking string..
-                            for (Method m : fieldType.cls.getMethods()) {
-                                if (Modifier.isStatic(m.getModifiers()) &&
-                                    m.getParameterTypes().length == 1 &&
-                                    m.getParameterTypes()[0].equals(String.class)) {
-                                    //enums have a valueOf method.. which may work.. but if not..
-                                    //there may be another method to use yet.
-                                    if ("valueOf".equals(m.getName())) {
-                                        try {
-                                            o = m.invoke(null, valueString
-                                                            );
-                                        } catch (IllegalArgumentException e) {
-                                            //ignore.. maybe another method will work?
-                                        } catch (InvocationTargetException e) {
-                                            //ignore.. maybe another method will work?
-                                        } catch (IllegalAccessException e) {
-                                            //ignore.. maybe another method will work?
-                                        }
-                                    } else {
-                                        try {
-                                            o = m.invoke(null, valueString);
-                                        } catch (IllegalAccessException e) {
-                                            throw new IllegalStateException("Data Model Error: unable to invoke setter " + fieldType.m.getName() + " for data model element "
-                                                                            + fieldType.cls.getName() + " on " + targetObject.getClass().getName(), e);
-                                        } catch (IllegalArgumentException e) {
-                                            throw new IllegalStateException("Data Model Error: unable to invoke setter " + fieldType.m.getName() + " for data model element "
-                                                                            + fieldType.cls.getName() + " on " + targetObject.getClass().getName(), e);
-                                        } catch (InvocationTargetException e) {
-                                            throw new IllegalStateException("Data Model Error: unable to invoke setter " + fieldType.m.getName() + " for data model element "
-                                                                            + fieldType.cls.getName() + " on " + targetObject.getClass().getName(), e);
-                                        }
+                            for (Method m : getDescriptor(fieldType.cls).stringFactoryMethods) {
+                                //enums have a valueOf method.. which may work.. but if not..
+                                //there may be another method to use yet.
+                                if ("valueOf".equals(m.getName())) {
+                                    try {
+                                        o = m.invoke(null, valueString
+                                                        );
+                                    } catch (IllegalArgumentException e) {
+                                        //ignore.. maybe another method will work?
+                                    } catch (InvocationTargetException e) {
+                                        //ignore.. maybe another method will work?
+                                    } catch (IllegalAccessException e) {
+                                        //ignore.. maybe another method will work?
+                                    }
+                                } else {
+                                    try {
+                                        o = m.invoke(null, valueString);
+                                    } catch (IllegalAccessException e) {
+                                        throw new IllegalStateException("Data Model Error: unable to invoke setter " + fieldType.m.getName() + " for data model element "
+                                                                        + fieldType.cls.getName() + " on " + targetObject.getClass().getName(), e);
+                                    } catch (IllegalArgumentException e) {
+                                        throw new IllegalStateException("Data Model Error: unable to invoke setter " + fieldType.m.getName() + " for data model element "
+                                                                        + fieldType.cls.getName() + " on " + targetObject.getClass().getName(), e);
+                                    } catch (InvocationTargetException e) {
+                                        throw new IllegalStateException("Data Model Error: unable to invoke setter " + fieldType.m.getName() + " for data model element "
+                                                                        + fieldType.cls.getName() + " on " + targetObject.getClass().getName(), e);
                                     }
-                                    if (o != null)
-                                        break;
                                 }
+                                if (o != null)
+                                    break;
                             }
                         }
                         if (o == null) {
@@ -796,20 +949,158 @@ public class DataModelSerializer {
     }
 
     public static <T> List<T> deserializeList(InputStream i, Class<? extends T> listElementType) throws IOException {
-        List<T> newT = new ArrayList<T>();
+        final List<T> newT = new ArrayList<T>();
+        deserializeList(i, listElementType, new ListElementHandler<T, RuntimeException>() {
+            @Override
+            public void handleElement(T element) {
+                newT.add(element);
+            }
+        });
+        return newT;
+    }
 
+    /**
+     * Reads a JSON array from a stream, passing each element to the handler as soon as it has been
+     * read.
+     * <p>
+     * Unlike reading the whole array with a {@link JsonReader}, only one element of the array is
+     * held in memory at a time, so large lists can be processed without first building a tree of
+     * the entire response. As with {@link #deserializeList(InputStream, Class)}, elements at a
+     * version which isn't understood are left out. The stream is closed when the array has been
+     * read.
+     *
+     * @param i the stream to read
+     * @param listElementType the type of the elements
+     * @param handler receives each element
+     * @throws IOException if the stream can't be read or doesn't contain a JSON array
+     * @throws E if the handler throws it
+     */
+    public static <T, E extends Exception> void deserializeList(InputStream i, Class<? extends T> listElementType,
+                                                                ListElementHandler<? super T, E> handler) throws IOException, E {
+        JsonParser parser = Json.createParser(i);
         try {
-            JsonReader jsonReader = Json.createReader(i);
-            JsonArray parsedArray = jsonReader.readArray();
-            jsonReader.close();
-            // Process the array, if it comes across any elements that are at an invalid version tell it to ignore them rather than throw an exception
-            processJsonArray(parsedArray, newT, listElementType, Verification.VERIFY, ListVersionHandling.IGNORE_ELEMENT);
-        } catch (BadVersionException e) {
-            // We've told the Array handle to ignore these exception so this should never happen but it is in the method signature for nested array processing
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IOException("Failed to deserialize list, the JSON is not an array");
+            }
+
+            while (true) {
+                JsonParser.Event event = parser.next();
+                switch (event) {
+                    case END_ARRAY:
+                        return;
+                    case START_OBJECT:
+                        T element;
+                        try {
+                            element = processJsonObjectBackIntoDataModelInstance(readObject(parser), listElementType, Verification.VERIFY);
+                        } catch (BadVersionException e) {
+                            // Elements at an invalid version are ignored rather than failing the whole list
+                            break;
+                        }
+                        handler.handleElement(element);
+                        break;
+                    case VALUE_STRING:
+                        handler.handleElement(listElementType.cast(parser.getString()));
+                        break;
+                    case VALUE_NULL:
+                        handler.handleElement(null);
+                        break;
+                    case VALUE_NUMBER:
+                        throw new IllegalStateException(DATA_MODEL_ERROR_NUMBER);
+                    case START_ARRAY:
+                    case VALUE_TRUE:
+                    case VALUE_FALSE:
+                        throw new IllegalStateException(DATA_MODEL_ERROR_ARRAY);
+                    default:
+                        throw new IllegalStateException("Data Model Error: Unexpected JSON parser event: " + event);
+                }
+            }
         } catch (JsonException e) {
             throw new IOException("Failed to deserialize list", e);
+        } catch (NoSuchElementException e) {
+            throw new IOException("Failed to deserialize list, the JSON ended before the end of the array", e);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Builds the object the parser is positioned at, after its START_OBJECT event, leaving the
+     * parser positioned at the matching END_OBJECT
+     */
+    private static JsonObject readObject(JsonParser parser) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        while (true) {
+            JsonParser.Event event = parser.next();
+            if (event == JsonParser.Event.END_OBJECT) {
+                return builder.build();
+            }
+            // Inside an object every value is preceded by its key
+            String key = parser.getString();
+            event = parser.next();
+            switch (event) {
+                case START_OBJECT:
+                    builder.add(key, readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(key, readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(key, parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(key, parser.getBigDecimal());
+                    break;
+                case VALUE_TRUE:
+                    builder.add(key, true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(key, false);
+                    break;
+                case VALUE_NULL:
+                    builder.addNull(key);
+                    break;
+                default:
+                    throw new IllegalStateException("Data Model Error: Unexpected JSON parser event: " + event);
+            }
+        }
+    }
+
+    /**
+     * Builds the array the parser is positioned at, after its START_ARRAY event, leaving the
+     * parser positioned at the matching END_ARRAY
+     */
+    private static JsonArray readArray(JsonParser parser) {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        while (true) {
+            JsonParser.Event event = parser.next();
+            switch (event) {
+                case END_ARRAY:
+                    return builder.build();
+                case START_OBJECT:
+                    builder.add(readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(parser.getBigDecimal());
+                    break;
+                case VALUE_TRUE:
+                    builder.add(true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(false);
+                    break;
+                case VALUE_NULL:
+                    builder.addNull();
+                    break;
+                default:
+                    throw new IllegalStateException("Data Model Error: Unexpected JSON parser event: " + event);
+            }
         }
-        return newT;
     }
 
     /**
@@ -93,6 +93,15 @@ public class DirectoryUtils {
         });
     }
 
+    public static long lastModified(final File file) {
+        return AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return file.lastModified();
+            }
+        });
+    }
+
     public static String[] list(final File file) {
         return AccessController.doPrivileged(new PrivilegedAction<String[]>() {
             @Override
@@ -0,0 +1,478 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.aries.util.manifest.ManifestProcessor;
+
+import com.ibm.ws.repository.transport.exceptions.BadVersionException;
+import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
+import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.Attachment;
+
+/**
+ * A {@link ZipClient} which opens the repository zip once and keeps it open.
+ * <p>
+ * The plain {@link ZipClient} opens the zip, and so reads its central directory, for every entry
+ * it looks at, and reads each asset's manifest from the nested archive several times when working
+ * out its licenses. This client keeps one open {@link ZipFile}, shared by all threads, with an
+ * index of its entries by name. The manifest and license entries of each nested archive are read
+ * in a single pass the first time they are needed and then remembered.
+ * <p>
+ * If the zip file changes on disk, the index is thrown away and the zip is opened again. The zip
+ * stays open, so can't be deleted or replaced on some platforms, until {@link #close()} is called
+ * and any attachment streams which are still open have been closed.
+ */
+public class IndexedZipClient extends ZipClient implements Closeable {
+
+    private final File _zip;
+
+    /** The current index, or null if it hasn't been opened yet. Guarded by this. */
+    private Index _index;
+
+    /**
+     * Create an indexed zip client which points to the specified zip file
+     *
+     * @param zip The zip file the client should read from
+     */
+    public IndexedZipClient(File zip) {
+        super(zip);
+        _zip = zip;
+    }
+
+    /**
+     * Releases the open zip file. Attachment streams which are still open keep working until they
+     * are closed. The client can still be used, the zip will be opened again when it is needed.
+     */
+    @Override
+    public void close() {
+        Index index;
+        synchronized (this) {
+            index = _index;
+            _index = null;
+        }
+        if (index != null) {
+            index.release();
+        }
+    }
+
+    /*
+     * ------------------------------------------------------------------------------------------------------------------
+     * PUBLIC METHODS OVERRIDEN FROM INTERFACE
+     * ------------------------------------------------------------------------------------------------------------------
+     */
+
+    @Override
+    public void checkRepositoryStatus() throws IOException {
+        if (!DirectoryUtils.exists(_zip)) {
+            throw new FileNotFoundException("Could not find " + _zip);
+        }
+        // This will throw an exception if the file is not a zip
+        openIndex().release();
+    }
+
+    @Override
+    public InputStream getAttachment(final Asset asset, final Attachment attachment) throws IOException, BadVersionException, RequestFailureException {
+        final Index index = acquireIndex();
+        if (index == null) {
+            return null;
+        }
+
+        String attachmentId = attachment.get_id();
+        boolean released = false;
+        try {
+            if (attachmentId.contains("#")) {
+                // The license is inside the asset, which is the start of the asset id
+                String assetId = asset.get_id();
+                ZipEntry entry = index.getEntry(assetId);
+                if (null == entry) {
+                    return null;
+                }
+                // This reads the license into memory, so the zip isn't needed afterwards
+                ZipInputStream zis = new ZipInputStream(index.getInputStream(entry));
+                return getInputStreamToLicenseInsideZip(zis, assetId, attachmentId);
+            } else {
+                ZipEntry entry = index.getEntry(attachmentId);
+                if (null == entry) {
+                    return null;
+                }
+                InputStream is = new FilterInputStream(index.getInputStream(entry)) {
+                    private boolean closed = false;
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            if (!closed) {
+                                closed = true;
+                                index.release();
+                            }
+                        }
+                    }
+                };
+                // The stream now holds the index open until it is closed
+                released = true;
+                return is;
+            }
+        } finally {
+            if (!released) {
+                index.release();
+            }
+        }
+    }
+
+    /*
+     * ------------------------------------------------------------------------------------------------------------------
+     * PROTECTED AND OVERRIDEABLE IMPLEMENTATION METHODS
+     * ------------------------------------------------------------------------------------------------------------------
+     */
+
+    @Override
+    protected boolean hasChildren(final String relative) throws IOException {
+        Index index = acquireIndex();
+        if (null == index) {
+            return false;
+        }
+        try {
+            for (String name : index.getNames()) {
+                if ((relative.equals("")) || name.startsWith(relative + File.separator)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            index.release();
+        }
+    }
+
+    @Override
+    protected Collection<String> getChildren(final String relative) throws IOException {
+        Index index = acquireIndex();
+        if (null == index) {
+            return Collections.emptyList();
+        }
+        try {
+            Collection<String> children = new ArrayList<String>();
+            for (ZipEntry entry : index.getEntries()) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if ((relative.equals("")) || entry.getName().startsWith(relative + File.separator)) {
+                    children.add(entry.getName());
+                }
+            }
+            return children;
+        } finally {
+            index.release();
+        }
+    }
+
+    @Override
+    protected ZipEntry createFromRelative(final String relative) {
+        Index index = acquireIndex();
+        if (null == index) {
+            return null;
+        }
+        try {
+            return index.getEntry(relative);
+        } finally {
+            index.release();
+        }
+    }
+
+    @Override
+    protected Asset readJson(final String assetId) throws IOException, BadVersionException {
+        Index index = openIndex();
+        try {
+            ZipEntry entry = index.getEntry(assetId + ".json");
+            if (entry == null) {
+                throw new IOException("The asset " + assetId + " does not exist");
+            }
+            InputStream is = index.getInputStream(entry);
+            try {
+                return processJSON(is);
+            } finally {
+                is.close();
+            }
+        } finally {
+            index.release();
+        }
+    }
+
+    @Override
+    protected Map<String, Long> getLicenses(final String assetId) throws IOException {
+        NestedArchive nested = getNestedArchive(assetId);
+        return nested == null ? new HashMap<String, Long>() : new HashMap<String, Long>(nested.licenses);
+    }
+
+    @Override
+    protected Manifest getManifest(String assetId) throws IOException {
+        NestedArchive nested = getNestedArchive(assetId);
+        return nested == null ? null : nested.manifest;
+    }
+
+    @Override
+    protected Manifest getSubsystemManifest(String assetId) throws IOException {
+        return getManifest(assetId);
+    }
+
+    @Override
+    protected Manifest getJarManifest(String assetId) throws IOException {
+        return getManifest(assetId);
+    }
+
+    /**
+     * Gets the manifest and licenses of an asset inside the zip, reading them if this is the first
+     * time they have been asked for
+     *
+     * @return the nested archive, or null if the zip can't be read
+     */
+    private NestedArchive getNestedArchive(String assetId) throws IOException {
+        Index index = acquireIndex();
+        if (null == index) {
+            return null;
+        }
+        try {
+            NestedArchive nested = index.nestedArchives.get(assetId);
+            if (nested == null) {
+                // Two threads may both read the same archive, which is harmless
+                nested = readNestedArchive(index, assetId);
+                NestedArchive existing = index.nestedArchives.putIfAbsent(assetId, nested);
+                if (existing != null) {
+                    nested = existing;
+                }
+            }
+            return nested;
+        } finally {
+            index.release();
+        }
+    }
+
+    /**
+     * Reads through an asset inside the zip once, picking up both its manifest and the entries
+     * which its manifest says are licenses
+     */
+    private NestedArchive readNestedArchive(Index index, String assetId) throws IOException {
+        boolean isEsa = assetId.toLowerCase().endsWith(".esa");
+        String manifestName = isEsa ? "OSGI-INF/SUBSYSTEM.MF" : "meta-inf/manifest.mf";
+
+        ZipEntry entry = index.getEntry(assetId);
+        if (entry == null) {
+            return new NestedArchive(null, Collections.<String, Long> emptyMap());
+        }
+
+        // The license locations aren't known until the manifest is read, which may not be the first
+        // entry, so note the size of every file on the way through
+        Manifest manifest = null;
+        Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+        ZipInputStream zis = new ZipInputStream(index.getInputStream(entry));
+        try {
+            ZipEntry innerEntry = zis.getNextEntry();
+            while (innerEntry != null) {
+                if (!innerEntry.isDirectory()) {
+                    sizes.put(innerEntry.getName(), innerEntry.getSize());
+                }
+                if (manifest == null && manifestName.equalsIgnoreCase(innerEntry.getName())) {
+                    if (isEsa) {
+                        // The manifest parser closes the stream, so it can't be given the zip stream
+                        manifest = ManifestProcessor.parseManifest(new ByteArrayInputStream(readEntry(zis)));
+                    } else {
+                        manifest = new Manifest();
+                        manifest.read(zis);
+                    }
+                }
+                innerEntry = zis.getNextEntry();
+            }
+        } finally {
+            zis.closeEntry();
+            zis.close();
+        }
+
+        if (manifest == null && !isEsa) {
+            // An archive without a manifest is treated as having an empty one
+            manifest = new Manifest();
+        }
+
+        Map<String, Long> licenses = new HashMap<String, Long>();
+        if (manifest != null) {
+            String liLocation = manifest.getMainAttributes().getValue(isEsa ? LI_HEADER_FEATURE : LI_HEADER_PRODUCT);
+            String laLocation = manifest.getMainAttributes().getValue(isEsa ? LA_HEADER_FEATURE : LA_HEADER_PRODUCT);
+            for (Map.Entry<String, Long> e : sizes.entrySet()) {
+                String name = e.getKey();
+                if ((liLocation != null && name.startsWith(liLocation)) ||
+                    (laLocation != null && name.startsWith(laLocation))) {
+                    licenses.put(name.replace("/", File.separator), e.getValue());
+                }
+            }
+        }
+        return new NestedArchive(manifest, Collections.unmodifiableMap(licenses));
+    }
+
+    private static byte[] readEntry(ZipInputStream zis) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = zis.read(buffer)) != -1) {
+            baos.write(buffer, 0, read);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Gets the index, opening the zip if it isn't open or has changed since it was opened. The
+     * caller must {@link Index#release()} it.
+     *
+     * @throws IOException if the zip can't be opened
+     */
+    private Index openIndex() throws IOException {
+        Index stale = null;
+        try {
+            synchronized (this) {
+                if (_index != null && !_index.isCurrent()) {
+                    stale = _index;
+                    _index = null;
+                }
+                if (_index == null) {
+                    _index = new Index(_zip);
+                }
+                _index.retain();
+                return _index;
+            }
+        } finally {
+            if (stale != null) {
+                stale.release();
+            }
+        }
+    }
+
+    /**
+     * As {@link #openIndex()}, but returns null if the zip can't be opened
+     */
+    private Index acquireIndex() {
+        try {
+            return openIndex();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The manifest and license entries of an asset inside the zip
+     */
+    private static class NestedArchive {
+        final Manifest manifest;
+        final Map<String, Long> licenses;
+
+        NestedArchive(Manifest manifest, Map<String, Long> licenses) {
+            this.manifest = manifest;
+            this.licenses = licenses;
+        }
+    }
+
+    /**
+     * An open zip file and the entries in it. The entries can't change, so can be read by any
+     * number of threads.
+     * <p>
+     * The zip is closed once it has been released as many times as it has been retained, counting
+     * the client's own reference to it.
+     */
+    private static class Index {
+        private final ZipFile zipFile;
+        private final long length;
+        private final long lastModified;
+        private final File file;
+        private final Map<String, ZipEntry> entries;
+        final ConcurrentMap<String, NestedArchive> nestedArchives = new ConcurrentHashMap<String, NestedArchive>();
+        private int references = 1;
+
+        Index(File file) throws IOException {
+            this.file = file;
+            // Read these first so that a change while the zip is being opened is noticed next time
+            this.length = DirectoryUtils.length(file);
+            this.lastModified = DirectoryUtils.lastModified(file);
+            this.zipFile = DirectoryUtils.createZipFile(file);
+
+            Map<String, ZipEntry> map = new LinkedHashMap<String, ZipEntry>();
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                if (!map.containsKey(entry.getName())) {
+                    map.put(entry.getName(), entry);
+                }
+            }
+            this.entries = Collections.unmodifiableMap(map);
+        }
+
+        boolean isCurrent() {
+            return DirectoryUtils.length(file) == length && DirectoryUtils.lastModified(file) == lastModified;
+        }
+
+        ZipEntry getEntry(String name) {
+            return entries.get(name);
+        }
+
+        Collection<String> getNames() {
+            return entries.keySet();
+        }
+
+        Collection<ZipEntry> getEntries() {
+            return entries.values();
+        }
+
+        InputStream getInputStream(ZipEntry entry) throws IOException {
+            return zipFile.getInputStream(entry);
+        }
+
+        synchronized void retain() {
+            references++;
+        }
+
+        void release() {
+            synchronized (this) {
+                if (--references > 0) {
+                    return;
+                }
+            }
+            try {
+                zipFile.close();
+            } catch (IOException e) {
+                // Exception on closing, not a lot we can do
+            }
+        }
+    }
+}
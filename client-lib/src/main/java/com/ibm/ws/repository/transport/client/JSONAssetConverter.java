@@ -70,6 +70,22 @@ public class JSONAssetConverter {
         return DataModelSerializer.deserializeList(inputStream, Asset.class);
     }
 
+    /**
+     * Read a list of assets from an input stream, passing each asset to the handler as soon as
+     * it has been read
+     *
+     * @param inputStream
+     *            The stream to read from
+     * @param handler
+     *            Receives each asset
+     * @throws IOException
+     * @throws E
+     *            If the handler throws it
+     */
+    public static <E extends Exception> void readValues(InputStream inputStream, ListElementHandler<? super Asset, E> handler)
+            throws IOException, E {
+        DataModelSerializer.deserializeList(inputStream, Asset.class, handler);
+    }
     
     /**
      * Read a single assets from an input stream
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.transport.client;
+
+/**
+ * Receives the elements of a list one at a time as they are read, so that the whole list never
+ * has to be held in memory.
+ *
+ * @param <T> the type of the elements
+ * @param <E> the type of exception the handler may throw, which is passed back to the caller
+ *            which is reading the list. Use {@link RuntimeException} if the handler throws no checked
+ *            exceptions.
+ */
+public interface ListElementHandler<T, E extends Exception> {
+
+    /**
+     * Called once for each element, in the order they appear in the list
+     *
+     * @param element the element
+     * @throws E if the element can't be handled, which stops the rest of the list being read
+     */
+    public void handleElement(T element) throws E;
+}
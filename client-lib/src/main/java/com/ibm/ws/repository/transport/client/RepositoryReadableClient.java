@@ -15,9 +15,13 @@
  *******************************************************************************/
 package com.ibm.ws.repository.transport.client;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -40,11 +44,58 @@ public interface RepositoryReadableClient extends RepositoryClient {
      */
     public Asset getAsset(final String assetId) throws IOException, BadVersionException, RequestFailureException;
 
+    /**
+     * Gets several assets by their ids. Ids which don't match an asset that can be read are left
+     * out, as are repeated ids.
+     *
+     * @param assetIds The ids of the assets to get
+     * @return The assets, in the same order as their ids
+     */
+    public default List<Asset> getAssetsById(final Collection<String> assetIds) throws IOException, BadVersionException, RequestFailureException {
+        // Gets each asset in turn. Clients which can fetch several assets at once should override
+        // this.
+        List<Asset> assets = new ArrayList<Asset>();
+        for (String assetId : new LinkedHashSet<String>(assetIds)) {
+            Asset asset;
+            try {
+                asset = getAsset(assetId);
+            } catch (FileNotFoundException e) {
+                continue;
+            } catch (RequestFailureException e) {
+                if (e.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                    continue;
+                }
+                throw e;
+            }
+            if (asset != null) {
+                assets.add(asset);
+            }
+        }
+        return assets;
+    }
+
     /**
      * @return Gets a list of all the assets in this repository.
      */
     public Collection<Asset> getAllAssets() throws IOException, RequestFailureException;
 
+    /**
+     * Reads all the assets in this repository, passing each one to the handler as it is read.
+     * <p>
+     * This gives the same assets as {@link #getAllAssets()} but clients which can read the assets
+     * as a stream do so without holding the whole list in memory.
+     *
+     * @param handler receives each asset
+     * @throws E if the handler throws it, in which case no more assets are read
+     */
+    public default <E extends Exception> void getAllAssets(ListElementHandler<? super Asset, E> handler) throws IOException, RequestFailureException, E {
+        // Reads the whole list of assets then passes them to the handler. Clients which can read
+        // the assets as a stream should override this.
+        for (Asset asset : getAllAssets()) {
+            handler.handleElement(asset);
+        }
+    }
+
     /**
      * This method will return all of the assets of a specific type in Massive.
      * It will just return a summary of each asset and not include any {@link Attachment}s.
@@ -99,6 +150,39 @@ public interface RepositoryReadableClient extends RepositoryClient {
      */
     public InputStream getAttachment(final Asset asset, final Attachment attachment) throws IOException, BadVersionException, RequestFailureException;
 
+    /**
+     * Gets the content of an attachment starting part way through, for example to carry on with a
+     * download that was interrupted.
+     *
+     * @param asset The asset which contains the attachment
+     * @param attachment The attachment
+     * @param offset The number of bytes at the start of the content to leave out
+     * @return a stream of the content from <code>offset</code> onwards, or a
+     *         {@link RestartedInputStream} of the whole content if it can't be resumed from
+     *         <code>offset</code>, for example because it has changed since the start was fetched
+     */
+    public default InputStream getAttachment(final Asset asset, final Attachment attachment, final long offset) throws IOException, BadVersionException, RequestFailureException {
+        // Gets the whole attachment and skips over the start of it. Clients which can fetch part
+        // of an attachment directly should override this.
+        InputStream stream = getAttachment(asset, attachment);
+        try {
+            // InputStream.skip isn't used as some streams, e.g. FileInputStream, happily skip past the end
+            byte[] buffer = new byte[(int) Math.min(offset, 64 * 1024)];
+            long remaining = offset;
+            while (remaining > 0) {
+                int read = stream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("Attachment ended " + remaining + " bytes before offset " + offset);
+                }
+                remaining -= read;
+            }
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return stream;
+    }
+
     /**
      * Find assets based on the <code>searchString</code>.
      *
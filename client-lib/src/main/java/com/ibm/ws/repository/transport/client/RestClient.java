@@ -19,7 +19,6 @@ package com.ibm.ws.repository.transport.client;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -37,9 +36,12 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -54,9 +56,11 @@ import com.ibm.ws.repository.common.enums.AttachmentType;
 import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.StateAction;
+import com.ibm.ws.repository.common.utils.internal.FileDigest;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
 import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.AssetChanges;
 import com.ibm.ws.repository.transport.model.Attachment;
 import com.ibm.ws.repository.transport.model.AttachmentSummary;
 import com.ibm.ws.repository.transport.model.StateUpdateAction;
@@ -80,6 +84,35 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
 
     private static final int REPOSITORY_SOCKET_READ_TIMEOUT = 300 * 1000;
 
+    /**
+     * Response bodies kept so that repeated GETs can be answered with 304 Not Modified. Shared
+     * between clients because a new client is created for each operation on a connection.
+     */
+    private static final ValidatorCache VALIDATOR_CACHE = new ValidatorCache(32 * 1024 * 1024, 4 * 1024 * 1024);
+
+    /** The most attachment entity tags kept for resuming downloads */
+    private static final int MAX_ATTACHMENT_TAGS = 1000;
+
+    /**
+     * Strong entity tags sent with attachment content, so that a download which is resumed later
+     * only gets the rest of the content if it is still the same content. Shared for the same reason
+     * as the validator cache.
+     */
+    private static final Map<String, String> ATTACHMENT_TAGS = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ATTACHMENT_TAGS;
+        }
+    });
+
+    /** Not defined in {@link HttpURLConnection} */
+    private static final int HTTP_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
+    /** The most ids the server accepts in one request to /assets/batch */
+    private static final int MAX_BATCH_IDS = 1000;
+
     /**
      * Create a new instance of the client using the supplied userId and
      * password
@@ -105,8 +138,18 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
     public List<Asset> getAllAssets() throws IOException, RequestFailureException {
         HttpURLConnection connection = createHttpURLConnectionToMassive("/assets");
         connection.setRequestMethod("GET");
-        testResponseCode(connection);
-        return JSONAssetConverter.readValues(connection.getInputStream());
+        return JSONAssetConverter.readValues(getConditionalInputStream(connection));
+    }
+
+    /**
+     * Reads the assets straight from the response as it arrives, rather than first reading the
+     * whole response.
+     */
+    @Override
+    public <E extends Exception> void getAllAssets(final ListElementHandler<? super Asset, E> handler) throws IOException, RequestFailureException, E {
+        HttpURLConnection connection = createHttpURLConnectionToMassive("/assets");
+        connection.setRequestMethod("GET");
+        JSONAssetConverter.readValues(getConditionalInputStream(connection), handler);
     }
 
     /**
@@ -398,6 +441,8 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
 
         connection.setRequestProperty("Content-Length", "" + contentLength);
+        // Otherwise the whole request is buffered in memory to work out its length
+        connection.setFixedLengthStreamingMode(contentLength);
         connection.setRequestMethod("POST");
         connection.setDoOutput(true);
 
@@ -407,34 +452,13 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         httpStream.write(startBytes);
         httpStream.flush();
 
-        FileInputStream inputStream = null;
-        try {
-            try {
-                inputStream = AccessController.doPrivileged(new PrivilegedExceptionAction<FileInputStream>() {
-                    @Override
-                    public FileInputStream run() throws IOException {
-                        return new FileInputStream(fileToWrite);
-                    }
-                });
-            } catch (PrivilegedActionException e) {
-                throw (IOException) e.getCause();
-            }
-            byte[] buffer = new byte[1024];
-            int read;
-            int total = 0;
-            while ((read = inputStream.read(buffer)) != -1) {
-                httpStream.write(buffer, 0, read);
-                total += read;
-            }
-            if (total != fileSize) {
-                throw new IOException("File size was " + fileSize + " but we only uploaded " + total + " bytes");
-            }
-            httpStream.flush();
-        } finally {
-            if (inputStream != null) {
-                inputStream.close();
-            }
+        // Digesting the file as it is sent means it doesn't need to be read again if the same file
+        // is added to another resource
+        FileDigest digest = FileDigest.copy(fileToWrite, httpStream);
+        if (digest.getLength() != fileSize) {
+            throw new IOException("File size was " + fileSize + " but we only uploaded " + digest.getLength() + " bytes");
         }
+        httpStream.flush();
 
         httpStream.write(endBytes);
         httpStream.flush();
@@ -471,7 +495,64 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      */
     @Override
     public InputStream getAttachment(final Asset asset, final Attachment attachment) throws IOException, BadVersionException, RequestFailureException {
+        HttpURLConnection connection = createAttachmentConnection(attachment);
+        InputStream stream = getConditionalInputStream(connection);
+        rememberAttachmentTag(connection);
+        return stream;
+    }
+
+    /**
+     * Asks the server for just the part of the attachment after <code>offset</code>. The entity tag
+     * from the earlier download of the attachment is sent in an If-Range header so that, if the
+     * attachment has changed, the server sends all of the new content. That, or a server which
+     * doesn't support ranges, gives a {@link RestartedInputStream} of the whole attachment.
+     * <p>
+     * Partial responses are not stored in the validator cache.
+     */
+    @Override
+    public InputStream getAttachment(final Asset asset, final Attachment attachment, final long offset) throws IOException, BadVersionException, RequestFailureException {
+        if (offset <= 0) {
+            return getAttachment(asset, attachment);
+        }
 
+        HttpURLConnection connection = createAttachmentConnection(attachment);
+        connection.setRequestProperty("Range", "bytes=" + offset + "-");
+        String entityTag = ATTACHMENT_TAGS.get(getCacheKey(connection));
+        if (entityTag != null) {
+            connection.setRequestProperty("If-Range", entityTag);
+        }
+
+        int responseCode = connection.getResponseCode();
+        if (responseCode == HTTP_REQUESTED_RANGE_NOT_SATISFIABLE && offset == getContentRangeLength(connection)) {
+            // We've already got all of it
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        testResponseCode(connection);
+        rememberAttachmentTag(connection);
+
+        InputStream stream = connection.getInputStream();
+        if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+            // The start we already have can't be trusted to go with this content
+            return new RestartedInputStream(stream);
+        }
+        return stream;
+    }
+
+    /**
+     * Records the entity tag of the attachment content in a response, for use in If-Range when the
+     * download is resumed. Weak tags can't be used for ranges, so they are treated as no tag.
+     */
+    private void rememberAttachmentTag(HttpURLConnection connection) throws IOException {
+        String key = getCacheKey(connection);
+        String entityTag = connection.getHeaderField("ETag");
+        if (entityTag != null && !entityTag.startsWith("W/")) {
+            ATTACHMENT_TAGS.put(key, entityTag);
+        } else if (connection.getResponseCode() != HttpURLConnection.HTTP_NOT_MODIFIED) {
+            ATTACHMENT_TAGS.remove(key);
+        }
+    }
+
+    private HttpURLConnection createAttachmentConnection(final Attachment attachment) throws IOException {
         // accept license for type CONTENT
         HttpURLConnection connection;
         if (attachment.getType() == AttachmentType.CONTENT) {
@@ -491,8 +572,24 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         }
 
         connection.setRequestMethod("GET");
-        testResponseCode(connection);
-        return connection.getInputStream();
+        return connection;
+    }
+
+    /**
+     * Reads the total length from a <code>Content-Range: bytes *&#47;length</code> header
+     *
+     * @return the length, or -1 if the header is missing or can't be read
+     */
+    private static long getContentRangeLength(HttpURLConnection connection) {
+        String contentRange = connection.getHeaderField("Content-Range");
+        if (contentRange == null || contentRange.indexOf('/') == -1) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     /**
@@ -577,8 +674,57 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         HttpURLConnection connection = createHttpURLConnectionToMassive("/assets/"
                                                                         + assetId);
         connection.setRequestMethod("GET");
+        return JSONAssetConverter.readValue(getConditionalInputStream(connection));
+    }
+
+    /**
+     * Gets the assets from /assets/batch, which fetches up to {@value #MAX_BATCH_IDS} assets with
+     * their attachments in one request. Falls back to getting each asset in turn if the server
+     * doesn't support it.
+     */
+    @Override
+    public List<Asset> getAssetsById(final Collection<String> assetIds) throws IOException, BadVersionException, RequestFailureException {
+        List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(assetIds));
+        List<Asset> assets = new ArrayList<Asset>();
+        for (int start = 0; start < ids.size(); start += MAX_BATCH_IDS) {
+            List<String> batch = new ArrayList<String>(ids.subList(start, Math.min(ids.size(), start + MAX_BATCH_IDS)));
+            HttpURLConnection connection = createHttpURLConnectionToMassive("/assets/batch");
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            JSONAssetConverter.writeValue(connection.getOutputStream(), batch);
+            try {
+                testResponseCode(connection);
+            } catch (RequestFailureException e) {
+                // Older servers treat batch as an asset id, which doesn't allow POST
+                if (start == 0 && (e.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND || e.getResponseCode() == HttpURLConnection.HTTP_BAD_METHOD)) {
+                    return super.getAssetsById(assetIds);
+                }
+                throw e;
+            }
+            assets.addAll(JSONAssetConverter.readValues(connection.getInputStream()));
+        }
+        return assets;
+    }
+
+    /**
+     * Gets the assets which have changed since the given token from the server's change feed.
+     *
+     * @param since the token from the previous call, or <code>null</code> to get a starting token
+     * @return the changes and the token to use next time
+     * @throws IOException
+     * @throws BadVersionException
+     * @throws RequestFailureException
+     */
+    public AssetChanges getChanges(final String since) throws IOException, BadVersionException, RequestFailureException {
+        String path = "/changes";
+        if (since != null) {
+            path += "?since=" + URLEncoder.encode(since, "UTF-8");
+        }
+        HttpURLConnection connection = createHttpURLConnectionToMassive(path);
+        connection.setRequestMethod("GET");
         testResponseCode(connection);
-        return JSONAssetConverter.readValue(connection.getInputStream());
+        return JSONAssetConverter.readValue(connection.getInputStream(), AssetChanges.class);
     }
 
     /**
@@ -717,7 +863,12 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
             connection = (HttpURLConnection) url.openConnection();
         }
 
-        connection.setReadTimeout(REPOSITORY_SOCKET_READ_TIMEOUT);
+        if (loginInfo.getTimeout() > 0) {
+            connection.setConnectTimeout(loginInfo.getTimeout());
+            connection.setReadTimeout(loginInfo.getTimeout());
+        } else {
+            connection.setReadTimeout(REPOSITORY_SOCKET_READ_TIMEOUT);
+        }
 
         addAuthToConnection(connection);
 
@@ -837,6 +988,43 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         return JSONAssetConverter.readValues(connection.getInputStream());
     }
 
+    /**
+     * Finds the assets whose fields have exactly the given values, with their attachments, in a
+     * single request.
+     * <p>
+     * Returns <code>null</code> if the server can't do this, either because it doesn't support
+     * returning attachments with a list of assets or because one of the values can't be expressed
+     * as a filter. The caller will have to find the assets some other way.
+     *
+     * @param fieldValues Map from the name of a field in the asset JSON, using dots for nested
+     *            fields, to the value it must have
+     * @return the matching assets, each including its attachments, or <code>null</code>
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public Collection<Asset> getAssetsWithAttachments(final Map<String, String> fieldValues) throws IOException, RequestFailureException {
+        StringBuilder query = new StringBuilder("/assets?includeAttachments=true");
+        for (Map.Entry<String, String> field : fieldValues.entrySet()) {
+            String value = field.getValue();
+            // The server reads | as OR and a leading ! as NOT
+            if (value.contains("|") || value.startsWith("!")) {
+                return null;
+            }
+            query.append("&").append(URLEncoder.encode(field.getKey(), "UTF-8"))
+                            .append("=").append(URLEncoder.encode(value, "UTF-8"));
+        }
+
+        HttpURLConnection connection = createHttpURLConnectionToMassive(query.toString());
+        connection.setRequestMethod("GET");
+        testResponseCode(connection);
+        if (!"true".equals(connection.getHeaderField("includeAttachments"))) {
+            // An older server will have treated includeAttachments as a filter
+            clearInputStream(connection);
+            return null;
+        }
+        return JSONAssetConverter.readValues(connection.getInputStream());
+    }
+
     /**
      * Creates a URL filter for the <code>attribute</code> where the <code>values</code> are the valid values.
      *
@@ -899,6 +1087,45 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         return null;
     }
 
+    /**
+     * Sends a GET request, using the entity tag from any previous response to the same URL in an If-None-Match header. If the server says the content has not been modified,
+     * the previous response body is returned without downloading it again.
+     * <p>
+     * The request method must already have been set on the connection.
+     *
+     * @param connection the connection
+     * @return the response body
+     * @throws RequestFailureException if the response code is not OK
+     * @throws IOException
+     */
+    private InputStream getConditionalInputStream(HttpURLConnection connection) throws RequestFailureException, IOException {
+        String key = getCacheKey(connection);
+
+        ValidatorCache.Entry cached = VALIDATOR_CACHE.get(key);
+        if (cached != null) {
+            connection.setRequestProperty("If-None-Match", cached.getEntityTag());
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return new ByteArrayInputStream(cached.getBody());
+            }
+        }
+
+        testResponseCode(connection);
+        String entityTag = connection.getHeaderField("ETag");
+        if (entityTag == null) {
+            VALIDATOR_CACHE.remove(key);
+            return connection.getInputStream();
+        }
+        return VALIDATOR_CACHE.capture(key, entityTag, connection.getInputStream());
+    }
+
+    /**
+     * @return the key for the response to the connection's request in the shared caches
+     */
+    private String getCacheKey(HttpURLConnection connection) {
+        // Different users may be able to see different things at the same URL
+        return loginInfo.getUserId() + " " + connection.getURL();
+    }
+
     /**
      * This method will test the return type to make sure that it is between 200 (inclusive) and 300 (exclusive), i.e. that it is "successful". If it is not then it will throw an
      * {@link RequestFailureException} with the response code and message from the error stream.
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.transport.client;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+import com.ibm.ws.repository.transport.model.Asset;
+import com.ibm.ws.repository.transport.model.Attachment;
+
+/**
+ * The whole content of an attachment, returned by
+ * {@link RepositoryReadableClient#getAttachment(Asset, Attachment, long)} when only the part after
+ * the offset was asked for but the repository sent all of it. This happens if the attachment has
+ * changed since the start of it was downloaded, so anything read before must be thrown away.
+ */
+public class RestartedInputStream extends FilterInputStream {
+
+    /**
+     * @param in the stream of the whole content
+     */
+    public RestartedInputStream(InputStream in) {
+        super(in);
+    }
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.transport.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of response bodies and the entity tags the server sent with them.
+ * <p>
+ * When a request is repeated, the entity tag is sent in an If-None-Match header and, if the server
+ * replies 304 Not Modified, the body is served from here rather than being downloaded again.
+ * <p>
+ * The cache is bounded by the total size of the bodies it holds. Bodies larger than the maximum
+ * entry size are never cached. Entries are evicted least recently used first.
+ */
+public class ValidatorCache {
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private long totalBytes = 0;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /**
+     * @param maxBytes the maximum total size of all the cached bodies
+     * @param maxEntryBytes the maximum size of a single cached body
+     */
+    public ValidatorCache(long maxBytes, int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * @param key the key, usually derived from the request URL
+     * @return the cached entry, or <code>null</code> if there isn't one
+     */
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores a body with its entity tag, replacing any existing entry for the key. If the body is
+     * too big to cache, any existing entry is removed.
+     *
+     * @param key the key
+     * @param entityTag the entity tag, exactly as the server sent it in the ETag header
+     * @param body the response body
+     */
+    public synchronized void put(String key, String entityTag, byte[] body) {
+        remove(key);
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+
+        entries.put(key, new Entry(entityTag, body));
+        totalBytes += body.length;
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().body.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes the entry for the key, if there is one
+     *
+     * @param key the key
+     */
+    public synchronized void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            totalBytes -= old.body.length;
+        }
+    }
+
+    /**
+     * Wraps a response body stream so that the body is stored in the cache as it is read.
+     * <p>
+     * The body is stored once the stream reaches its end or is closed. On close, any unread data
+     * is read so it can be cached, unless the body has already grown too big to cache.
+     *
+     * @param key the key
+     * @param entityTag the entity tag sent with the body
+     * @param body the stream of the response body
+     * @return a stream which returns the same data as <code>body</code>
+     */
+    public InputStream capture(String key, String entityTag, InputStream body) {
+        return new CapturingInputStream(key, entityTag, body);
+    }
+
+    /**
+     * A cached response
+     */
+    public static class Entry {
+        private final String entityTag;
+        private final byte[] body;
+
+        private Entry(String entityTag, byte[] body) {
+            this.entityTag = entityTag;
+            this.body = body;
+        }
+
+        public String getEntityTag() {
+            return entityTag;
+        }
+
+        /**
+         * @return the body, which must not be modified
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    private class CapturingInputStream extends FilterInputStream {
+        private final String key;
+        private final String entityTag;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        private boolean stored = false;
+
+        CapturingInputStream(String key, String entityTag, InputStream in) {
+            super(in);
+            this.key = key;
+            this.entityTag = entityTag;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                store();
+            } else {
+                capture(new byte[] { (byte) b }, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                store();
+            } else {
+                capture(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped data can't be cached
+            captured = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                byte[] buffer = new byte[4096];
+                while (captured != null && !stored && read(buffer, 0, buffer.length) != -1) {
+                    continue;
+                }
+            } finally {
+                if (captured == null) {
+                    store();
+                }
+                super.close();
+            }
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (captured == null) {
+                return;
+            }
+            if (captured.size() + len > maxEntryBytes) {
+                captured = null;
+                return;
+            }
+            captured.write(b, off, len);
+        }
+
+        private void store() {
+            if (stored) {
+                return;
+            }
+            stored = true;
+            if (captured != null) {
+                put(key, entityTag, captured.toByteArray());
+            } else {
+                // The new body is too big to keep, so don't leave the old one behind either
+                remove(key);
+            }
+        }
+    }
+}
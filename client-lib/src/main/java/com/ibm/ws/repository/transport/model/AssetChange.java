@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.model;
+
+import java.util.Calendar;
+
+import com.ibm.ws.repository.common.enums.ChangeType;
+
+/**
+ * A single entry from the repository's change feed, giving the most recent change to an asset.
+ */
+public class AssetChange extends AbstractJSON {
+
+    private String id;
+    private ChangeType type;
+    private Calendar changedOn;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public void setType(ChangeType type) {
+        this.type = type;
+    }
+
+    public Calendar getChangedOn() {
+        return changedOn;
+    }
+
+    public void setChangedOn(Calendar changedOn) {
+        this.changedOn = changedOn;
+    }
+
+}
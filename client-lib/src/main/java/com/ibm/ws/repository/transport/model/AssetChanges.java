@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the repository's change feed.
+ * <p>
+ * The token should be passed back to get the next page. If reset is true, the repository could not
+ * tell what has changed since the token that was passed in, so the caller should fetch every asset
+ * again and then carry on from the new token.
+ */
+public class AssetChanges extends AbstractJSON {
+
+    private List<AssetChange> changes = new ArrayList<AssetChange>();
+    private String token;
+    private boolean more;
+    private boolean reset;
+
+    public List<AssetChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<AssetChange> changes) {
+        this.changes = changes;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return true if there may be more changes available straight away
+     */
+    public boolean getMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    /**
+     * @return true if the caller must fetch every asset again
+     */
+    public boolean getReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+}
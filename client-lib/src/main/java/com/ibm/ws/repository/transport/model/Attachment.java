@@ -36,6 +36,7 @@ public class Attachment extends AbstractJSON {
     private String content = null;
     private String authentication = null;
     private long size;
+    private String sha256 = null;
     private AttachmentInfo wlpInformation = null;
     private AttachmentLinkType linkType = null;
     private Locale locale;
@@ -141,6 +142,23 @@ public class Attachment extends AbstractJSON {
         this.size = size;
     }
 
+    /**
+     * @return the hex SHA-256 hash of the content, or null if not known
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * The hash is checked by the server when the content is uploaded. It isn't used by
+     * {@link #equivalent(Object)}, as older servers don't return it.
+     *
+     * @param sha256 the hex SHA-256 hash of the content
+     */
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
     public Locale getLocale() {
         return locale;
     }
@@ -192,6 +210,7 @@ public class Attachment extends AbstractJSON {
         result = prime * result + ((locale == null) ? 0 : locale.hashCode());
         result = prime * result + ((linkType == null) ? 0 : linkType.hashCode());
         result = prime * result + ((authentication == null) ? 0 : authentication.hashCode());
+        result = prime * result + ((sha256 == null) ? 0 : sha256.hashCode());
         return result;
     }
 
@@ -241,6 +260,11 @@ public class Attachment extends AbstractJSON {
                 return false;
         } else if (!authentication.equals(other.authentication))
             return false;
+        if (sha256 == null) {
+            if (other.sha256 != null)
+                return false;
+        } else if (!sha256.equals(other.sha256))
+            return false;
         if (wlpInformation == null) {
             if (other.wlpInformation != null)
                 return false;
@@ -22,10 +22,13 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URLEncoder;
@@ -39,9 +42,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import org.apache.http.HttpEntity;
 import org.apache.http.ParseException;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
+import org.apache.http.entity.mime.content.StringBody;
+import org.apache.http.util.EntityUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -81,6 +91,9 @@ public class ApiTest {
     public static final String NON_EXISTENT_ID = "ffffffffffffffffffffffff";
 
     private static final long RANDOM_SEED = 0xACEDEADBEEFL;
+
+    /** The largest attachment upload the test server accepts, set by lars.attachments.maxSize */
+    private static final int MAX_ATTACHMENT_SIZE = 4 * 1024 * 1024;
     private static final ObjectMapper MAPPER = new ObjectMapper();
     private Random random;
 
@@ -134,6 +147,123 @@ public class ApiTest {
         assertEquals("", createdAttachment.get_id(), attachmentMap.get("_id"));
     }
 
+    /**
+     * Test that GETs of an asset, its attachments and the asset list return an ETag, and that a
+     * request with a matching If-None-Match header gets a 304 until the asset changes.
+     */
+    @Test
+    public void testConditionalGets() throws Exception {
+        Asset asset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String assetUrl = "/assets/" + asset.get_id();
+
+        for (String url : Arrays.asList(assetUrl, assetUrl + "/attachments", "/assets")) {
+            String etag;
+            try (CloseableHttpResponse response = repository.doConditionalGet(url, null, 200)) {
+                assertNotNull("No ETag returned from " + url, response.getFirstHeader("ETag"));
+                etag = response.getFirstHeader("ETag").getValue();
+            }
+
+            try (CloseableHttpResponse response = repository.doConditionalGet(url, etag, 304)) {
+                assertEquals("Wrong ETag on 304 from " + url, etag, response.getFirstHeader("ETag").getValue());
+            }
+            repository.doConditionalGet(url, "\"somethingelse\"", 200).close();
+        }
+
+        String etag;
+        try (CloseableHttpResponse response = repository.doConditionalGet(assetUrl, null, 200)) {
+            assertNotNull("No Last-Modified returned", response.getFirstHeader("Last-Modified"));
+            etag = response.getFirstHeader("ETag").getValue();
+        }
+        String listEtag;
+        try (CloseableHttpResponse response = repository.doConditionalGet("/assets", null, 200)) {
+            listEtag = response.getFirstHeader("ETag").getValue();
+        }
+        repository.updateAssetState(asset.get_id(), StateAction.PUBLISH, 200);
+        repository.doConditionalGet(assetUrl, etag, 200).close();
+        repository.doConditionalGet("/assets", listEtag, 200).close();
+    }
+
+    /**
+     * Test that attachment content is served with an ETag and can be revalidated
+     */
+    @Test
+    public void testConditionalGetAttachmentContent() throws Exception {
+        Asset asset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        byte[] content = "This is the content.\nIt is quite short.".getBytes(StandardCharsets.UTF_8);
+        Attachment attachment = repository.doPostAttachmentWithContent(asset.get_id(), "etag.txt", AssetUtils.getTestAttachmentWithContent(),
+                                                                       content, ContentType.TEXT_PLAIN);
+        String url = "/assets/" + asset.get_id() + "/attachments/" + attachment.get_id() + "/etag.txt";
+
+        String etag;
+        try (CloseableHttpResponse response = repository.doConditionalGet(url, null, 200)) {
+            assertNotNull("No ETag returned", response.getFirstHeader("ETag"));
+            assertNotNull("No Last-Modified returned", response.getFirstHeader("Last-Modified"));
+            etag = response.getFirstHeader("ETag").getValue();
+            assertArrayEquals(content, EntityUtils.toByteArray(response.getEntity()));
+        }
+
+        repository.doConditionalGet(url, etag, 304).close();
+    }
+
+    @Test
+    public void testGetAssetsIncludeAttachments() throws Exception {
+        Asset asset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        Attachment attachment = repository.doPostAttachmentWithContent(asset.get_id(), "included.txt", AssetUtils.getTestAttachmentWithContent(),
+                                                                       content, ContentType.TEXT_PLAIN);
+
+        try (CloseableHttpResponse response = repository.doConditionalGet("/assets?includeAttachments=true", null, 200)) {
+            assertEquals("true", response.getFirstHeader("includeAttachments").getValue());
+            AssetList assets = AssetList.jsonArrayToAssetList(EntityUtils.toString(response.getEntity()));
+            assertEquals("includeAttachments should not filter the assets", 1, assets.size());
+            AttachmentList attachments = assets.get(0).getAttachments();
+            assertEquals(1, attachments.size());
+            assertEquals(attachment.get_id(), attachments.get(0).get_id());
+            assertNotNull("The attachment URL should have been computed", attachments.get(0).getUrl());
+        }
+    }
+
+    @Test
+    public void testRangeGetAttachmentContent() throws Exception {
+        Asset asset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        byte[] content = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+        Attachment attachment = repository.doPostAttachmentWithContent(asset.get_id(), "range.txt", AssetUtils.getTestAttachmentWithContent(),
+                                                                       content, ContentType.TEXT_PLAIN);
+        String url = "/assets/" + asset.get_id() + "/attachments/" + attachment.get_id() + "/range.txt";
+
+        String etag;
+        try (CloseableHttpResponse response = repository.doConditionalGet(url, null, 200)) {
+            assertEquals("bytes", response.getFirstHeader("Accept-Ranges").getValue());
+            assertEquals("20", response.getFirstHeader("Content-Length").getValue());
+            assertEquals("SHA-256=a8FL3EUXp6aCxpEN4uKUbrjh7NBAkHKP720JKnzrYsU=", response.getFirstHeader("Digest").getValue());
+            etag = response.getFirstHeader("ETag").getValue();
+            EntityUtils.consume(response.getEntity());
+        }
+
+        try (CloseableHttpResponse response = repository.doRangeGet(url, "bytes=5-9", null, 206)) {
+            assertEquals("bytes 5-9/20", response.getFirstHeader("Content-Range").getValue());
+            assertEquals("56789", EntityUtils.toString(response.getEntity()));
+        }
+
+        try (CloseableHttpResponse response = repository.doRangeGet(url, "bytes=15-", etag, 206)) {
+            assertEquals("bytes 15-19/20", response.getFirstHeader("Content-Range").getValue());
+            assertEquals("fghij", EntityUtils.toString(response.getEntity()));
+        }
+
+        try (CloseableHttpResponse response = repository.doRangeGet(url, "bytes=-3", null, 206)) {
+            assertEquals("hij", EntityUtils.toString(response.getEntity()));
+        }
+
+        // A stale If-Range means the whole content is sent
+        try (CloseableHttpResponse response = repository.doRangeGet(url, "bytes=5-9", "\"stale\"", 200)) {
+            assertArrayEquals(content, EntityUtils.toByteArray(response.getEntity()));
+        }
+
+        try (CloseableHttpResponse response = repository.doRangeGet(url, "bytes=20-", null, 416)) {
+            assertEquals("bytes */20", response.getFirstHeader("Content-Range").getValue());
+        }
+    }
+
     @Test
     public void testGetUnpublishedAssets() throws ClientProtocolException, IOException, InvalidJsonAssetException {
         repository.addAssetNoAttachments(AssetUtils.getTestAsset());
@@ -528,6 +658,115 @@ public class ApiTest {
                                                   "The link type must not be set for an attachment with content");
     }
 
+    /**
+     * The content is stored as it is read, so the attachmentInfo part has to come first
+     */
+    @Test
+    public void testAttachmentContentBeforeInfo() throws Exception {
+        Asset returnedAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String attachmentName = "attachment.txt";
+        byte[] content = "This is the content.\nIt is quite short.".getBytes(StandardCharsets.UTF_8);
+
+        HttpEntity entity = MultipartEntityBuilder.create()
+                        .addPart(attachmentName, new ByteArrayBody(content, ContentType.APPLICATION_OCTET_STREAM, attachmentName))
+                        .addPart("attachmentInfo", new StringBody(AssetUtils.getTestAttachmentWithContent().toJson(), ContentType.APPLICATION_JSON))
+                        .build();
+        String response = repository.doPostMultipart(getAttachmentsUrl(returnedAsset.get_id(), attachmentName), entity, 400);
+
+        assertEquals("Unexpected message from server", "The attachmentInfo part must be sent before the attachment content",
+                     repository.parseErrorObject(response));
+        assertEquals("No attachment should have been created", 0, repository.doGetAllAttachmentsForAsset(returnedAsset.get_id()).size());
+    }
+
+    /**
+     * Invalid metadata or a missing parent asset are found as soon as the attachmentInfo part is
+     * read, so none of the content is stored
+     */
+    @Test
+    public void testAttachmentRejectedBeforeContentStored() throws Exception {
+        long chunks = countGridFSChunks();
+        Asset returnedAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String attachmentName = "attachment.txt";
+        byte[] content = new byte[MAX_ATTACHMENT_SIZE / 2];
+        random.nextBytes(content);
+
+        Attachment withUrl = AssetUtils.getTestAttachmentWithContent();
+        withUrl.setUrl("any_url");
+        repository.doPostBadAttachmentWithContent(returnedAsset.get_id(),
+                                                  attachmentName,
+                                                  withUrl,
+                                                  content,
+                                                  ContentType.APPLICATION_OCTET_STREAM,
+                                                  400,
+                                                  "An attachment should not have the URL set if it is created with content");
+
+        repository.doPostBadAttachmentWithContent(NON_EXISTENT_ID,
+                                                  attachmentName,
+                                                  AssetUtils.getTestAttachmentWithContent(),
+                                                  content,
+                                                  ContentType.APPLICATION_OCTET_STREAM,
+                                                  404,
+                                                  "The parent asset for this attachment (id=" + NON_EXISTENT_ID + ") does not exist in the repository.");
+
+        assertEquals("No attachment should have been created", 0, repository.doGetAllAttachmentsForAsset(returnedAsset.get_id()).size());
+        assertEquals("No content should have been stored", chunks, countGridFSChunks());
+    }
+
+    /**
+     * An upload whose Content-Length is over lars.attachments.maxSize is rejected without reading it
+     */
+    @Test
+    public void testAttachmentTooLarge() throws Exception {
+        long chunks = countGridFSChunks();
+        Asset returnedAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String attachmentName = "attachment.bin";
+        byte[] content = new byte[MAX_ATTACHMENT_SIZE + 1];
+
+        repository.doPostBadAttachmentWithContent(returnedAsset.get_id(),
+                                                  attachmentName,
+                                                  AssetUtils.getTestAttachmentWithContent(),
+                                                  content,
+                                                  ContentType.APPLICATION_OCTET_STREAM,
+                                                  400,
+                                                  "The attachment content must not be larger than " + MAX_ATTACHMENT_SIZE + " bytes");
+
+        assertEquals("No attachment should have been created", 0, repository.doGetAllAttachmentsForAsset(returnedAsset.get_id()).size());
+        assertEquals("No content should have been stored", chunks, countGridFSChunks());
+    }
+
+    /**
+     * An upload without a Content-Length is cut off once it passes lars.attachments.maxSize, and the
+     * GridFS chunks written before then are removed
+     */
+    @Test
+    public void testAttachmentTooLargeStreamed() throws Exception {
+        long chunks = countGridFSChunks();
+        Asset returnedAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String attachmentName = "attachment.bin";
+        byte[] content = new byte[MAX_ATTACHMENT_SIZE + 1];
+        random.nextBytes(content);
+
+        HttpEntity entity = MultipartEntityBuilder.create()
+                        .addPart("attachmentInfo", new StringBody(AssetUtils.getTestAttachmentWithContent().toJson(), ContentType.APPLICATION_JSON))
+                        .addPart(attachmentName, new InputStreamBody(new ByteArrayInputStream(content), ContentType.APPLICATION_OCTET_STREAM, attachmentName))
+                        .build();
+        assertEquals("The request should be sent without a length", -1, entity.getContentLength());
+        String response = repository.doPostMultipart(getAttachmentsUrl(returnedAsset.get_id(), attachmentName), entity, 400);
+
+        assertEquals("Unexpected message from server", "The attachment content must not be larger than " + MAX_ATTACHMENT_SIZE + " bytes",
+                     repository.parseErrorObject(response));
+        assertEquals("No attachment should have been created", 0, repository.doGetAllAttachmentsForAsset(returnedAsset.get_id()).size());
+        assertEquals("The chunks written before the limit was reached should have been removed", chunks, countGridFSChunks());
+    }
+
+    private static String getAttachmentsUrl(String assetId, String name) throws IOException {
+        return "/assets/" + assetId + "/attachments?name=" + URLEncoder.encode(name, "UTF-8");
+    }
+
+    private static long countGridFSChunks() throws IOException {
+        return FatUtils.getMongoDB().getCollection("fs.chunks").count();
+    }
+
     /**
      * Takes an attachment with no content through create -> retrieve -> delete.
      */
@@ -825,6 +1064,22 @@ public class ApiTest {
         assertEquals("The wrong number of attachments was found", 0, attachments.size());
     }
 
+    @Test
+    public void testGetAllAssetsRangeFiltered() throws Exception {
+        addLittleAsset("foo", "a", "date", "2026-01-01T00:00:00Z");
+        addLittleAsset("foo", "b", "date", "2026-02-01T00:00:00Z");
+        addLittleAsset("foo", "c", "date", "2026-03-01T00:00:00Z");
+        addLittleAsset("foo", "d");
+
+        // Note %3E == '>' and %3C == '<'
+        assertEquals(2, repository.getAllAssets("date%3E2026-01-01T00:00:00Z").size());
+        assertEquals(3, repository.getAllAssets("date%3E=2026-01-01").size());
+        assertEquals(1, repository.getAllAssets("date%3E=2026-01-01&date%3C2026-02-01").size());
+        assertEquals(2, repository.getAllAssets("date%3C=2026-02-01T00:00:00Z").size());
+        assertEquals(1, repository.getAllAssets("foo=a|c|d&date%3E2026-01-15").size());
+        assertEquals(3, repository.getAllAssets("foo=a|b|d").size());
+    }
+
     @Test
     public void testGetAllAssetsFiltered() throws IOException, InvalidJsonAssetException {
 
@@ -1016,6 +1271,99 @@ public class ApiTest {
         assertThat(collatePages(page1, page2, page3), containsInAnyOrder(asset2, asset3, asset4));
     }
 
+    @Test
+    public void testGetAllAssetsPageTokens() throws Exception {
+        Asset bigFoo = addLittleAsset("name", "Big Foo", "size", "20");
+        Asset smallFoo = addLittleAsset("name", "Small Foo", "size", "10");
+        Asset giantBar = addLittleAsset("name", "Giant Bar", "size", "40");
+        Asset otherBigFoo = addLittleAsset("name", "Other Big Foo", "size", "20");
+        Asset noSize = addLittleAsset("name", "No Size");
+
+        // Walk the pages, following the token from each page to the next
+        List<Asset> sorted = getAllPagesWithTokens("sortBy=size&sortOrder=ASC&limit=2");
+        assertEquals("Wrong number of assets", 5, sorted.size());
+        assertEquals(noSize, sorted.get(0));
+        assertEquals(smallFoo, sorted.get(1));
+        assertThat(sorted.subList(2, 4), containsInAnyOrder(bigFoo, otherBigFoo));
+        assertEquals(giantBar, sorted.get(4));
+
+        List<Asset> descending = getAllPagesWithTokens("sortBy=size&sortOrder=DESC&limit=2");
+        assertEquals("Wrong number of assets", 5, descending.size());
+        assertEquals(giantBar, descending.get(0));
+        assertThat(descending.subList(1, 3), containsInAnyOrder(bigFoo, otherBigFoo));
+        assertEquals(smallFoo, descending.get(3));
+        assertEquals(noSize, descending.get(4));
+
+        // Without a sort, assets come back in the order they were created
+        assertThat(getAllPagesWithTokens("limit=3"), contains(bigFoo, smallFoo, giantBar, otherBigFoo, noSize));
+
+        // Tokens can't be used with a different sort
+        try (CloseableHttpResponse response = repository.doConditionalGet("/assets?sortBy=size&limit=2&pageToken=", null, 200)) {
+            String token = response.getFirstHeader("nextPageToken").getValue();
+            repository.doGet("/assets?sortBy=name&limit=2&pageToken=" + token, 400);
+        }
+        repository.doGet("/assets?limit=2&offset=2&pageToken=", 400);
+        repository.doGet("/assets?pageToken=", 400);
+        repository.doGet("/assets?limit=2&pageToken=rubbish", 400);
+    }
+
+    private List<Asset> getAllPagesWithTokens(String query) throws Exception {
+        List<Asset> result = new ArrayList<>();
+        String token = "";
+        int pages = 0;
+        while (token != null) {
+            try (CloseableHttpResponse response = repository.doConditionalGet("/assets?" + query + "&pageToken=" + token, null, 200)) {
+                AssetList page = AssetList.jsonArrayToAssetList(EntityUtils.toString(response.getEntity()));
+                for (Asset asset : page) {
+                    result.add(asset);
+                }
+                token = response.getFirstHeader("nextPageToken") == null ? null : response.getFirstHeader("nextPageToken").getValue();
+            }
+            assertTrue("Too many pages", ++pages < 10);
+        }
+        return result;
+    }
+
+    @Test
+    public void testGetAssetsWithFields() throws Exception {
+        Asset asset = addLittleAsset("name", "Projected", "description", "A very long description", "type", "com.ibm.websphere.Feature");
+        repository.doPostAttachmentNoContent(asset.get_id(), "att1", AssetUtils.getTestAttachmentNoContent());
+
+        AssetList assets = repository.getAllAssets("fields=name,type");
+        assertEquals("Wrong number of assets", 1, assets.size());
+        Asset listed = assets.get(0);
+        assertEquals(asset.get_id(), listed.get_id());
+        assertEquals("Projected", listed.getProperty("name"));
+        assertEquals("com.ibm.websphere.Feature", listed.getProperty("type"));
+        assertEquals("Unexpected fields in " + listed, 3, listed.getProperties().size());
+
+        Asset single = Asset.deserializeAssetFromJson(repository.doGet("/assets/" + asset.get_id() + "?fields=description", 200));
+        assertEquals(asset.get_id(), single.get_id());
+        assertEquals("A very long description", single.getProperty("description"));
+        assertEquals("Unexpected fields in " + single, 2, single.getProperties().size());
+
+        // Attachments are only returned if asked for
+        single = Asset.deserializeAssetFromJson(repository.doGet("/assets/" + asset.get_id() + "?fields=attachments", 200));
+        assertEquals("Wrong number of attachments", 1, single.getAttachments().size());
+
+        // A sort field needed for the page token isn't returned unless it was asked for
+        try (CloseableHttpResponse response = repository.doConditionalGet("/assets?fields=name&sortBy=type&limit=1&pageToken=", null, 200)) {
+            AssetList page = AssetList.jsonArrayToAssetList(EntityUtils.toString(response.getEntity()));
+            assertEquals("Unexpected fields in " + page.get(0), 2, page.get(0).getProperties().size());
+            assertNotNull("No next page token", response.getFirstHeader("nextPageToken"));
+        }
+
+        // Sorting on a field inside a projected field
+        try (CloseableHttpResponse response = repository.doConditionalGet("/assets?fields=description&sortBy=description.length&limit=1&pageToken=", null,
+                                                                          200)) {
+            AssetList page = AssetList.jsonArrayToAssetList(EntityUtils.toString(response.getEntity()));
+            assertEquals("A very long description", page.get(0).getProperty("description"));
+        }
+
+        repository.doGet("/assets?fields=name,,type", 400);
+        repository.doGet("/assets/" + asset.get_id() + "?fields=$where", 400);
+    }
+
     @Test
     public void testGetAllAssetsSorted() throws Exception {
         Asset bigFoo = addLittleAsset("name", "Big Foo", "category", "foo", "size", "20");
@@ -1086,6 +1434,112 @@ public class ApiTest {
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testGetQueryStatistics() throws Exception {
+        addLittleAsset("name", "Foo", "category", "foo");
+        repository.doGet("/assets?category=foo&sortBy=name", 200);
+
+        Map<String, Object> stats = new ObjectMapper().readValue(repository.doGet("/admin/queryStats", 200), Map.class);
+        assertTrue(stats.containsKey("dropped"));
+        boolean found = false;
+        for (Map<String, Object> shape : (List<Map<String, Object>>) stats.get("shapes")) {
+            if ("find".equals(shape.get("operation")) && Arrays.asList("category").equals(shape.get("filterKeys")) && "name".equals(shape.get("sortBy"))) {
+                found = true;
+                assertTrue(((Number) shape.get("count")).intValue() >= 1);
+            }
+        }
+        assertTrue("No statistics for the query in " + stats, found);
+
+        RepositoryContext.toUserContext(repository).doGet("/admin/queryStats", RepositoryContext.RC_REJECT);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExportAndImport() throws Exception {
+        Asset asset = addLittleAsset("name", "exported");
+        byte[] content = "exported content".getBytes(StandardCharsets.UTF_8);
+        Attachment attachment = repository.doPostAttachmentWithContent(asset.get_id(), "exported.txt", AssetUtils.getTestAttachmentWithContent(),
+                                                                       content, ContentType.TEXT_PLAIN);
+
+        String exported = repository.doGet("/export?includeContent=true", 200);
+        assertEquals(exported, 2, exported.split("\n").length);
+
+        repository.deleteAsset(asset.get_id(), -1);
+        repository.getBadAsset(asset.get_id(), 404);
+
+        Map<String, Object> result = new ObjectMapper().readValue(repository.doPostNdjson("/import", exported, 200), Map.class);
+        assertEquals(1, result.get("assets"));
+        assertEquals(1, result.get("attachments"));
+
+        assertEquals("exported", repository.getAsset(asset.get_id()).getProperty("name"));
+        assertArrayEquals(content, repository.doGetAttachmentContent(asset.get_id(), attachment.get_id(), "exported.txt"));
+
+        repository.doPostNdjson("/import", "[1]", 400);
+
+        RepositoryContext userContext = RepositoryContext.toUserContext(repository);
+        userContext.doGet("/export", RepositoryContext.RC_REJECT);
+        userContext.doPostNdjson("/import", exported, RepositoryContext.RC_REJECT);
+    }
+
+    @Test
+    public void testGetAssetBatch() throws Exception {
+        Asset published = addLittleAssetWithState(Asset.State.PUBLISHED, "name", "published");
+        Asset draft = addLittleAssetWithState(Asset.State.DRAFT, "name", "draft");
+        Attachment attachment = repository.doPostAttachmentNoContent(published.get_id(), "att1", AssetUtils.getTestAttachmentNoContent());
+
+        String ids = "[\"" + draft.get_id() + "\",\"000000000000000000000000\",\"" + published.get_id() + "\"]";
+        AssetList assets = AssetList.jsonArrayToAssetList(repository.doPost("/assets/batch", ids, 200));
+        assertEquals(2, assets.size());
+        assertEquals(draft.get_id(), assets.get(0).get_id());
+        assertEquals(published.get_id(), assets.get(1).get_id());
+        assertEquals(attachment.get_id(), assets.get(1).getAttachments().get(0).get_id());
+
+        // Users don't see the draft asset
+        assets = AssetList.jsonArrayToAssetList(RepositoryContext.toUserContext(repository).doPost("/assets/batch", ids, 200));
+        assertEquals(1, assets.size());
+        assertEquals(published.get_id(), assets.get(0).get_id());
+
+        repository.doPost("/assets/batch", "[\"not an id\"]", 400);
+        repository.doPost("/assets/batch", "{}", 400);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testGetChanges() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> start = mapper.readValue(repository.doGet("/changes", 200), Map.class);
+        assertEquals(Boolean.TRUE, start.get("reset"));
+        String token = (String) start.get("token");
+
+        Asset published = addLittleAssetWithState(Asset.State.PUBLISHED, "name", "published");
+        Asset draft = addLittleAssetWithState(Asset.State.DRAFT, "name", "draft");
+        Asset deleted = addLittleAssetWithState(Asset.State.PUBLISHED, "name", "deleted");
+        repository.deleteAsset(deleted.get_id(), -1);
+
+        Map<String, Object> changes = mapper.readValue(repository.doGet("/changes?since=" + token, 200), Map.class);
+        assertEquals(Boolean.FALSE, changes.get("reset"));
+        Map<String, Object> types = new HashMap<>();
+        for (Map<String, Object> change : (List<Map<String, Object>>) changes.get("changes")) {
+            types.put((String) change.get("id"), change.get("type"));
+        }
+        assertEquals("updated", types.get(published.get_id()));
+        assertEquals("created", types.get(draft.get_id()));
+        assertEquals("deleted", types.get(deleted.get_id()));
+
+        // Users don't see the draft asset
+        Map<String, Object> userChanges = mapper.readValue(RepositoryContext.toUserContext(repository).doGet("/changes?since=" + token, 200), Map.class);
+        types.clear();
+        for (Map<String, Object> change : (List<Map<String, Object>>) userChanges.get("changes")) {
+            types.put((String) change.get("id"), change.get("type"));
+        }
+        assertEquals("updated", types.get(published.get_id()));
+        assertFalse(types.containsKey(draft.get_id()));
+        assertEquals("deleted", types.get(deleted.get_id()));
+
+        repository.doGet("/changes?since=notanumber", 400);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testGetAssetSummary() throws Exception {
@@ -1136,11 +1590,28 @@ public class ApiTest {
         result = userRepo.getAssetSummary("fields=foo");
         assertThat(result, contains(summaryResult("foo")));
 
+        result = repository.getAssetSummary("fields=weather&counts=true&ground=flat");
+        assertEquals(1, result.size());
+        assertThat((List<Object>) result.get(0).get("filterValue"), containsInAnyOrder((Object) valueCount("hot", 1), valueCount("cold", 1),
+                                                                                       valueCount("warm", 1)));
+        result = userRepo.getAssetSummary("fields=ground&counts=true");
+        assertThat((List<Object>) result.get(0).get("filterValue"), containsInAnyOrder((Object) valueCount("flat", 1), valueCount("hilly", 1)));
+        result = repository.getAssetSummary("fields=ground&counts=true");
+        assertThat((List<Object>) result.get(0).get("filterValue"), containsInAnyOrder((Object) valueCount("flat", 3), valueCount("hilly", 3),
+                                                                                       valueCount("mountainous", 3)));
+
         repository.getBadAssetSummary("fields=", 400);
 
         repository.getBadAssetSummary("", 400);
     }
 
+    private static Map<String, Object> valueCount(Object value, int count) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("value", value);
+        result.put("count", count);
+        return result;
+    }
+
     @Test
     public void testGetAssetSummaryUnpublished() throws Exception {
         addLittleAssetWithState(Asset.State.DRAFT,
@@ -45,9 +45,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.ibm.ws.lars.rest.Condition.Operation;
+import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
@@ -186,7 +188,7 @@ public class PersistenceBeanTest {
      * the PersistenceBean.
      */
     @Test
-    public void testStoreAndRetrieveAttachmentContent() throws IOException, NonExistentArtefactException {
+    public void testStoreAndRetrieveAttachmentContent() throws IOException, NonExistentArtefactException, AssetPersistenceException {
         byte[] content = "This is a very small amount of content".getBytes();
         AttachmentContentMetadata contentMetadata = persistenceBean.createAttachmentContent("MrAttachment.txt",
                                                                                             "test/plain",
@@ -200,6 +202,73 @@ public class PersistenceBeanTest {
         }
     }
 
+    /**
+     * Test that content which is stored twice is shared, and only removed when both references to
+     * it have been deleted.
+     */
+    @Test
+    public void testAttachmentContentShared() throws IOException, NonExistentArtefactException, AssetPersistenceException {
+        byte[] content = "This content is stored twice".getBytes();
+        AttachmentContentMetadata first = persistenceBean.createAttachmentContent("first.txt", "text/plain", new ByteArrayInputStream(content));
+        AttachmentContentMetadata second = persistenceBean.createAttachmentContent("second.txt", "text/plain", new ByteArrayInputStream(content));
+        assertEquals("The content should be shared", first.filename, second.filename);
+        assertEquals(first.sha256, second.sha256);
+        assertEquals("Only one copy of the content should be stored", 1, db.getCollection("fs.files").count());
+
+        persistenceBean.deleteAttachmentContent(first.filename);
+        try (InputStream contentStream = persistenceBean.retrieveAttachmentContent(second.filename).getContentStream()) {
+            assertTrue(Arrays.equals(content, BasicChecks.slurp(contentStream)));
+        }
+
+        persistenceBean.deleteAttachmentContent(second.filename);
+        assertEquals("The content should be removed with its last reference", 0, db.getCollection("fs.files").count());
+        assertEquals(0, db.getCollection("blobs").count());
+    }
+
+    /**
+     * Verifies that when two changes are recorded at once and the later one is written first, a
+     * reader doesn't see the later one until the earlier one has been written, so it can't move
+     * its token past the earlier one.
+     */
+    @Test
+    public void testInterleavedChangeWriters() {
+        long first = persistenceBean.allocateChangeSequence();
+        long second = persistenceBean.allocateChangeSequence();
+        assertTrue(second > first);
+
+        persistenceBean.writeAssetChange(second, "second", AssetChange.Type.CREATED, true);
+        persistenceBean.releaseChangeSequence(second);
+        assertEquals(first - 1, persistenceBean.getLatestChangeSequence());
+        assertEquals(Collections.emptyList(), persistenceBean.retrieveAssetChanges(0, 100));
+
+        persistenceBean.writeAssetChange(first, "first", AssetChange.Type.CREATED, true);
+        persistenceBean.releaseChangeSequence(first);
+        assertEquals(second, persistenceBean.getLatestChangeSequence());
+        List<AssetChange> changes = persistenceBean.retrieveAssetChanges(0, 100);
+        assertEquals(2, changes.size());
+        assertEquals("first", changes.get(0).getAssetId());
+        assertEquals("second", changes.get(1).getAssetId());
+    }
+
+    /**
+     * Verifies that an earlier change to an asset which is written after a later one doesn't
+     * replace it
+     */
+    @Test
+    public void testOutOfOrderChangeToSameAsset() {
+        long first = persistenceBean.allocateChangeSequence();
+        long second = persistenceBean.allocateChangeSequence();
+        persistenceBean.writeAssetChange(second, "asset", AssetChange.Type.DELETED, false);
+        persistenceBean.writeAssetChange(first, "asset", AssetChange.Type.UPDATED, true);
+        persistenceBean.releaseChangeSequence(first);
+        persistenceBean.releaseChangeSequence(second);
+
+        List<AssetChange> changes = persistenceBean.retrieveAssetChanges(0, 100);
+        assertEquals(1, changes.size());
+        assertEquals(second, changes.get(0).getSequence());
+        assertEquals(AssetChange.Type.DELETED, changes.get(0).getType());
+    }
+
     /**
      * Verifies that an exception is thrown when we attempt to retrieve a non-existent asset.
      */
@@ -434,6 +503,27 @@ public class PersistenceBeanTest {
         assertThat("Wrong list of possible names with searchTerm=hot", searchNames, containsInAnyOrder((Object) "hot and flat", "hot and hilly"));
     }
 
+    /**
+     * A field inside a list of sub-documents should have each of its values counted, once per
+     * asset.
+     */
+    @Test
+    public void testGetDistinctValueCountsNestedInList() throws InvalidJsonAssetException {
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"parts\":[{\"colour\":\"red\"}, {\"colour\":\"blue\"}, {\"colour\":\"red\"}]}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"parts\":[{\"colour\":[\"red\", \"green\"]}, {\"size\":\"small\"}]}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"parts\":{\"colour\":\"blue\"}}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"weather\":\"hot\"}"));
+
+        List<AssetFilter> filters = Collections.emptyList();
+        Map<String, Map<Object, Integer>> counts = persistenceBean.getDistinctValueCounts(Arrays.asList("parts.colour"), filters, null);
+
+        Map<Object, Integer> expected = new HashMap<>();
+        expected.put("red", 2);
+        expected.put("blue", 2);
+        expected.put("green", 1);
+        assertEquals(expected, new HashMap<>(counts.get("parts.colour")));
+    }
+
     @Test
     public void testPagination() throws Exception {
         Asset asset1 = persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"asset1\"}"));
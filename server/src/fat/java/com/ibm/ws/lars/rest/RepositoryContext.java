@@ -291,6 +291,33 @@ public class RepositoryContext extends ExternalResource {
         return httpClient.execute(targetHost, get, httpClientContext);
     }
 
+    /**
+     * Does a GET with an If-None-Match header, returning the raw response so that the caller can
+     * check the headers. The caller must close the response.
+     */
+    public CloseableHttpResponse doConditionalGet(String url, String ifNoneMatch, int expectedStatusCode) throws ClientProtocolException, IOException {
+        HttpGet get = new HttpGet(fullURL + url);
+        get.setConfig(requestConfig);
+        if (ifNoneMatch != null) {
+            get.setHeader("If-None-Match", ifNoneMatch);
+        }
+        CloseableHttpResponse response = httpClient.execute(targetHost, get, httpClientContext);
+        assertStatusCode(expectedStatusCode, response);
+        return response;
+    }
+
+    public CloseableHttpResponse doRangeGet(String url, String range, String ifRange, int expectedStatusCode) throws ClientProtocolException, IOException {
+        HttpGet get = new HttpGet(fullURL + url);
+        get.setConfig(requestConfig);
+        get.setHeader("Range", range);
+        if (ifRange != null) {
+            get.setHeader("If-Range", ifRange);
+        }
+        CloseableHttpResponse response = httpClient.execute(targetHost, get, httpClientContext);
+        assertStatusCode(expectedStatusCode, response);
+        return response;
+    }
+
     public String doDelete(String url, int expectedStatusCode)
             throws ClientProtocolException, IOException {
         HttpDelete delete = new HttpDelete(fullURL + url);
@@ -318,6 +345,14 @@ public class RepositoryContext extends ExternalResource {
         return doRequest(request, expectedStatusCode);
     }
 
+    public String doPostNdjson(String url, String content, int expectedStatusCode)
+            throws ClientProtocolException, IOException {
+        HttpPost post = new HttpPost(fullURL + url);
+        post.setEntity(new ByteArrayEntity(content.getBytes(StandardCharsets.UTF_8),
+                ContentType.create("application/x-ndjson", StandardCharsets.UTF_8)));
+        return doRequest(post, expectedStatusCode);
+    }
+
     public String doPostMultipart(String url,
                                   String name,
                                   String json,
@@ -325,11 +360,23 @@ public class RepositoryContext extends ExternalResource {
                                   ContentType contentType,
                                   int expectedStatusCode)
             throws ClientProtocolException, IOException {
-        HttpPost post = new HttpPost(fullURL + url);
         HttpEntity requestEntity = MultipartEntityBuilder.create()
                 .addPart("attachmentInfo", new StringBody(json, ContentType.APPLICATION_JSON))
                 .addPart(name, new ByteArrayBody(content, contentType, name))
                 .build();
+
+        return doPostMultipart(url, requestEntity, expectedStatusCode);
+    }
+
+    /**
+     * Posts a multipart request whose parts have been put together by the caller, for example to
+     * send them in an unusual order or without a known length
+     */
+    public String doPostMultipart(String url,
+                                  HttpEntity requestEntity,
+                                  int expectedStatusCode)
+            throws ClientProtocolException, IOException {
+        HttpPost post = new HttpPost(fullURL + url);
         post.setEntity(requestEntity);
 
         return doRequest(post, expectedStatusCode);
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.ws.lars.rest.exceptions.InvalidParameterException;
+import com.ibm.ws.lars.rest.model.Asset;
+
+/**
+ * Decides whether an asset applies to a particular product, using the information stored in
+ * <code>wlpInformation.appliesToFilterInfo</code>.
+ * <p>
+ * The rules are the same as those the client library uses when matching a resource against a
+ * product definition:
+ * <ul>
+ * <li>An asset with no appliesToFilterInfo does not match</li>
+ * <li>An entry is only considered if its productId matches (or if no product id was given)</li>
+ * <li>The product version must lie within the entry's minVersion/maxVersion range</li>
+ * <li>If the entry lists rawEditions, the product edition must be one of them</li>
+ * </ul>
+ * Only one entry needs to match for the asset to match.
+ */
+public class AppliesToMatcher {
+
+    static final String APPLIES_TO_FILTER_INFO = "appliesToFilterInfo";
+    static final String PRODUCT_ID = "productId";
+    static final String MIN_VERSION = "minVersion";
+    static final String MAX_VERSION = "maxVersion";
+    static final String RAW_EDITIONS = "rawEditions";
+    static final String VALUE = "value";
+    static final String INCLUSIVE = "inclusive";
+
+    private final String productId;
+    private final Version productVersion;
+    private final String productEdition;
+
+    private AppliesToMatcher(String productId, Version productVersion, String productEdition) {
+        this.productId = productId;
+        this.productVersion = productVersion;
+        this.productEdition = productEdition;
+    }
+
+    /**
+     * Create a matcher for the given product.
+     * <p>
+     * Any of the arguments may be null, in which case that aspect of the appliesToFilterInfo will not
+     * be checked. If all of the arguments are null, there is nothing to match against and null is
+     * returned.
+     *
+     * @param productId the product id, e.g. com.ibm.websphere.appserver
+     * @param productVersion the product version, e.g. 16.0.0.2
+     * @param productEdition the product edition, e.g. BASE
+     * @return the matcher, or null if no product information was given
+     * @throws InvalidParameterException if productVersion is not a valid version
+     */
+    public static AppliesToMatcher create(String productId, String productVersion, String productEdition) throws InvalidParameterException {
+        if (isBlank(productId) && isBlank(productVersion) && isBlank(productEdition)) {
+            return null;
+        }
+
+        Version version = null;
+        if (!isBlank(productVersion)) {
+            try {
+                version = Version.parse(productVersion);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidParameterException("Invalid product version: " + productVersion);
+            }
+        }
+
+        return new AppliesToMatcher(isBlank(productId) ? null : productId, version, isBlank(productEdition) ? null : productEdition);
+    }
+
+    /**
+     * @param asset the asset to check
+     * @return true if the asset applies to the product described by this matcher
+     */
+    public boolean matches(Asset asset) {
+        Map<String, Object> wlpInfo = asset.getWlpInformation();
+        if (wlpInfo == null) {
+            return false;
+        }
+
+        Object atfiObject = wlpInfo.get(APPLIES_TO_FILTER_INFO);
+        if (!(atfiObject instanceof Collection)) {
+            return false;
+        }
+
+        for (Object atfi : (Collection<?>) atfiObject) {
+            if (atfi instanceof Map && matchesEntry((Map<?, ?>) atfi)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesEntry(Map<?, ?> atfi) {
+        if (productId != null && !productId.equals(atfi.get(PRODUCT_ID))) {
+            return false;
+        }
+
+        if (productVersion != null) {
+            if (!aboveMin(atfi.get(MIN_VERSION)) || !belowMax(atfi.get(MAX_VERSION))) {
+                return false;
+            }
+        }
+
+        if (productEdition != null) {
+            Object editions = atfi.get(RAW_EDITIONS);
+            if (editions instanceof List && !((List<?>) editions).isEmpty() && !((List<?>) editions).contains(productEdition)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean aboveMin(Object minVersion) {
+        if (!(minVersion instanceof Map)) {
+            return true;
+        }
+        Version min = parseFilterVersion((Map<?, ?>) minVersion);
+        if (min == null) {
+            return true;
+        }
+        int result = productVersion.compareTo(min);
+        return isInclusive((Map<?, ?>) minVersion) ? result >= 0 : result > 0;
+    }
+
+    private boolean belowMax(Object maxVersion) {
+        if (!(maxVersion instanceof Map)) {
+            return true;
+        }
+        Version max = parseFilterVersion((Map<?, ?>) maxVersion);
+        if (max == null) {
+            return true;
+        }
+        int result = productVersion.compareTo(max);
+        return isInclusive((Map<?, ?>) maxVersion) ? result <= 0 : result < 0;
+    }
+
+    private static Version parseFilterVersion(Map<?, ?> filterVersion) {
+        Object value = filterVersion.get(VALUE);
+        if (!(value instanceof String)) {
+            return null;
+        }
+        try {
+            return Version.parse((String) value);
+        } catch (IllegalArgumentException e) {
+            // Badly formed data in the asset, treat the bound as absent
+            return null;
+        }
+    }
+
+    private static boolean isInclusive(Map<?, ?> filterVersion) {
+        // FilterVersion.inclusive is a primitive boolean on the client, so it is always written
+        return !Boolean.FALSE.equals(filterVersion.get(INCLUSIVE));
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    /**
+     * An OSGi style version: major.minor.micro.qualifier, where missing numeric segments are zero.
+     */
+    static class Version implements Comparable<Version> {
+        private final int major;
+        private final int minor;
+        private final int micro;
+        private final String qualifier;
+
+        private Version(int major, int minor, int micro, String qualifier) {
+            this.major = major;
+            this.minor = minor;
+            this.micro = micro;
+            this.qualifier = qualifier;
+        }
+
+        static Version parse(String version) {
+            String[] parts = version.trim().split("\\.", 4);
+            try {
+                int major = Integer.parseInt(parts[0]);
+                int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+                int micro = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+                String qualifier = parts.length > 3 ? parts[3] : "";
+                if (major < 0 || minor < 0 || micro < 0) {
+                    throw new IllegalArgumentException("Negative version segment in " + version);
+                }
+                return new Version(major, minor, micro, qualifier);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid version " + version, e);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int compareTo(Version other) {
+            if (major != other.major) {
+                return major < other.major ? -1 : 1;
+            }
+            if (minor != other.minor) {
+                return minor < other.minor ? -1 : 1;
+            }
+            if (micro != other.micro) {
+                return micro < other.micro ? -1 : 1;
+            }
+            return qualifier.compareTo(other.qualifier);
+        }
+    }
+}
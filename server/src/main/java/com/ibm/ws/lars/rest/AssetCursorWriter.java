@@ -25,8 +25,10 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.StreamingAssetCursor;
 
 /**
  *
@@ -52,8 +54,32 @@ public class AssetCursorWriter implements MessageBodyWriter<AssetCursor> {
     @Override
     public void writeTo(AssetCursor cursor, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
                         OutputStream entityStream) throws IOException {
-        try (AssetCursor cursorToBeClosed = cursor) {
-            MAPPER.writeValue(entityStream, cursorToBeClosed);
+        writeCursor(cursor, entityStream);
+    }
+
+    /**
+     * Writes the assets from a cursor to a stream as a JSON array, closing the cursor afterwards.
+     * <p>
+     * If the cursor is a {@link StreamingAssetCursor}, each asset is written straight to the stream
+     * by the cursor.
+     *
+     * @param cursor the cursor to write
+     * @param stream the stream to write to
+     * @throws IOException if there is a problem writing to the stream
+     */
+    static void writeCursor(AssetCursor cursor, OutputStream stream) throws IOException {
+        try (AssetCursor cursorToBeClosed = cursor;
+                        JsonGenerator generator = MAPPER.getFactory().createGenerator(stream)) {
+            if (cursor instanceof StreamingAssetCursor) {
+                StreamingAssetCursor streamingCursor = (StreamingAssetCursor) cursor;
+                generator.writeStartArray();
+                while (streamingCursor.hasNext()) {
+                    streamingCursor.writeNext(generator);
+                }
+                generator.writeEndArray();
+            } else {
+                generator.writeObject(cursor);
+            }
         }
     }
 }
@@ -24,7 +24,10 @@ import java.util.List;
  * containing a field named 'foo' where 'foo' is an object containing a field name 'bar'
  * <p>
  * A filter will match an asset where the field indicated by a key is a match for <b>any</b> of the
- * conditions in the corresponding list.
+ * equality conditions in the corresponding list, and for <b>all</b> of the range conditions. If all
+ * of the equality conditions are negated, the field must match <b>none</b> of their values. So
+ * "foo=a|b" and "foo&gt;=c" and "foo&lt;d" together match assets where foo is a or b, and between c
+ * and d.
  * <p>
  *
  */
@@ -21,12 +21,15 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.ws.rs.core.MultivaluedMap;
@@ -46,18 +49,22 @@ public class AssetQueryParameters {
 
     private static final String LIMIT_PARAM = "limit";
     private static final String OFFSET_PARAM = "offset";
+    private static final String PAGE_TOKEN_PARAM = "pageToken";
     private static final String FIELDS_PARAM = "fields";
     private static final String APIKEY_PARAM = "apiKey";
     private static final String SEARCH_PARAM = "q";
     private static final String SORT_ORDER_PARAM = "sortOrder";
     private static final String SORT_BY_PARAM = "sortBy";
+    private static final String INCLUDE_ATTACHMENTS_PARAM = "includeAttachments";
+    private static final String COUNTS_PARAM = "counts";
 
     // Permitted values for the SORT_BY parameter
     private static final String SORT_BY_ASC = "ASC";
     private static final String SORT_BY_DESC = "DESC";
 
     private static final Set<String> NON_QUERY_PARAMS = new HashSet<>(
-            Arrays.asList(LIMIT_PARAM, OFFSET_PARAM, FIELDS_PARAM, APIKEY_PARAM, SEARCH_PARAM, SORT_ORDER_PARAM, SORT_BY_PARAM));
+            Arrays.asList(LIMIT_PARAM, OFFSET_PARAM, PAGE_TOKEN_PARAM, FIELDS_PARAM, APIKEY_PARAM, SEARCH_PARAM, SORT_ORDER_PARAM, SORT_BY_PARAM,
+                          INCLUDE_ATTACHMENTS_PARAM, COUNTS_PARAM));
 
     private AssetQueryParameters(Map<String, String> params) {
         this.params = params;
@@ -101,6 +108,13 @@ public class AssetQueryParameters {
      * If a single field name appeared twice or more in the query string, the returned list will
      * only contain one filter for that field, in a single AssetFilter instance. The filter in the
      * returned list will represent the last filter from the query string.
+     * <p>
+     * Range filters are written with the operator in place of the equals sign, e.g.
+     * <code>size&gt;3</code>, <code>size&gt;=3</code>, <code>size&lt;3</code> or
+     * <code>size&lt;=3</code>. Unlike other filters, all the range filters for a field are kept, so
+     * <code>lastUpdatedOn&gt;=2026-01-01&amp;lastUpdatedOn&lt;2026-02-01</code> finds the assets
+     * updated in January. They are added to the conditions of the field's filter after any
+     * equality conditions.
      *
      * @return a list of AssetFilter
      */
@@ -108,10 +122,12 @@ public class AssetQueryParameters {
         // process parameters as filters
         // Filters have the following syntax
         // field=value[|value]...
+        // field>value, field>=value, field<value or field<=value
 
         // To ensure there is only one filter per field, add
         // them to a keyed map. Convert to a list later
-        Map<String, AssetFilter> filterMap = new HashMap<>();
+        Map<String, List<Condition>> equalityMap = new LinkedHashMap<>();
+        Map<String, List<Condition>> rangeMap = new LinkedHashMap<>();
         for (Entry<String, String> entry : params.entrySet()) {
 
             // Skip any parameters which have a special meaning
@@ -119,6 +135,19 @@ public class AssetQueryParameters {
                 continue;
             }
 
+            int operatorIndex = indexOfRangeOperator(entry.getKey());
+            if (operatorIndex > 0) {
+                String field = entry.getKey().substring(0, operatorIndex);
+                Condition range = parseRange(entry.getKey().substring(operatorIndex), entry.getValue());
+                List<Condition> ranges = rangeMap.get(field);
+                if (ranges == null) {
+                    ranges = new ArrayList<>();
+                    rangeMap.put(field, ranges);
+                }
+                ranges.add(range);
+                continue;
+            }
+
             String value = entry.getValue();
 
             // Pipe (|) separates values which should be ORed together
@@ -147,32 +176,100 @@ public class AssetQueryParameters {
                 }
             }
 
-            filterMap.put(entry.getKey(), new AssetFilter(entry.getKey(), conditions));
+            equalityMap.put(entry.getKey(), conditions);
+        }
+
+        Map<String, List<Condition>> filterMap = new LinkedHashMap<>(equalityMap);
+        for (Entry<String, List<Condition>> entry : rangeMap.entrySet()) {
+            List<Condition> conditions = filterMap.get(entry.getKey());
+            if (conditions == null) {
+                filterMap.put(entry.getKey(), entry.getValue());
+            } else {
+                conditions.addAll(entry.getValue());
+            }
         }
 
         List<AssetFilter> assetFilters = new ArrayList<>();
-        assetFilters.addAll(filterMap.values());
+        for (Entry<String, List<Condition>> entry : filterMap.entrySet()) {
+            assetFilters.add(new AssetFilter(entry.getKey(), entry.getValue()));
+        }
         return assetFilters;
     }
 
+    private static int indexOfRangeOperator(String key) {
+        int greater = key.indexOf('>');
+        int less = key.indexOf('<');
+        if (greater == -1 || less == -1) {
+            return Math.max(greater, less);
+        }
+        return Math.min(greater, less);
+    }
+
     /**
-     * Parses the limit and offset parameters to create and return a PaginationOptions.
+     * Parses a range filter. For <code>size&gt;=3</code> the parameter name is
+     * <code>size&gt;</code> and the value is <code>3</code>, whereas for <code>size&gt;3</code>
+     * the whole filter is the parameter name and the value is empty.
+     *
+     * @param operatorAndRest the parameter name, starting from the operator
+     * @param paramValue the parameter value
+     * @return the condition
+     */
+    private static Condition parseRange(String operatorAndRest, String paramValue) {
+        boolean greater = operatorAndRest.charAt(0) == '>';
+        String rest = operatorAndRest.substring(1);
+
+        boolean inclusive;
+        String value;
+        if (rest.isEmpty()) {
+            inclusive = true;
+            value = paramValue;
+        } else if (rest.startsWith("=")) {
+            // The equals sign was encoded, so it was not split from the name
+            inclusive = true;
+            value = rest.substring(1);
+        } else {
+            inclusive = false;
+            value = paramValue.isEmpty() ? rest : rest + "=" + paramValue;
+        }
+
+        Operation operation;
+        if (greater) {
+            operation = inclusive ? Operation.GREATER_THAN_OR_EQUAL : Operation.GREATER_THAN;
+        } else {
+            operation = inclusive ? Operation.LESS_THAN_OR_EQUAL : Operation.LESS_THAN;
+        }
+        return new Condition(operation, value);
+    }
+
+    /**
+     * Parses the limit and offset or pageToken parameters to create and return a
+     * PaginationOptions.
+     * <p>
+     * If both limit and offset are present and are integers, a PaginationOptions object will be
+     * returned.
      * <p>
-     * If both parameters are present and are integers, a PaginationOptions object will be returned.
+     * If the pageToken parameter is present, the page follows on from the token returned with the
+     * previous page, or is the first page if the token is empty. The limit must also be given, but
+     * the offset must not. The token can only be used with the same sort as the previous page, and
+     * can't be used to page through search results sorted by relevance.
      * <p>
-     * If only one or neither parameters are present, null will be returned. Pagination is only
-     * enabled if both options are provided.
+     * If none of the parameters are present, null will be returned.
      * <p>
-     * If both parameters are present but are not both integers, an InvalidParameterException is
-     * thrown
+     * If the parameters are present but are not valid, an InvalidParameterException is thrown
      *
-     * @return a PaginationOptions if both limit and offset parameters are provided, otherwise null
-     * @throws InvalidParameterException if limit and offset parameters are provided but are not
-     *             integers
+     * @return a PaginationOptions if both limit and offset parameters or limit and pageToken
+     *         parameters are provided, otherwise null
+     * @throws InvalidParameterException if the pagination parameters are provided but are not
+     *             valid
      */
     public PaginationOptions getPagination() throws InvalidParameterException {
         String limitString = params.get(LIMIT_PARAM);
         String offsetString = params.get(OFFSET_PARAM);
+        String pageTokenString = params.get(PAGE_TOKEN_PARAM);
+
+        if (pageTokenString != null) {
+            return getPageTokenPagination(limitString, offsetString, pageTokenString);
+        }
 
         if (limitString == null && offsetString == null) {
             return null;
@@ -200,6 +297,56 @@ public class AssetQueryParameters {
         return new PaginationOptions(offset, limit);
     }
 
+    private PaginationOptions getPageTokenPagination(String limitString, String offsetString, String pageTokenString) throws InvalidParameterException {
+        if (offsetString != null) {
+            throw new InvalidParameterException(OFFSET_PARAM + " must not be provided with " + PAGE_TOKEN_PARAM);
+        }
+        if (limitString == null) {
+            throw new InvalidParameterException(LIMIT_PARAM + " must be provided with " + PAGE_TOKEN_PARAM);
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(limitString);
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException(LIMIT_PARAM + " must be an integer");
+        }
+        if (limit <= 0) {
+            throw new InvalidParameterException(LIMIT_PARAM + " must be greater than zero when " + PAGE_TOKEN_PARAM + " is provided");
+        }
+
+        SortOptions sortOptions = getSortOptions();
+        if (sortOptions == null && getSearchTerm() != null) {
+            throw new InvalidParameterException(PAGE_TOKEN_PARAM + " can only be used with " + SEARCH_PARAM + " if " + SORT_BY_PARAM + " is also provided");
+        }
+
+        // An empty token asks for the first page
+        PageToken pageToken = null;
+        if (!pageTokenString.isEmpty()) {
+            pageToken = PageToken.decode(pageTokenString);
+            if (!Objects.equals(pageToken.getSortOptions(), sortOptions)) {
+                throw new InvalidParameterException(PAGE_TOKEN_PARAM + " was created for a different " + SORT_BY_PARAM + " or " + SORT_ORDER_PARAM);
+            }
+        }
+
+        return PaginationOptions.afterPageToken(limit, pageToken);
+    }
+
+    /**
+     * @return true if each asset should be returned with its attachments, as it would be from a GET
+     *         of the individual asset
+     */
+    public boolean getIncludeAttachments() {
+        return Boolean.parseBoolean(params.get(INCLUDE_ATTACHMENTS_PARAM));
+    }
+
+    /**
+     * @return true if a summary should include the number of assets with each value
+     */
+    public boolean getCounts() {
+        return Boolean.parseBoolean(params.get(COUNTS_PARAM));
+    }
+
     /**
      * @return the search term parameter, or null if it was not set or is blank
      */
@@ -220,6 +367,75 @@ public class AssetQueryParameters {
         return params.get(FIELDS_PARAM);
     }
 
+    /**
+     * Parses the fields parameter as the list of fields to return from each asset, for requests
+     * which return assets rather than a summary of them.
+     * <p>
+     * Fields are separated by commas and may use dots to select a field inside an object, e.g.
+     * <code>fields=name,wlpInformation.provideFeature</code>. A field inside another field which is
+     * also listed is dropped, as the whole of the outer field is returned anyway.
+     *
+     * @return the fields to return, or null if the parameter was not provided and the whole asset
+     *         should be returned
+     * @throws InvalidParameterException if any of the fields are blank or start with $
+     */
+    public List<String> getProjection() throws InvalidParameterException {
+        String fieldsString = params.get(FIELDS_PARAM);
+        if (fieldsString == null) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        for (String field : fieldsString.split(",", -1)) {
+            field = field.trim();
+            if (field.isEmpty() || field.startsWith("$") || field.startsWith(".") || field.endsWith(".") || field.contains("..")) {
+                throw new InvalidParameterException(FIELDS_PARAM + " must be a comma separated list of field names");
+            }
+            fields.add(field);
+        }
+        return normaliseProjection(fields);
+    }
+
+    /**
+     * Adds a field to a projection returned by {@link #getProjection()}, in the same way as if it
+     * had been in the <code>fields</code> parameter. If the field is inside one which is already
+     * projected, the projection is unchanged. Projected fields inside the new field are replaced by
+     * it, since MongoDB rejects a projection with both a field and a field inside it.
+     *
+     * @param projection the projection
+     * @param field the field to add
+     * @return a new projection including the field
+     */
+    static List<String> addToProjection(List<String> projection, String field) {
+        List<String> fields = new ArrayList<>(projection);
+        fields.add(field);
+        return normaliseProjection(fields);
+    }
+
+    /**
+     * Sorts the fields and removes duplicates and any field inside another field
+     */
+    private static List<String> normaliseProjection(List<String> fields) {
+        // Sorting puts each field after any field it is inside
+        Collections.sort(fields);
+        List<String> projection = new ArrayList<>();
+        for (String field : fields) {
+            if (!isInsideAny(field, projection)) {
+                projection.add(field);
+            }
+        }
+        return projection;
+    }
+
+    private static boolean isInsideAny(String field, List<String> outerFields) {
+        for (String outer : outerFields) {
+            if (field.equals(outer) || field.startsWith(outer + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * @return SortOptions describing how the results should be sorted or null if the results should
      *         not be sorted
@@ -16,27 +16,40 @@
 
 package com.ibm.ws.lars.rest;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.core.UriInfo;
 
+import com.ibm.ws.lars.rest.Condition.Operation;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.exceptions.RepositoryException;
 import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
 import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.AssetOperation;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
 import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
@@ -53,6 +66,30 @@ import com.ibm.ws.lars.rest.model.RepositoryResourceLifecycleException;
 @ApplicationScoped
 public class AssetServiceLayer {
 
+    static final String PROVIDE_FEATURE = "provideFeature";
+    static final String REQUIRE_FEATURE = "requireFeature";
+    static final String REQUIRE_FEATURE_WITH_TOLERATES = "requireFeatureWithTolerates";
+    static final String FEATURE = "feature";
+    static final String TOLERATES = "tolerates";
+
+    private static final String PROVIDE_FEATURE_FILTER = Asset.WLP_INFORMATION + "." + PROVIDE_FEATURE;
+
+    /** The number of days for which tombstones for deleted assets are kept in the change log */
+    static final String CHANGES_RETENTION_PROPERTY = "lars.changes.retentionDays";
+
+    private static final long DEFAULT_CHANGES_RETENTION_DAYS = 30;
+
+    /** The minimum time between purges of the change log */
+    private static final long CHANGES_PURGE_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    /** The number of assets whose attachments are found together when listing assets */
+    static final int ATTACHMENT_PAGE_SIZE = 100;
+
+    private final long changesRetention = TimeUnit.DAYS.toMillis(Long.getLong(CHANGES_RETENTION_PROPERTY, DEFAULT_CHANGES_RETENTION_DAYS));
+
+    /** The time after which the next purge of the change log is due */
+    private final AtomicLong nextChangesPurge = new AtomicLong();
+
     @Inject
     private Persistor persistenceBean;
 
@@ -73,6 +110,104 @@ public class AssetServiceLayer {
         return persistenceBean.retrieveAllAssets(filters, searchTerm, pagination, sortOptions);
     }
 
+    /**
+     * @see Persistor#retrieveAllAssets(Collection,String, PaginationOptions, SortOptions, Collection)
+     */
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions,
+                                         Collection<String> fields) {
+        return persistenceBean.retrieveAllAssets(filters, searchTerm, pagination, sortOptions, fields);
+    }
+
+    /**
+     * Wraps a cursor so that each asset returned from it has its attachments set, with their URLs
+     * computed, just as {@link #retrieveAsset(String, UriInfo)} does.
+     * <p>
+     * Assets are read from the cursor in pages of {@link #ATTACHMENT_PAGE_SIZE}, and the attachments
+     * for each page are found with a single query.
+     *
+     * @param assets the cursor
+     * @param uriInfo the UriInfo from the current request
+     * @return a cursor returning the same assets, with their attachments
+     */
+    public AssetCursor addAttachments(AssetCursor assets, UriInfo uriInfo) {
+        return new AttachmentAddingCursor(assets, uriInfo);
+    }
+
+    /**
+     * An asset cursor which reads ahead a page of assets at a time, so their attachments can be
+     * found together
+     */
+    private class AttachmentAddingCursor implements AssetCursor {
+
+        private final AssetCursor cursor;
+        private final UriInfo uriInfo;
+        private final Deque<Asset> page = new ArrayDeque<>();
+        private final List<AssetOperation> operations = new ArrayList<>();
+
+        AttachmentAddingCursor(AssetCursor cursor, UriInfo uriInfo) {
+            this.cursor = cursor;
+            this.uriInfo = uriInfo;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !page.isEmpty() || cursor.hasNext();
+        }
+
+        @Override
+        public Asset next() {
+            if (page.isEmpty()) {
+                readPage();
+            }
+            Asset next = page.removeFirst();
+            for (AssetOperation op : operations) {
+                op.perform(next);
+            }
+            return next;
+        }
+
+        private void readPage() {
+            Map<String, Asset> assetsById = new LinkedHashMap<>();
+            while (assetsById.size() < ATTACHMENT_PAGE_SIZE && cursor.hasNext()) {
+                Asset asset = cursor.next();
+                assetsById.put(asset.get_id(), asset);
+                page.addLast(asset);
+            }
+
+            Map<String, AttachmentList> attachmentsByAsset = persistenceBean.findAttachmentsForAssets(assetsById.keySet());
+            for (Asset asset : page) {
+                AttachmentList attachments = attachmentsByAsset.get(asset.get_id());
+                if (attachments == null) {
+                    attachments = AttachmentList.createAttachmentListFromMaps(new ArrayList<Map<String, Object>>());
+                }
+                for (Attachment attachment : attachments) {
+                    computeAttachmentURL(attachment, uriInfo);
+                }
+                asset.setAttachments(attachments);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int size() {
+            return cursor.size();
+        }
+
+        @Override
+        public void addOperation(AssetOperation op) {
+            operations.add(op);
+        }
+
+        @Override
+        public void close() throws IOException {
+            cursor.close();
+        }
+    }
+
     /**
      * @see Persistor#countAllAssets(Collection, String)
      */
@@ -80,6 +215,116 @@ public class AssetServiceLayer {
         return persistenceBean.countAllAssets(filters, searchTerm);
     }
 
+    /**
+     * @see Persistor#getQueryStatistics()
+     */
+    public Map<String, Object> getQueryStatistics() {
+        return persistenceBean.getQueryStatistics();
+    }
+
+    /**
+     * Gets the assets which have changed since the point in the change log identified by
+     * <code>since</code>.
+     * <p>
+     * The result contains a list of <code>changes</code>, each with the <code>id</code> of an
+     * asset, the <code>type</code> of the change (created, updated or deleted) and when it was
+     * <code>changedOn</code>. Each asset is listed at most once, with its most recent change. The
+     * <code>token</code> should be passed as <code>since</code> on the next call, and
+     * <code>more</code> is true if there may be further changes available straight away.
+     * <p>
+     * If <code>since</code> is null, or the log no longer covers that point, <code>reset</code> is
+     * true and there are no changes. The caller should fetch all the assets again and then continue
+     * from the token returned.
+     * <p>
+     * Users who aren't administrators only see changes to published assets. An asset which has
+     * stopped being published is reported to them as deleted.
+     *
+     * @param since the token returned by the previous call, or null to start again
+     * @param limit the maximum number of log entries to examine
+     * @param admin true if the caller is an administrator
+     * @return the changes, ready to be written as JSON
+     */
+    public Map<String, Object> getChanges(Long since, int limit, boolean admin) {
+        purgeChangesIfDue();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> changes = new ArrayList<>();
+        long latest = persistenceBean.getLatestChangeSequence();
+        if (since == null || since < persistenceBean.getPurgedChangeSequence() || since > latest) {
+            result.put("changes", changes);
+            result.put("token", Long.toString(latest));
+            result.put("more", false);
+            result.put("reset", true);
+            return result;
+        }
+
+        long token = since;
+        List<AssetChange> entries = persistenceBean.retrieveAssetChanges(since, limit);
+        for (AssetChange entry : entries) {
+            token = entry.getSequence();
+            AssetChange.Type type = entry.getType();
+            if (!admin && !entry.isPublished()) {
+                if (!entry.isEverPublished()) {
+                    // The user has never been able to see this asset
+                    continue;
+                }
+                type = AssetChange.Type.DELETED;
+            }
+            Map<String, Object> change = new LinkedHashMap<>();
+            change.put("id", entry.getAssetId());
+            change.put("type", type.getValue());
+            change.put("changedOn", IsoDate.format(entry.getChangedOn()));
+            changes.add(change);
+        }
+
+        result.put("changes", changes);
+        result.put("token", Long.toString(token));
+        result.put("more", entries.size() == limit);
+        result.put("reset", false);
+        return result;
+    }
+
+    /**
+     * Writes every asset and attachment to a stream as newline delimited JSON.
+     *
+     * @see RepositoryTransfer#exportRepository(OutputStream, boolean)
+     */
+    public void exportRepository(OutputStream stream, boolean includeContent) throws IOException {
+        new RepositoryTransfer(persistenceBean).exportRepository(stream, includeContent);
+    }
+
+    /**
+     * Reads assets and attachments written by {@link #exportRepository(OutputStream, boolean)}
+     * into the repository.
+     *
+     * @see RepositoryTransfer#importRepository(InputStream)
+     */
+    public Map<String, Object> importRepository(InputStream stream) throws InvalidJsonAssetException, AssetPersistenceException, IOException {
+        return new RepositoryTransfer(persistenceBean).importRepository(stream);
+    }
+
+    /**
+     * Removes old tombstones from the change log, at most once per purge interval
+     */
+    private void purgeChangesIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextChangesPurge.get();
+        if (now >= due && nextChangesPurge.compareAndSet(due, now + CHANGES_PURGE_INTERVAL)) {
+            persistenceBean.purgeAssetChanges(new Date(now - changesRetention));
+        }
+    }
+
+    /**
+     * @return the sequence number of the latest change to any asset or its attachments
+     */
+    public long getLatestChangeSequence() {
+        return persistenceBean.getLatestChangeSequence();
+    }
+
+    private void recordChange(Asset asset, AssetChange.Type type) {
+        persistenceBean.recordAssetChange(asset.get_id(), type, asset.getState() == Asset.State.PUBLISHED);
+    }
+
     /**
      * Summarizes a list of fields from the assets matched by the given filters and search term.
      * <p>
@@ -104,10 +349,47 @@ public class AssetServiceLayer {
      * @return a list of result maps, one for each field
      */
     public List<Map<String, Object>> summarizeAssets(List<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        return summarizeAssets(fields, filters, searchTerm, false);
+    }
+
+    /**
+     * Summarizes a list of fields from the assets matched by the given filters and search term,
+     * optionally including the number of assets which have each value.
+     * <p>
+     * If <code>includeCounts</code> is false, the result is the same as
+     * {@link #summarizeAssets(List, Collection, String)}. Otherwise, each value in the list is
+     * replaced by a map of the following form:
+     *
+     * <pre>
+     * {
+     *   "value": value
+     *   "count": numberOfAssets
+     * }
+     * </pre>
+     *
+     * @param fields a list of fields to summarize
+     * @param filters a list of filters, which may be empty
+     * @param searchTerm a term to search for, which may be null
+     * @param includeCounts whether to include the number of assets with each value
+     * @return a list of result maps, one for each field
+     */
+    public List<Map<String, Object>> summarizeAssets(List<String> fields, Collection<AssetFilter> filters, String searchTerm, boolean includeCounts) {
         List<Map<String, Object>> result = new ArrayList<>();
 
+        Map<String, Map<Object, Integer>> valueCounts = persistenceBean.getDistinctValueCounts(new LinkedHashSet<>(fields), filters, searchTerm);
         for (String field : fields) {
-            List<Object> values = persistenceBean.getDistinctValues(field, filters, searchTerm);
+            Map<Object, Integer> counts = valueCounts.get(field);
+            List<Object> values = new ArrayList<>();
+            for (Map.Entry<Object, Integer> entry : counts.entrySet()) {
+                if (includeCounts) {
+                    Map<String, Object> valueMap = new LinkedHashMap<>();
+                    valueMap.put("value", entry.getKey());
+                    valueMap.put("count", entry.getValue());
+                    values.add(valueMap);
+                } else {
+                    values.add(entry.getKey());
+                }
+            }
             Map<String, Object> resultMap = new HashMap<>();
             resultMap.put("filterName", field);
             resultMap.put("filterValue", values);
@@ -117,6 +399,143 @@ public class AssetServiceLayer {
         return result;
     }
 
+    /**
+     * Resolves the transitive set of features required by an asset.
+     * <p>
+     * Starting from the given asset, the <code>requireFeature</code> and
+     * <code>requireFeatureWithTolerates</code> fields are followed to the assets which provide those
+     * features, and then on to their requirements, until no new features are found. Each level of
+     * the dependency graph is resolved with a single query. Tolerated versions are treated as
+     * alternatives, so every asset providing either the preferred or a tolerated version of a
+     * feature will be included.
+     * <p>
+     * If a matcher is supplied, required features will only be satisfied by assets which apply to
+     * the matcher's product. The starting asset is always included.
+     *
+     * @param assetId the id of the asset to start from
+     * @param filters filters which every required asset must also match, may be empty
+     * @param matcher used to restrict required assets to a particular product, may be null
+     * @return the starting asset, followed by every asset in its dependency closure
+     * @throws NonExistentArtefactException if the starting asset doesn't exist
+     */
+    public List<Asset> resolveClosure(String assetId, Collection<AssetFilter> filters, AppliesToMatcher matcher) throws NonExistentArtefactException {
+        return resolveClosure(persistenceBean.retrieveAsset(assetId), filters, matcher);
+    }
+
+    /**
+     * Resolves the transitive set of features required by an asset which has already been
+     * retrieved, as described in {@link #resolveClosure(String, Collection, AppliesToMatcher)}.
+     *
+     * @param root the asset to start from
+     * @param filters filters which every required asset must also match, may be empty
+     * @param matcher used to restrict required assets to a particular product, may be null
+     * @return the starting asset, followed by every asset in its dependency closure
+     */
+    public List<Asset> resolveClosure(Asset root, Collection<AssetFilter> filters, AppliesToMatcher matcher) {
+        Map<String, Asset> closure = new LinkedHashMap<>();
+        closure.put(root.get_id(), root);
+
+        Set<String> searchedFeatures = new HashSet<>(getStringList(root.getWlpInformation(), PROVIDE_FEATURE));
+        Set<String> pendingFeatures = getRequiredFeatures(root);
+        pendingFeatures.removeAll(searchedFeatures);
+
+        while (!pendingFeatures.isEmpty()) {
+            searchedFeatures.addAll(pendingFeatures);
+
+            List<Condition> conditions = new ArrayList<>();
+            for (String feature : pendingFeatures) {
+                conditions.add(new Condition(Operation.EQUALS, feature));
+            }
+            List<AssetFilter> levelFilters = new ArrayList<>(filters);
+            levelFilters.add(new AssetFilter(PROVIDE_FEATURE_FILTER, conditions));
+
+            Set<String> nextFeatures = new HashSet<>();
+            AssetCursor cursor = persistenceBean.retrieveAllAssets(levelFilters, null, null, null);
+            try {
+                while (cursor.hasNext()) {
+                    Asset asset = cursor.next();
+                    if (matcher != null && !matcher.matches(asset)) {
+                        continue;
+                    }
+                    if (!closure.containsKey(asset.get_id())) {
+                        closure.put(asset.get_id(), asset);
+                        nextFeatures.addAll(getRequiredFeatures(asset));
+                    }
+                }
+            } finally {
+                closeCursor(cursor);
+            }
+
+            nextFeatures.removeAll(searchedFeatures);
+            pendingFeatures = nextFeatures;
+        }
+
+        return new ArrayList<>(closure.values());
+    }
+
+    /**
+     * Returns the symbolic names of all the features required by an asset, including any tolerated
+     * alternatives.
+     */
+    private static Set<String> getRequiredFeatures(Asset asset) {
+        Set<String> result = new HashSet<>();
+        Map<String, Object> wlpInfo = asset.getWlpInformation();
+        if (wlpInfo == null) {
+            return result;
+        }
+
+        result.addAll(getStringList(wlpInfo, REQUIRE_FEATURE));
+
+        Object withTolerates = wlpInfo.get(REQUIRE_FEATURE_WITH_TOLERATES);
+        if (withTolerates instanceof Collection) {
+            for (Object requirement : (Collection<?>) withTolerates) {
+                if (!(requirement instanceof Map)) {
+                    continue;
+                }
+                Object feature = ((Map<?, ?>) requirement).get(FEATURE);
+                if (!(feature instanceof String)) {
+                    continue;
+                }
+                result.add((String) feature);
+
+                // A tolerated version replaces the version on the end of the feature name
+                // e.g. servlet-3.1 tolerating 4.0 can also be satisfied by servlet-4.0
+                Object tolerates = ((Map<?, ?>) requirement).get(TOLERATES);
+                int versionStart = ((String) feature).lastIndexOf('-');
+                if (tolerates instanceof Collection && versionStart != -1) {
+                    String baseName = ((String) feature).substring(0, versionStart + 1);
+                    for (Object version : (Collection<?>) tolerates) {
+                        if (version instanceof String) {
+                            result.add(baseName + version);
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static List<String> getStringList(Map<String, Object> map, String key) {
+        List<String> result = new ArrayList<>();
+        if (map != null && map.get(key) instanceof Collection) {
+            for (Object value : (Collection<?>) map.get(key)) {
+                if (value instanceof String) {
+                    result.add((String) value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void closeCursor(AssetCursor cursor) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            throw new RepositoryException("Failed to close asset cursor", e);
+        }
+    }
+
     /**
      * @param asset
      * @param creatorName The name of the user who is creating the asset. Must not be null.
@@ -133,7 +552,9 @@ public class AssetServiceLayer {
         newAsset.setCreatedBy(creatorName);
         newAsset.getProperties().put("state", Asset.State.DRAFT.getValue());
 
-        return persistenceBean.createAsset(newAsset);
+        Asset createdAsset = persistenceBean.createAsset(newAsset);
+        recordChange(createdAsset, AssetChange.Type.CREATED);
+        return createdAsset;
     }
 
     /**
@@ -142,7 +563,24 @@ public class AssetServiceLayer {
      * @throws NonExistentArtefactException
      */
     public Asset retrieveAsset(String assetId, UriInfo uriInfo) throws NonExistentArtefactException {
+        return retrieveAsset(assetId, uriInfo, true);
+    }
+
+    /**
+     * Retrieves an asset, optionally without its attachments, which saves a query if they aren't
+     * needed.
+     *
+     * @param assetId the id of the asset
+     * @param uriInfo used to compute the attachment URLs
+     * @param includeAttachments true if the asset's attachments should be set
+     * @return the asset
+     * @throws NonExistentArtefactException if the asset doesn't exist
+     */
+    public Asset retrieveAsset(String assetId, UriInfo uriInfo, boolean includeAttachments) throws NonExistentArtefactException {
         Asset asset = persistenceBean.retrieveAsset(assetId);
+        if (!includeAttachments) {
+            return asset;
+        }
 
         AttachmentList attachments = persistenceBean.findAttachmentsForAsset(assetId);
         for (Attachment attachment : attachments) {
@@ -154,6 +592,45 @@ public class AssetServiceLayer {
         return asset;
     }
 
+    /**
+     * Retrieves several assets with their attachments, using one query for the assets and one for
+     * all of their attachments.
+     *
+     * @param assetIds the ids of the assets
+     * @param uriInfo used to compute the attachment URLs
+     * @param publishedOnly true if assets which aren't published should be left out
+     * @return the assets in the order of their ids, leaving out any ids which don't match an asset
+     *         and repeated ids
+     */
+    public List<Asset> retrieveAssets(Collection<String> assetIds, UriInfo uriInfo, boolean publishedOnly) {
+        Map<String, Asset> assetsById = new HashMap<>();
+        for (Asset asset : persistenceBean.retrieveAssets(assetIds)) {
+            if (!publishedOnly || asset.getState() == Asset.State.PUBLISHED) {
+                assetsById.put(asset.get_id(), asset);
+            }
+        }
+
+        Map<String, AttachmentList> attachmentsByAsset = persistenceBean.findAttachmentsForAssets(assetsById.keySet());
+
+        List<Asset> result = new ArrayList<>();
+        for (String assetId : new LinkedHashSet<>(assetIds)) {
+            Asset asset = assetsById.get(assetId);
+            if (asset == null) {
+                continue;
+            }
+            AttachmentList attachments = attachmentsByAsset.get(assetId);
+            if (attachments == null) {
+                attachments = AttachmentList.createAttachmentListFromMaps(new ArrayList<Map<String, Object>>());
+            }
+            for (Attachment attachment : attachments) {
+                computeAttachmentURL(attachment, uriInfo);
+            }
+            asset.setAttachments(attachments);
+            result.add(asset);
+        }
+        return result;
+    }
+
     /**
      * @param assetId
      * @param asset
@@ -166,7 +643,9 @@ public class AssetServiceLayer {
         if (existingAsset == null) {
             throw new NonExistentArtefactException(assetId, RepositoryRESTResource.ArtefactType.ASSET);
         }
-        return persistenceBean.updateAsset(assetId, asset);
+        Asset updatedAsset = persistenceBean.updateAsset(assetId, asset);
+        recordChange(updatedAsset, AssetChange.Type.UPDATED);
+        return updatedAsset;
     }
 
     /**
@@ -191,7 +670,7 @@ public class AssetServiceLayer {
             // make it look like user error.
             throw new RepositoryException("JSON retrieved from asset store could not be save back again", e);
         }
-
+        recordChange(existingAsset, AssetChange.Type.UPDATED);
     }
 
     /**
@@ -205,25 +684,32 @@ public class AssetServiceLayer {
 
         // Delete all attachments belonging to the asset
         for (Attachment attachment : persistenceBean.findAttachmentsForAsset(assetId)) {
-            deleteAttachment(attachment.get_id());
+            deleteAttachment(attachment);
         }
 
         // Delete the asset itself
         persistenceBean.deleteAsset(assetId);
+        persistenceBean.recordAssetChange(assetId, AssetChange.Type.DELETED, false);
     }
 
-    private Attachment createAttachment(String assetId, String name, Attachment originalAttachmentMetadata, String contentType,
-                                        InputStream attachmentContentStream, UriInfo uriInfo) throws InvalidJsonAssetException, AssetPersistenceException, NonExistentArtefactException {
-
-        // Check that the parent exists
+    /**
+     * Retrieves the asset an attachment is being added to
+     *
+     * @throws NonExistentArtefactException if the asset does not exist
+     */
+    private Asset retrieveParentAsset(String assetId) throws NonExistentArtefactException {
         try {
-            persistenceBean.retrieveAsset(assetId);
+            return persistenceBean.retrieveAsset(assetId);
         } catch (NonExistentArtefactException e) {
             // The message from the PersistenceLayer is unhelpful in this context, so send back a better one
             throw new NonExistentArtefactException("The parent asset for this attachment (id="
                                                    + assetId + ") does not exist in the repository.");
         }
+    }
 
+    private Attachment createAttachment(Asset parent, String name, Attachment originalAttachmentMetadata, String contentType,
+                                        InputStream attachmentContentStream, UriInfo uriInfo) throws InvalidJsonAssetException, AssetPersistenceException {
+        String assetId = parent.get_id();
         Attachment attachmentMetadata = new Attachment(originalAttachmentMetadata);
 
         // Add necessary fields to the attachment (JSON) metadata
@@ -240,6 +726,12 @@ public class AssetServiceLayer {
         // Create the attachment content
         if (attachmentContentStream != null) {
             AttachmentContentMetadata contentMetadata = persistenceBean.createAttachmentContent(name, contentType, attachmentContentStream);
+            try {
+                verifyAttachmentContent(originalAttachmentMetadata, contentMetadata);
+            } catch (InvalidJsonAssetException e) {
+                persistenceBean.deleteAttachmentContent(contentMetadata.filename);
+                throw e;
+            }
 
             // TODO perhaps we should try to clean up after ourselves and delete the attachmentMetadata
             // TODO seriously, this is one of the places where we reaslise that using a DB that doesn't
@@ -247,18 +739,68 @@ public class AssetServiceLayer {
 
             attachmentMetadata.setGridFSId(contentMetadata.filename);
             attachmentMetadata.setSize(contentMetadata.length);
+            attachmentMetadata.setSha256(contentMetadata.sha256);
         }
 
         Attachment returnedAttachment = persistenceBean.createAttachmentMetadata(attachmentMetadata);
+        recordChange(parent, AssetChange.Type.UPDATED);
 
         computeAttachmentURL(returnedAttachment, uriInfo);
 
         return returnedAttachment;
     }
 
+    /**
+     * Checks that stored content matches the size and SHA-256 hash which the client declared for it,
+     * if it declared them. The client library always sends a size, which is zero if it wasn't set,
+     * so a size of zero is not checked.
+     *
+     * @throws InvalidJsonAssetException if the content doesn't match
+     */
+    private static void verifyAttachmentContent(Attachment declared, AttachmentContentMetadata stored) throws InvalidJsonAssetException {
+        Object size = declared.getProperty(Attachment.SIZE);
+        if (size instanceof Number && ((Number) size).longValue() != 0 && ((Number) size).longValue() != stored.length) {
+            throw new InvalidJsonAssetException("The attachment size was declared as " + size + " but " + stored.length + " bytes were uploaded");
+        }
+
+        Object sha256 = declared.getProperty(Attachment.SHA256);
+        if (sha256 != null && !sha256.toString().equalsIgnoreCase(stored.sha256)) {
+            throw new InvalidJsonAssetException("The attachment SHA-256 hash was declared as " + sha256 + " but the uploaded content has hash " + stored.sha256);
+        }
+    }
+
     public Attachment createAttachmentWithContent(String assetId, String name, Attachment attachmentMetadata, String contentType,
                                                   InputStream attachmentContentStream, UriInfo uriInfo) throws InvalidJsonAssetException, AssetPersistenceException, NonExistentArtefactException {
 
+        Asset parent = checkAttachmentWithContent(assetId, attachmentMetadata);
+
+        return createAttachment(parent, name, attachmentMetadata, contentType, attachmentContentStream, uriInfo);
+    }
+
+    /**
+     * Creates an attachment with content whose metadata has already been checked by
+     * {@link #checkAttachmentWithContent(String, Attachment)}, so that the parent asset isn't
+     * retrieved again.
+     *
+     * @param parent the parent asset returned by <code>checkAttachmentWithContent</code>
+     */
+    public Attachment createAttachmentWithContent(Asset parent, String name, Attachment attachmentMetadata, String contentType,
+                                                  InputStream attachmentContentStream, UriInfo uriInfo) throws InvalidJsonAssetException, AssetPersistenceException {
+        return createAttachment(parent, name, attachmentMetadata, contentType, attachmentContentStream, uriInfo);
+    }
+
+    /**
+     * Checks that an attachment with content could be created from the given metadata, so that an
+     * upload can be rejected before its content is read.
+     *
+     * @param assetId the id of the parent asset
+     * @param attachmentMetadata the attachment metadata supplied by the client
+     * @return the parent asset
+     * @throws InvalidJsonAssetException if the metadata is not valid for an attachment with content
+     * @throws NonExistentArtefactException if the parent asset does not exist
+     */
+    public Asset checkAttachmentWithContent(String assetId, Attachment attachmentMetadata) throws InvalidJsonAssetException, NonExistentArtefactException {
+
         // The attachment has content, so the URL must not be set, and the
         // linkType must not be set (i.e. it must be null).
 
@@ -272,7 +814,7 @@ public class AssetServiceLayer {
             throw new InvalidJsonAssetException("The link type must not be set for an attachment with content");
         }
 
-        return createAttachment(assetId, name, attachmentMetadata, contentType, attachmentContentStream, uriInfo);
+        return retrieveParentAsset(assetId);
     }
 
     /**
@@ -308,22 +850,30 @@ public class AssetServiceLayer {
             throw new InvalidJsonAssetException("The link type for the attachment was set to an invalid value: " + stringType);
         }
 
-        return createAttachment(assetId, name, attachmentMetadata, null, null, uriInfo);
+        return createAttachment(retrieveParentAsset(assetId), name, attachmentMetadata, null, null, uriInfo);
 
     }
 
     public void deleteAttachment(String attachmentId) {
         try {
             Attachment attachment = persistenceBean.retrieveAttachmentMetadata(attachmentId);
-            if (attachment.getGridFSId() != null) {
-                persistenceBean.deleteAttachmentContent(attachment.getGridFSId());
-            }
-            persistenceBean.deleteAttachmentMetadata(attachmentId);
+            deleteAttachment(attachment);
+            recordChange(persistenceBean.retrieveAsset(attachment.getAssetId()), AssetChange.Type.UPDATED);
         } catch (NonExistentArtefactException ex) {
-            // Do nothing if attachment does not exist
+            // Do nothing if attachment or its asset does not exist
         }
     }
 
+    /**
+     * Deletes an attachment without recording a change to its asset
+     */
+    private void deleteAttachment(Attachment attachment) {
+        if (attachment.getGridFSId() != null) {
+            persistenceBean.deleteAttachmentContent(attachment.getGridFSId());
+        }
+        persistenceBean.deleteAttachmentMetadata(attachment.get_id());
+    }
+
     public Attachment retrieveAttachmentMetadata(String assetId, String attachmentId, UriInfo uriInfo) throws NonExistentArtefactException {
         Attachment attachment = persistenceBean.retrieveAttachmentMetadata(attachmentId);
         if (!Objects.equals(attachment.getAssetId(), assetId)) {
@@ -335,6 +885,16 @@ public class AssetServiceLayer {
 
     public AttachmentContentResponse retrieveAttachmentContent(String assetId, String attachmentId, String name, UriInfo uriInfo) throws
             NonExistentArtefactException {
+        return retrieveAttachmentContent(assetId, attachmentId, name, null, uriInfo);
+    }
+
+    /**
+     * Retrieves the content of an attachment, starting at the given range if it can be satisfied.
+     *
+     * @see Persistor#retrieveAttachmentContent(String, ByteRange)
+     */
+    public AttachmentContentResponse retrieveAttachmentContent(String assetId, String attachmentId, String name, ByteRange range, UriInfo uriInfo) throws
+            NonExistentArtefactException {
         Attachment attachmentMetadata = retrieveAttachmentMetadata(assetId, attachmentId, uriInfo);
 
         if (!Objects.equals(name, attachmentMetadata.getName())) {
@@ -343,7 +903,19 @@ public class AssetServiceLayer {
 
         String gridFSId = attachmentMetadata.getGridFSId();
 
-        return persistenceBean.retrieveAttachmentContent(gridFSId);
+        AttachmentContentResponse response = persistenceBean.retrieveAttachmentContent(gridFSId, range);
+
+        // The content may be shared with attachments which were uploaded with a different type
+        String contentType = attachmentMetadata.getContentType();
+        if (contentType == null) {
+            contentType = response.getContentType();
+        }
+        String sha256 = attachmentMetadata.getSha256();
+        if (!Objects.equals(contentType, response.getContentType()) || sha256 != null) {
+            response = new AttachmentContentResponse(response.getContentStream(), contentType, response.getEntityTag(), response.getLastModified(),
+                                                     response.getLength(), response.getRange(), sha256);
+        }
+        return response;
     }
 
     /**
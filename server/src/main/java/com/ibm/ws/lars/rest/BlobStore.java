@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+
+/**
+ * Somewhere to keep the content of attachments.
+ * <p>
+ * A blob store only holds the bytes. The {@link Persistor} keeps the attachment metadata and
+ * counts the references to each piece of content, so that identical content is only kept once,
+ * and uses a blob store for {@link Persistor#createAttachmentContent(String, String, InputStream)}
+ * and {@link Persistor#retrieveAttachmentContent(String, ByteRange)}.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores some content under a new id.
+     *
+     * @param contentType the MIME type of the content, which the store may ignore
+     * @param content the content to store
+     * @return the id of the stored content, its length and its SHA-256 hash
+     * @throws IOException if the content can't be read or stored
+     */
+    public AttachmentContentMetadata store(String contentType, InputStream content) throws IOException;
+
+    /**
+     * Returns the content with the given id, starting at the first byte of the range if the range
+     * can be satisfied. See {@link Persistor#retrieveAttachmentContent(String, ByteRange)}.
+     *
+     * @param range the range requested by the client, or null for the whole content
+     * @throws NonExistentArtefactException if there is no content with the given id
+     */
+    public AttachmentContentResponse retrieve(String id, ByteRange range) throws NonExistentArtefactException;
+
+    /**
+     * Deletes the content with the given id, if it exists.
+     */
+    public void delete(String id);
+}
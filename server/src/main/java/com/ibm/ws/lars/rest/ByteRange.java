@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single byte range from an HTTP Range header, e.g. <code>bytes=0-499</code>,
+ * <code>bytes=500-</code> or <code>bytes=-500</code>.
+ * <p>
+ * A range as parsed from the header may be open ended or relative to the end of the content, so it
+ * has to be resolved against the length of the content before it can be used.
+ */
+public class ByteRange {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*");
+
+    /** The first byte, or -1 for a suffix range */
+    private final long first;
+
+    /** The last byte, or the suffix length for a suffix range, or -1 if open ended */
+    private final long last;
+
+    private ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parses a Range header.
+     * <p>
+     * Returns null if the header is missing, isn't valid or asks for more than one range. The
+     * server is allowed to ignore the header in all of those cases and return the full content.
+     *
+     * @param header the value of the Range header, may be null
+     * @return the range, or null if the full content should be returned
+     */
+    public static ByteRange parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        Matcher matcher = RANGE_PATTERN.matcher(header.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        String firstString = matcher.group(1);
+        String lastString = matcher.group(2);
+        try {
+            if (firstString.isEmpty()) {
+                if (lastString.isEmpty()) {
+                    return null;
+                }
+                return new ByteRange(-1, Long.parseLong(lastString));
+            }
+
+            long first = Long.parseLong(firstString);
+            long last = lastString.isEmpty() ? -1 : Long.parseLong(lastString);
+            if (last != -1 && last < first) {
+                return null;
+            }
+            return new ByteRange(first, last);
+        } catch (NumberFormatException e) {
+            // Too big to be a valid offset
+            return null;
+        }
+    }
+
+    /**
+     * Works out which bytes of the content this range covers.
+     *
+     * @param length the length of the content
+     * @return a range with a definite first and last byte, or null if the range can't be
+     *         satisfied
+     */
+    public ByteRange resolve(long length) {
+        if (first == -1) {
+            if (last == 0 || length == 0) {
+                return null;
+            }
+            return new ByteRange(Math.max(0, length - last), length - 1);
+        }
+        if (first >= length) {
+            return null;
+        }
+        long resolvedLast = (last == -1 || last >= length) ? length - 1 : last;
+        return new ByteRange(first, resolvedLast);
+    }
+
+    /**
+     * @return the first byte, only meaningful on a resolved range
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * @return the last byte, only meaningful on a resolved range
+     */
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * @return the number of bytes in the range, only meaningful on a resolved range
+     */
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * @param totalLength the length of the whole content
+     * @return the value of the Content-Range header for a resolved range
+     */
+    public String toContentRange(long totalLength) {
+        return "bytes " + first + "-" + last + "/" + totalLength;
+    }
+
+    @Override
+    public String toString() {
+        return "bytes=" + (first == -1 ? "" : first) + "-" + (last == -1 ? "" : last);
+    }
+}
@@ -0,0 +1,633 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.decorator.Decorator;
+import javax.decorator.Delegate;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+
+import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
+import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+import com.ibm.ws.lars.rest.model.AttachmentList;
+import com.ibm.ws.lars.rest.model.RepositoryObject;
+
+/**
+ * Decorates a {@link Persistor} with an in-memory cache of assets and attachment lists, keyed by
+ * asset id.
+ * <p>
+ * Only {@link #retrieveAsset(String)} and {@link #findAttachmentsForAsset(String)} are served from
+ * the cache. Entries are invalidated when this server updates or deletes the asset or creates or
+ * deletes one of its attachments. Changes made by other servers sharing the same database are only
+ * seen once the entry expires, so the time to live should be kept short in that configuration.
+ * <p>
+ * The results of {@link #countAllAssets(Collection, String)} are also cached, keyed by the filters
+ * and search term. The order of the filters and of the conditions within each filter doesn't
+ * affect the key. Any write through this server makes every cached count stale.
+ * <p>
+ * Configured with the following system properties:
+ * <ul>
+ * <li><code>lars.cache.maxEntries</code> - maximum number of assets and of attachment lists to
+ * cache, default 1000</li>
+ * <li><code>lars.cache.maxSize</code> - approximate maximum number of bytes used by the cached
+ * assets, and separately by the cached attachment lists, default 32MB</li>
+ * <li><code>lars.cache.ttl</code> - time in seconds for which an entry is served from the cache,
+ * default 30</li>
+ * </ul>
+ * Setting any of these properties to 0 disables the cache.
+ * <p>
+ * Assets and attachment lists vary a lot in size, so the number of entries alone doesn't bound the
+ * memory used. The size of each entry is estimated from its contents when it is cached, and the
+ * least recently used entries are evicted once either limit is passed. An entry bigger than the
+ * whole size limit isn't cached.
+ * <p>
+ * Callers are free to modify the objects they get back, so everything is copied on the way in and
+ * on the way out of the cache.
+ */
+@Decorator
+public class CachingPersistor implements Persistor {
+
+    private static final Logger logger = Logger.getLogger(CachingPersistor.class.getCanonicalName());
+
+    static final String MAX_ENTRIES_PROPERTY = "lars.cache.maxEntries";
+    static final String MAX_SIZE_PROPERTY = "lars.cache.maxSize";
+    static final String TTL_PROPERTY = "lars.cache.ttl";
+
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+    private static final long DEFAULT_TTL_SECONDS = 30;
+
+    @Inject
+    @Delegate
+    @Any
+    private Persistor delegate;
+
+    private final boolean enabled;
+    private final ExpiringCache<Map<String, Object>> assets;
+    private final ExpiringCache<List<Map<String, Object>>> attachments;
+    private final ExpiringCache<CachedCount> counts;
+
+    /**
+     * Incremented on every write, so that a read which raced with a write doesn't put the stale
+     * value it read back into the cache. Cached counts are only used if no write has happened
+     * since they were read.
+     */
+    private long generation = 0;
+
+    public CachingPersistor() {
+        this(null,
+             Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES),
+             Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE),
+             TimeUnit.SECONDS.toNanos(Long.getLong(TTL_PROPERTY, DEFAULT_TTL_SECONDS)));
+        if (enabled) {
+            logger.info("CachingPersistor: caching up to " + assets.maxEntries + " assets or " + assets.maxSize + " bytes for "
+                        + TimeUnit.NANOSECONDS.toSeconds(assets.ttlNanos) + "s");
+        } else {
+            logger.info("CachingPersistor: caching disabled");
+        }
+    }
+
+    CachingPersistor(Persistor delegate, int maxEntries, long maxSize, long ttlNanos) {
+        this.delegate = delegate;
+        this.enabled = maxEntries > 0 && maxSize > 0 && ttlNanos > 0;
+        this.assets = new ExpiringCache<>(maxEntries, maxSize, ttlNanos);
+        this.attachments = new ExpiringCache<>(maxEntries, maxSize, ttlNanos);
+        this.counts = new ExpiringCache<>(maxEntries, maxSize, ttlNanos);
+    }
+
+    /**
+     * The current time in nanoseconds, overridden in tests
+     */
+    long now() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public Asset retrieveAsset(String assetId) throws NonExistentArtefactException {
+        if (!enabled) {
+            return delegate.retrieveAsset(assetId);
+        }
+
+        long startGeneration;
+        synchronized (this) {
+            Map<String, Object> cached = assets.get(assetId, now());
+            if (cached != null) {
+                return Asset.createAssetFromMap(copyMap(cached));
+            }
+            startGeneration = generation;
+        }
+
+        Asset asset = delegate.retrieveAsset(assetId);
+
+        synchronized (this) {
+            if (generation == startGeneration) {
+                Map<String, Object> copy = copyMap(asset.getProperties());
+                assets.put(assetId, copy, estimateSize(copy), now());
+            }
+        }
+        return asset;
+    }
+
+    @Override
+    public AttachmentList findAttachmentsForAsset(String assetId) {
+        if (!enabled) {
+            return delegate.findAttachmentsForAsset(assetId);
+        }
+
+        long startGeneration;
+        synchronized (this) {
+            List<Map<String, Object>> cached = attachments.get(assetId, now());
+            if (cached != null) {
+                return AttachmentList.createAttachmentListFromMaps(copyList(cached));
+            }
+            startGeneration = generation;
+        }
+
+        AttachmentList list = delegate.findAttachmentsForAsset(assetId);
+
+        synchronized (this) {
+            if (generation == startGeneration) {
+                List<Map<String, Object>> copy = copyList(list.getState());
+                attachments.put(assetId, copy, estimateSize(copy), now());
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<Asset> retrieveAssets(Collection<String> assetIds) {
+        return delegate.retrieveAssets(assetIds);
+    }
+
+    @Override
+    public List<Attachment> retrieveAttachmentsMetadata(Collection<String> attachmentIds) {
+        return delegate.retrieveAttachmentsMetadata(attachmentIds);
+    }
+
+    @Override
+    public Map<String, AttachmentList> findAttachmentsForAssets(Collection<String> assetIds) {
+        return delegate.findAttachmentsForAssets(assetIds);
+    }
+
+    @Override
+    public int countAllAssets(Collection<AssetFilter> filters, String searchTerm) {
+        if (!enabled) {
+            return delegate.countAllAssets(filters, searchTerm);
+        }
+
+        String key = createCountKey(filters, searchTerm);
+        long startGeneration;
+        synchronized (this) {
+            CachedCount cached = counts.get(key, now());
+            if (cached != null && cached.generation == generation) {
+                return cached.count;
+            }
+            startGeneration = generation;
+        }
+
+        int count = delegate.countAllAssets(filters, searchTerm);
+
+        synchronized (this) {
+            if (generation == startGeneration) {
+                counts.put(key, new CachedCount(startGeneration, count), key.length() * 2 + 64, now());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates a key which is the same for any filters which select the same assets just because
+     * they are in a different order. Each part is prefixed with its length so that values
+     * containing separators can't make two different queries look the same.
+     */
+    static String createCountKey(Collection<AssetFilter> filters, String searchTerm) {
+        List<String> filterKeys = new ArrayList<>();
+        for (AssetFilter filter : filters) {
+            List<String> conditionKeys = new ArrayList<>();
+            for (Condition condition : filter.getConditions()) {
+                conditionKeys.add(lengthPrefixed(condition.getOperation().name()) + lengthPrefixed(condition.getValue()));
+            }
+            Collections.sort(conditionKeys);
+
+            StringBuilder filterKey = new StringBuilder(lengthPrefixed(filter.getKey()));
+            for (String conditionKey : conditionKeys) {
+                filterKey.append(lengthPrefixed(conditionKey));
+            }
+            filterKeys.add(filterKey.toString());
+        }
+        Collections.sort(filterKeys);
+
+        StringBuilder key = new StringBuilder(searchTerm == null ? "-" : lengthPrefixed(searchTerm));
+        for (String filterKey : filterKeys) {
+            key.append(lengthPrefixed(filterKey));
+        }
+        return key.toString();
+    }
+
+    private static String lengthPrefixed(String value) {
+        return value == null ? "-" : value.length() + ":" + value;
+    }
+
+    @Override
+    public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException {
+        try {
+            return delegate.updateAsset(assetId, asset);
+        } finally {
+            invalidateAsset(assetId);
+        }
+    }
+
+    @Override
+    public void deleteAsset(String assetId) {
+        try {
+            delegate.deleteAsset(assetId);
+        } finally {
+            invalidateAsset(assetId);
+            invalidateAttachments(assetId);
+        }
+    }
+
+    @Override
+    public Asset createAsset(Asset newAsset) throws InvalidJsonAssetException {
+        try {
+            return delegate.createAsset(newAsset);
+        } finally {
+            writeCompleted();
+        }
+    }
+
+    @Override
+    public void importAssets(List<Asset> assets) {
+        try {
+            delegate.importAssets(assets);
+        } finally {
+            for (Asset asset : assets) {
+                invalidateAsset(asset.get_id());
+            }
+        }
+    }
+
+    @Override
+    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) throws AssetPersistenceException {
+        try {
+            return delegate.createAttachmentContent(name, contentType, attachmentContentStream);
+        } finally {
+            writeCompleted();
+        }
+    }
+
+    @Override
+    public void deleteAttachmentContent(String gridFsId) {
+        try {
+            delegate.deleteAttachmentContent(gridFsId);
+        } finally {
+            writeCompleted();
+        }
+    }
+
+    @Override
+    public Attachment createAttachmentMetadata(Attachment attachment) {
+        try {
+            return delegate.createAttachmentMetadata(attachment);
+        } finally {
+            invalidateAttachments(attachment.getAssetId());
+        }
+    }
+
+    @Override
+    public void importAttachmentMetadata(List<Attachment> attachments) {
+        try {
+            delegate.importAttachmentMetadata(attachments);
+        } finally {
+            for (Attachment attachment : attachments) {
+                invalidateAttachments(attachment.getAssetId());
+            }
+        }
+    }
+
+    @Override
+    public void deleteAttachmentMetadata(String attachmentId) {
+        try {
+            delegate.deleteAttachmentMetadata(attachmentId);
+        } finally {
+            invalidateAttachmentsContaining(attachmentId);
+        }
+    }
+
+    private synchronized void writeCompleted() {
+        generation++;
+    }
+
+    private synchronized void invalidateAsset(String assetId) {
+        generation++;
+        assets.remove(assetId);
+    }
+
+    private synchronized void invalidateAttachments(String assetId) {
+        generation++;
+        attachments.remove(assetId);
+    }
+
+    /**
+     * Removes any cached attachment list which includes the given attachment. If the list isn't
+     * cached there is nothing to remove, and bumping the generation covers a concurrent read.
+     */
+    private synchronized void invalidateAttachmentsContaining(String attachmentId) {
+        generation++;
+        Iterator<ExpiringCache.CacheEntry<List<Map<String, Object>>>> iterator = attachments.entries();
+        while (iterator.hasNext()) {
+            for (Map<String, Object> attachment : iterator.next().value) {
+                if (Objects.equals(attachmentId, attachment.get(RepositoryObject._ID))) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public AssetCursor retrieveAllAssets() {
+        return delegate.retrieveAllAssets();
+    }
+
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions) {
+        return delegate.retrieveAllAssets(filters, searchTerm, pagination, sortOptions);
+    }
+
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions,
+                                         Collection<String> fields) {
+        return delegate.retrieveAllAssets(filters, searchTerm, pagination, sortOptions, fields);
+    }
+
+    @Override
+    public List<Object> getDistinctValues(String field, Collection<AssetFilter> filters, String searchTerm) {
+        return delegate.getDistinctValues(field, filters, searchTerm);
+    }
+
+    @Override
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(Collection<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        return delegate.getDistinctValueCounts(fields, filters, searchTerm);
+    }
+
+    @Override
+    public Map<String, Object> getQueryStatistics() {
+        return delegate.getQueryStatistics();
+    }
+
+    @Override
+    public long recordAssetChange(String assetId, AssetChange.Type type, boolean published) {
+        return delegate.recordAssetChange(assetId, type, published);
+    }
+
+    @Override
+    public List<AssetChange> retrieveAssetChanges(long since, int limit) {
+        return delegate.retrieveAssetChanges(since, limit);
+    }
+
+    @Override
+    public long getLatestChangeSequence() {
+        return delegate.getLatestChangeSequence();
+    }
+
+    @Override
+    public long getPurgedChangeSequence() {
+        return delegate.getPurgedChangeSequence();
+    }
+
+    @Override
+    public long purgeAssetChanges(Date deletedBefore) {
+        return delegate.purgeAssetChanges(deletedBefore);
+    }
+
+    @Override
+    public Attachment retrieveAttachmentMetadata(String attachmentId) throws NonExistentArtefactException {
+        return delegate.retrieveAttachmentMetadata(attachmentId);
+    }
+
+    @Override
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException {
+        return delegate.retrieveAttachmentContent(gridFSId);
+    }
+
+    @Override
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId, ByteRange range) throws NonExistentArtefactException {
+        return delegate.retrieveAttachmentContent(gridFSId, range);
+    }
+
+    @Override
+    public String allocateNewId() {
+        return delegate.allocateNewId();
+    }
+
+    @Override
+    public void initialize() {
+        delegate.initialize();
+    }
+
+    /**
+     * Copies a JSON map, including any nested maps and lists. Other values are immutable.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copyMap((Map<String, Object>) value);
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        } else {
+            return value;
+        }
+    }
+
+    private static Map<String, Object> copyMap(Map<String, Object> map) {
+        Map<String, Object> copy = new HashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Roughly estimates the number of bytes used by a copied JSON value on a 64 bit JVM. It only
+     * has to be close enough to stop a few large entries filling the heap.
+     */
+    static long estimateSize(Object value) {
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        } else if (value instanceof Map) {
+            long size = 64;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 48 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        } else if (value instanceof Collection) {
+            long size = 40;
+            for (Object element : (Collection<?>) value) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        } else {
+            return 24;
+        }
+    }
+
+    private static List<Map<String, Object>> copyList(List<Map<String, Object>> list) {
+        List<Map<String, Object>> copy = new ArrayList<>();
+        for (Map<String, Object> map : list) {
+            copy.add(copyMap(map));
+        }
+        return copy;
+    }
+
+    private static class CachedCount {
+        final long generation;
+        final int count;
+
+        CachedCount(long generation, int count) {
+            this.generation = generation;
+            this.count = count;
+        }
+    }
+
+    /**
+     * A least recently used map whose entries also expire after a fixed time, and which holds at
+     * most a given number of entries and a given total size. Not thread safe.
+     */
+    static class ExpiringCache<V> {
+
+        private final int maxEntries;
+        private final long maxSize;
+        private final long ttlNanos;
+        private final LinkedHashMap<String, CacheEntry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long size = 0;
+
+        ExpiringCache(int maxEntries, long maxSize, long ttlNanos) {
+            this.maxEntries = maxEntries;
+            this.maxSize = maxSize;
+            this.ttlNanos = ttlNanos;
+        }
+
+        V get(String key, long now) {
+            CacheEntry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiry >= 0) {
+                remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        /**
+         * @param entrySize the approximate size of the value in bytes
+         */
+        void put(String key, V value, long entrySize, long now) {
+            remove(key);
+            if (entrySize > maxSize) {
+                return;
+            }
+            map.put(key, new CacheEntry<>(value, entrySize, now + ttlNanos));
+            size += entrySize;
+
+            Iterator<CacheEntry<V>> eldest = map.values().iterator();
+            while (map.size() > maxEntries || size > maxSize) {
+                size -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+
+        void remove(String key) {
+            CacheEntry<V> entry = map.remove(key);
+            if (entry != null) {
+                size -= entry.size;
+            }
+        }
+
+        /**
+         * @return the approximate size in bytes of the cached entries
+         */
+        long size() {
+            return size;
+        }
+
+        /**
+         * Iterates over the cached entries, which may include expired ones. Removing an entry
+         * through the iterator removes it from the cache.
+         */
+        Iterator<CacheEntry<V>> entries() {
+            final Iterator<CacheEntry<V>> iterator = map.values().iterator();
+            return new Iterator<CacheEntry<V>>() {
+                private CacheEntry<V> current;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public CacheEntry<V> next() {
+                    current = iterator.next();
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    size -= current.size;
+                }
+            };
+        }
+
+        static class CacheEntry<V> {
+            final V value;
+            private final long size;
+            private final long expiry;
+
+            CacheEntry(V value, long size, long expiry) {
+                this.value = value;
+                this.size = size;
+                this.expiry = expiry;
+            }
+        }
+    }
+}
@@ -21,12 +21,29 @@ package com.ibm.ws.lars.rest;
  * E.g. a filter may represent the concept of "equal to 3"
  * <p>
  * A field will be paired with a condition to make a filter like "foo=3" or "bar!=sandwich"
+ * <p>
+ * The range operations compare the field with the value, so a filter like "size&gt;3" or
+ * "lastUpdatedOn&gt;=2026-01-01" can be made. A value which is a number is compared with numbers,
+ * otherwise it is compared with strings, character by character, which gives the right order for
+ * ISO 8601 dates.
  */
 public class Condition {
 
     public enum Operation {
         EQUALS,
-        NOT_EQUALS
+        NOT_EQUALS,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUAL,
+        LESS_THAN,
+        LESS_THAN_OR_EQUAL;
+
+        /**
+         * @return true if this operation compares the field with the value, rather than checking
+         *         for equality
+         */
+        public boolean isRange() {
+            return this != EQUALS && this != NOT_EQUALS;
+        }
     }
 
     private final Operation operation;
@@ -99,6 +116,18 @@ public class Condition {
             case NOT_EQUALS:
                 sign = "!=";
                 break;
+            case GREATER_THAN:
+                sign = ">";
+                break;
+            case GREATER_THAN_OR_EQUAL:
+                sign = ">=";
+                break;
+            case LESS_THAN:
+                sign = "<";
+                break;
+            case LESS_THAN_OR_EQUAL:
+                sign = "<=";
+                break;
         }
 
         return sign + " " + value;
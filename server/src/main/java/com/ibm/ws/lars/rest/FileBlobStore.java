@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.exceptions.RepositoryException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+
+/**
+ * Keeps attachment content in files under a directory, which may be on a local disk or on a
+ * network file system shared by several servers. It is used instead of GridFS for new content when
+ * the <code>lars.blobStore.directory</code> system property is set.
+ * <p>
+ * Content is written to a temporary file while its hash is computed, then moved to a path made
+ * from the hash, split into two levels of directories so that none of them gets too large, e.g.
+ * <code>ab/cd/abcd...-&lt;random&gt;</code>. The random suffix means that two uploads of the same
+ * content never write to the same file. The {@link Persistor} shares identical content between
+ * attachments and deletes the extra copy.
+ * <p>
+ * Content is returned as a {@link FileInputStream}, so that it can be written to the response
+ * with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ */
+public class FileBlobStore implements BlobStore {
+
+    private static final Logger logger = Logger.getLogger(FileBlobStore.class.getCanonicalName());
+
+    public static final String DIRECTORY_PROPERTY = "lars.blobStore.directory";
+
+    /** A SHA-256 hash followed by a random UUID without its dashes */
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{64}-[0-9a-f]{32}");
+
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private final Path directory;
+
+    public FileBlobStore(File directory) {
+        this.directory = directory.toPath();
+    }
+
+    /**
+     * @return true if the id could be the id of content in a FileBlobStore
+     */
+    public static boolean isId(String id) {
+        return id != null && ID_PATTERN.matcher(id).matches();
+    }
+
+    @Override
+    public AttachmentContentMetadata store(String contentType, InputStream content) throws IOException {
+        Path tempDirectory = directory.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempDirectory);
+        Path tempFile = Files.createTempFile(tempDirectory, "upload", null);
+        try {
+            HashingInputStream hashingStream = new HashingInputStream(content);
+            Files.copy(hashingStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+            String sha256 = hashingStream.getSha256();
+            String id = sha256 + "-" + UUID.randomUUID().toString().replace("-", "");
+            Path path = getPath(id);
+            Files.createDirectories(path.getParent());
+            Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+
+            return new AttachmentContentMetadata(id, hashingStream.getLength(), sha256);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * The content type isn't stored, so the response doesn't have one. The hash is used as the
+     * entity tag.
+     */
+    @Override
+    public AttachmentContentResponse retrieve(String id, ByteRange range) throws NonExistentArtefactException {
+        if (!isId(id)) {
+            throw new NonExistentArtefactException();
+        }
+
+        File file = getPath(id).toFile();
+        FileInputStream stream;
+        try {
+            stream = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new NonExistentArtefactException();
+        }
+
+        try {
+            FileChannel channel = stream.getChannel();
+            long length = channel.size();
+            ByteRange resolved = range == null ? null : range.resolve(length);
+            if (resolved != null) {
+                channel.position(resolved.getFirst());
+            }
+            String sha256 = id.substring(0, id.indexOf('-'));
+            return new AttachmentContentResponse(stream, null, sha256, new Date(file.lastModified()), length, resolved);
+        } catch (IOException e) {
+            try {
+                stream.close();
+            } catch (IOException e1) {
+                // Already failing
+            }
+            throw new RepositoryException("Unable to read attachment content " + id, e);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        if (!isId(id)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(getPath(id));
+        } catch (IOException e) {
+            // The attachment has gone, the content just takes up space
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "FileBlobStore: unable to delete attachment content " + id, e);
+            }
+        }
+    }
+
+    private Path getPath(String id) {
+        return directory.resolve(id.substring(0, 2)).resolve(id.substring(2, 4)).resolve(id);
+    }
+}
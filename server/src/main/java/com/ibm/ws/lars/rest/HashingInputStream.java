@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.ibm.ws.lars.rest.exceptions.RepositoryException;
+
+/**
+ * An input stream which computes the SHA-256 hash and the length of the content read through it,
+ * so that content can be hashed while it is being stored rather than read twice.
+ */
+public class HashingInputStream extends DigestInputStream {
+
+    private long length;
+    private String sha256;
+
+    public HashingInputStream(InputStream stream) {
+        super(stream, newSha256Digest());
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            length++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = super.read(b, off, len);
+        if (count > 0) {
+            length += count;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of bytes read so far
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the hex SHA-256 hash of the content. This should only be called once all of the
+     * content has been read, after which nothing more should be read.
+     */
+    public String getSha256() {
+        if (sha256 == null) {
+            sha256 = toHex(getMessageDigest().digest());
+        }
+        return sha256;
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to support SHA-256
+            throw new RepositoryException("Unable to compute content hash", e);
+        }
+    }
+}
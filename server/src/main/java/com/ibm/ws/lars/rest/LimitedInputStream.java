@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream which fails once more than a given number of bytes have been read through it.
+ * This lets content of unknown length be stored straight from the request while still bounding
+ * how much of it is accepted.
+ */
+class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+    private boolean limitExceeded;
+
+    /**
+     * @param stream the stream to read from
+     * @param limit the maximum number of bytes which may be read
+     */
+    LimitedInputStream(InputStream stream, long limit) {
+        super(stream);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws IOException {
+        count += read;
+        if (count > limit) {
+            limitExceeded = true;
+            throw new IOException("The content is larger than the limit of " + limit + " bytes");
+        }
+    }
+
+    /**
+     * @return true if an attempt was made to read more than the limit
+     */
+    boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+import com.ibm.ws.lars.rest.exceptions.InvalidParameterException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetOperation;
+
+/**
+ * Marks where a page of results ended, so that the next page can start straight after it.
+ * <p>
+ * The token holds the value of the sort field and the id of the last asset on the page. Results
+ * are always sorted by the id after the sort field, so together these identify a unique position
+ * in the results. The next page is found with a range query from that position rather than by
+ * skipping over all the earlier results, so every page costs the same however deep it is.
+ * <p>
+ * Tokens are passed to and from clients as opaque, URL safe strings. A token records the sort it
+ * was created for and can only be used with the same sort.
+ */
+public class PageToken {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-fA-F]{24}");
+
+    private static final String SORT_BY_KEY = "sortBy";
+    private static final String SORT_ORDER_KEY = "sortOrder";
+    private static final String VALUE_KEY = "value";
+    private static final String ID_KEY = "id";
+
+    private final SortOptions sortOptions;
+    private final Object lastValue;
+    private final String lastId;
+
+    /**
+     * @param sortOptions the sort the results are in, or null if they are only sorted by id
+     * @param lastValue the value of the sort field in the last asset on the page, may be null
+     * @param lastId the id of the last asset on the page
+     */
+    public PageToken(SortOptions sortOptions, Object lastValue, String lastId) {
+        this.sortOptions = sortOptions;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * @return the sort the results are in, or null if they are only sorted by id
+     */
+    public SortOptions getSortOptions() {
+        return sortOptions;
+    }
+
+    /**
+     * @return the value of the sort field in the last asset on the previous page, may be null if
+     *         the asset didn't have the field or if there is no sort field
+     */
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * @return the id of the last asset on the previous page
+     */
+    public String getLastId() {
+        return lastId;
+    }
+
+    /**
+     * @return the token as a string to send to the client
+     */
+    public String encode() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (sortOptions != null) {
+            map.put(SORT_BY_KEY, sortOptions.getField());
+            map.put(SORT_ORDER_KEY, sortOptions.getSortOrder().name());
+            map.put(VALUE_KEY, lastValue);
+        }
+        map.put(ID_KEY, lastId);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(map));
+        } catch (IOException e) {
+            // Only simple values from an asset are written, so this shouldn't happen
+            throw new IllegalStateException("Unable to write page token", e);
+        }
+    }
+
+    /**
+     * Reads a token sent by the client.
+     *
+     * @param token the token, as created by {@link #encode()}
+     * @return the token
+     * @throws InvalidParameterException if the token is not valid
+     */
+    public static PageToken decode(String token) throws InvalidParameterException {
+        Map<String, Object> map;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII));
+            map = MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidParameterException("The page token is not valid");
+        }
+
+        Object id = map.get(ID_KEY);
+        if (!(id instanceof String) || !ID_PATTERN.matcher((String) id).matches()) {
+            throw new InvalidParameterException("The page token is not valid");
+        }
+
+        SortOptions sortOptions = null;
+        Object sortBy = map.get(SORT_BY_KEY);
+        if (sortBy != null) {
+            SortOrder sortOrder;
+            try {
+                sortOrder = SortOrder.valueOf(String.valueOf(map.get(SORT_ORDER_KEY)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidParameterException("The page token is not valid");
+            }
+            sortOptions = new SortOptions(sortBy.toString(), sortOrder);
+        }
+
+        return new PageToken(sortOptions, map.get(VALUE_KEY), (String) id);
+    }
+
+    /**
+     * Watches the assets as they are returned from a cursor, to work out the token for the page
+     * which follows them.
+     */
+    public static class Tracker implements AssetOperation {
+        private final SortOptions sortOptions;
+        private final int limit;
+        private int count = 0;
+        private Asset last = null;
+
+        /**
+         * @param sortOptions the sort the results are in, or null if they are only sorted by id
+         * @param limit the number of results requested for the page
+         */
+        public Tracker(SortOptions sortOptions, int limit) {
+            this.sortOptions = sortOptions;
+            this.limit = limit;
+        }
+
+        @Override
+        public void perform(Asset asset) {
+            count++;
+            last = asset;
+        }
+
+        /**
+         * Must only be called once all the assets have been read from the cursor.
+         *
+         * @return the token for the next page, or null if this was the last page
+         */
+        public PageToken getNextToken() {
+            if (last == null || count < limit) {
+                return null;
+            }
+            Object value = sortOptions == null ? null : getField(last.getProperties(), sortOptions.getField());
+            return new PageToken(sortOptions, value, last.get_id());
+        }
+
+        private static Object getField(Map<String, Object> properties, String key) {
+            Object current = properties;
+            for (String part : key.split("\\.")) {
+                if (!(current instanceof Map)) {
+                    return null;
+                }
+                current = ((Map<?, ?>) current).get(part);
+            }
+            return current;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Objects.hash(sortOptions, lastValue, lastId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        PageToken other = (PageToken) obj;
+        return Objects.equals(sortOptions, other.sortOptions)
+               && Objects.equals(lastValue, other.lastValue)
+               && Objects.equals(lastId, other.lastId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "sortOptions = " + sortOptions + ", lastValue = " + lastValue + ", lastId = " + lastId;
+    }
+}
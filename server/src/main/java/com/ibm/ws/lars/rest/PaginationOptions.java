@@ -20,11 +20,17 @@ package com.ibm.ws.lars.rest;
  * <p>
  * Generally, a method which returns multiple results in a predictable order should accept a
  * PaginationsOptions as a parameter.
+ * <p>
+ * Pages are either found by offset, or follow on from a {@link PageToken} returned with the
+ * previous page. Page tokens are much cheaper for deep pages, as the earlier results don't need to
+ * be skipped over.
  */
 public class PaginationOptions {
 
     private final int offset;
     private final int limit;
+    private final boolean usePageTokens;
+    private final PageToken pageToken;
 
     /**
      * Create a new PaginationOptions with the given offset and limit parameters.
@@ -36,6 +42,27 @@ public class PaginationOptions {
         super();
         this.offset = offset;
         this.limit = limit;
+        this.usePageTokens = false;
+        this.pageToken = null;
+    }
+
+    private PaginationOptions(int limit, PageToken pageToken) {
+        super();
+        this.offset = 0;
+        this.limit = limit;
+        this.usePageTokens = true;
+        this.pageToken = pageToken;
+    }
+
+    /**
+     * Create a new PaginationOptions for a page which follows on from a page token.
+     *
+     * @param limit the number of results in the page
+     * @param pageToken the token returned with the previous page, or null for the first page
+     * @return the pagination options
+     */
+    public static PaginationOptions afterPageToken(int limit, PageToken pageToken) {
+        return new PaginationOptions(limit, pageToken);
     }
 
     /**
@@ -52,9 +79,27 @@ public class PaginationOptions {
         return limit;
     }
 
+    /**
+     * @return true if the page follows on from a page token rather than starting at an offset
+     */
+    public boolean usePageTokens() {
+        return usePageTokens;
+    }
+
+    /**
+     * @return the token returned with the previous page, or null if this is the first page or
+     *         pages are found by offset
+     */
+    public PageToken getPageToken() {
+        return pageToken;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
+        if (usePageTokens) {
+            return "limit = " + limit + ", pageToken = " + pageToken;
+        }
         return "limit = " + limit + ", offset = " + offset;
     }
 
@@ -65,6 +110,8 @@ public class PaginationOptions {
         int result = 1;
         result = prime * result + limit;
         result = prime * result + offset;
+        result = prime * result + (usePageTokens ? 1231 : 1237);
+        result = prime * result + ((pageToken == null) ? 0 : pageToken.hashCode());
         return result;
     }
 
@@ -82,6 +129,13 @@ public class PaginationOptions {
             return false;
         if (offset != other.offset)
             return false;
+        if (usePageTokens != other.usePageTokens)
+            return false;
+        if (pageToken == null) {
+            if (other.pageToken != null)
+                return false;
+        } else if (!pageToken.equals(other.pageToken))
+            return false;
         return true;
     }
 
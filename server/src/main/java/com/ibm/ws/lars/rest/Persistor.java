@@ -18,12 +18,15 @@ package com.ibm.ws.lars.rest;
 
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
@@ -58,6 +61,18 @@ public interface Persistor {
      */
     public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions);
 
+    /**
+     * As {@link #retrieveAllAssets(Collection, String, PaginationOptions, SortOptions)}, but only
+     * returning the given fields of each asset.
+     * <p>
+     * Fields may use dots to select a field inside an object, e.g.
+     * <code>wlpInformation.provideFeature</code>. The asset's id is always returned.
+     *
+     * @param fields the fields to return, or null to return the whole of each asset
+     */
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions,
+                                         Collection<String> fields);
+
     /**
      * Retrieve the number of assets which match the given set of filters.
      * <p>
@@ -89,6 +104,84 @@ public interface Persistor {
      */
     public List<Object> getDistinctValues(String field, Collection<AssetFilter> filters, String searchTerm);
 
+    /**
+     * Gets the distinct values of each of the given fields in all assets which match the given
+     * filters and searchTerm, along with the number of those assets which have each value.
+     * <p>
+     * Distinct values are found in the same way as
+     * {@link #getDistinctValues(String, Collection, String)}, so if a field holds a list each of its
+     * values is counted separately. An asset is only counted once for each value, however many
+     * times the value appears in it.
+     * <p>
+     * All of the fields are summarized together, rather than by querying once for each field.
+     *
+     * @param fields the fields to look at
+     * @param filters the filters
+     * @param searchTerm the search term
+     * @return a map from each field to a map from each of its distinct values to the number of
+     *         assets which have that value
+     */
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(Collection<String> fields, Collection<AssetFilter> filters, String searchTerm);
+
+    /**
+     * Get statistics about the asset queries which have been run, grouped by their shape.
+     * <p>
+     * The result contains the number of queries which were <code>dropped</code> because too many
+     * shapes had already been recorded, and a summary of each of the <code>shapes</code> in the
+     * form returned by {@link QueryStatistics#summarize()}.
+     *
+     * @return the statistics, ready to be written as JSON
+     */
+    public Map<String, Object> getQueryStatistics();
+
+    /**
+     * Record a change to an asset in the change log, replacing any earlier entry for the asset.
+     * <p>
+     * Each change is given a sequence number which is greater than that of any change recorded
+     * before it.
+     *
+     * @param assetId the id of the asset which changed
+     * @param type what happened to the asset
+     * @param published whether the asset is published after the change
+     * @return the sequence number of the change
+     */
+    public long recordAssetChange(String assetId, AssetChange.Type type, boolean published);
+
+    /**
+     * Retrieve the entries in the change log with a sequence number greater than
+     * <code>since</code>, in sequence order.
+     * <p>
+     * Only entries up to {@link #getLatestChangeSequence()} are returned, so that a reader never
+     * moves past a change which is still being recorded.
+     *
+     * @param since the sequence number to start after
+     * @param limit the maximum number of entries to return
+     */
+    public List<AssetChange> retrieveAssetChanges(long since, int limit);
+
+    /**
+     * Get the sequence number of the most recent change, or 0 if nothing has changed. If changes
+     * are being recorded concurrently, this is the highest number up to which every change has
+     * been recorded.
+     */
+    public long getLatestChangeSequence();
+
+    /**
+     * Get the highest sequence number of the tombstones which have been purged from the change
+     * log, or 0 if none have been purged. Clients which last read the change log before this point
+     * may have missed deletions.
+     */
+    public long getPurgedChangeSequence();
+
+    /**
+     * Remove the tombstones for assets which were deleted before the given date from the change
+     * log.
+     *
+     * @return the new purged sequence number
+     * @see #getPurgedChangeSequence()
+     */
+    public long purgeAssetChanges(Date deletedBefore);
+
     /**
      * Retrieve a single asset by its id.
      *
@@ -96,6 +189,12 @@ public interface Persistor {
      */
     public Asset retrieveAsset(String assetId) throws NonExistentArtefactException;
 
+    /**
+     * Retrieve several assets by their ids in a single query. Ids which don't match an asset are
+     * ignored, and the assets are returned in no particular order.
+     */
+    public List<Asset> retrieveAssets(Collection<String> assetIds);
+
     /**
      * Create a single asset.
      *
@@ -114,6 +213,15 @@ public interface Persistor {
      */
     public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException;
 
+    /**
+     * Create or replace several assets in a single batch, keeping the ids they already have.
+     * <p>
+     * Unlike {@link #createAsset(Asset)}, the assets are not read back after they are stored.
+     *
+     * @param assets the assets to store, each of which must have an id
+     */
+    public void importAssets(List<Asset> assets);
+
     /**
      * Delete the asset with the specified id.
      */
@@ -124,8 +232,18 @@ public interface Persistor {
      */
     public AttachmentList findAttachmentsForAsset(String assetId);
 
+    /**
+     * Returns the attachments on each of the objects with the specified assetIds, found with a
+     * single query and keyed by assetId. Objects with no attachments have no entry in the map.
+     */
+    public Map<String, AttachmentList> findAttachmentsForAssets(Collection<String> assetIds);
+
     /**
      * Creates attachment content (ie file contents) in the persistence store.
+     * <p>
+     * The SHA-256 hash of the content is computed as it is stored. If content with the same hash
+     * has already been stored, that content is reused and its reference count is incremented, so
+     * the returned filename may be shared with other attachments.
      *
      * @throws AssetPersistenceException
      */
@@ -136,6 +254,14 @@ public interface Persistor {
      */
     public Attachment createAttachmentMetadata(Attachment attachment);
 
+    /**
+     * Create or replace the metadata for several attachments in a single batch, keeping the ids
+     * they already have. The metadata is not read back after it is stored.
+     *
+     * @param attachments the attachments to store, each of which must have an id
+     */
+    public void importAttachmentMetadata(List<Attachment> attachments);
+
     /**
      * Retrieves metadata for the specified attachment.
      *
@@ -144,8 +270,15 @@ public interface Persistor {
     public Attachment retrieveAttachmentMetadata(String attachmentId) throws NonExistentArtefactException;
 
     /**
-     * Deletes the attachment content associated with the given gridFsId. Caller should also delete
-     * the attachment metadata.
+     * Retrieves metadata for several attachments by their ids in a single query. Ids which don't
+     * match an attachment are ignored, and the attachments are returned in no particular order.
+     */
+    public List<Attachment> retrieveAttachmentsMetadata(Collection<String> attachmentIds);
+
+    /**
+     * Releases one reference to the attachment content associated with the given gridFsId, and
+     * deletes the content when no attachments refer to it. Caller should also delete the
+     * attachment metadata.
      */
     public void deleteAttachmentContent(String gridFsId);
 
@@ -162,6 +295,18 @@ public interface Persistor {
      */
     public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException;
 
+    /**
+     * Returns an input stream of part of the content of the specified attachment.
+     * <p>
+     * If the range can be satisfied, the stream starts at the first byte of the range and the
+     * resolved range is returned in the response. Otherwise the stream contains the whole content.
+     * Either way, the response includes the length of the whole content.
+     *
+     * @param range the range requested by the client, or null for the whole content
+     * @throws NonExistentArtefactException
+     */
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId, ByteRange range) throws NonExistentArtefactException;
+
     /**
      * Allocates and returns a new unique id. This is useful if the id of an object has to be set
      * before creating it in the persistence store.
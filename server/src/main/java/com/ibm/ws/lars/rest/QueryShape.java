@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * The shape of a query against the assets: which fields it filters on, how it is sorted and which
+ * fields it returns, but not the values it looks for.
+ * <p>
+ * Queries with the same shape can use the same index, so they are grouped together when recording
+ * {@link QueryStatistics}.
+ */
+public class QueryShape {
+
+    private final String operation;
+    private final List<String> filterKeys;
+    private final boolean search;
+    private final SortOptions sortOptions;
+    private final List<String> fields;
+
+    /**
+     * @param operation the kind of query, e.g. <code>find</code> or <code>count</code>
+     * @param filters the filters, only their keys are recorded
+     * @param searchTerm the search term, only whether there is one is recorded
+     * @param sortOptions the sort, may be null
+     * @param fields the fields returned, or null if the whole asset is returned
+     */
+    public QueryShape(String operation, Collection<AssetFilter> filters, String searchTerm, SortOptions sortOptions, Collection<String> fields) {
+        this.operation = operation;
+        TreeSet<String> keys = new TreeSet<>();
+        if (filters != null) {
+            for (AssetFilter filter : filters) {
+                keys.add(filter.getKey());
+            }
+        }
+        this.filterKeys = Collections.unmodifiableList(new ArrayList<>(keys));
+        this.search = searchTerm != null;
+        this.sortOptions = sortOptions;
+        this.fields = fields == null ? null : Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(fields)));
+    }
+
+    /**
+     * @return the kind of query
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the keys of the filters, in alphabetical order
+     */
+    public List<String> getFilterKeys() {
+        return filterKeys;
+    }
+
+    /**
+     * @return true if the query includes a text search
+     */
+    public boolean isSearch() {
+        return search;
+    }
+
+    /**
+     * @return the sort, or null if the query isn't sorted
+     */
+    public SortOptions getSortOptions() {
+        return sortOptions;
+    }
+
+    /**
+     * @return the fields returned, in alphabetical order, or null if the whole asset is returned
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Objects.hash(operation, filterKeys, search, sortOptions, fields);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        QueryShape other = (QueryShape) obj;
+        return Objects.equals(operation, other.operation)
+               && Objects.equals(filterKeys, other.filterKeys)
+               && search == other.search
+               && Objects.equals(sortOptions, other.sortOptions)
+               && Objects.equals(fields, other.fields);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "operation = " + operation + ", filterKeys = " + filterKeys + ", search = " + search + ", sortOptions = " + sortOptions
+               + ", fields = " + fields;
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many queries of each {@link QueryShape} have been run and how long they took.
+ * <p>
+ * Latencies are kept as a histogram with fixed bucket boundaries, so recording a query takes a
+ * constant amount of memory however many queries are run. Queries which took at least the slow
+ * query threshold are also counted separately, so that the persistence layer can decide when a
+ * shape needs an index.
+ * <p>
+ * The number of shapes recorded is limited, since the filter keys come from the request. Once the
+ * limit is reached, queries with new shapes are only counted as dropped.
+ * <p>
+ * This class is thread safe.
+ */
+public class QueryStatistics {
+
+    /** Upper bounds of the histogram buckets in milliseconds, the last bucket has no upper bound */
+    private static final long[] BUCKET_BOUNDS_MILLIS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+    private final int maxShapes;
+    private final long slowQueryNanos;
+    private final Map<QueryShape, ShapeStatistics> shapes = new LinkedHashMap<>();
+    private long dropped = 0;
+
+    /**
+     * @param maxShapes the maximum number of shapes to record
+     * @param slowQueryNanos queries which take at least this long are counted as slow
+     */
+    public QueryStatistics(int maxShapes, long slowQueryNanos) {
+        this.maxShapes = maxShapes;
+        this.slowQueryNanos = slowQueryNanos;
+    }
+
+    /**
+     * Records a query
+     *
+     * @param shape the shape of the query
+     * @param elapsedNanos how long the query took
+     * @return the number of slow queries with the same shape, including this one if it was slow
+     */
+    public synchronized long record(QueryShape shape, long elapsedNanos) {
+        ShapeStatistics stats = shapes.get(shape);
+        if (stats == null) {
+            if (shapes.size() >= maxShapes) {
+                dropped++;
+                return 0;
+            }
+            stats = new ShapeStatistics();
+            shapes.put(shape, stats);
+        }
+
+        stats.count++;
+        stats.totalNanos += elapsedNanos;
+        stats.maxNanos = Math.max(stats.maxNanos, elapsedNanos);
+        stats.buckets[bucketFor(elapsedNanos)]++;
+        if (elapsedNanos >= slowQueryNanos) {
+            stats.slowCount++;
+        }
+        return stats.slowCount;
+    }
+
+    private static int bucketFor(long elapsedNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            if (millis < BUCKET_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MILLIS.length;
+    }
+
+    /**
+     * Creates a timer which records a query when it is stopped
+     *
+     * @param shape the shape of the query
+     * @return the timer, already started
+     */
+    public Timer start(QueryShape shape) {
+        return new Timer(shape);
+    }
+
+    /**
+     * @return the number of queries which weren't recorded because there were too many shapes
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Summarizes the recorded queries, with the slowest shapes in total first.
+     * <p>
+     * Each shape is summarized as a map of the following form:
+     *
+     * <pre>
+     * {
+     *   "operation": "find",
+     *   "filterKeys": ["state", "type"],
+     *   "search": false,
+     *   "sortBy": "name",
+     *   "sortOrder": "ASCENDING",
+     *   "fields": ["name"],
+     *   "count": 10,
+     *   "slowCount": 1,
+     *   "totalMillis": 120.5,
+     *   "meanMillis": 12.05,
+     *   "maxMillis": 101.3,
+     *   "histogram": { "&lt;1ms": 0, ..., "&gt;=5000ms": 0 }
+     * }
+     * </pre>
+     *
+     * The sort and fields are left out if the query had none.
+     *
+     * @return a list of maps, one for each shape
+     */
+    public synchronized List<Map<String, Object>> summarize() {
+        List<Map.Entry<QueryShape, ShapeStatistics>> entries = new ArrayList<>(shapes.entrySet());
+        entries.sort(new Comparator<Map.Entry<QueryShape, ShapeStatistics>>() {
+            @Override
+            public int compare(Map.Entry<QueryShape, ShapeStatistics> a, Map.Entry<QueryShape, ShapeStatistics> b) {
+                return Long.compare(b.getValue().totalNanos, a.getValue().totalNanos);
+            }
+        });
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<QueryShape, ShapeStatistics> entry : entries) {
+            QueryShape shape = entry.getKey();
+            ShapeStatistics stats = entry.getValue();
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("operation", shape.getOperation());
+            summary.put("filterKeys", shape.getFilterKeys());
+            summary.put("search", shape.isSearch());
+            if (shape.getSortOptions() != null) {
+                summary.put("sortBy", shape.getSortOptions().getField());
+                summary.put("sortOrder", shape.getSortOptions().getSortOrder().name());
+            }
+            if (shape.getFields() != null) {
+                summary.put("fields", shape.getFields());
+            }
+            summary.put("count", stats.count);
+            summary.put("slowCount", stats.slowCount);
+            summary.put("totalMillis", toMillis(stats.totalNanos));
+            summary.put("meanMillis", toMillis(stats.totalNanos / stats.count));
+            summary.put("maxMillis", toMillis(stats.maxNanos));
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                histogram.put("<" + BUCKET_BOUNDS_MILLIS[i] + "ms", stats.buckets[i]);
+            }
+            histogram.put(">=" + BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1] + "ms", stats.buckets[BUCKET_BOUNDS_MILLIS.length]);
+            summary.put("histogram", histogram);
+
+            result.add(summary);
+        }
+        return result;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000 / 1000.0;
+    }
+
+    /**
+     * Removes all recorded queries
+     */
+    public synchronized void clear() {
+        shapes.clear();
+        dropped = 0;
+    }
+
+    private static class ShapeStatistics {
+        long count;
+        long slowCount;
+        long totalNanos;
+        long maxNanos;
+        final long[] buckets = new long[BUCKET_BOUNDS_MILLIS.length + 1];
+    }
+
+    /**
+     * Times a single query
+     */
+    public class Timer {
+        private final QueryShape shape;
+        private final long start;
+        private boolean stopped = false;
+
+        private Timer(QueryShape shape) {
+            this.shape = shape;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * @return the shape of the query being timed
+         */
+        public QueryShape getShape() {
+            return shape;
+        }
+
+        /**
+         * Records the query, if it hasn't already been recorded
+         *
+         * @return the number of slow queries with the same shape, as returned by
+         *         {@link QueryStatistics#record(QueryShape, long)}, or 0 if the timer had already
+         *         been stopped
+         */
+        public long stop() {
+            synchronized (this) {
+                if (stopped) {
+                    return 0;
+                }
+                stopped = true;
+            }
+            return record(shape, System.nanoTime() - start);
+        }
+    }
+}
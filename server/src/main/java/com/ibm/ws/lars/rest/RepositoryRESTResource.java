@@ -16,16 +16,30 @@
 
 package com.ibm.ws.lars.rest;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +51,7 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -45,13 +60,16 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
-import org.apache.wink.common.model.multipart.BufferedInMultiPart;
+import org.apache.wink.common.model.multipart.InMultiPart;
 import org.apache.wink.common.model.multipart.InPart;
 
 import com.fasterxml.jackson.core.JsonParseException;
@@ -61,6 +79,7 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ibm.ws.lars.rest.Condition.Operation;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.AttachmentTooLargeException;
 import com.ibm.ws.lars.rest.exceptions.InvalidIdException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.InvalidParameterException;
@@ -68,6 +87,7 @@ import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.exceptions.RepositoryException;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.AssetListCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
 import com.ibm.ws.lars.rest.model.AttachmentList;
@@ -96,11 +116,36 @@ public class RepositoryRESTResource {
 
     private static final ObjectMapper jsonMapper = new ObjectMapper();
 
+    // Not all of the statuses needed for range requests are in Response.Status in JAX-RS 1.1
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+    private static final int HTTP_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
+    private static final String INCLUDE_ATTACHMENTS_HEADER = "includeAttachments";
+    private static final String NEXT_PAGE_TOKEN_HEADER = "nextPageToken";
+
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /** The media type of newline delimited JSON, used for export and import */
+    private static final String NDJSON = "application/x-ndjson";
+
+    /** The maximum number of change log entries returned by a single request by default */
+    private static final int DEFAULT_CHANGES_LIMIT = 1000;
+
+    /** The maximum number of assets which can be requested from /assets/batch at once */
+    private static final int MAX_BATCH_IDS = 1000;
+
+    /** The largest attachment upload request accepted, in bytes. There is no limit if it isn't set. */
+    static final String MAX_ATTACHMENT_SIZE_PROPERTY = "lars.attachments.maxSize";
+
     private static final AssetFilter ASSET_IS_PUBLISHED = new AssetFilter(Asset.STATE, Collections.<Condition> singletonList(new Condition(Operation.EQUALS, Asset.State.PUBLISHED.getValue())));
 
     @Inject
     private AssetServiceLayer assetService;
 
+    private final Long maxAttachmentSize = Long.getLong(MAX_ATTACHMENT_SIZE_PROPERTY);
+
     public RepositoryRESTResource() {
         // constructor left intentionally blank
     }
@@ -122,7 +167,7 @@ public class RepositoryRESTResource {
     @GET
     @Path("/assets")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAssets(@Context UriInfo info, @Context SecurityContext context) throws JsonProcessingException, InvalidParameterException {
+    public Response getAssets(@Context UriInfo info, @Context SecurityContext context, @Context Request request) throws IOException, InvalidParameterException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAssets called with query parameters: " + info.getRequestUri().getRawQuery());
@@ -130,13 +175,77 @@ public class RepositoryRESTResource {
 
         AssetQueryParameters params = AssetQueryParameters.create(info);
 
+        boolean admin = context.isUserInRole(ADMIN_ROLE);
         Collection<AssetFilter> filters = params.getFilters();
-        if (!context.isUserInRole(ADMIN_ROLE)) {
+        if (!admin) {
             filters.add(ASSET_IS_PUBLISHED);
         }
 
-        AssetCursor assets = assetService.retrieveAllAssets(filters, params.getSearchTerm(), params.getPagination(), params.getSortOptions());
-        return Response.ok(assets).build();
+        // The list is streamed, so its entity tag has to be known before it is read. Every change
+        // to an asset or its attachments moves the change sequence on, so the list can't have
+        // changed while the sequence, the request and the caller's role are the same. The
+        // sequence is read before the query, so a change the query sees always changes the tag.
+        EntityTag tag = computeListEntityTag(assetService.getLatestChangeSequence(), info.getRequestUri().toString(), admin);
+        ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).build();
+        }
+
+        PaginationOptions pagination = params.getPagination();
+        SortOptions sortOptions = params.getSortOptions();
+        List<String> fields = params.getProjection();
+        List<String> queryFields = fields;
+        if (fields != null && pagination != null && pagination.usePageTokens() && sortOptions != null) {
+            // The next page token needs the value of the sort field
+            queryFields = AssetQueryParameters.addToProjection(fields, sortOptions.getField());
+        }
+        AssetCursor assets = assetService.retrieveAllAssets(filters, params.getSearchTerm(), pagination, sortOptions, queryFields);
+
+        PageToken.Tracker pageTracker = null;
+        if (pagination != null && pagination.usePageTokens()) {
+            // Added before any other operations so it sees the asset as it came from the database
+            pageTracker = new PageToken.Tracker(sortOptions, pagination.getLimit());
+            assets.addOperation(pageTracker);
+        }
+
+        boolean includeAttachments = params.getIncludeAttachments();
+        if (includeAttachments) {
+            assets = assetService.addAttachments(assets, info);
+        }
+
+        ResponseBuilder builder;
+        if (pageTracker != null) {
+            // Only projected back down if the sort field was added to the query's projection
+            List<String> responseFields = null;
+            if (queryFields != null && !queryFields.equals(fields)) {
+                responseFields = new ArrayList<>(fields);
+                if (includeAttachments) {
+                    responseFields.add(Asset.ATTACHMENTS);
+                }
+            }
+
+            // The next page token goes in a header, so the page has to be read before it can be
+            // written. It holds at most limit assets.
+            List<Asset> page = new ArrayList<>();
+            try (AssetCursor cursor = assets) {
+                while (cursor.hasNext()) {
+                    Asset asset = cursor.next();
+                    page.add(responseFields == null ? asset : asset.project(responseFields));
+                }
+            }
+            builder = Response.ok(new AssetListCursor(page));
+            PageToken nextPageToken = pageTracker.getNextToken();
+            if (nextPageToken != null) {
+                builder.header(NEXT_PAGE_TOKEN_HEADER, nextPageToken.encode());
+            }
+        } else {
+            builder = Response.ok(assets);
+        }
+        if (includeAttachments) {
+            // Lets clients tell this apart from an older server, which would treat the parameter as a filter
+            builder.header(INCLUDE_ATTACHMENTS_HEADER, "true");
+        }
+        return builder.tag(tag).build();
     }
 
     @HEAD
@@ -186,7 +295,10 @@ public class RepositoryRESTResource {
     @GET
     @Path("/assets/{assetId}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAsset(@PathParam("assetId") String assetId, @Context UriInfo uriInfo, @Context SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+    public Response getAsset(@PathParam("assetId") String assetId,
+                             @Context UriInfo uriInfo,
+                             @Context SecurityContext sc,
+                             @Context Request request) throws InvalidIdException, NonExistentArtefactException, InvalidParameterException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAsset called with id of '" + assetId + "'");
@@ -194,7 +306,9 @@ public class RepositoryRESTResource {
 
         sanitiseId(assetId, ArtefactType.ASSET);
 
-        Asset asset = assetService.retrieveAsset(assetId, uriInfo);
+        List<String> fields = AssetQueryParameters.create(uriInfo).getProjection();
+        boolean includeAttachments = fields == null || includesField(fields, Asset.ATTACHMENTS);
+        Asset asset = assetService.retrieveAsset(assetId, uriInfo, includeAttachments);
 
         if (!sc.isUserInRole(ADMIN_ROLE)) {
             if (asset.getState() != Asset.State.PUBLISHED) {
@@ -202,7 +316,56 @@ public class RepositoryRESTResource {
             }
         }
 
-        return Response.ok(asset.toJson()).build();
+        Date lastModified = getLastModified(asset);
+        if (fields != null) {
+            asset = asset.project(fields);
+        }
+
+        return conditionalResponse(request, asset.toJsonBytes(), lastModified);
+    }
+
+    /**
+     * Returns the asset with the given id, followed by every asset it requires, directly or
+     * indirectly, through its <code>requireFeature</code> and <code>requireFeatureWithTolerates</code>
+     * fields.
+     * <p>
+     * If any of the <code>productId</code>, <code>productVersion</code> or
+     * <code>productEdition</code> parameters are provided, required features are only satisfied by
+     * assets whose appliesToFilterInfo matches that product.
+     */
+    @GET
+    @Path("/assets/{assetId}/closure")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAssetClosure(@PathParam("assetId") String assetId,
+                                    @QueryParam("productId") String productId,
+                                    @QueryParam("productVersion") String productVersion,
+                                    @QueryParam("productEdition") String productEdition,
+                                    @Context UriInfo uriInfo,
+                                    @Context SecurityContext sc) throws InvalidIdException, InvalidParameterException, NonExistentArtefactException {
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("getAssetClosure called with id of '" + assetId + "', productId: " + productId
+                        + " productVersion: " + productVersion + " productEdition: " + productEdition);
+        }
+
+        sanitiseId(assetId, ArtefactType.ASSET);
+
+        AppliesToMatcher matcher = AppliesToMatcher.create(productId, productVersion, productEdition);
+
+        // Check the starting asset before resolving anything, so that an unpublished asset
+        // doesn't cost a walk of its dependencies
+        Asset root = assetService.retrieveAsset(assetId, uriInfo, false);
+        Collection<AssetFilter> filters = new ArrayList<>();
+        if (!sc.isUserInRole(ADMIN_ROLE)) {
+            if (root.getState() != Asset.State.PUBLISHED) {
+                throw new NonExistentArtefactException(assetId, ArtefactType.ASSET);
+            }
+            filters.add(ASSET_IS_PUBLISHED);
+        }
+
+        List<Asset> closure = assetService.resolveClosure(root, filters, matcher);
+
+        return Response.ok(new AssetListCursor(closure)).build();
     }
 
     @DELETE
@@ -243,7 +406,7 @@ public class RepositoryRESTResource {
             filters.add(ASSET_IS_PUBLISHED);
         }
 
-        List<Map<String, Object>> summary = assetService.summarizeAssets(fields, filters, params.getSearchTerm());
+        List<Map<String, Object>> summary = assetService.summarizeAssets(fields, filters, params.getSearchTerm(), params.getCounts());
 
         String resultJson;
         try {
@@ -255,6 +418,47 @@ public class RepositoryRESTResource {
         return Response.ok(resultJson).build();
     }
 
+    /**
+     * Returns the assets whose ids are given as a JSON array in the request body, with their
+     * attachments, in the same order as the ids. Ids which don't match an asset that the user can
+     * see are left out. This lets a client fetch many assets that it already knows the ids of, for
+     * example from the change feed, with a single request.
+     * <p>
+     * This is a POST, rather than a GET with an ids parameter, because the query parameters of
+     * GET /assets are all treated as filters and the list of ids may be too long for a URL.
+     */
+    @POST
+    @Path("/assets/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAssetBatch(String idsJSON, @Context UriInfo uriInfo, @Context SecurityContext sc) throws InvalidIdException, InvalidParameterException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("getAssetBatch called with json content:\n" + idsJSON);
+        }
+
+        List<String> ids;
+        try {
+            ids = jsonMapper.readValue(idsJSON, new TypeReference<List<String>>() {});
+        } catch (IOException e) {
+            throw new InvalidParameterException("The request body must be a JSON array of asset ids");
+        }
+        if (ids == null) {
+            throw new InvalidParameterException("The request body must be a JSON array of asset ids");
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new InvalidParameterException("At most " + MAX_BATCH_IDS + " assets can be requested at once");
+        }
+        for (String id : ids) {
+            if (id == null) {
+                throw new InvalidParameterException("The request body must be a JSON array of asset ids");
+            }
+            sanitiseId(id, ArtefactType.ASSET);
+        }
+
+        List<Asset> assets = assetService.retrieveAssets(ids, uriInfo, !sc.isUserInRole(ADMIN_ROLE));
+        return Response.ok(new AssetListCursor(assets)).build();
+    }
+
     @POST
     @Path("/assets/{assetId}/attachments")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -263,8 +467,8 @@ public class RepositoryRESTResource {
     public Response createAttachmentWithContent(@QueryParam("name") String name,
                                                 @PathParam("assetId") String assetId,
                                                 @Context HttpServletRequest request,
-                                                BufferedInMultiPart inMultiPart,
-                                                @Context UriInfo uriInfo) throws InvalidJsonAssetException, InvalidIdException, AssetPersistenceException, NonExistentArtefactException {
+                                                InMultiPart inMultiPart,
+                                                @Context UriInfo uriInfo) throws InvalidJsonAssetException, InvalidIdException, AssetPersistenceException, NonExistentArtefactException, AttachmentTooLargeException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("createAttachmentWithContent called, name: " + name + " assetId: " + assetId);
@@ -272,29 +476,90 @@ public class RepositoryRESTResource {
 
         sanitiseId(assetId, ArtefactType.ASSET);
 
-        List<InPart> parts = inMultiPart.getParts();
+        if (maxAttachmentSize != null && getContentLength(request) > maxAttachmentSize) {
+            throw new AttachmentTooLargeException(maxAttachmentSize);
+        }
 
+        // The parts are read from the request as they arrive, so the metadata has to come first
+        // for the content to be stored without being buffered
         Attachment attachmentMetadata = null;
-        InputStream contentStream = null;
-        String contentType = null;
-
-        for (InPart part : parts) {
+        Asset parent = null;
+        while (inMultiPart.hasNext()) {
+            InPart part = inMultiPart.next();
             String partName = part.getPartName();
             if ("attachmentInfo".equals(partName)) {
-
                 attachmentMetadata = Attachment.jsonToAttachment(part.getInputStream());
+                parent = assetService.checkAttachmentWithContent(assetId, attachmentMetadata);
             } else if (partName != null && partName.equals(name)) {
-                contentType = part.getContentType();
-
-                contentStream = part.getInputStream();
+                if (attachmentMetadata == null) {
+                    throw new InvalidJsonAssetException("The attachmentInfo part must be sent before the attachment content");
+                }
+                return createAttachmentFromPart(parent, name, attachmentMetadata, part, uriInfo);
             }
         }
 
-        Attachment result = assetService.createAttachmentWithContent(assetId, name, attachmentMetadata, contentType, contentStream, uriInfo);
+        if (attachmentMetadata == null) {
+            throw new InvalidJsonAssetException("The attachmentInfo part was missing");
+        }
+        Attachment result = assetService.createAttachmentWithContent(parent, name, attachmentMetadata, null, null, uriInfo);
+
+        return Response.ok(result.toJson()).build();
+    }
+
+    /**
+     * Creates an attachment, storing the content straight from the request part
+     */
+    private Response createAttachmentFromPart(Asset parent, String name, Attachment attachmentMetadata, InPart part,
+                                              UriInfo uriInfo) throws InvalidJsonAssetException, AssetPersistenceException, AttachmentTooLargeException {
+        InputStream contentStream = part.getInputStream();
+        LimitedInputStream limitedStream = null;
+        if (maxAttachmentSize != null) {
+            limitedStream = new LimitedInputStream(contentStream, maxAttachmentSize);
+            contentStream = limitedStream;
+        }
+
+        Attachment result;
+        try {
+            result = assetService.createAttachmentWithContent(parent, name, attachmentMetadata, part.getContentType(), contentStream, uriInfo);
+        } catch (AssetPersistenceException | RuntimeException e) {
+            // The blob stores report a failure to read the content in different ways
+            if (limitedStream != null && limitedStream.isLimitExceeded()) {
+                throw new AttachmentTooLargeException(maxAttachmentSize);
+            }
+            throw e;
+        }
 
         return Response.ok(result.toJson()).build();
     }
 
+    /**
+     * Formats a hex SHA-256 hash as the value of an RFC 3230 Digest header, which uses base64
+     */
+    static String toDigestHeader(String sha256) {
+        byte[] bytes = new byte[sha256.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(sha256.substring(i * 2, i * 2 + 2), 16);
+        }
+        return "SHA-256=" + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * @return the length of the request body from the Content-Length header, or -1 if it isn't
+     *         known
+     */
+    private static long getContentLength(HttpServletRequest request) {
+        // HttpServletRequest.getContentLength() can't return lengths over 2GB
+        String header = request.getHeader("Content-Length");
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     @POST
     @Path("/assets/{assetId}/attachments")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -325,7 +590,7 @@ public class RepositoryRESTResource {
     @Produces(MediaType.APPLICATION_JSON)
     @RolesAllowed({ ADMIN_ROLE, USER_ROLE })
     public Response getAttachments(@PathParam("assetId") String assetId, @Context UriInfo uriInfo,
-                                   @Context SecurityContext sc) throws InvalidIdException, NonExistentArtefactException, JsonProcessingException {
+                                   @Context SecurityContext sc, @Context Request request) throws InvalidIdException, NonExistentArtefactException, JsonProcessingException {
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAttachments called for assetId: " + assetId);
         }
@@ -341,7 +606,7 @@ public class RepositoryRESTResource {
         }
 
         AttachmentList attachments = asset.getAttachments();
-        return Response.ok(attachments.toJson()).build();
+        return conditionalResponse(request, attachments.toJson().getBytes(StandardCharsets.UTF_8), null);
     }
 
     @DELETE
@@ -368,8 +633,11 @@ public class RepositoryRESTResource {
     public Response getAttachmentContent(@PathParam("assetId") String assetId,
                                          @PathParam("attachmentId") String attachmentId,
                                          @PathParam("name") String name,
+                                         @HeaderParam("Range") String rangeHeader,
+                                         @HeaderParam("If-Range") String ifRange,
                                          @Context UriInfo uriInfo,
-                                         @Context SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+                                         @Context SecurityContext sc,
+                                         @Context Request request) throws InvalidIdException, NonExistentArtefactException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAttachmentContent called for assetId: " + assetId
@@ -385,18 +653,99 @@ public class RepositoryRESTResource {
             }
         }
 
-        AttachmentContentResponse contentResponse = assetService.retrieveAttachmentContent(assetId, attachmentId, name, uriInfo);
+        ByteRange range = ByteRange.parse(rangeHeader);
+        AttachmentContentResponse contentResponse = assetService.retrieveAttachmentContent(assetId, attachmentId, name, range, uriInfo);
         if (contentResponse != null) {
-            final InputStream contentInputStream = contentResponse.getContentStream();
-            StreamingOutput stream = new InputStreamStreamingOutput(contentInputStream);
+            InputStream contentInputStream = contentResponse.getContentStream();
+
+            // Attachment content is never modified, so the stored validators can be trusted for
+            // both If-None-Match and If-Modified-Since
+            EntityTag tag = contentResponse.getEntityTag() == null ? null : new EntityTag(contentResponse.getEntityTag());
+            Date lastModified = contentResponse.getLastModified();
+            ResponseBuilder notModified = null;
+            if (tag != null && lastModified != null) {
+                notModified = request.evaluatePreconditions(lastModified, tag);
+            } else if (tag != null) {
+                notModified = request.evaluatePreconditions(tag);
+            } else if (lastModified != null) {
+                notModified = request.evaluatePreconditions(lastModified);
+            }
 
-            return Response.ok(stream).header("Content-Type", contentResponse.getContentType()).build();
+            ResponseBuilder builder;
+            if (notModified != null) {
+                closeQuietly(contentInputStream);
+                builder = notModified;
+            } else {
+                long length = contentResponse.getLength();
+                ByteRange served = contentResponse.getRange();
+
+                if (range != null && !ifRangeMatches(ifRange, tag, lastModified)) {
+                    // The client's partial copy is out of date, so it needs the whole thing
+                    range = null;
+                    if (served != null) {
+                        closeQuietly(contentInputStream);
+                        contentResponse = assetService.retrieveAttachmentContent(assetId, attachmentId, name, null, uriInfo);
+                        contentInputStream = contentResponse.getContentStream();
+                        served = null;
+                    }
+                }
+
+                if (served != null) {
+                    StreamingOutput stream = new InputStreamStreamingOutput(contentInputStream, served.getLength());
+                    builder = Response.status(HTTP_PARTIAL_CONTENT).entity(stream)
+                            .header("Content-Type", contentResponse.getContentType())
+                            .header("Content-Range", served.toContentRange(length))
+                            .header("Content-Length", served.getLength());
+                } else if (range != null && length >= 0) {
+                    closeQuietly(contentInputStream);
+                    builder = Response.status(HTTP_REQUESTED_RANGE_NOT_SATISFIABLE).header("Content-Range", "bytes */" + length);
+                } else {
+                    StreamingOutput stream = new InputStreamStreamingOutput(contentInputStream, -1);
+                    builder = Response.ok(stream).header("Content-Type", contentResponse.getContentType());
+                    if (length >= 0) {
+                        builder.header("Content-Length", length);
+                    }
+                }
+                builder.header("Accept-Ranges", "bytes");
+                if (contentResponse.getSha256() != null) {
+                    builder.header("Digest", toDigestHeader(contentResponse.getSha256()));
+                }
+            }
+            if (tag != null) {
+                builder.tag(tag);
+            }
+            if (lastModified != null) {
+                builder.lastModified(lastModified);
+            }
+            return builder.build();
         } else {
             String body = getErrorJson(Response.Status.NOT_FOUND, "Could not find attachment for id " + attachmentId);
             return Response.status(Response.Status.NOT_FOUND).entity(body).build();
         }
     }
 
+    /**
+     * Checks whether a range request should be honoured, given the If-Range header sent with it.
+     * The header holds either the entity tag or the last modified date of the client's partial
+     * copy, and the range only applies if that is still current.
+     */
+    static boolean ifRangeMatches(String ifRange, EntityTag tag, Date lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            // Only a strong comparison will do for ranges
+            return tag != null && !tag.isWeak() && value.equals("\"" + tag.getValue() + "\"");
+        }
+        if (lastModified == null) {
+            return false;
+        }
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return value.equals(format.format(lastModified));
+    }
+
     @PUT
     @Path("/assets/{assetId}/state")
     @Produces(MediaType.APPLICATION_JSON)
@@ -438,6 +787,117 @@ public class RepositoryRESTResource {
         return Response.ok("[]").build();
     }
 
+    /**
+     * Returns the assets which have been created, updated or deleted since the point in the change
+     * log identified by the <code>since</code> token, so that a client can keep a copy of the
+     * repository up to date without fetching every asset. See
+     * {@link AssetServiceLayer#getChanges(Long, int, boolean)} for the format of the response.
+     */
+    @GET
+    @Path("/changes")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getChanges(@QueryParam("since") String since,
+                               @QueryParam("limit") String limit,
+                               @Context SecurityContext sc) throws InvalidParameterException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("getChanges called with since: " + since + " limit: " + limit);
+        }
+
+        Long sinceValue = null;
+        int limitValue = DEFAULT_CHANGES_LIMIT;
+        try {
+            if (since != null) {
+                sinceValue = Long.valueOf(since);
+            }
+            if (limit != null) {
+                limitValue = Integer.parseInt(limit);
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException("Invalid since or limit parameter: since=" + since + " limit=" + limit);
+        }
+        if (limitValue < 1) {
+            throw new InvalidParameterException("The limit parameter must be at least 1");
+        }
+
+        String resultJson;
+        try {
+            resultJson = jsonMapper.writeValueAsString(assetService.getChanges(sinceValue, limitValue, sc.isUserInRole(ADMIN_ROLE)));
+        } catch (JsonProcessingException e) {
+            throw new RepositoryException("Could not serialize changes", e);
+        }
+
+        return Response.ok(resultJson).build();
+    }
+
+    /**
+     * Streams every asset and attachment in the repository as newline delimited JSON, optionally
+     * with the attachment content, for backup or migration to another repository.
+     */
+    @GET
+    @Path("/export")
+    @Produces(NDJSON)
+    @RolesAllowed(ADMIN_ROLE)
+    public Response exportRepository(@QueryParam("includeContent") final boolean includeContent) {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("exportRepository called with includeContent: " + includeContent);
+        }
+
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream os) throws IOException {
+                assetService.exportRepository(os, includeContent);
+            }
+        };
+        return Response.ok(output).build();
+    }
+
+    /**
+     * Imports assets and attachments in the format written by {@link #exportRepository(boolean)},
+     * replacing any existing assets with the same ids, and returns the number of each imported.
+     */
+    @POST
+    @Path("/import")
+    @Consumes(NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @RolesAllowed(ADMIN_ROLE)
+    public Response importRepository(InputStream body) throws InvalidJsonAssetException, AssetPersistenceException, IOException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("importRepository called");
+        }
+
+        String resultJson;
+        try {
+            resultJson = jsonMapper.writeValueAsString(assetService.importRepository(body));
+        } catch (JsonProcessingException e) {
+            throw new RepositoryException("Could not serialize import result", e);
+        }
+
+        return Response.ok(resultJson).build();
+    }
+
+    /**
+     * Returns statistics about the asset queries run since the server started, grouped by the
+     * fields they filter and sort on, so that an administrator can see which queries need an index.
+     */
+    @GET
+    @Path("/admin/queryStats")
+    @Produces(MediaType.APPLICATION_JSON)
+    @RolesAllowed(ADMIN_ROLE)
+    public Response getQueryStatistics() {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("getQueryStatistics called");
+        }
+
+        String resultJson;
+        try {
+            resultJson = jsonMapper.writeValueAsString(assetService.getQueryStatistics());
+        } catch (JsonProcessingException e) {
+            throw new RepositoryException("Could not serialize query statistics", e);
+        }
+
+        return Response.ok(resultJson).build();
+    }
+
     /**
      * Returns a dummy installation manager repository.config file
      * <p>
@@ -488,6 +948,107 @@ public class RepositoryRESTResource {
         return error;
     }
 
+    /**
+     * Builds a response for a GET request whose body has already been generated.
+     * <p>
+     * A strong entity tag is computed from the body. If it matches the request's If-None-Match
+     * header, a 304 response is returned without the body. The lastModified date is only sent to
+     * the client, it is not evaluated against If-Modified-Since because changes to an asset's
+     * attachments are not reflected in its lastUpdatedOn field.
+     *
+     * @param request the request
+     * @param body the response body
+     * @param lastModified the date to send in the Last-Modified header, may be null
+     * @return the response
+     */
+    static Response conditionalResponse(Request request, byte[] body, Date lastModified) {
+        EntityTag tag = computeEntityTag(body);
+        ResponseBuilder builder = request.evaluatePreconditions(tag);
+        if (builder == null) {
+            builder = Response.ok(body);
+        }
+        builder.tag(tag);
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Computes the entity tag for a list of assets from the latest change sequence, the request URI,
+     * which holds the filters and is used in the attachment URLs, and whether the caller is an
+     * administrator, since administrators see unpublished assets
+     */
+    static EntityTag computeListEntityTag(long changeSequence, String requestUri, boolean admin) {
+        return computeEntityTag((changeSequence + " " + admin + " " + requestUri).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes a strong entity tag from a SHA-1 digest of a response body
+     */
+    static EntityTag computeEntityTag(byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(body)) {
+                hex.append(String.format("%02x", b));
+            }
+            return new EntityTag(hex.toString());
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to support SHA-1
+            throw new RepositoryException("Unable to compute entity tag", e);
+        }
+    }
+
+    /**
+     * @return true if the list of fields includes the given top level field, or any part of it
+     */
+    private static boolean includesField(List<String> fields, String field) {
+        for (String f : fields) {
+            if (f.equals(field) || f.startsWith(field + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the last time the asset or any of its attachments were changed, or null if the asset
+     * doesn't record it.
+     */
+    private static Date getLastModified(Asset asset) {
+        Date lastModified = parseDate(asset.getLastUpdatedOn());
+        AttachmentList attachments = asset.getAttachments();
+        if (attachments != null) {
+            for (Attachment attachment : attachments) {
+                Date uploadOn = parseDate(attachment.getUploadOn());
+                if (uploadOn != null && (lastModified == null || uploadOn.after(lastModified))) {
+                    lastModified = uploadOn;
+                }
+            }
+        }
+        return lastModified;
+    }
+
+    private static Date parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return IsoDate.parse(date);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Nothing useful to do, we weren't going to read it anyway
+        }
+    }
+
     private static void sanitiseId(String id, ArtefactType typeOfId) throws InvalidIdException {
         if (!validId(id)) {
             throw new InvalidIdException(typeOfId.getValue(), id);
@@ -525,25 +1086,56 @@ public class RepositoryRESTResource {
         /**  */
         private final InputStream contentInputStream;
 
+        /** The number of bytes to write, or -1 to write everything */
+        private final long limit;
+
         /**
          * @param contentInputStream
+         * @param limit the number of bytes to write, or -1 to write the whole stream
          */
-        private InputStreamStreamingOutput(InputStream contentInputStream) {
+        private InputStreamStreamingOutput(InputStream contentInputStream, long limit) {
             this.contentInputStream = contentInputStream;
+            this.limit = limit;
         }
 
         @Override
         public void write(OutputStream os) throws IOException {
             try {
-                byte[] buffer = new byte[1024];
+                if (contentInputStream instanceof FileInputStream) {
+                    transferFile(((FileInputStream) contentInputStream).getChannel(), os);
+                    return;
+                }
+
+                byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                long remaining = limit == -1 ? Long.MAX_VALUE : limit;
                 int len;
-                while ((len = contentInputStream.read(buffer)) != -1) {
+                while (remaining > 0 && (len = contentInputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
                     os.write(buffer, 0, len);
+                    remaining -= len;
                 }
             } finally {
                 contentInputStream.close();
             }
         }
+
+        /**
+         * Writes content from a file with {@link FileChannel#transferTo}, starting at the channel's
+         * current position. The servlet output stream isn't a socket channel, so the content is
+         * still copied, but by the JRE in large blocks rather than through our buffer.
+         */
+        private void transferFile(FileChannel channel, OutputStream os) throws IOException {
+            WritableByteChannel target = Channels.newChannel(os);
+            long position = channel.position();
+            long end = limit == -1 ? channel.size() : Math.min(channel.size(), position + limit);
+            while (position < end) {
+                long count = channel.transferTo(position, end - position, target);
+                if (count <= 0) {
+                    // The file has been truncated
+                    break;
+                }
+                position += count;
+            }
+        }
     }
 
 }
@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
+import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentList;
+
+/**
+ * Writes the whole repository to a stream of newline delimited JSON, and reads it back, for
+ * backups and migrations.
+ * <p>
+ * Each line holds one object, either <code>{"asset":{...}}</code> or
+ * <code>{"attachment":{...}}</code>. Each asset is followed by its attachments. If content is
+ * included, attachments stored in the repository also have a <code>content</code> field holding
+ * their content in base64. Without content, an imported attachment only keeps its reference to
+ * stored content if it replaces an attachment which already refers to the same content, which is
+ * only the case when restoring into the same database.
+ * <p>
+ * Export reads the assets from a cursor and copies attachment content straight from the store, so
+ * memory use doesn't grow with the size of the repository. Import uses a streaming parser, spools
+ * each attachment's content to a temporary file on its way into the store, and writes assets and
+ * attachment metadata in batches without reading them back. Imported assets replace any existing
+ * assets with the same id.
+ */
+class RepositoryTransfer {
+
+    static final String ASSET = "asset";
+    static final String ATTACHMENT = "attachment";
+    static final String CONTENT = "content";
+
+    /** The number of assets or attachments written to the store at once */
+    private static final int BATCH_SIZE = 100;
+
+    private static final Pattern OBJECT_ID = Pattern.compile("[0-9a-fA-F]{24}");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final Persistor persistor;
+
+    RepositoryTransfer(Persistor persistor) {
+        this.persistor = persistor;
+    }
+
+    /**
+     * Writes every asset and attachment to the stream
+     *
+     * @param stream the stream to write to, which is not closed
+     * @param includeContent true if the content of attachments stored in the repository should be
+     *            written as well
+     * @throws IOException if there is a problem writing to the stream
+     */
+    void exportRepository(OutputStream stream, boolean includeContent) throws IOException {
+        try (AssetCursor cursor = persistor.retrieveAllAssets();
+                        JsonGenerator generator = MAPPER.getFactory().createGenerator(stream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Map<String, Asset> batch = new LinkedHashMap<>();
+            while (cursor.hasNext()) {
+                Asset asset = cursor.next();
+                batch.put(asset.get_id(), asset);
+                if (batch.size() >= BATCH_SIZE) {
+                    writeAssets(generator, batch, includeContent);
+                }
+            }
+            writeAssets(generator, batch, includeContent);
+        }
+    }
+
+    /**
+     * Writes a batch of assets, each followed by its attachments, and clears the batch. The
+     * attachments for the whole batch are found with one query.
+     */
+    private void writeAssets(JsonGenerator generator, Map<String, Asset> batch, boolean includeContent) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, AttachmentList> attachmentsByAsset = persistor.findAttachmentsForAssets(batch.keySet());
+        for (Asset asset : batch.values()) {
+            generator.writeStartObject();
+            generator.writeFieldName(ASSET);
+            MAPPER.writeValue(generator, asset.getProperties());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+
+            AttachmentList attachments = attachmentsByAsset.get(asset.get_id());
+            if (attachments != null) {
+                for (Attachment attachment : attachments) {
+                    writeAttachment(generator, attachment, includeContent);
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private void writeAttachment(JsonGenerator generator, Attachment attachment, boolean includeContent) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ATTACHMENT);
+        MAPPER.writeValue(generator, attachment.getProperties());
+        if (includeContent && attachment.getGridFSId() != null) {
+            try (InputStream content = persistor.retrieveAttachmentContent(attachment.getGridFSId()).getContentStream()) {
+                generator.writeFieldName(CONTENT);
+                generator.writeBinary(content, -1);
+            } catch (NonExistentArtefactException e) {
+                // Export the metadata anyway, it's no worse than what is in the repository
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Reads assets and attachments written by {@link #exportRepository(OutputStream, boolean)} and
+     * stores them in the repository
+     *
+     * @param stream the stream to read from
+     * @return the number of <code>assets</code> and <code>attachments</code> imported
+     * @throws InvalidJsonAssetException if the stream isn't valid, in which case the objects before
+     *             the invalid one may already have been imported
+     * @throws AssetPersistenceException if attachment content can't be stored
+     * @throws IOException if there is a problem reading the stream
+     */
+    Map<String, Object> importRepository(InputStream stream) throws InvalidJsonAssetException, AssetPersistenceException, IOException {
+        List<Asset> assets = new ArrayList<>();
+        List<Attachment> attachments = new ArrayList<>();
+        Set<String> storedContent = new HashSet<>();
+        int assetCount = 0;
+        int attachmentCount = 0;
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(stream)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new InvalidJsonAssetException("Expected an object at line " + parser.getCurrentLocation().getLineNr());
+                }
+                Record record = readRecord(parser);
+                try {
+                    if (record.asset != null) {
+                        assets.add(createAsset(record.asset));
+                        assetCount++;
+                        if (assets.size() == BATCH_SIZE) {
+                            flushAssets(assets);
+                        }
+                    } else if (record.attachment != null) {
+                        Attachment attachment = createAttachment(record.attachment, record.content);
+                        attachments.add(attachment);
+                        if (record.content != null) {
+                            storedContent.add(attachment.get_id());
+                        }
+                        attachmentCount++;
+                        if (attachments.size() == BATCH_SIZE) {
+                            flushAttachments(attachments, storedContent);
+                        }
+                    } else {
+                        throw new InvalidJsonAssetException("Expected an asset or attachment at line " + parser.getCurrentLocation().getLineNr());
+                    }
+                } finally {
+                    if (record.content != null) {
+                        record.content.delete();
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidJsonAssetException(e);
+        }
+        flushAssets(assets);
+        flushAttachments(attachments, storedContent);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("assets", assetCount);
+        result.put("attachments", attachmentCount);
+        return result;
+    }
+
+    /**
+     * Reads the fields of an object, having already read its start
+     */
+    private static Record readRecord(JsonParser parser) throws IOException {
+        Record record = new Record();
+        try {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (ASSET.equals(field)) {
+                    record.asset = readMap(parser);
+                } else if (ATTACHMENT.equals(field)) {
+                    record.attachment = readMap(parser);
+                } else if (CONTENT.equals(field)) {
+                    record.content = File.createTempFile("larsImport", null);
+                    try (OutputStream out = new FileOutputStream(record.content)) {
+                        parser.readBinaryValue(out);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (record.content != null) {
+                record.content.delete();
+            }
+            throw e;
+        }
+        return record;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMap(JsonParser parser) throws IOException {
+        return MAPPER.readValue(parser, HashMap.class);
+    }
+
+    private Asset createAsset(Map<String, Object> properties) throws InvalidJsonAssetException {
+        Asset asset = Asset.createAssetFromMap(properties);
+        if (asset.get_id() == null) {
+            asset.set_id(persistor.allocateNewId());
+        } else if (!OBJECT_ID.matcher(asset.get_id()).matches()) {
+            throw new InvalidJsonAssetException("Invalid asset id: " + asset.get_id());
+        }
+        Object state = properties.get(Asset.STATE);
+        if (!(state instanceof String) || Asset.State.forValue((String) state) == null) {
+            throw new InvalidJsonAssetException("Invalid state for asset " + asset.get_id() + ": " + state);
+        }
+        return asset;
+    }
+
+    private Attachment createAttachment(Map<String, Object> properties, File content) throws InvalidJsonAssetException, AssetPersistenceException, IOException {
+        Attachment attachment = Attachment.createAttachmentFromMap(properties);
+        if (attachment.getAssetId() == null) {
+            throw new InvalidJsonAssetException("The attachment " + attachment.get_id() + " has no asset id");
+        }
+        if (attachment.get_id() == null) {
+            attachment.set_id(persistor.allocateNewId());
+        } else if (!OBJECT_ID.matcher(attachment.get_id()).matches()) {
+            throw new InvalidJsonAssetException("Invalid attachment id: " + attachment.get_id());
+        }
+
+        if (content != null) {
+            try (InputStream contentStream = new FileInputStream(content)) {
+                AttachmentContentMetadata metadata = persistor.createAttachmentContent(attachment.getName(), attachment.getContentType(), contentStream);
+                attachment.setGridFSId(metadata.filename);
+                attachment.setSize(metadata.length);
+                attachment.setSha256(metadata.sha256);
+            }
+        }
+        return attachment;
+    }
+
+    private void flushAssets(List<Asset> assets) {
+        if (assets.isEmpty()) {
+            return;
+        }
+        persistor.importAssets(assets);
+        for (Asset asset : assets) {
+            persistor.recordAssetChange(asset.get_id(), AssetChange.Type.UPDATED, asset.getState() == Asset.State.PUBLISHED);
+        }
+        assets.clear();
+    }
+
+    /**
+     * Stores a batch of attachments, replacing any existing attachments with the same ids.
+     * <p>
+     * Content stored by this import has a reference of its own, so the content of each replaced
+     * attachment is released. An attachment imported without content takes over the reference of
+     * the attachment it replaces if both refer to the same content. Otherwise its gridFSId refers to
+     * content it holds no reference to, probably in another repository, so it is dropped.
+     *
+     * @param attachments the attachments to store, which is cleared afterwards
+     * @param storedContent the ids of the attachments whose content was stored by this import,
+     *            which is cleared afterwards
+     */
+    private void flushAttachments(List<Attachment> attachments, Set<String> storedContent) {
+        if (attachments.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (Attachment attachment : attachments) {
+            ids.add(attachment.get_id());
+        }
+        Map<String, String> replacedContent = new HashMap<>();
+        for (Attachment existing : persistor.retrieveAttachmentsMetadata(ids)) {
+            if (existing.getGridFSId() != null) {
+                replacedContent.put(existing.get_id(), existing.getGridFSId());
+            }
+        }
+
+        for (Attachment attachment : attachments) {
+            String gridFSId = attachment.getGridFSId();
+            if (gridFSId == null || storedContent.contains(attachment.get_id())) {
+                continue;
+            }
+            if (gridFSId.equals(replacedContent.get(attachment.get_id()))) {
+                replacedContent.remove(attachment.get_id());
+            } else {
+                attachment.getProperties().remove(Attachment.GRIDFS_ID);
+            }
+        }
+
+        persistor.importAttachmentMetadata(attachments);
+        for (String gridFSId : replacedContent.values()) {
+            persistor.deleteAttachmentContent(gridFSId);
+        }
+        attachments.clear();
+        storedContent.clear();
+    }
+
+    /**
+     * A single line of the stream
+     */
+    private static class Record {
+        Map<String, Object> asset;
+        Map<String, Object> attachment;
+        File content;
+    }
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.exceptions;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Thrown to indicate that the content of an attachment is larger than the server accepts
+ */
+public class AttachmentTooLargeException extends RepositoryClientException {
+
+    /**  */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param limit the largest accepted size in bytes
+     */
+    public AttachmentTooLargeException(long limit) {
+        super("The attachment content must not be larger than " + limit + " bytes");
+    }
+
+    /**
+     * JAX-RS 1.1 has no constant for 413 Request Entity Too Large, so this is reported as a bad
+     * request.
+     */
+    @Override
+    public Status getResponseStatus() {
+        return Response.Status.BAD_REQUEST;
+    }
+
+}
@@ -17,6 +17,8 @@
 package com.ibm.ws.lars.rest.model;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +49,8 @@ public class Asset extends RepositoryObject {
 
     public static final String NAME = "name";
 
+    public static final String WLP_INFORMATION = "wlpInformation";
+
     public Asset() {
         super();
     }
@@ -145,6 +149,73 @@ public class Asset extends RepositoryObject {
         return AttachmentList.createAttachmentListFromMaps(attachmentsState);
     }
 
+    /**
+     * Creates a new asset with only the given fields of this one, plus its id, in the same way as
+     * a projection in a database query. The values are not copied.
+     * <p>
+     * Fields may use dots to select a field inside an object. If the outer field is a list, the
+     * field is selected from each object in the list.
+     *
+     * @param fields the fields to include
+     * @return the new asset
+     */
+    public Asset project(Collection<String> fields) {
+        Map<String, Object> projected = new HashMap<>();
+        if (properties.containsKey(_ID)) {
+            projected.put(_ID, properties.get(_ID));
+        }
+        for (String field : fields) {
+            projectField(properties, projected, field.split("\\."), 0);
+        }
+        return new Asset(projected);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void projectField(Map<String, Object> from, Map<String, Object> to, String[] path, int index) {
+        String key = path[index];
+        if (!from.containsKey(key)) {
+            return;
+        }
+        Object value = from.get(key);
+        if (index == path.length - 1) {
+            to.put(key, value);
+        } else if (value instanceof Map) {
+            Object existing = to.get(key);
+            Map<String, Object> child = existing instanceof Map ? (Map<String, Object>) existing : new HashMap<String, Object>();
+            projectField((Map<String, Object>) value, child, path, index + 1);
+            to.put(key, child);
+        } else if (value instanceof List) {
+            // Each object in the list is projected, anything else in the list is dropped
+            Object existing = to.get(key);
+            List<Object> children = existing instanceof List ? (List<Object>) existing : null;
+            List<Object> projectedList = new ArrayList<>();
+            int childIndex = 0;
+            for (Object element : (List<Object>) value) {
+                if (element instanceof Map) {
+                    Map<String, Object> child = children == null ? new HashMap<String, Object>() : (Map<String, Object>) children.get(childIndex);
+                    projectField((Map<String, Object>) element, child, path, index + 1);
+                    projectedList.add(child);
+                    childIndex++;
+                }
+            }
+            to.put(key, projectedList);
+        }
+    }
+
+    /**
+     * Returns the wlpInformation object of this asset *without* copying it, or null if the asset
+     * doesn't have one.
+     */
+    public Map<String, Object> getWlpInformation() {
+        Object wlpInformation = properties.get(WLP_INFORMATION);
+        if (wlpInformation instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> wlpInfoMap = (Map<String, Object>) wlpInformation;
+            return wlpInfoMap;
+        }
+        return null;
+    }
+
     /**
      * State should normally be updated using the <code>updateState</code> method which enforces
      * life-cycle state transition rules.
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.model;
+
+import java.util.Date;
+
+/**
+ * An entry in the change log, recording the most recent change to an asset.
+ * <p>
+ * Only the latest change to each asset is kept, as clients of the change feed only need to know
+ * which assets to fetch again. Deleted assets are kept as tombstones until the retention window
+ * has passed.
+ */
+public class AssetChange {
+
+    public enum Type {
+        CREATED("created"),
+        UPDATED("updated"),
+        DELETED("deleted");
+
+        private final String value;
+
+        private Type(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Type forValue(String value) {
+            for (Type type : Type.values()) {
+                if (type.getValue().equals(value)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String assetId;
+    private final Type type;
+    private final long sequence;
+    private final boolean published;
+    private final boolean everPublished;
+    private final Date changedOn;
+
+    /**
+     * @param assetId the id of the asset which changed
+     * @param type what happened to the asset
+     * @param sequence the position of the change in the log
+     * @param published whether the asset was published after the change
+     * @param everPublished whether the asset has been published at any time since it was created
+     * @param changedOn when the change happened
+     */
+    public AssetChange(String assetId, Type type, long sequence, boolean published, boolean everPublished, Date changedOn) {
+        this.assetId = assetId;
+        this.type = type;
+        this.sequence = sequence;
+        this.published = published;
+        this.everPublished = everPublished;
+        this.changedOn = changedOn;
+    }
+
+    public String getAssetId() {
+        return assetId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isPublished() {
+        return published;
+    }
+
+    public boolean isEverPublished() {
+        return everPublished;
+    }
+
+    public Date getChangedOn() {
+        return changedOn;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "AssetChange [assetId=" + assetId + ", type=" + type + ", sequence=" + sequence + ", published=" + published + ", everPublished="
+               + everPublished + ", changedOn=" + changedOn + "]";
+    }
+}
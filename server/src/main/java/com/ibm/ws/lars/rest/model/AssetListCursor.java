@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An {@link AssetCursor} over a collection of assets which have already been retrieved.
+ * <p>
+ * Used when the server has to do some work on the results before returning them, so they can still
+ * be written out by the same message body writer as results which come straight from the database.
+ */
+public class AssetListCursor implements AssetCursor {
+
+    private final int size;
+    private final Iterator<Asset> iterator;
+    private final List<AssetOperation> operations = new ArrayList<>();
+
+    public AssetListCursor(Collection<Asset> assets) {
+        this.size = assets.size();
+        this.iterator = assets.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    @Override
+    public Asset next() {
+        Asset next = iterator.next();
+        for (AssetOperation op : operations) {
+            op.perform(next);
+        }
+        return next;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void addOperation(AssetOperation op) {
+        operations.add(op);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+}
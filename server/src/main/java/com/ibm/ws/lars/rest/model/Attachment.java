@@ -86,6 +86,7 @@ public class Attachment extends RepositoryObject {
     public static final String UPLOAD_ON = "uploadOn";
     public static final String URL = "url";
     public static final String LINK_TYPE = "linkType";
+    public static final String SHA256 = "sha256";
 
     public static Attachment jsonToAttachment(String json) throws InvalidJsonAssetException {
         return new Attachment(readJsonState(json));
@@ -139,6 +140,17 @@ public class Attachment extends RepositoryObject {
         put(SIZE, size);
     }
 
+    /**
+     * @param sha256 the hex SHA-256 hash of the attachment content
+     */
+    public void setSha256(String sha256) {
+        put(SHA256, sha256);
+    }
+
+    public String getSha256() {
+        return get(SHA256);
+    }
+
     public long getSize() {
         Object size = get(SIZE);
         if (size instanceof Integer) {
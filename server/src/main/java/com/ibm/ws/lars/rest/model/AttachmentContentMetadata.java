@@ -22,9 +22,16 @@ package com.ibm.ws.lars.rest.model;
 public class AttachmentContentMetadata {
     public String filename;
     public long length;
+    /** The hex SHA-256 hash of the content, or null if it wasn't computed */
+    public String sha256;
 
     public AttachmentContentMetadata(String filename, long length) {
+        this(filename, length, null);
+    }
+
+    public AttachmentContentMetadata(String filename, long length, String sha256) {
         this.filename = filename;
         this.length = length;
+        this.sha256 = sha256;
     }
 }
@@ -17,6 +17,9 @@
 package com.ibm.ws.lars.rest.model;
 
 import java.io.InputStream;
+import java.util.Date;
+
+import com.ibm.ws.lars.rest.ByteRange;
 
 /**
  *
@@ -24,10 +27,52 @@ import java.io.InputStream;
 public class AttachmentContentResponse implements AutoCloseable {
     private final InputStream contentStream;
     private final String contentType;
+    private final String entityTag;
+    private final Date lastModified;
+    private final long length;
+    private final ByteRange range;
+    private final String sha256;
 
     public AttachmentContentResponse(InputStream contentStream, String contentType) {
+        this(contentStream, contentType, null, null);
+    }
+
+    public AttachmentContentResponse(InputStream contentStream, String contentType, String entityTag, Date lastModified) {
+        this(contentStream, contentType, entityTag, lastModified, -1, null);
+    }
+
+    /**
+     * @param contentStream the content
+     * @param contentType the MIME type of the content
+     * @param entityTag a value which changes whenever the content changes, or null if not known
+     * @param lastModified the time the content was stored, or null if not known
+     * @param length the length of the whole content, or -1 if not known
+     * @param range the part of the content which <code>contentStream</code> starts at, or null if
+     *            it starts at the beginning
+     */
+    public AttachmentContentResponse(InputStream contentStream, String contentType, String entityTag, Date lastModified, long length, ByteRange range) {
+        this(contentStream, contentType, entityTag, lastModified, length, range, null);
+    }
+
+    /**
+     * @param contentStream the content
+     * @param contentType the MIME type of the content
+     * @param entityTag a value which changes whenever the content changes, or null if not known
+     * @param lastModified the time the content was stored, or null if not known
+     * @param length the length of the whole content, or -1 if not known
+     * @param range the part of the content which <code>contentStream</code> starts at, or null if
+     *            it starts at the beginning
+     * @param sha256 the hex SHA-256 hash of the whole content, or null if not known
+     */
+    public AttachmentContentResponse(InputStream contentStream, String contentType, String entityTag, Date lastModified, long length, ByteRange range,
+                                     String sha256) {
         this.contentStream = contentStream;
         this.contentType = contentType;
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.range = range;
+        this.sha256 = sha256;
     }
 
     public InputStream getContentStream() {
@@ -38,6 +83,36 @@ public class AttachmentContentResponse implements AutoCloseable {
         return contentType;
     }
 
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the length of the whole content, or -1 if not known
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the resolved range the content stream starts at, or null if it contains the whole
+     *         content. The stream may carry on past the end of the range.
+     */
+    public ByteRange getRange() {
+        return range;
+    }
+
+    /**
+     * @return the hex SHA-256 hash of the whole content, or null if not known
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() throws Exception {
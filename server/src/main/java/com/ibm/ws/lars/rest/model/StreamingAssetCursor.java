@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * An {@link AssetCursor} which can write each asset straight out as JSON, without having to create
+ * an {@link Asset} for it first.
+ */
+public interface StreamingAssetCursor extends AssetCursor {
+
+    /**
+     * Write the next asset to a JSON generator, as a JSON object
+     * <p>
+     * The asset written is the same as the one which would have been returned from
+     * {@link #next()}, including the effect of any {@link AssetOperation}s added to the cursor.
+     *
+     * @param generator the generator to write to
+     * @throws IOException if there is a problem writing to the generator
+     */
+    public void writeNext(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.ibm.ws.lars.rest.AssetFilter;
+import com.ibm.ws.lars.rest.Condition;
+import com.ibm.ws.lars.rest.Condition.Operation;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+/**
+ * Compiles asset filters and a search term into a MongoDB query.
+ * <p>
+ * Each filter is turned into the simplest predicate on its field which MongoDB can plan as an
+ * index seek:
+ * <ul>
+ * <li>A single value is matched directly, <code>{field: value}</code></li>
+ * <li>Several values are matched with <code>{field: {$in: [values]}}</code></li>
+ * <li>Several negated values are matched with <code>{field: {$nin: [values]}}</code></li>
+ * <li>Range conditions are added to the same predicate, e.g.
+ * <code>{field: {$in: [values], $gte: low, $lt: high}}</code></li>
+ * </ul>
+ * A filter which mixes negated and other values is still matched with an <code>$or</code>, as it
+ * can't be expressed as a single predicate.
+ */
+class FilterCompiler {
+
+    private static final Pattern INTEGER = Pattern.compile("-?[0-9]{1,18}");
+    private static final Pattern DECIMAL = Pattern.compile("-?[0-9]+\\.[0-9]+");
+
+    private FilterCompiler() {
+        // Static methods only
+    }
+
+    /**
+     * Create a filter object for a mongodb query from a list of filters and a search term
+     *
+     * @param filters the filters
+     * @param searchTerm the search term
+     * @return a filter object which can be passed as a query to mongodb find()
+     */
+    static BasicDBObject compile(Collection<AssetFilter> filters, String searchTerm) {
+
+        // Must return an empty object if there are no filters or search term
+        if ((filters == null || filters.isEmpty()) && searchTerm == null) {
+            return new BasicDBObject();
+        }
+
+        // Need to use a filterList and an $and operator because we may add multiple $or sections
+        // which would overwrite each other if we just appended them to the filterObject
+        BasicDBList filterList = new BasicDBList();
+        BasicDBObject filterObject = new BasicDBObject("$and", filterList);
+
+        if (filters != null) {
+            for (AssetFilter filter : filters) {
+                filterList.addAll(compile(filter));
+            }
+        }
+
+        if (searchTerm != null) {
+            BasicDBObject value = new BasicDBObject("$search", searchTerm);
+            BasicDBObject searchObject = new BasicDBObject("$text", value);
+            filterList.add(searchObject);
+        }
+
+        return filterObject;
+    }
+
+    /**
+     * Compiles a single filter
+     *
+     * @return the predicates which must all match
+     */
+    private static List<BasicDBObject> compile(AssetFilter filter) {
+        String field = filter.getKey();
+        List<Object> equal = new ArrayList<>();
+        List<Object> notEqual = new ArrayList<>();
+        BasicDBObject range = new BasicDBObject();
+
+        for (Condition condition : filter.getConditions()) {
+            switch (condition.getOperation()) {
+                case EQUALS:
+                    equal.add(condition.getValue());
+                    break;
+                case NOT_EQUALS:
+                    notEqual.add(condition.getValue());
+                    break;
+                default:
+                    range.put(getRangeOperator(condition.getOperation()), getRangeValue(condition.getValue()));
+                    break;
+            }
+        }
+
+        List<BasicDBObject> result = new ArrayList<>();
+        if (!equal.isEmpty() && !notEqual.isEmpty()) {
+            // Any of the conditions can match, which is neither $in nor $nin
+            BasicDBList or = new BasicDBList();
+            for (Object value : notEqual) {
+                or.add(new BasicDBObject(field, new BasicDBObject("$ne", value)));
+            }
+            for (Object value : equal) {
+                or.add(new BasicDBObject(field, value));
+            }
+            result.add(new BasicDBObject("$or", or));
+            if (!range.isEmpty()) {
+                result.add(new BasicDBObject(field, range));
+            }
+            return result;
+        }
+
+        BasicDBObject predicate = new BasicDBObject();
+        if (equal.size() == 1) {
+            if (range.isEmpty()) {
+                result.add(new BasicDBObject(field, equal.get(0)));
+                return result;
+            }
+            predicate.put("$eq", equal.get(0));
+        } else if (equal.size() > 1) {
+            predicate.put("$in", equal);
+        } else if (notEqual.size() == 1) {
+            predicate.put("$ne", notEqual.get(0));
+        } else if (notEqual.size() > 1) {
+            predicate.put("$nin", notEqual);
+        }
+        predicate.putAll(range.toMap());
+
+        if (!predicate.isEmpty()) {
+            result.add(new BasicDBObject(field, predicate));
+        }
+        return result;
+    }
+
+    private static String getRangeOperator(Operation operation) {
+        switch (operation) {
+            case GREATER_THAN:
+                return "$gt";
+            case GREATER_THAN_OR_EQUAL:
+                return "$gte";
+            case LESS_THAN:
+                return "$lt";
+            case LESS_THAN_OR_EQUAL:
+                return "$lte";
+            default:
+                throw new IllegalArgumentException("Not a range operation: " + operation);
+        }
+    }
+
+    /**
+     * MongoDB only compares values of the same type, so a value which looks like a number is
+     * compared as a number
+     */
+    private static Object getRangeValue(String value) {
+        if (INTEGER.matcher(value).matches()) {
+            return Long.valueOf(value);
+        }
+        if (DECIMAL.matcher(value).matches()) {
+            return Double.valueOf(value);
+        }
+        return value;
+    }
+}
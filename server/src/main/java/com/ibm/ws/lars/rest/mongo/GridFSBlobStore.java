@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.io.InputStream;
+
+import org.bson.types.ObjectId;
+
+import com.ibm.ws.lars.rest.BlobStore;
+import com.ibm.ws.lars.rest.ByteRange;
+import com.ibm.ws.lars.rest.HashingInputStream;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.gridfs.GridFS;
+import com.mongodb.gridfs.GridFSDBFile;
+import com.mongodb.gridfs.GridFSInputFile;
+
+/**
+ * Keeps attachment content in GridFS, in the same database as the metadata. Each piece of content
+ * is a GridFS file whose filename is a new ObjectId.
+ */
+class GridFSBlobStore implements BlobStore {
+
+    private final DB db;
+    private final GridFS gridFS;
+
+    GridFSBlobStore(DB db) {
+        this.db = db;
+        // Do not specify a bucket (so the data will be stored in fs.files and fs.chunks)
+        this.gridFS = new GridFS(db);
+    }
+
+    @Override
+    public AttachmentContentMetadata store(String contentType, InputStream content) {
+        HashingInputStream hashingStream = new HashingInputStream(content);
+
+        GridFSInputFile gfsFile = gridFS.createFile(hashingStream);
+        ObjectId id = new ObjectId();
+        gfsFile.setContentType(contentType);
+        gfsFile.setId(id);
+        String filename = id.toString();
+        gfsFile.setFilename(filename);
+        try {
+            gfsFile.save();
+        } catch (RuntimeException e) {
+            // The chunks are written as the content is read, so remove any that were written
+            // before reading the content failed
+            db.getCollection(gridFS.getBucketName() + ".chunks").remove(new BasicDBObject("files_id", id));
+            throw e;
+        }
+
+        return new AttachmentContentMetadata(gfsFile.getFilename(), gfsFile.getLength(), hashingStream.getSha256());
+    }
+
+    /**
+     * Only the chunks from the start of the range onwards are read from the database.
+     */
+    @Override
+    public AttachmentContentResponse retrieve(String id, ByteRange range) throws NonExistentArtefactException {
+        GridFSDBFile file = gridFS.findOne(id);
+
+        if (file != null) {
+            long length = file.getLength();
+            ByteRange resolved = range == null ? null : range.resolve(length);
+
+            InputStream contentStream;
+            if (resolved != null && resolved.getFirst() > 0) {
+                DBCollection chunks = db.getCollection(gridFS.getBucketName() + ".chunks");
+                contentStream = new GridFSRangeInputStream(chunks, file.getId(), file.getChunkSize(), resolved.getFirst());
+            } else {
+                contentStream = file.getInputStream();
+            }
+            String contentType = file.getContentType();
+
+            // GridFS files are never modified, so the id will do if there's no MD5
+            @SuppressWarnings("deprecation")
+            String md5 = file.getMD5();
+            String entityTag = md5 != null ? md5 : id;
+
+            return new AttachmentContentResponse(contentStream, contentType, entityTag, file.getUploadDate(), length, resolved);
+        } else {
+            throw new NonExistentArtefactException();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        gridFS.remove(id);
+    }
+}
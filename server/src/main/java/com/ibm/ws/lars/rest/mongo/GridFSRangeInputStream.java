@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+/**
+ * Reads a GridFS file starting part way through.
+ * <p>
+ * The driver's own GridFS input stream always starts from the first chunk and has to read every
+ * chunk up to the offset in order to skip. This stream works out which chunk holds the offset and
+ * queries the chunks collection from there, so only the chunks actually needed are fetched.
+ */
+class GridFSRangeInputStream extends InputStream {
+
+    private static final String FILES_ID = "files_id";
+    private static final String N = "n";
+    private static final String DATA = "data";
+
+    private final DBCursor cursor;
+    private int expectedChunk;
+    private int skipInFirstChunk;
+    private byte[] chunk = null;
+    private int position = 0;
+
+    /**
+     * @param chunks the chunks collection of the GridFS bucket
+     * @param fileId the id of the file
+     * @param chunkSize the chunk size of the file
+     * @param offset the offset within the file to start reading from
+     */
+    GridFSRangeInputStream(DBCollection chunks, Object fileId, long chunkSize, long offset) {
+        this.expectedChunk = (int) (offset / chunkSize);
+        this.skipInFirstChunk = (int) (offset % chunkSize);
+
+        DBObject query = new BasicDBObject(FILES_ID, fileId).append(N, new BasicDBObject("$gte", expectedChunk));
+        this.cursor = chunks.find(query).sort(new BasicDBObject(N, 1));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return chunk == null ? 0 : chunk.length - position;
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
+    /**
+     * Make sure there is unread data in the current chunk, fetching the next chunk if necessary
+     *
+     * @return false if the end of the file has been reached
+     */
+    private boolean ensureData() throws IOException {
+        while (chunk == null || position >= chunk.length) {
+            if (!cursor.hasNext()) {
+                return false;
+            }
+
+            DBObject next = cursor.next();
+            Object n = next.get(N);
+            if (!(n instanceof Number) || ((Number) n).intValue() != expectedChunk) {
+                throw new IOException("GridFS chunk " + expectedChunk + " is missing, found " + n);
+            }
+            expectedChunk++;
+
+            chunk = (byte[]) next.get(DATA);
+            position = skipInFirstChunk;
+            skipInFirstChunk = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.ws.lars.rest.QueryShape;
+import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * Creates indexes on the assets collection for the fields that queries filter on.
+ * <p>
+ * A default set of indexes, covering the filters used by the repository client library, is always
+ * created. Further compound indexes can be listed in the <code>lars.indexes</code> system
+ * property, as a semicolon separated list of comma separated field names, e.g.
+ * <code>type,wlpInformation.shortName;wlpInformation.provideFeature</code>. These are created at
+ * startup.
+ * <p>
+ * If the <code>lars.indexes.auto</code> system property is true, an index is also created for any
+ * query shape which has been slow <code>lars.indexes.autoThreshold</code> times (default 50). The
+ * index starts with the filter keys of the shape, followed by its sort field. MongoDB can't index
+ * two lists in the same compound index, so an index isn't created if any existing asset has lists
+ * in more than one of the fields. An asset added later with lists in more than one of the fields
+ * would be rejected, which is why this is not enabled by default. The checks and the index creation
+ * run on a background thread, and if creating the index fails it is tried again after the next slow
+ * query with the same shape.
+ * <p>
+ * All indexes are built in the background.
+ */
+class IndexProvisioner {
+
+    private static final Logger logger = Logger.getLogger(IndexProvisioner.class.getCanonicalName());
+
+    static final String INDEXES_PROPERTY = "lars.indexes";
+    static final String AUTO_PROPERTY = "lars.indexes.auto";
+    static final String AUTO_THRESHOLD_PROPERTY = "lars.indexes.autoThreshold";
+
+    private static final long DEFAULT_AUTO_THRESHOLD = 50;
+
+    /** Indexes with more fields than this are not created automatically */
+    private static final int MAX_AUTO_FIELDS = 4;
+
+    private static final String ID = "_id";
+
+    /**
+     * Indexes for the filters the client library uses. Users who aren't administrators always
+     * filter on state as well, and it is usually combined with type. The lastUpdatedOn index lets
+     * clients find the assets changed since a given time with a range filter.
+     */
+    static final List<DBObject> DEFAULT_INDEXES = Arrays.<DBObject> asList(new BasicDBObject("state", 1).append("type", 1),
+                                                                           new BasicDBObject("wlpInformation.provideFeature", 1),
+                                                                           new BasicDBObject("wlpInformation.appliesToFilterInfo.productId", 1),
+                                                                           new BasicDBObject("wlpInformation.visibility", 1),
+                                                                           new BasicDBObject("wlpInformation.shortName", 1),
+                                                                           new BasicDBObject("wlpInformation.lowerCaseShortName", 1),
+                                                                           new BasicDBObject("wlpInformation.vanityRelativeURL", 1),
+                                                                           new BasicDBObject("lastUpdatedOn", 1));
+
+    private final List<DBObject> configuredIndexes;
+    private final boolean auto;
+    private final long autoThreshold;
+
+    /** Runs the checks and creates the indexes for slow queries, away from the request threads */
+    private final Executor executor;
+
+    /**
+     * The keys of the indexes which have been created, are being created, or have been decided
+     * against. An index which couldn't be created is removed so it is tried again.
+     */
+    private final Set<DBObject> attempted = new HashSet<>();
+
+    IndexProvisioner() {
+        this(System.getProperty(INDEXES_PROPERTY), Boolean.getBoolean(AUTO_PROPERTY), Long.getLong(AUTO_THRESHOLD_PROPERTY, DEFAULT_AUTO_THRESHOLD),
+             createExecutor());
+    }
+
+    /**
+     * @param executor runs the work for slow queries
+     */
+    IndexProvisioner(String configuredIndexes, boolean auto, long autoThreshold, Executor executor) {
+        this.configuredIndexes = parseIndexes(configuredIndexes);
+        this.auto = auto;
+        this.autoThreshold = autoThreshold;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor with a single daemon thread, which goes away when it has been idle for a
+     * while, since slow queries which need a new index should be rare
+     */
+    private static Executor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LARS index provisioner");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Parses the value of the <code>lars.indexes</code> property
+     */
+    static List<DBObject> parseIndexes(String property) {
+        List<DBObject> result = new ArrayList<>();
+        if (property == null) {
+            return result;
+        }
+        for (String index : property.split(";")) {
+            BasicDBObject keys = new BasicDBObject();
+            for (String field : index.split(",")) {
+                if (!field.trim().isEmpty()) {
+                    keys.put(field.trim(), 1);
+                }
+            }
+            if (!keys.isEmpty()) {
+                result.add(keys);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the default and configured indexes, called at startup
+     */
+    void createIndexes(DBCollection assets) {
+        for (DBObject keys : DEFAULT_INDEXES) {
+            createIndex(assets, keys);
+        }
+        for (DBObject keys : configuredIndexes) {
+            createIndex(assets, keys);
+        }
+    }
+
+    /**
+     * Called after a query with the given shape was slow. Any index is created on the background
+     * thread.
+     *
+     * @param assets the assets collection
+     * @param shape the shape of the query
+     * @param slowCount the number of slow queries with this shape so far
+     */
+    void slowQuery(final DBCollection assets, final QueryShape shape, final long slowCount) {
+        if (!auto || slowCount < autoThreshold || shape.isSearch()) {
+            // Search queries use the text index
+            return;
+        }
+
+        final DBObject keys = createKeys(shape);
+        if (keys == null) {
+            return;
+        }
+        synchronized (this) {
+            if (!attempted.add(keys)) {
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean done = false;
+                try {
+                    done = provision(assets, keys, shape, slowCount);
+                } finally {
+                    if (!done) {
+                        synchronized (IndexProvisioner.this) {
+                            attempted.remove(keys);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates the index for a slow query shape, unless there is no need or it can't be done
+     *
+     * @return false if creating the index failed, so it should be tried again
+     */
+    private boolean provision(DBCollection assets, DBObject keys, QueryShape shape, long slowCount) {
+        if (isIndexed(assets, keys)) {
+            return true;
+        }
+        if (hasParallelLists(assets, keys)) {
+            logger.info("IndexProvisioner: not creating index " + keys + " because some assets have lists in more than one of its fields");
+            return true;
+        }
+        logger.info("IndexProvisioner: creating index " + keys + " after " + slowCount + " slow queries with shape: " + shape);
+        return createIndex(assets, keys);
+    }
+
+    /**
+     * Creates the index keys for a query shape, or returns null if it doesn't need one
+     */
+    static DBObject createKeys(QueryShape shape) {
+        BasicDBObject keys = new BasicDBObject();
+        for (String key : shape.getFilterKeys()) {
+            keys.put(key, 1);
+        }
+        if (shape.getSortOptions() != null && !keys.containsField(shape.getSortOptions().getField())) {
+            keys.put(shape.getSortOptions().getField(), shape.getSortOptions().getSortOrder() == SortOrder.DESCENDING ? -1 : 1);
+        }
+        keys.remove(ID);
+        if (keys.isEmpty() || keys.size() > MAX_AUTO_FIELDS) {
+            return null;
+        }
+        return keys;
+    }
+
+    /**
+     * Checks whether an existing index starts with the given keys, in any order
+     */
+    private static boolean isIndexed(DBCollection assets, DBObject keys) {
+        for (DBObject index : assets.getIndexInfo()) {
+            DBObject indexKeys = (DBObject) index.get("key");
+            List<String> prefix = new ArrayList<>(indexKeys.keySet()).subList(0, Math.min(indexKeys.keySet().size(), keys.keySet().size()));
+            if (new HashSet<>(prefix).equals(keys.keySet())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any asset has lists in the paths of two of the fields. A list anywhere in a
+     * field's path, e.g. <code>appliesToFilterInfo</code> in
+     * <code>wlpInformation.appliesToFilterInfo.productId</code>, makes the field multikey. A list
+     * in a parent path which both fields share only counts once, so it doesn't stop the index.
+     */
+    private static boolean hasParallelLists(DBCollection assets, DBObject keys) {
+        List<String> fields = new ArrayList<>(keys.keySet());
+        for (int i = 0; i < fields.size(); i++) {
+            for (int j = i + 1; j < fields.size(); j++) {
+                List<String> first = getPathPrefixes(fields.get(i));
+                List<String> second = getPathPrefixes(fields.get(j));
+                List<String> shared = new ArrayList<>(first);
+                shared.retainAll(second);
+                first.removeAll(shared);
+                second.removeAll(shared);
+                if (first.isEmpty() || second.isEmpty()) {
+                    // One field is inside the other, so they can't have separate lists
+                    continue;
+                }
+
+                BasicDBList both = new BasicDBList();
+                both.add(anyList(first));
+                both.add(anyList(second));
+                if (assets.findOne(new BasicDBObject("$and", both)) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the field and each of its parents, e.g. <code>a</code>, <code>a.b</code> and
+     *         <code>a.b.c</code> for <code>a.b.c</code>
+     */
+    static List<String> getPathPrefixes(String field) {
+        List<String> prefixes = new ArrayList<>();
+        int dot = -1;
+        while ((dot = field.indexOf('.', dot + 1)) != -1) {
+            prefixes.add(field.substring(0, dot));
+        }
+        prefixes.add(field);
+        return prefixes;
+    }
+
+    /**
+     * @return a filter matching documents which have a list in any of the paths
+     */
+    private static DBObject anyList(List<String> paths) {
+        BasicDBList or = new BasicDBList();
+        for (String path : paths) {
+            or.add(new BasicDBObject(path, new BasicDBObject("$type", "array")));
+        }
+        return or.size() == 1 ? (DBObject) or.get(0) : new BasicDBObject("$or", or);
+    }
+
+    /**
+     * @return true if the index was created, false if it failed
+     */
+    private static boolean createIndex(DBCollection assets, DBObject keys) {
+        try {
+            assets.createIndex(keys, new BasicDBObject("background", true));
+            return true;
+        } catch (MongoException e) {
+            // Don't stop the server, it will still work without the index
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "IndexProvisioner: unable to create index " + keys, e);
+            }
+            return false;
+        }
+    }
+}
@@ -15,24 +15,51 @@
  *******************************************************************************/
 package com.ibm.ws.lars.rest.mongo;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import org.bson.types.ObjectId;
+
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.AssetOperation;
+import com.ibm.ws.lars.rest.model.StreamingAssetCursor;
 import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 
 /**
  * An {@link AssetCursor} implementation which streams Assets from a Mongo {@link DBCursor}.
+ * <p>
+ * Documents are read from the database as raw BSON. If no operations have been added to the cursor,
+ * {@link #writeNext(JsonGenerator)} writes each document straight to the JSON output without
+ * creating an Asset for it.
+ * <p>
+ * The <code>_id</code> of each asset is always converted to a hex string.
  */
-public class MongoAssetCursor implements AssetCursor {
+public class MongoAssetCursor implements StreamingAssetCursor {
+
+    private static final String ID = "_id";
+    private static final String SCORE = "score";
 
     private final DBCursor cursor;
+    private final boolean removeScore;
     private final List<AssetOperation> operations = new ArrayList<>();
 
     public MongoAssetCursor(DBCursor cursor) {
+        this(cursor, false);
+    }
+
+    /**
+     * @param cursor the cursor to read from
+     * @param removeScore whether to remove the text search score from each asset
+     */
+    public MongoAssetCursor(DBCursor cursor, boolean removeScore) {
         this.cursor = cursor;
+        this.removeScore = removeScore;
+        cursor.setDecoderFactory(RawDBObject.FACTORY);
     }
 
     @Override
@@ -40,16 +67,49 @@ public class MongoAssetCursor implements AssetCursor {
         return cursor.hasNext();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Asset next() {
-        Asset next = Asset.createAssetFromMap(cursor.next().toMap());
+        Asset next = Asset.createAssetFromMap(toAssetMap(cursor.next()));
         for (AssetOperation op : operations) {
             op.perform(next);
         }
         return next;
     }
 
+    @Override
+    public void writeNext(JsonGenerator generator) throws IOException {
+        if (!operations.isEmpty()) {
+            // The operations need an Asset to work on
+            generator.writeObject(next());
+            return;
+        }
+
+        DBObject next = cursor.next();
+        if (next instanceof RawDBObject) {
+            ((RawDBObject) next).writeAsset(generator, removeScore);
+        } else {
+            generator.writeObject(toAssetMap(next));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toAssetMap(DBObject object) {
+        if (object instanceof RawDBObject) {
+            return ((RawDBObject) object).toAssetMap(removeScore);
+        }
+
+        // Only happens if the cursor has been given a different decoder
+        Map<String, Object> result = object.toMap();
+        Object id = result.get(ID);
+        if (id instanceof ObjectId) {
+            result.put(ID, ((ObjectId) id).toHexString());
+        }
+        if (removeScore) {
+            result.remove(SCORE);
+        }
+        return result;
+    }
+
     @Override
     public void remove() {
         throw new UnsupportedOperationException();
@@ -16,13 +16,20 @@
 
 package com.ibm.ws.lars.rest.mongo;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,31 +40,39 @@ import javax.inject.Inject;
 import org.bson.types.ObjectId;
 
 import com.ibm.ws.lars.rest.AssetFilter;
-import com.ibm.ws.lars.rest.Condition;
+import com.ibm.ws.lars.rest.BlobStore;
+import com.ibm.ws.lars.rest.ByteRange;
+import com.ibm.ws.lars.rest.FileBlobStore;
+import com.ibm.ws.lars.rest.PageToken;
 import com.ibm.ws.lars.rest.PaginationOptions;
 import com.ibm.ws.lars.rest.Persistor;
+import com.ibm.ws.lars.rest.QueryShape;
+import com.ibm.ws.lars.rest.QueryStatistics;
 import com.ibm.ws.lars.rest.RepositoryRESTResource;
 import com.ibm.ws.lars.rest.SortOptions;
 import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.exceptions.RepositoryException;
 import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
 import com.ibm.ws.lars.rest.model.AssetCursor;
-import com.ibm.ws.lars.rest.model.AssetOperation;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
 import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
 import com.ibm.ws.lars.rest.model.AttachmentList;
+import com.mongodb.AggregationOptions;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.Cursor;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
-import com.mongodb.gridfs.GridFS;
-import com.mongodb.gridfs.GridFSDBFile;
-import com.mongodb.gridfs.GridFSInputFile;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.MongoCommandException;
 
 /**
  * Bean through which supports CRUD operations. All accesses to the database should go through this
@@ -81,19 +96,89 @@ public class PersistenceBean implements Persistor {
 
     private static final String ATTACHMENTS_COLLECTION = "attachments";
 
+    /** Holds one entry for each asset which has changed, keyed by the asset id */
+    private static final String CHANGES_COLLECTION = "changes";
+
+    /** Holds the counters used to allocate sequence numbers */
+    private static final String COUNTERS_COLLECTION = "counters";
+
+    /** The id of the counter for the change log */
+    private static final String CHANGES_COUNTER = "changes";
+
+    private static final String CHANGE_SEQUENCE = "seq";
+    private static final String CHANGE_TYPE = "type";
+    private static final String CHANGE_PUBLISHED = "published";
+    private static final String CHANGE_EVER_PUBLISHED = "everPublished";
+    private static final String CHANGE_CHANGED_ON = "changedOn";
+    private static final String CHANGES_PURGED = "purged";
+
+    /**
+     * Holds the sequence numbers which have been allocated to changes that haven't been written to
+     * the change log yet, each with the time it was allocated
+     */
+    private static final String CHANGES_PENDING = "pending";
+    private static final String PENDING_STARTED = "started";
+
+    /**
+     * A change which is still pending after this long is assumed to belong to a writer which
+     * failed, and stops holding back the changes after it
+     */
+    static final long PENDING_CHANGE_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Holds one entry for each piece of attachment content, keyed by its SHA-256 hash, with the
+     * id of the content in the blob store and the number of attachments which refer to it
+     */
+    private static final String BLOBS_COLLECTION = "blobs";
+
+    private static final String BLOB_GRIDFS_ID = "gridFSId";
+    private static final String BLOB_REFS = "refs";
+
     private static final List<String> searchIndexFields = Arrays.asList(new String[] { "name", "description", "shortDescription", "tags" });
 
     /** The _id field of a MongoDB object */
     private static final String ID = "_id";
 
+    /** Queries which take at least this many milliseconds are counted as slow */
+    private static final String SLOW_QUERY_MILLIS_PROPERTY = "lars.queryStats.slowQueryMillis";
+
+    /** The maximum number of query shapes to record statistics for */
+    private static final String MAX_SHAPES_PROPERTY = "lars.queryStats.maxShapes";
+
+    private final QueryStatistics queryStatistics = new QueryStatistics(Integer.getInteger(MAX_SHAPES_PROPERTY, 1000),
+                                                                        TimeUnit.MILLISECONDS.toNanos(Long.getLong(SLOW_QUERY_MILLIS_PROPERTY, 100)));
+
+    private final IndexProvisioner indexProvisioner = new IndexProvisioner();
+
     @Inject
     private com.mongodb.DB db;
 
-    private GridFS gridFS;
+    /** Holds content stored before a blob store directory was configured, or all content if not */
+    private GridFSBlobStore gridFSBlobStore;
 
+    /** Holds new content if the blob store directory is set, otherwise null */
+    private FileBlobStore fileBlobStore;
+
+    /**
+     * Creates the blob stores which hold the attachment content
+     */
     @PostConstruct
     public void createGridFS() {
-        gridFS = new GridFS(db);
+        gridFSBlobStore = new GridFSBlobStore(db);
+        String directory = System.getProperty(FileBlobStore.DIRECTORY_PROPERTY);
+        if (directory != null && !directory.trim().isEmpty()) {
+            fileBlobStore = new FileBlobStore(new File(directory.trim()));
+        }
+    }
+
+    /**
+     * Returns the blob store which holds the content with the given id
+     */
+    private BlobStore getBlobStore(String id) {
+        if (fileBlobStore != null && FileBlobStore.isId(id)) {
+            return fileBlobStore;
+        }
+        return gridFSBlobStore;
     }
 
     private DBCollection getAssetCollection() {
@@ -104,6 +189,18 @@ public class PersistenceBean implements Persistor {
         return db.getCollection(ATTACHMENTS_COLLECTION);
     }
 
+    private DBCollection getChangeCollection() {
+        return db.getCollection(CHANGES_COLLECTION);
+    }
+
+    private DBCollection getCounterCollection() {
+        return db.getCollection(COUNTERS_COLLECTION);
+    }
+
+    private DBCollection getBlobCollection() {
+        return db.getCollection(BLOBS_COLLECTION);
+    }
+
     private DBObject makeQueryById(ObjectId id) {
         return new BasicDBObject(ID, id);
     }
@@ -117,25 +214,6 @@ public class PersistenceBean implements Persistor {
         }
     }
 
-    private static AssetOperation CONVERT_OID_TO_HEX = new AssetOperation() {
-        @Override
-        public void perform(Asset asset) {
-            Object objectIdObject = asset.getProperty(ID);
-            if ((objectIdObject != null) && (objectIdObject instanceof ObjectId)) {
-                ObjectId objId = (ObjectId) objectIdObject;
-                String hex = objId.toHexString();
-                asset.setProperty(ID, hex);
-            }
-        }
-    };
-
-    private static AssetOperation REMOVE_SCORE = new AssetOperation() {
-        @Override
-        public void perform(Asset asset) {
-            asset.getProperties().remove("score");
-        }
-    };
-
     private static void convertHexIdToObjectId(DBObject obj) {
         Object idObject = obj.get(ID);
         if ((idObject != null) && (idObject instanceof String)) {
@@ -146,32 +224,50 @@ public class PersistenceBean implements Persistor {
 
     @Override
     public AssetCursor retrieveAllAssets() {
+        QueryStatistics.Timer timer = queryStatistics.start(new QueryShape("find", null, null, null, null));
         DBCursor cursor = getAssetCollection().find();
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("retrieveAllAssets: found " + cursor.count() + " assets.");
         }
 
-        AssetCursor assetCursor = new MongoAssetCursor(cursor);
-        assetCursor.addOperation(CONVERT_OID_TO_HEX);
-
-        return assetCursor;
+        return timeFirstBatch(new MongoAssetCursor(cursor), timer);
     }
 
     /** {@inheritDoc} */
     @Override
     public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions) {
+        return retrieveAllAssets(filters, searchTerm, pagination, sortOptions, null);
+    }
 
-        if (filters.size() == 0 && searchTerm == null && pagination == null && sortOptions == null) {
+    /** {@inheritDoc} */
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions,
+                                         Collection<String> fields) {
+
+        if (filters.size() == 0 && searchTerm == null && pagination == null && sortOptions == null && fields == null) {
             return retrieveAllAssets();
         }
 
+        QueryShape shape = new QueryShape("find", filters, searchTerm, sortOptions, fields);
         BasicDBObject filterObject = createFilterObject(filters, searchTerm);
 
         DBObject sortObject = null;
-        DBObject projectionObject = null;
+        DBObject projectionObject = createProjectionObject(fields);
         boolean textScoreAdded = false;
 
-        if (sortOptions != null) {
+        if (pagination != null && pagination.usePageTokens()) {
+            // Sort by id as well, so that every asset has a unique position to start the next page from
+            String sortField = sortOptions == null ? ID : sortOptions.getField();
+            int sortOrder = sortOptions == null ? 1 : getMongoSortOrder(sortOptions.getSortOrder());
+            sortObject = new BasicDBObject(sortField, sortOrder);
+            if (!ID.equals(sortField)) {
+                sortObject.put(ID, sortOrder);
+            }
+            PageToken pageToken = pagination.getPageToken();
+            if (pageToken != null) {
+                filterObject = andFilter(filterObject, createAfterObject(sortField, sortOrder, pageToken));
+            }
+        } else if (sortOptions != null) {
             // If sort options are provided, use them to sort the results
             int sortOrder = getMongoSortOrder(sortOptions.getSortOrder());
             sortObject = new BasicDBObject(sortOptions.getField(), sortOrder);
@@ -179,32 +275,134 @@ public class PersistenceBean implements Persistor {
             // If no sort options are provided but there is a search term, sort on relevance to the search term
             if (searchTerm != null) {
                 sortObject = new BasicDBObject("score", new BasicDBObject("$meta", "textScore"));
-                projectionObject = sortObject;
+                if (projectionObject == null) {
+                    projectionObject = sortObject;
+                } else {
+                    projectionObject.put("score", sortObject.get("score"));
+                }
                 textScoreAdded = true;
             }
         }
 
-        AssetCursor results = query(filterObject, sortObject, projectionObject, pagination);
-
-        if (textScoreAdded) {
-            results.addOperation(REMOVE_SCORE);
-        }
-
-        return results;
+        return query(filterObject, sortObject, projectionObject, pagination, textScoreAdded, shape);
     }
 
     /** {@inheritDoc} */
     @Override
     public int countAllAssets(Collection<AssetFilter> filters, String searchTerm) {
-        BasicDBObject filterObject = createFilterObject(filters, searchTerm);
-        return queryCount(filterObject);
+        QueryStatistics.Timer timer = queryStatistics.start(new QueryShape("count", filters, searchTerm, null, null));
+        try {
+            BasicDBObject filterObject = createFilterObject(filters, searchTerm);
+            return queryCount(filterObject);
+        } finally {
+            recordQuery(timer);
+        }
     }
 
     /** {@inheritDoc} */
     @SuppressWarnings("unchecked")
     @Override
     public List<Object> getDistinctValues(String field, Collection<AssetFilter> filters, String searchTerm) {
-        return getAssetCollection().distinct(field, createFilterObject(filters, searchTerm));
+        QueryStatistics.Timer timer = queryStatistics.start(new QueryShape("distinct", filters, searchTerm, null, Collections.singleton(field)));
+        try {
+            return getAssetCollection().distinct(field, createFilterObject(filters, searchTerm));
+        } finally {
+            recordQuery(timer);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All of the fields are counted in a single aggregation, using a <code>$facet</code> stage with
+     * one pipeline per field. Servers older than MongoDB 3.4 don't support <code>$facet</code>, in
+     * which case each field is counted with its own aggregation instead.
+     */
+    @Override
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(Collection<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        QueryStatistics.Timer timer = queryStatistics.start(new QueryShape("summary", filters, searchTerm, null, fields));
+        try {
+            return aggregateValueCounts(fields, filters, searchTerm);
+        } finally {
+            recordQuery(timer);
+        }
+    }
+
+    private Map<String, Map<Object, Integer>> aggregateValueCounts(Collection<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        BasicDBObject matchObject = new BasicDBObject("$match", createFilterObject(filters, searchTerm));
+        List<String> fieldList = new ArrayList<>(fields);
+
+        // Facet names can't contain dots, so use the position of the field instead
+        BasicDBObject facets = new BasicDBObject();
+        for (int i = 0; i < fieldList.size(); i++) {
+            facets.put("f" + i, createValueCountPipeline(fieldList.get(i)));
+        }
+        List<DBObject> pipeline = Arrays.<DBObject> asList(matchObject, new BasicDBObject("$facet", facets));
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("getDistinctValueCounts: aggregating with pipeline " + pipeline);
+        }
+
+        Map<String, Map<Object, Integer>> result = new LinkedHashMap<>();
+        try (Cursor cursor = getAssetCollection().aggregate(pipeline, AggregationOptions.builder().build())) {
+            DBObject facetResults = cursor.hasNext() ? cursor.next() : new BasicDBObject();
+            for (int i = 0; i < fieldList.size(); i++) {
+                result.put(fieldList.get(i), readValueCounts((List<?>) facetResults.get("f" + i)));
+            }
+        } catch (MongoCommandException e) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("getDistinctValueCounts: $facet failed, counting each field separately: " + e.getMessage());
+            }
+            for (String field : fieldList) {
+                List<DBObject> fieldPipeline = new ArrayList<>();
+                fieldPipeline.add(matchObject);
+                fieldPipeline.addAll(createValueCountPipeline(field));
+                try (Cursor cursor = getAssetCollection().aggregate(fieldPipeline, AggregationOptions.builder().build())) {
+                    List<DBObject> counts = new ArrayList<>();
+                    while (cursor.hasNext()) {
+                        counts.add(cursor.next());
+                    }
+                    result.put(field, readValueCounts(counts));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the aggregation stages which count the assets with each value of a field.
+     * <p>
+     * Lists are unwound so that each of their values is counted, and the assets are grouped by id
+     * and value first so that an asset with a repeated value is only counted once.
+     * <p>
+     * A dotted path may pass through lists of sub-documents (e.g. <code>attachments.name</code>), so
+     * every prefix of the path is unwound in turn, not just the whole path. Unwinding a prefix which
+     * isn't a list leaves the document as it is.
+     */
+    private static List<DBObject> createValueCountPipeline(String field) {
+        String fieldRef = "$" + field;
+        List<DBObject> stages = new ArrayList<>();
+        int dot = field.indexOf('.');
+        while (dot != -1) {
+            stages.add(new BasicDBObject("$unwind", "$" + field.substring(0, dot)));
+            dot = field.indexOf('.', dot + 1);
+        }
+        stages.add(new BasicDBObject("$unwind", fieldRef));
+        stages.add(new BasicDBObject("$group", new BasicDBObject(ID, new BasicDBObject("asset", "$" + ID).append("value", fieldRef))));
+        stages.add(new BasicDBObject("$group", new BasicDBObject(ID, "$" + ID + ".value").append("count", new BasicDBObject("$sum", 1))));
+        stages.add(new BasicDBObject("$sort", new BasicDBObject(ID, 1)));
+        return stages;
+    }
+
+    private static Map<Object, Integer> readValueCounts(List<?> counts) {
+        Map<Object, Integer> result = new LinkedHashMap<>();
+        if (counts != null) {
+            for (Object count : counts) {
+                DBObject countObject = (DBObject) count;
+                result.put(countObject.get(ID), ((Number) countObject.get("count")).intValue());
+            }
+        }
+        return result;
     }
 
     /**
@@ -213,56 +411,91 @@ public class PersistenceBean implements Persistor {
      * @param filters the filter map
      * @param searchTerm the search term
      * @return a filter object which can be passed as a query to mongodb find()
+     * @see FilterCompiler
      */
     private BasicDBObject createFilterObject(Collection<AssetFilter> filters, String searchTerm) {
+        return FilterCompiler.compile(filters, searchTerm);
+    }
 
-        // Must return an empty object if there are no filters or search term
-        if ((filters == null || filters.isEmpty()) && searchTerm == null) {
-            return new BasicDBObject();
+    /**
+     * Create a projection object which returns only the given fields
+     *
+     * @param fields the fields, or null to return the whole document
+     * @return the projection object, or null if the whole document should be returned
+     */
+    private static DBObject createProjectionObject(Collection<String> fields) {
+        if (fields == null) {
+            return null;
         }
-
-        // Need to use a filterList and an $and operator because we may add multiple $or sections
-        // which would overwrite each other if we just appended them to the filterObject
-        BasicDBList filterList = new BasicDBList();
-        BasicDBObject filterObject = new BasicDBObject("$and", filterList);
-
-        for (AssetFilter filter : filters) {
-            List<Condition> conditions = filter.getConditions();
-            if (conditions.size() == 1) {
-                filterList.add(createFilterObject(filter.getKey(), conditions.get(0)));
-            } else {
-                BasicDBList list = new BasicDBList();
-                for (Condition condition : conditions) {
-                    list.add(createFilterObject(filter.getKey(), condition));
-                }
-                filterList.add(new BasicDBObject("$or", list));
-            }
+        // The id is returned anyway, but listing it makes sure an empty list doesn't return everything
+        BasicDBObject projectionObject = new BasicDBObject(ID, 1);
+        for (String field : fields) {
+            projectionObject.put(field, 1);
         }
+        return projectionObject;
+    }
 
-        if (searchTerm != null) {
-            BasicDBObject value = new BasicDBObject("$search", searchTerm);
-            BasicDBObject searchObject = new BasicDBObject("$text", value);
-            filterList.add(searchObject);
+    /**
+     * Creates a filter which matches the assets which sort after the last asset on the previous
+     * page.
+     * <p>
+     * Assets without the sort field sort before all the others, and have to be matched with an
+     * explicit null comparison as the range operators only compare values of the same type.
+     *
+     * @param sortField the field the assets are sorted by, which may be the id
+     * @param sortOrder 1 for ascending or -1 for descending
+     * @param pageToken the token for the previous page
+     * @return the filter object
+     */
+    private BasicDBObject createAfterObject(String sortField, int sortOrder, PageToken pageToken) {
+        ObjectId lastId = new ObjectId(pageToken.getLastId());
+        String after = sortOrder == 1 ? "$gt" : "$lt";
+        BasicDBObject idAfter = new BasicDBObject(ID, new BasicDBObject(after, lastId));
+        if (ID.equals(sortField)) {
+            return idAfter;
         }
 
-        return filterObject;
+        Object lastValue = pageToken.getLastValue();
+        BasicDBList or = new BasicDBList();
+        if (lastValue != null) {
+            or.add(new BasicDBObject(sortField, new BasicDBObject(after, lastValue)));
+            or.add(new BasicDBObject(sortField, lastValue).append(ID, idAfter.get(ID)));
+            if (sortOrder == -1) {
+                or.add(new BasicDBObject(sortField, null));
+            }
+        } else {
+            or.add(new BasicDBObject(sortField, null).append(ID, idAfter.get(ID)));
+            if (sortOrder == 1) {
+                or.add(new BasicDBObject(sortField, new BasicDBObject("$ne", null)));
+            }
+        }
+        return or.size() == 1 ? (BasicDBObject) or.get(0) : new BasicDBObject("$or", or);
     }
 
-    private BasicDBObject createFilterObject(String field, Condition condition) {
-        Object value = null;
-        switch (condition.getOperation()) {
-            case EQUALS:
-                value = condition.getValue();
-                break;
-            case NOT_EQUALS:
-                value = new BasicDBObject("$ne", condition.getValue());
-                break;
+    /**
+     * Combines a filter object with another condition which must also match
+     */
+    private static BasicDBObject andFilter(BasicDBObject filterObject, BasicDBObject condition) {
+        if (filterObject.isEmpty()) {
+            return condition;
         }
-
-        return new BasicDBObject(field, value);
+        BasicDBList list = new BasicDBList();
+        list.add(filterObject);
+        list.add(condition);
+        return new BasicDBObject("$and", list);
     }
 
     private AssetCursor query(DBObject filterObject, DBObject sortObject, DBObject projectionObject, PaginationOptions pagination) {
+        return query(filterObject, sortObject, projectionObject, pagination, false, null);
+    }
+
+    /**
+     * @param shape the shape of the query to record statistics for, or null if it shouldn't be
+     *            recorded
+     */
+    private AssetCursor query(DBObject filterObject, DBObject sortObject, DBObject projectionObject, PaginationOptions pagination, boolean removeScore,
+                              QueryShape shape) {
+        QueryStatistics.Timer timer = shape == null ? null : queryStatistics.start(shape);
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("query: Querying database with query object " + filterObject);
@@ -277,7 +510,9 @@ public class PersistenceBean implements Persistor {
         }
 
         if (pagination != null) {
-            cursor.skip(pagination.getOffset());
+            if (!pagination.usePageTokens()) {
+                cursor.skip(pagination.getOffset());
+            }
             cursor.limit(pagination.getLimit());
         }
 
@@ -285,9 +520,38 @@ public class PersistenceBean implements Persistor {
             cursor.sort(sortObject);
         }
 
-        AssetCursor result = new MongoAssetCursor(cursor);
-        result.addOperation(CONVERT_OID_TO_HEX);
+        MongoAssetCursor result = new MongoAssetCursor(cursor, removeScore);
+        return timer == null ? result : timeFirstBatch(result, timer);
+    }
+
+    /**
+     * Runs the query behind a cursor and records how long it took. MongoDB only runs the query when
+     * the cursor is first read from, so this fetches the first batch of results. The time taken to
+     * read the rest depends on how quickly the client reads the response, so isn't counted.
+     */
+    private MongoAssetCursor timeFirstBatch(MongoAssetCursor cursor, QueryStatistics.Timer timer) {
+        cursor.hasNext();
+        recordQuery(timer);
+        return cursor;
+    }
+
+    /**
+     * Stops a timer and, if its query shape has now been slow often enough, gives the index
+     * provisioner the chance to create an index for it.
+     */
+    private void recordQuery(QueryStatistics.Timer timer) {
+        long slowCount = timer.stop();
+        if (slowCount > 0) {
+            indexProvisioner.slowQuery(getAssetCollection(), timer.getShape(), slowCount);
+        }
+    }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Object> getQueryStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dropped", queryStatistics.getDropped());
+        result.put("shapes", queryStatistics.summarize());
         return result;
     }
 
@@ -317,6 +581,208 @@ public class PersistenceBean implements Persistor {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The sequence number is allocated before the change is written, so while a change is being
+     * written, readers don't see the changes after it. Otherwise a reader could move past a
+     * change which was about to be written with a lower sequence number than one it had seen.
+     */
+    @Override
+    public long recordAssetChange(String assetId, AssetChange.Type type, boolean published) {
+        long sequence = allocateChangeSequence();
+        try {
+            writeAssetChange(sequence, assetId, type, published);
+        } finally {
+            releaseChangeSequence(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Allocates the next sequence number in the change log and marks it as pending, which holds
+     * back the changes after it from readers until it is released.
+     * <p>
+     * Public so that tests can interleave writers; use {@link #recordAssetChange} instead.
+     *
+     * @return the new sequence number
+     */
+    public long allocateChangeSequence() {
+        DBCollection counters = getCounterCollection();
+        while (true) {
+            DBObject counter = counters.findOne(new BasicDBObject(ID, CHANGES_COUNTER));
+            Object current = counter == null ? null : counter.get(CHANGE_SEQUENCE);
+            long sequence = (current == null ? 0 : ((Number) current).longValue()) + 1;
+            BasicDBObject pending = new BasicDBObject(CHANGE_SEQUENCE, sequence).append(PENDING_STARTED, new Date());
+
+            if (counter == null) {
+                try {
+                    counters.insert(new BasicDBObject(ID, CHANGES_COUNTER).append(CHANGE_SEQUENCE, sequence)
+                                    .append(CHANGES_PENDING, Arrays.asList(pending)));
+                    return sequence;
+                } catch (DuplicateKeyException e) {
+                    // Another writer created the counter first
+                    continue;
+                }
+            }
+
+            // Only succeeds if no other writer has allocated a number since the counter was read
+            BasicDBObject query = new BasicDBObject(ID, CHANGES_COUNTER).append(CHANGE_SEQUENCE,
+                                                                                current == null ? new BasicDBObject("$exists", false) : current);
+            BasicDBObject update = new BasicDBObject("$set", new BasicDBObject(CHANGE_SEQUENCE, sequence))
+                            .append("$push", new BasicDBObject(CHANGES_PENDING, pending));
+            if (counters.update(query, update).getN() == 1) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Writes a change to the change log with a sequence number from
+     * {@link #allocateChangeSequence()}. If a later change to the same asset has already been
+     * written, this change is left out, as a reader which saw the later change has already seen
+     * its effect.
+     * <p>
+     * Public so that tests can interleave writers; use {@link #recordAssetChange} instead.
+     */
+    public void writeAssetChange(long sequence, String assetId, AssetChange.Type type, boolean published) {
+        BasicDBObject set = new BasicDBObject(CHANGE_SEQUENCE, sequence).append(CHANGE_TYPE, type.getValue())
+                        .append(CHANGE_PUBLISHED, published)
+                        .append(CHANGE_CHANGED_ON, new Date());
+        BasicDBObject update = new BasicDBObject("$set", set);
+        if (published) {
+            set.append(CHANGE_EVER_PUBLISHED, true);
+        } else {
+            update.append("$setOnInsert", new BasicDBObject(CHANGE_EVER_PUBLISHED, false));
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("writeAssetChange: recording change " + update + " to asset " + assetId);
+        }
+
+        BasicDBObject query = new BasicDBObject(ID, assetId).append(CHANGE_SEQUENCE, new BasicDBObject("$lt", sequence));
+        try {
+            getChangeCollection().update(query, update, true, false);
+        } catch (DuplicateKeyException e) {
+            // The entry for the asset already has a later change
+        }
+    }
+
+    /**
+     * Marks a sequence number from {@link #allocateChangeSequence()} as no longer pending, and
+     * removes any pending numbers which have timed out.
+     * <p>
+     * Public so that tests can interleave writers; use {@link #recordAssetChange} instead.
+     */
+    public void releaseChangeSequence(long sequence) {
+        BasicDBList released = new BasicDBList();
+        released.add(new BasicDBObject(CHANGE_SEQUENCE, sequence));
+        released.add(new BasicDBObject(PENDING_STARTED, new BasicDBObject("$lt", new Date(System.currentTimeMillis() - PENDING_CHANGE_TIMEOUT))));
+        getCounterCollection().update(new BasicDBObject(ID, CHANGES_COUNTER),
+                                      new BasicDBObject("$pull", new BasicDBObject(CHANGES_PENDING, new BasicDBObject("$or", released))));
+    }
+
+    /**
+     * Works out the highest sequence number below which every allocated change has been written
+     *
+     * @param counter the change log counter document, may be null
+     * @param now the current time
+     */
+    static long getCommittedSequence(DBObject counter, long now) {
+        if (counter == null || counter.get(CHANGE_SEQUENCE) == null) {
+            return 0;
+        }
+        long committed = ((Number) counter.get(CHANGE_SEQUENCE)).longValue();
+        Object pending = counter.get(CHANGES_PENDING);
+        if (pending instanceof List) {
+            for (Object entry : (List<?>) pending) {
+                DBObject pendingChange = (DBObject) entry;
+                Date started = (Date) pendingChange.get(PENDING_STARTED);
+                if (started != null && now - started.getTime() < PENDING_CHANGE_TIMEOUT) {
+                    committed = Math.min(committed, ((Number) pendingChange.get(CHANGE_SEQUENCE)).longValue() - 1);
+                }
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Changes after one which is still being written are left out.
+     */
+    @Override
+    public List<AssetChange> retrieveAssetChanges(long since, int limit) {
+        long committed = getLatestChangeSequence();
+        DBObject query = new BasicDBObject(CHANGE_SEQUENCE, new BasicDBObject("$gt", since).append("$lte", committed));
+        List<AssetChange> changes = new ArrayList<>();
+        try (DBCursor cursor = getChangeCollection().find(query).sort(new BasicDBObject(CHANGE_SEQUENCE, 1)).limit(limit)) {
+            for (DBObject obj : cursor) {
+                changes.add(new AssetChange((String) obj.get(ID),
+                                AssetChange.Type.forValue((String) obj.get(CHANGE_TYPE)),
+                                ((Number) obj.get(CHANGE_SEQUENCE)).longValue(),
+                                Boolean.TRUE.equals(obj.get(CHANGE_PUBLISHED)),
+                                Boolean.TRUE.equals(obj.get(CHANGE_EVER_PUBLISHED)),
+                                (Date) obj.get(CHANGE_CHANGED_ON)));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is the committed sequence number, so changes which are still being written are not
+     * included.
+     */
+    @Override
+    public long getLatestChangeSequence() {
+        return getCommittedSequence(getCounterCollection().findOne(new BasicDBObject(ID, CHANGES_COUNTER)), System.currentTimeMillis());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getPurgedChangeSequence() {
+        return getChangeCounter(CHANGES_PURGED);
+    }
+
+    private long getChangeCounter(String field) {
+        DBObject counter = getCounterCollection().findOne(new BasicDBObject(ID, CHANGES_COUNTER));
+        if (counter == null || counter.get(field) == null) {
+            return 0;
+        }
+        return ((Number) counter.get(field)).longValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long purgeAssetChanges(Date deletedBefore) {
+        BasicDBObject query = new BasicDBObject(CHANGE_TYPE, AssetChange.Type.DELETED.getValue())
+                        .append(CHANGE_CHANGED_ON, new BasicDBObject("$lt", deletedBefore));
+        DBObject newest = null;
+        try (DBCursor cursor = getChangeCollection().find(query).sort(new BasicDBObject(CHANGE_SEQUENCE, -1)).limit(1)) {
+            if (cursor.hasNext()) {
+                newest = cursor.next();
+            }
+        }
+        if (newest == null) {
+            return getPurgedChangeSequence();
+        }
+
+        // Move the purged sequence number first, so that a client can never miss a tombstone without
+        // being told to start again
+        long purged = ((Number) newest.get(CHANGE_SEQUENCE)).longValue();
+        getCounterCollection().update(new BasicDBObject(ID, CHANGES_COUNTER),
+                                      new BasicDBObject("$max", new BasicDBObject(CHANGES_PURGED, purged)), true, false);
+
+        query.append(CHANGE_SEQUENCE, new BasicDBObject("$lte", purged));
+        int removed = getChangeCollection().remove(query).getN();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("purgeAssetChanges: removed " + removed + " tombstones up to sequence " + purged);
+        }
+        return getPurgedChangeSequence();
+    }
+
     @Override
     public Asset retrieveAsset(String assetId) throws NonExistentArtefactException {
         return retrieveAsset(new ObjectId(assetId));
@@ -342,6 +808,32 @@ public class PersistenceBean implements Persistor {
         return Asset.createAssetFromMap(asset);
     }
 
+    @Override
+    public List<Asset> retrieveAssets(Collection<String> assetIds) {
+        BasicDBList objectIds = new BasicDBList();
+        for (String assetId : assetIds) {
+            if (ObjectId.isValid(assetId)) {
+                objectIds.add(new ObjectId(assetId));
+            }
+        }
+
+        List<Asset> results = new ArrayList<>();
+        if (objectIds.isEmpty()) {
+            return results;
+        }
+
+        BasicDBObject query = new BasicDBObject(ID, new BasicDBObject("$in", objectIds));
+        try (DBCursor cursor = getAssetCollection().find(query)) {
+            for (DBObject resultObj : cursor) {
+                convertObjectIdToHexString(resultObj);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> asset = resultObj.toMap();
+                results.add(Asset.createAssetFromMap(asset));
+            }
+        }
+        return results;
+    }
+
     @Override
     public Asset createAsset(Asset newAsset) throws InvalidJsonAssetException {
 
@@ -391,6 +883,38 @@ public class PersistenceBean implements Persistor {
         return retrieveAsset(objId);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void importAssets(List<Asset> assets) {
+        List<DBObject> objects = new ArrayList<>();
+        for (Asset asset : assets) {
+            objects.add(new BasicDBObject(asset.getProperties()));
+        }
+        replaceAll(getAssetCollection(), objects);
+    }
+
+    /**
+     * Replaces each object with the same id in the collection, or inserts it if there isn't one,
+     * in a single bulk write.
+     */
+    private static void replaceAll(DBCollection coll, List<DBObject> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        BulkWriteOperation bulk = coll.initializeUnorderedBulkOperation();
+        for (DBObject obj : objects) {
+            convertHexIdToObjectId(obj);
+            bulk.find(new BasicDBObject(ID, obj.get(ID))).upsert().replaceOne(obj);
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("replaceAll: writing " + objects.size() + " objects to " + coll.getName());
+        }
+
+        bulk.execute();
+    }
+
     /**
      * Delete the asset with the specified id.
      */
@@ -402,21 +926,51 @@ public class PersistenceBean implements Persistor {
     }
 
     /**
-     * @param attachmentContentStream
-     * @return
+     * Stores the content in the blob store, which computes its hash on the way. If content with the
+     * same hash is already stored, the new copy is deleted and the existing one is shared.
      */
     @Override
-    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) {
-        // Do not specify a bucket (so the data will be stored in fs.files and fs.chunks)
-        GridFSInputFile gfsFile = gridFS.createFile(attachmentContentStream);
-        ObjectId id = new ObjectId();
-        gfsFile.setContentType(contentType);
-        gfsFile.setId(id);
-        String filename = id.toString();
-        gfsFile.setFilename(filename);
-        gfsFile.save();
+    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) throws AssetPersistenceException {
+        BlobStore store = fileBlobStore != null ? fileBlobStore : gridFSBlobStore;
+        AttachmentContentMetadata stored;
+        try {
+            stored = store.store(contentType, attachmentContentStream);
+        } catch (IOException e) {
+            throw new AssetPersistenceException(e);
+        }
 
-        return new AttachmentContentMetadata(gfsFile.getFilename(), gfsFile.getLength());
+        String sharedId = addBlobReference(stored.sha256, stored.filename);
+        if (!sharedId.equals(stored.filename)) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("createAttachmentContent: sharing existing content " + sharedId + " with hash " + stored.sha256);
+            }
+            store.delete(stored.filename);
+        }
+
+        return new AttachmentContentMetadata(sharedId, stored.length, stored.sha256);
+    }
+
+    /**
+     * Adds a reference to the blob with the given hash, creating the blob with the given content
+     * id if there isn't one already.
+     *
+     * @return the id of the content in the blob store
+     */
+    private String addBlobReference(String sha256, String filename) {
+        DBCollection blobs = getBlobCollection();
+        while (true) {
+            DBObject blob = blobs.findAndModify(new BasicDBObject(ID, sha256), null, null, false,
+                                                new BasicDBObject("$inc", new BasicDBObject(BLOB_REFS, 1)), true, false);
+            if (blob != null) {
+                return (String) blob.get(BLOB_GRIDFS_ID);
+            }
+            try {
+                blobs.insert(new BasicDBObject(ID, sha256).append(BLOB_GRIDFS_ID, filename).append(BLOB_REFS, 1));
+                return filename;
+            } catch (DuplicateKeyException e) {
+                // The same content was stored concurrently, so go round again to share it
+            }
+        }
     }
 
     /**
@@ -449,6 +1003,16 @@ public class PersistenceBean implements Persistor {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void importAttachmentMetadata(List<Attachment> attachments) {
+        List<DBObject> objects = new ArrayList<>();
+        for (Attachment attachment : attachments) {
+            objects.add(new BasicDBObject(attachment.getProperties()));
+        }
+        replaceAll(getAttachmentCollection(), objects);
+    }
+
     @Override
     public Attachment retrieveAttachmentMetadata(String attachmentId) throws NonExistentArtefactException {
         BasicDBObject query = new BasicDBObject(ID, new ObjectId(attachmentId));
@@ -465,9 +1029,52 @@ public class PersistenceBean implements Persistor {
         return Attachment.createAttachmentFromMap(map);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Attachment> retrieveAttachmentsMetadata(Collection<String> attachmentIds) {
+        BasicDBList objectIds = new BasicDBList();
+        for (String attachmentId : attachmentIds) {
+            if (ObjectId.isValid(attachmentId)) {
+                objectIds.add(new ObjectId(attachmentId));
+            }
+        }
+
+        List<Attachment> results = new ArrayList<>();
+        if (objectIds.isEmpty()) {
+            return results;
+        }
+
+        BasicDBObject query = new BasicDBObject(ID, new BasicDBObject("$in", objectIds));
+        try (DBCursor cursor = getAttachmentCollection().find(query)) {
+            for (DBObject resultObj : cursor) {
+                convertObjectIdToHexString(resultObj);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> attachment = resultObj.toMap();
+                results.add(Attachment.createAttachmentFromMap(attachment));
+            }
+        }
+        return results;
+    }
+
     @Override
     public void deleteAttachmentContent(String gridFsId) {
-        gridFS.remove(gridFsId);
+        DBCollection blobs = getBlobCollection();
+        DBObject blob = blobs.findAndModify(new BasicDBObject(BLOB_GRIDFS_ID, gridFsId), null, null, false,
+                                            new BasicDBObject("$inc", new BasicDBObject(BLOB_REFS, -1)), true, false);
+        if (blob == null) {
+            // Content stored before it was shared isn't in the blobs collection
+            getBlobStore(gridFsId).delete(gridFsId);
+            return;
+        }
+        if (((Number) blob.get(BLOB_REFS)).longValue() > 0) {
+            return;
+        }
+
+        // Only remove the content if it hasn't been shared again since the count reached zero
+        BasicDBObject unreferenced = new BasicDBObject(ID, blob.get(ID)).append(BLOB_REFS, new BasicDBObject("$lte", 0));
+        if (blobs.remove(unreferenced).getN() > 0) {
+            getBlobStore(gridFsId).delete(gridFsId);
+        }
     }
 
     @Override
@@ -496,6 +1103,32 @@ public class PersistenceBean implements Persistor {
         return AttachmentList.createAttachmentListFromMaps(results);
     }
 
+    @Override
+    public Map<String, AttachmentList> findAttachmentsForAssets(Collection<String> assetIds) {
+        BasicDBObject query = new BasicDBObject("assetId", new BasicDBObject("$in", new ArrayList<>(assetIds)));
+        Map<String, List<Map<String, Object>>> resultsByAsset = new HashMap<>();
+        try (DBCursor cursor = getAttachmentCollection().find(query)) {
+            for (DBObject attachment : cursor) {
+                convertObjectIdToHexString(attachment);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> oneResult = attachment.toMap();
+                String assetId = (String) oneResult.get("assetId");
+                List<Map<String, Object>> results = resultsByAsset.get(assetId);
+                if (results == null) {
+                    results = new ArrayList<>();
+                    resultsByAsset.put(assetId, results);
+                }
+                results.add(oneResult);
+            }
+        }
+
+        Map<String, AttachmentList> lists = new HashMap<>();
+        for (Map.Entry<String, List<Map<String, Object>>> entry : resultsByAsset.entrySet()) {
+            lists.put(entry.getKey(), AttachmentList.createAttachmentListFromMaps(entry.getValue()));
+        }
+        return lists;
+    }
+
     /**
      * Returns an InputStream of the content of the attachment or null if the attachment does not
      * exist.
@@ -504,15 +1137,18 @@ public class PersistenceBean implements Persistor {
      */
     @Override
     public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException {
-        GridFSDBFile file = gridFS.findOne(gridFSId);
+        return retrieveAttachmentContent(gridFSId, null);
+    }
 
-        if (file != null) {
-            InputStream contentStream = file.getInputStream();
-            String contentType = file.getContentType();
-            return new AttachmentContentResponse(contentStream, contentType);
-        } else {
-            throw new NonExistentArtefactException();
-        }
+    /**
+     * Returns an InputStream of the content of the attachment, starting at the beginning of the
+     * range if the range can be satisfied, from whichever blob store holds it.
+     *
+     * @throws NonExistentArtefactException
+     */
+    @Override
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId, ByteRange range) throws NonExistentArtefactException {
+        return getBlobStore(gridFSId).retrieve(gridFSId, range);
     }
 
     /** {@inheritDoc} */
@@ -537,5 +1173,16 @@ public class PersistenceBean implements Persistor {
 
         // Add Attachment(assetId) index
         attachments.createIndex(new BasicDBObject("assetId", 1));
+
+        // Add indexes for the fields used in filters
+        indexProvisioner.createIndexes(assets);
+
+        // Add change log indexes, for reading the log in order and for finding old tombstones
+        DBCollection changes = db.getCollection(CHANGES_COLLECTION);
+        changes.createIndex(new BasicDBObject(CHANGE_SEQUENCE, 1));
+        changes.createIndex(new BasicDBObject(CHANGE_TYPE, 1).append(CHANGE_CHANGED_ON, 1));
+
+        // Add blob index, for finding the blob when its content is deleted
+        db.getCollection(BLOBS_COLLECTION).createIndex(new BasicDBObject(BLOB_GRIDFS_ID, 1));
     }
 }
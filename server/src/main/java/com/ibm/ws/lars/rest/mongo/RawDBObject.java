@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.LazyBSONCallback;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mongodb.DBCallback;
+import com.mongodb.DBCollection;
+import com.mongodb.DBDecoder;
+import com.mongodb.DBDecoderFactory;
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBDecoder;
+import com.mongodb.LazyDBObject;
+
+/**
+ * A document read from the database which is kept as the raw BSON bytes sent by the server.
+ * <p>
+ * Assets are usually only read so that they can be written straight back out as JSON. Keeping the
+ * raw bytes lets them be written to a {@link JsonGenerator} field by field, without building a map
+ * for every asset first. A map is only built if the caller asks for one.
+ * <p>
+ * Either way, the <code>_id</code> field of the document is returned as a hex string and the text
+ * search <code>score</code> field can be dropped.
+ */
+class RawDBObject extends LazyDBObject {
+
+    private static final String ID = "_id";
+    private static final String SCORE = "score";
+
+    private static final BsonValueCodec BSON_VALUE_CODEC = new BsonValueCodec();
+
+    /**
+     * Set on a DBCursor so that it returns RawDBObjects
+     */
+    static final DBDecoderFactory FACTORY = new DBDecoderFactory() {
+        @Override
+        public DBDecoder create() {
+            return new LazyDBDecoder() {
+                @Override
+                public DBCallback getDBCallback(DBCollection collection) {
+                    return new LazyDBCallback(collection) {
+                        @Override
+                        public Object createObject(byte[] bytes, int offset) {
+                            return new RawDBObject(bytes, offset, this);
+                        }
+                    };
+                }
+            };
+        }
+    };
+
+    RawDBObject(byte[] bytes, int offset, LazyBSONCallback callback) {
+        super(bytes, offset, callback);
+    }
+
+    private BsonReader createReader() {
+        ByteBuffer buffer = ByteBuffer.wrap(getBytes(), getOffset(), getBSONSize()).slice();
+        return new BsonBinaryReader(buffer);
+    }
+
+    /**
+     * Writes the document as a JSON object
+     *
+     * @param generator the generator to write to
+     * @param removeScore whether to leave out the text search score
+     * @throws IOException if there is a problem writing to the generator
+     */
+    void writeAsset(JsonGenerator generator, boolean removeScore) throws IOException {
+        try (BsonReader reader = createReader()) {
+            reader.readStartDocument();
+            generator.writeStartObject();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                if (removeScore && SCORE.equals(name)) {
+                    reader.skipValue();
+                } else if (ID.equals(name) && reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+                    generator.writeStringField(name, reader.readObjectId().toHexString());
+                } else {
+                    generator.writeFieldName(name);
+                    writeValue(reader, generator);
+                }
+            }
+            reader.readEndDocument();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads the document into a map, with the same types as a DBObject would have
+     *
+     * @param removeScore whether to leave out the text search score
+     * @return the document
+     */
+    Map<String, Object> toAssetMap(boolean removeScore) {
+        try (BsonReader reader = createReader()) {
+            Map<String, Object> result = readDocument(reader);
+            Object id = result.get(ID);
+            if (id instanceof ObjectId) {
+                result.put(ID, ((ObjectId) id).toHexString());
+            }
+            if (removeScore) {
+                result.remove(SCORE);
+            }
+            return result;
+        }
+    }
+
+    private static void writeValue(BsonReader reader, JsonGenerator generator) throws IOException {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                reader.readStartDocument();
+                generator.writeStartObject();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    generator.writeFieldName(reader.readName());
+                    writeValue(reader, generator);
+                }
+                reader.readEndDocument();
+                generator.writeEndObject();
+                break;
+            case ARRAY:
+                reader.readStartArray();
+                generator.writeStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    writeValue(reader, generator);
+                }
+                reader.readEndArray();
+                generator.writeEndArray();
+                break;
+            case STRING:
+                generator.writeString(reader.readString());
+                break;
+            case INT32:
+                generator.writeNumber(reader.readInt32());
+                break;
+            case INT64:
+                generator.writeNumber(reader.readInt64());
+                break;
+            case DOUBLE:
+                generator.writeNumber(reader.readDouble());
+                break;
+            case BOOLEAN:
+                generator.writeBoolean(reader.readBoolean());
+                break;
+            case NULL:
+                reader.readNull();
+                generator.writeNull();
+                break;
+            default:
+                // Not a JSON type, write whatever Jackson would write for the decoded value
+                generator.writeObject(readValue(reader));
+                break;
+        }
+    }
+
+    private static Map<String, Object> readDocument(BsonReader reader) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            result.put(name, readValue(reader));
+        }
+        reader.readEndDocument();
+        return result;
+    }
+
+    private static Object readValue(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                return readDocument(reader);
+            case ARRAY:
+                List<Object> list = new ArrayList<>();
+                reader.readStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    list.add(readValue(reader));
+                }
+                reader.readEndArray();
+                return list;
+            case STRING:
+                return reader.readString();
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                return reader.readDouble();
+            case BOOLEAN:
+                return reader.readBoolean();
+            case NULL:
+                reader.readNull();
+                return null;
+            case UNDEFINED:
+                reader.readUndefined();
+                return null;
+            case OBJECT_ID:
+                return reader.readObjectId();
+            case DATE_TIME:
+                return new Date(reader.readDateTime());
+            case DECIMAL128:
+                return reader.readDecimal128();
+            case BINARY:
+                byte subType = reader.peekBinarySubType();
+                byte[] data = reader.readBinaryData().getData();
+                if (subType == BsonBinarySubType.BINARY.getValue() || subType == BsonBinarySubType.OLD_BINARY.getValue()) {
+                    return data;
+                }
+                return new Binary(subType, data);
+            default:
+                // Assets are created from JSON, so other types should never be stored
+                return BSON_VALUE_CODEC.decode(reader, DecoderContext.builder().build());
+        }
+    }
+}
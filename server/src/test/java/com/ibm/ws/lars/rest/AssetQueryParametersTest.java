@@ -16,10 +16,17 @@
 package com.ibm.ws.lars.rest;
 
 import static com.ibm.ws.lars.rest.Condition.Operation.EQUALS;
+import static com.ibm.ws.lars.rest.Condition.Operation.GREATER_THAN;
+import static com.ibm.ws.lars.rest.Condition.Operation.GREATER_THAN_OR_EQUAL;
+import static com.ibm.ws.lars.rest.Condition.Operation.LESS_THAN;
+import static com.ibm.ws.lars.rest.Condition.Operation.LESS_THAN_OR_EQUAL;
 import static com.ibm.ws.lars.rest.Condition.Operation.NOT_EQUALS;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.util.ArrayList;
@@ -68,6 +75,33 @@ public class AssetQueryParametersTest {
         assertEquals(expected, params.getFilters());
     }
 
+    @Test
+    public void testGetRangeFilters() throws Exception {
+        // Note %3E == '>', %3C == '<' and %3D == '='
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test",
+                                           "/foobar?a%3E1&b%3E=2&c%3C3&c%3C=4&d=x%7Cy&d%3E%3D5&e%3Ef=g&lastUpdatedOn%3E2026-01-01T00:00:00Z");
+        AssetQueryParameters params = AssetQueryParameters.create(uriInfo);
+        List<AssetFilter> expected = new ArrayList<>();
+        expected.add(new AssetFilter("a", asList(new Condition(GREATER_THAN, "1"))));
+        expected.add(new AssetFilter("b", asList(new Condition(GREATER_THAN_OR_EQUAL, "2"))));
+        // Range conditions come after the equality conditions
+        expected.add(new AssetFilter("d", asList(new Condition(EQUALS, "x"), new Condition(EQUALS, "y"), new Condition(GREATER_THAN_OR_EQUAL, "5"))));
+        expected.add(new AssetFilter("e", asList(new Condition(GREATER_THAN, "f=g"))));
+        expected.add(new AssetFilter("lastUpdatedOn", asList(new Condition(GREATER_THAN, "2026-01-01T00:00:00Z"))));
+
+        // All the range conditions for a field are kept, in no particular order
+        List<AssetFilter> filters = new ArrayList<>(params.getFilters());
+        AssetFilter c = null;
+        for (AssetFilter filter : filters) {
+            if (filter.getKey().equals("c")) {
+                c = filter;
+            }
+        }
+        filters.remove(c);
+        assertThat(c.getConditions(), containsInAnyOrder(new Condition(LESS_THAN, "3"), new Condition(LESS_THAN_OR_EQUAL, "4")));
+        assertThat(filters, containsInAnyOrder(expected.toArray()));
+    }
+
     @Test
     public void testGetPagination() throws Exception {
         UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&offset=5");
@@ -102,6 +136,92 @@ public class AssetQueryParametersTest {
         AssetQueryParameters.create(uriInfo).getPagination();
     }
 
+    @Test
+    public void testGetPaginationPageToken() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&pageToken=");
+        AssetQueryParameters params = AssetQueryParameters.create(uriInfo);
+        assertEquals(PaginationOptions.afterPageToken(2, null), params.getPagination());
+
+        PageToken token = new PageToken(new SortOptions("foo", SortOrder.DESCENDING), "bar", "0123456789abcdef01234567");
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&sortBy=foo&sortOrder=DESC&pageToken=" + token.encode());
+        params = AssetQueryParameters.create(uriInfo);
+        assertEquals(PaginationOptions.afterPageToken(2, token), params.getPagination());
+
+        token = new PageToken(null, null, "0123456789abcdef01234567");
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&pageToken=" + token.encode());
+        params = AssetQueryParameters.create(uriInfo);
+        assertEquals(PaginationOptions.afterPageToken(2, token), params.getPagination());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetPaginationPageTokenWithOffset() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&offset=0&pageToken=");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetPaginationPageTokenNoLimit() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?pageToken=");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetPaginationPageTokenBadToken() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&pageToken=notatoken");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetPaginationPageTokenDifferentSort() throws Exception {
+        PageToken token = new PageToken(new SortOptions("foo", SortOrder.ASCENDING), "bar", "0123456789abcdef01234567");
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&sortBy=foo&sortOrder=DESC&pageToken=" + token.encode());
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetPaginationPageTokenSearchWithoutSort() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&q=foo&pageToken=");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test
+    public void testGetProjection() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?fields=name,%20wlpInformation.provideFeature,type");
+        assertEquals(asList("name", "type", "wlpInformation.provideFeature"), AssetQueryParameters.create(uriInfo).getProjection());
+
+        // Fields inside other fields are dropped
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?fields=wlpInformation.provideFeature,wlpInformation,wlpInformation-2,name,name");
+        assertEquals(asList("name", "wlpInformation", "wlpInformation-2"), AssetQueryParameters.create(uriInfo).getProjection());
+
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?name=foo");
+        assertNull(AssetQueryParameters.create(uriInfo).getProjection());
+    }
+
+    @Test
+    public void testAddToProjection() {
+        assertEquals(asList("name", "type"), AssetQueryParameters.addToProjection(asList("type"), "name"));
+
+        // Already included
+        assertEquals(asList("wlpInformation"), AssetQueryParameters.addToProjection(asList("wlpInformation"), "wlpInformation.displayPolicy"));
+        assertEquals(asList("name"), AssetQueryParameters.addToProjection(asList("name"), "name"));
+
+        // Replaces the fields inside it
+        assertEquals(asList("name", "wlpInformation"),
+                     AssetQueryParameters.addToProjection(asList("name", "wlpInformation.displayPolicy", "wlpInformation.visibility"), "wlpInformation"));
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetProjectionEmptyField() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?fields=name,,type");
+        AssetQueryParameters.create(uriInfo).getProjection();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetProjectionOperator() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?fields=$where");
+        AssetQueryParameters.create(uriInfo).getProjection();
+    }
+
     @Test
     public void testGetSortOptions() throws Exception {
         // Valid options for sortOrder are "ASC" and "DESC" case insensitive
@@ -160,4 +280,16 @@ public class AssetQueryParametersTest {
         assertEquals("a,b,c", params.getFields());
     }
 
+    @Test
+    public void testGetIncludeAttachments() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?name=foo&includeAttachments=true");
+        AssetQueryParameters params = AssetQueryParameters.create(uriInfo);
+        assertTrue(params.getIncludeAttachments());
+        assertEquals("includeAttachments should not be treated as a filter",
+                     asList(new AssetFilter("name", asList(new Condition(EQUALS, "foo")))), params.getFilters());
+
+        params = AssetQueryParameters.create(ALL_PARAMS_URI);
+        assertFalse(params.getIncludeAttachments());
+    }
+
 }
@@ -22,11 +22,20 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThrows;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.UriInfo;
 
@@ -41,7 +50,9 @@ import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.injection.AssetServiceLayerInjection;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.AssetListCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
 import com.ibm.ws.lars.rest.model.RepositoryObject;
 import com.ibm.ws.lars.rest.model.RepositoryResourceLifecycleException;
 import com.ibm.ws.lars.testutils.BasicChecks;
@@ -253,6 +264,10 @@ public class AssetServiceLayerTest {
         assertEquals("Attachment should have correct size", attachmentContent.length, returnedAttachment.getSize());
         returnedAttachment.getProperties().remove(Attachment.SIZE);
 
+        assertEquals("Attachment should have the hash of its content", HashingInputStream.toHex(MessageDigest.getInstance("SHA-256").digest(attachmentContent)),
+                     returnedAttachment.getSha256());
+        returnedAttachment.getProperties().remove(Attachment.SHA256);
+
         assertEquals("Returned attachment should have same contents that were POSTed", attachmentWithContent, returnedAttachment);
 
         try (InputStream is = service.retrieveAttachmentContent(returnedAsset.get_id(), createdAttachment.get_id(), "AttachmentWithContent.txt", dummyUriInfo)
@@ -265,6 +280,119 @@ public class AssetServiceLayerTest {
         assertEquals(fetchedAsset.getAttachments().get(0), createdAttachment);
     }
 
+    /**
+     * Tests that attachments with the same content share it, and that it is only deleted when the
+     * last of them is deleted.
+     */
+    @Test
+    public void testAttachmentContentShared() throws Exception {
+        Asset first = service.createAsset(new Asset(simpleObject), TEST_USERNAME);
+        Asset second = service.createAsset(new Asset(simpleObject), TEST_USERNAME);
+
+        Attachment firstAttachment = service.createAttachmentWithContent(first.get_id(), "first.txt", new Attachment(attachmentWithContent), "text/plain",
+                                                                         new ByteArrayInputStream(attachmentContent), dummyUriInfo);
+        Attachment secondAttachment = service.createAttachmentWithContent(second.get_id(), "second.html", new Attachment(attachmentWithContent), "text/html",
+                                                                          new ByteArrayInputStream(attachmentContent), dummyUriInfo);
+        assertEquals("The content should be shared", firstAttachment.getGridFSId(), secondAttachment.getGridFSId());
+        assertEquals(firstAttachment.getSha256(), secondAttachment.getSha256());
+        assertEquals(1, ((MemoryPersistor) memoryPersistor).getContentCount());
+
+        service.deleteAsset(first.get_id());
+        assertEquals("The content should be kept while an attachment refers to it", 1, ((MemoryPersistor) memoryPersistor).getContentCount());
+        try (AttachmentContentResponse response = service.retrieveAttachmentContent(second.get_id(), secondAttachment.get_id(), "second.html", dummyUriInfo)) {
+            assertEquals("The content type should come from the attachment", "text/html", response.getContentType());
+            assertTrue(Arrays.equals(attachmentContent, BasicChecks.slurp(response.getContentStream())));
+        }
+
+        service.deleteAttachment(secondAttachment.get_id());
+        assertEquals(0, ((MemoryPersistor) memoryPersistor).getContentCount());
+    }
+
+    /**
+     * Verifies that an attachment is created if its content matches the declared size and hash,
+     * whatever the case of the hash
+     */
+    @Test
+    public void testAddAttachmentWithMatchingDigest() throws Exception {
+        Asset returnedAsset = service.createAsset(new Asset(simpleObject), TEST_USERNAME);
+        HashingInputStream hashingStream = new HashingInputStream(new ByteArrayInputStream(attachmentContent));
+        BasicChecks.slurp(hashingStream);
+        String sha256 = hashingStream.getSha256();
+
+        Attachment matching = new Attachment(attachmentWithContent);
+        matching.setSize(attachmentContent.length);
+        matching.setSha256(sha256.toUpperCase());
+        Attachment created = service.createAttachmentWithContent(returnedAsset.get_id(), "matching.txt", matching, "text/plain",
+                                                                 new ByteArrayInputStream(attachmentContent), dummyUriInfo);
+        assertEquals(sha256, created.getSha256());
+        try (AttachmentContentResponse response = service.retrieveAttachmentContent(returnedAsset.get_id(), created.get_id(), "matching.txt", dummyUriInfo)) {
+            assertEquals(sha256, response.getSha256());
+        }
+    }
+
+    /**
+     * Verifies that an attachment isn't created, and its content isn't kept, if its content doesn't
+     * match the declared hash
+     */
+    @Test
+    public void testAddAttachmentWithWrongHash() throws Exception {
+        final Asset returnedAsset = service.createAsset(new Asset(simpleObject), TEST_USERNAME);
+
+        final Attachment wrongHash = new Attachment(attachmentWithContent);
+        wrongHash.setSha256("0000000000000000000000000000000000000000000000000000000000000000");
+        assertThrows(InvalidJsonAssetException.class,
+                     () -> service.createAttachmentWithContent(returnedAsset.get_id(), "wrongHash.txt", wrongHash, "text/plain",
+                                                               new ByteArrayInputStream(attachmentContent), dummyUriInfo));
+
+        assertEquals("The rejected content should have been deleted", 0, ((MemoryPersistor) memoryPersistor).getContentCount());
+        assertEquals(0, memoryPersistor.findAttachmentsForAsset(returnedAsset.get_id()).size());
+    }
+
+    /**
+     * Verifies that an attachment isn't created, and its content isn't kept, if its content doesn't
+     * match the declared size
+     */
+    @Test
+    public void testAddAttachmentWithWrongSize() throws Exception {
+        final Asset returnedAsset = service.createAsset(new Asset(simpleObject), TEST_USERNAME);
+
+        final Attachment wrongSize = new Attachment(attachmentWithContent);
+        wrongSize.setSize(attachmentContent.length + 1);
+        assertThrows(InvalidJsonAssetException.class,
+                     () -> service.createAttachmentWithContent(returnedAsset.get_id(), "wrongSize.txt", wrongSize, "text/plain",
+                                                               new ByteArrayInputStream(attachmentContent), dummyUriInfo));
+
+        assertEquals("The rejected content should have been deleted", 0, ((MemoryPersistor) memoryPersistor).getContentCount());
+        assertEquals(0, memoryPersistor.findAttachmentsForAsset(returnedAsset.get_id()).size());
+    }
+
+    /**
+     * Verifies that rejecting content which is already stored for another attachment only releases
+     * the rejected upload's reference to it, rather than deleting it
+     */
+    @Test
+    public void testRejectedAttachmentSharingContent() throws Exception {
+        final Asset returnedAsset = service.createAsset(new Asset(simpleObject), TEST_USERNAME);
+        Attachment existing = service.createAttachmentWithContent(returnedAsset.get_id(), "existing.txt", new Attachment(attachmentWithContent), "text/plain",
+                                                                  new ByteArrayInputStream(attachmentContent), dummyUriInfo);
+
+        final Attachment wrongHash = new Attachment(attachmentWithContent);
+        wrongHash.setSha256("0000000000000000000000000000000000000000000000000000000000000000");
+        assertThrows(InvalidJsonAssetException.class,
+                     () -> service.createAttachmentWithContent(returnedAsset.get_id(), "rejected.txt", wrongHash, "text/plain",
+                                                               new ByteArrayInputStream(attachmentContent), dummyUriInfo));
+
+        assertEquals("The shared content should have been kept", 1, ((MemoryPersistor) memoryPersistor).getContentCount());
+        assertEquals(1, memoryPersistor.findAttachmentsForAsset(returnedAsset.get_id()).size());
+        try (AttachmentContentResponse response = service.retrieveAttachmentContent(returnedAsset.get_id(), existing.get_id(), "existing.txt", dummyUriInfo)) {
+            assertTrue(Arrays.equals(attachmentContent, BasicChecks.slurp(response.getContentStream())));
+        }
+
+        // Only the existing attachment still refers to the content
+        service.deleteAttachment(existing.get_id());
+        assertEquals(0, ((MemoryPersistor) memoryPersistor).getContentCount());
+    }
+
     /**
      * Verifies that an exceptino is thrown when we attempt to create an attachment that has both
      * content and a url.
@@ -337,4 +465,265 @@ public class AssetServiceLayerTest {
     public void testRetrieveNonExistentAttachmentContent() throws NonExistentArtefactException, InvalidIdException {
         service.retrieveAttachmentContent("01234", "67864", "a name that does not exist.", dummyUriInfo);
     }
+
+    /**
+     * Tests that the closure of a feature follows requireFeature and requireFeatureWithTolerates,
+     * handles cycles, and doesn't include unrelated features.
+     */
+    @Test
+    public void testSummarizeAssets() throws Exception {
+        service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"a\",\"weather\":\"hot\",\"tags\":[\"x\",\"y\",\"x\"]}"), TEST_USERNAME);
+        service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"b\",\"weather\":\"hot\",\"tags\":[\"x\"]}"), TEST_USERNAME);
+        service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"c\",\"weather\":\"cold\"}"), TEST_USERNAME);
+
+        List<AssetFilter> filters = new ArrayList<>();
+        List<Map<String, Object>> summary = service.summarizeAssets(Arrays.asList("weather", "tags"), filters, null);
+        assertEquals(2, summary.size());
+        assertEquals("weather", summary.get(0).get("filterName"));
+        assertThat((List<?>) summary.get(0).get("filterValue"), containsInAnyOrder((Object) "hot", "cold"));
+        assertEquals("tags", summary.get(1).get("filterName"));
+        assertThat((List<?>) summary.get(1).get("filterValue"), containsInAnyOrder((Object) "x", "y"));
+
+        summary = service.summarizeAssets(Arrays.asList("tags"), filters, null, true);
+        assertEquals(1, summary.size());
+        assertThat((List<?>) summary.get(0).get("filterValue"), containsInAnyOrder((Object) valueCount("x", 2), valueCount("y", 1)));
+    }
+
+    private static Map<String, Object> valueCount(Object value, int count) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("value", value);
+        result.put("count", count);
+        return result;
+    }
+
+    @Test
+    public void testResolveClosure() throws Exception {
+        Asset root = createFeature("root-1.0", "[\"a-1.0\"]", "[{\"feature\":\"b-1.0\",\"tolerates\":[\"2.0\"]}]", null);
+        Asset a = createFeature("a-1.0", "[\"c-1.0\"]", null, null);
+        Asset b1 = createFeature("b-1.0", null, null, null);
+        Asset b2 = createFeature("b-2.0", null, null, null);
+        Asset c = createFeature("c-1.0", "[\"a-1.0\", \"root-1.0\"]", null, null);
+        createFeature("unrelated-1.0", null, null, null);
+
+        List<Asset> closure = service.resolveClosure(root.get_id(), new ArrayList<AssetFilter>(), null);
+
+        assertEquals("The first asset should be the root", root.get_id(), closure.get(0).get_id());
+        assertThat(getIds(closure), containsInAnyOrder(root.get_id(), a.get_id(), b1.get_id(), b2.get_id(), c.get_id()));
+    }
+
+    /**
+     * Tests that the closure only includes dependencies which apply to the requested product.
+     */
+    @Test
+    public void testResolveClosureWithProduct() throws Exception {
+        String old = "[{\"productId\":\"com.ibm.websphere.appserver\",\"minVersion\":{\"value\":\"8.5.5.0\",\"inclusive\":true},"
+                     + "\"maxVersion\":{\"value\":\"8.5.5.6\",\"inclusive\":true}}]";
+        String current = "[{\"productId\":\"com.ibm.websphere.appserver\",\"minVersion\":{\"value\":\"8.5.5.6\",\"inclusive\":false},"
+                         + "\"rawEditions\":[\"BASE\",\"ND\"]}]";
+        Asset root = createFeature("root-1.0", "[\"a-1.0\"]", null, current);
+        Asset oldA = createFeature("a-1.0", null, null, old);
+        Asset newA = createFeature("a-1.0", null, null, current);
+
+        List<Asset> closure = service.resolveClosure(root.get_id(), new ArrayList<AssetFilter>(),
+                                                     AppliesToMatcher.create("com.ibm.websphere.appserver", "16.0.0.2", "BASE"));
+        assertThat(getIds(closure), containsInAnyOrder(root.get_id(), newA.get_id()));
+
+        closure = service.resolveClosure(root.get_id(), new ArrayList<AssetFilter>(), AppliesToMatcher.create(null, "8.5.5.6", null));
+        assertThat(getIds(closure), containsInAnyOrder(root.get_id(), oldA.get_id()));
+
+        closure = service.resolveClosure(root.get_id(), new ArrayList<AssetFilter>(), AppliesToMatcher.create(null, "16.0.0.2", "CORE"));
+        assertThat(getIds(closure), containsInAnyOrder(root.get_id()));
+    }
+
+    /**
+     * Tests that the extra filters passed to resolveClosure are applied to dependencies
+     */
+    @Test
+    public void testResolveClosureFiltered() throws Exception {
+        Asset root = createFeature("root-1.0", "[\"a-1.0\"]", null, null);
+        Asset a = createFeature("a-1.0", null, null, null);
+        service.updateAssetState(Asset.StateAction.PUBLISH, a.get_id());
+        service.updateAssetState(Asset.StateAction.APPROVE, a.get_id());
+        createFeature("a-1.0", null, null, null);
+
+        List<AssetFilter> filters = new ArrayList<>();
+        filters.add(new AssetFilter(Asset.STATE, Arrays.asList(new Condition(Condition.Operation.EQUALS, Asset.State.PUBLISHED.getValue()))));
+        List<Asset> closure = service.resolveClosure(root.get_id(), filters, null);
+        assertThat(getIds(closure), containsInAnyOrder(root.get_id(), a.get_id()));
+    }
+
+    @Test(expected = NonExistentArtefactException.class)
+    public void testResolveClosureNonExistentAsset() throws NonExistentArtefactException {
+        service.resolveClosure("0123456789", new ArrayList<AssetFilter>(), null);
+    }
+
+    /**
+     * Tests that retrieveAssets returns the assets in the order of their ids, with their
+     * attachments, leaving out missing and unpublished assets when asked to.
+     */
+    @Test
+    public void testRetrieveAssets() throws Exception {
+        Asset first = service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"first\"}"), TEST_USERNAME);
+        Asset second = service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"second\"}"), TEST_USERNAME);
+        service.updateAssetState(Asset.StateAction.PUBLISH, second.get_id());
+        service.updateAssetState(Asset.StateAction.APPROVE, second.get_id());
+        Attachment attachment = Attachment.jsonToAttachment("{\"url\":\"http://example.com\", \"linkType\":\"direct\"}");
+        service.createAttachmentNoContent(second.get_id(), "attachment", attachment, dummyUriInfo);
+
+        List<String> ids = Arrays.asList(second.get_id(), "000000000000000000000000", first.get_id(), second.get_id());
+
+        List<Asset> assets = service.retrieveAssets(ids, dummyUriInfo, false);
+        assertEquals(Arrays.asList(second.get_id(), first.get_id()), getIds(assets));
+        assertEquals("Wrong number of attachments", 1, assets.get(0).getAttachments().size());
+        assertEquals("Wrong number of attachments", 0, assets.get(1).getAttachments().size());
+
+        assets = service.retrieveAssets(ids, dummyUriInfo, true);
+        assertEquals(Arrays.asList(second.get_id()), getIds(assets));
+    }
+
+    /**
+     * Attachments are added to assets a page at a time, so check assets either side of a page
+     * boundary
+     */
+    @Test
+    public void testAddAttachments() throws Exception {
+        List<Asset> created = new ArrayList<>();
+        for (int i = 0; i <= AssetServiceLayer.ATTACHMENT_PAGE_SIZE; i++) {
+            created.add(service.createAsset(new Asset(simpleObject), TEST_USERNAME));
+        }
+        Asset first = created.get(0);
+        Asset last = created.get(created.size() - 1);
+        for (Asset asset : Arrays.asList(first, last)) {
+            Attachment attachment = Attachment.jsonToAttachment("{\"url\":\"http://example.com\", \"linkType\":\"direct\"}");
+            service.createAttachmentNoContent(asset.get_id(), "attachment", attachment, dummyUriInfo);
+        }
+
+        List<Asset> assets = new ArrayList<>();
+        try (AssetCursor cursor = service.addAttachments(new AssetListCursor(created), dummyUriInfo)) {
+            assertEquals(created.size(), cursor.size());
+            while (cursor.hasNext()) {
+                assets.add(cursor.next());
+            }
+        }
+
+        assertEquals(getIds(created), getIds(assets));
+        assertEquals("Wrong number of attachments", 1, assets.get(0).getAttachments().size());
+        assertEquals("Wrong number of attachments", 0, assets.get(1).getAttachments().size());
+        assertEquals("Wrong number of attachments", 1, assets.get(assets.size() - 1).getAttachments().size());
+        assertNotNull("The attachment URL should have been computed", assets.get(0).getAttachments().get(0).getUrl());
+    }
+
+    @Test
+    public void testGetChanges() throws Exception {
+        Map<String, Object> start = service.getChanges(null, 100, true);
+        assertEquals(Boolean.TRUE, start.get("reset"));
+        assertEquals(Collections.emptyList(), start.get("changes"));
+        String token = (String) start.get("token");
+
+        Asset updated = service.createAsset(simpleObject, TEST_USERNAME);
+        Asset created = service.createAsset(simpleObject, TEST_USERNAME);
+        Asset deleted = service.createAsset(simpleObject, TEST_USERNAME);
+        service.updateAssetState(Asset.StateAction.PUBLISH, updated.get_id());
+        service.createAttachmentWithContent(deleted.get_id(), "attachment", attachmentWithContent, "text/plain",
+                                            new ByteArrayInputStream(attachmentContent), dummyUriInfo);
+        service.deleteAsset(deleted.get_id());
+
+        Map<String, Object> changes = service.getChanges(Long.valueOf(token), 100, true);
+        assertEquals(Boolean.FALSE, changes.get("reset"));
+        assertEquals(Boolean.FALSE, changes.get("more"));
+        assertEquals(Arrays.asList(created.get_id() + " created", updated.get_id() + " updated", deleted.get_id() + " deleted"),
+                     describeChanges(changes));
+
+        // Nothing has changed since the new token
+        Map<String, Object> noChanges = service.getChanges(Long.valueOf((String) changes.get("token")), 100, true);
+        assertEquals(Boolean.FALSE, noChanges.get("reset"));
+        assertEquals(Collections.emptyList(), noChanges.get("changes"));
+        assertEquals(changes.get("token"), noChanges.get("token"));
+    }
+
+    @Test
+    public void testGetChangesLimit() throws Exception {
+        long token = Long.valueOf((String) service.getChanges(null, 100, true).get("token"));
+        Asset first = service.createAsset(simpleObject, TEST_USERNAME);
+        Asset second = service.createAsset(simpleObject, TEST_USERNAME);
+
+        Map<String, Object> changes = service.getChanges(token, 1, true);
+        assertEquals(Boolean.TRUE, changes.get("more"));
+        assertEquals(Arrays.asList(first.get_id() + " created"), describeChanges(changes));
+
+        changes = service.getChanges(Long.valueOf((String) changes.get("token")), 1, true);
+        assertEquals(Arrays.asList(second.get_id() + " created"), describeChanges(changes));
+    }
+
+    @Test
+    public void testGetChangesNonAdmin() throws Exception {
+        long token = Long.valueOf((String) service.getChanges(null, 100, false).get("token"));
+        Asset asset = service.createAsset(simpleObject, TEST_USERNAME);
+
+        // Users can't see draft assets
+        Map<String, Object> changes = service.getChanges(token, 100, false);
+        assertEquals(Collections.emptyList(), changes.get("changes"));
+        token = Long.valueOf((String) changes.get("token"));
+
+        service.updateAssetState(Asset.StateAction.PUBLISH, asset.get_id());
+        service.updateAssetState(Asset.StateAction.APPROVE, asset.get_id());
+        changes = service.getChanges(token, 100, false);
+        assertEquals(Arrays.asList(asset.get_id() + " updated"), describeChanges(changes));
+        token = Long.valueOf((String) changes.get("token"));
+
+        // An asset which is no longer published has gone as far as users are concerned
+        service.updateAssetState(Asset.StateAction.UNPUBLISH, asset.get_id());
+        changes = service.getChanges(token, 100, false);
+        assertEquals(Arrays.asList(asset.get_id() + " deleted"), describeChanges(changes));
+    }
+
+    @Test
+    public void testGetChangesReset() throws Exception {
+        Asset asset = service.createAsset(simpleObject, TEST_USERNAME);
+        service.deleteAsset(asset.get_id());
+        long latest = memoryPersistor.getLatestChangeSequence();
+
+        assertEquals(Boolean.FALSE, service.getChanges(0L, 100, true).get("reset"));
+        assertEquals(Boolean.TRUE, service.getChanges(latest + 1, 100, true).get("reset"));
+
+        // Once the tombstone has gone, a client which hasn't seen it has to start again
+        memoryPersistor.purgeAssetChanges(new Date(System.currentTimeMillis() + 1000));
+        Map<String, Object> changes = service.getChanges(0L, 100, true);
+        assertEquals(Boolean.TRUE, changes.get("reset"));
+        assertEquals(Long.toString(latest), changes.get("token"));
+        assertEquals(Boolean.FALSE, service.getChanges(latest, 100, true).get("reset"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> describeChanges(Map<String, Object> changes) {
+        List<String> result = new ArrayList<>();
+        for (Map<String, Object> change : (List<Map<String, Object>>) changes.get("changes")) {
+            result.add(change.get("id") + " " + change.get("type"));
+        }
+        return result;
+    }
+
+    private Asset createFeature(String symbolicName, String requireFeature, String requireFeatureWithTolerates, String appliesTo) throws InvalidJsonAssetException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"name\":\"").append(symbolicName).append("\",\"wlpInformation\":{\"provideFeature\":[\"").append(symbolicName).append("\"]");
+        if (requireFeature != null) {
+            json.append(",\"requireFeature\":").append(requireFeature);
+        }
+        if (requireFeatureWithTolerates != null) {
+            json.append(",\"requireFeatureWithTolerates\":").append(requireFeatureWithTolerates);
+        }
+        if (appliesTo != null) {
+            json.append(",\"appliesToFilterInfo\":").append(appliesTo);
+        }
+        json.append("}}");
+        return service.createAsset(Asset.deserializeAssetFromJson(json.toString()), TEST_USERNAME);
+    }
+
+    private static List<String> getIds(List<Asset> assets) {
+        List<String> ids = new ArrayList<>();
+        for (Asset asset : assets) {
+            ids.add(asset.get_id());
+        }
+        return ids;
+    }
 }
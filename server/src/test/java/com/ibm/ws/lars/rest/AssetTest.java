@@ -21,6 +21,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -93,6 +94,22 @@ public class AssetTest {
 
     }
 
+    @Test
+    public void testProject() throws Exception {
+        Asset asset = Asset.deserializeAssetFromJson("{\"_id\":\"1234\", \"name\":\"foo\", \"description\":\"long\","
+                                                     + " \"wlpInformation\":{\"provideFeature\":[\"a-1.0\"], \"visibility\":\"PUBLIC\"},"
+                                                     + " \"links\":[{\"url\":\"u1\", \"title\":\"t1\"}, \"junk\", {\"title\":\"t2\"}]}");
+
+        Asset projected = asset.project(Arrays.asList("name", "wlpInformation.provideFeature", "links.url", "missing", "name.missing"));
+        Asset expected = Asset.deserializeAssetFromJson("{\"_id\":\"1234\", \"name\":\"foo\","
+                                                        + " \"wlpInformation\":{\"provideFeature\":[\"a-1.0\"]},"
+                                                        + " \"links\":[{\"url\":\"u1\"}, {}]}");
+        assertEquals(expected.getProperties(), projected.getProperties());
+
+        // The original asset is unchanged
+        assertEquals("long", asset.getProperty("description"));
+    }
+
     @Test(expected = RepositoryException.class)
     public void testDeserializeAssetFromJson2() throws Exception {
         Asset asset = Asset.deserializeAssetFromJson(simpleObject);
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ByteRange}
+ */
+public class ByteRangeTest {
+
+    @Test
+    public void testParseInvalid() {
+        assertNull(ByteRange.parse(null));
+        assertNull(ByteRange.parse(""));
+        assertNull(ByteRange.parse("bytes=-"));
+        assertNull(ByteRange.parse("bytes=10-5"));
+        assertNull(ByteRange.parse("items=0-5"));
+        assertNull("Multiple ranges should be ignored", ByteRange.parse("bytes=0-5,10-15"));
+        assertNull(ByteRange.parse("bytes=99999999999999999999-"));
+    }
+
+    @Test
+    public void testResolve() {
+        ByteRange range = ByteRange.parse("bytes=5-9").resolve(20);
+        assertEquals(5, range.getFirst());
+        assertEquals(9, range.getLast());
+        assertEquals(5, range.getLength());
+        assertEquals("bytes 5-9/20", range.toContentRange(20));
+    }
+
+    @Test
+    public void testResolveOpenEnded() {
+        ByteRange range = ByteRange.parse("bytes=15-").resolve(20);
+        assertEquals(15, range.getFirst());
+        assertEquals(19, range.getLast());
+
+        range = ByteRange.parse("bytes=15-100").resolve(20);
+        assertEquals(19, range.getLast());
+    }
+
+    @Test
+    public void testResolveSuffix() {
+        ByteRange range = ByteRange.parse("bytes=-3").resolve(20);
+        assertEquals(17, range.getFirst());
+        assertEquals(19, range.getLast());
+
+        range = ByteRange.parse("bytes=-100").resolve(20);
+        assertEquals(0, range.getFirst());
+        assertEquals(20, range.getLength());
+    }
+
+    @Test
+    public void testUnsatisfiable() {
+        assertNull(ByteRange.parse("bytes=20-").resolve(20));
+        assertNull(ByteRange.parse("bytes=-0").resolve(20));
+        assertNull(ByteRange.parse("bytes=-5").resolve(0));
+    }
+
+    @Test
+    public void testIfRange() {
+        EntityTag tag = new EntityTag("abc");
+        Date date = new Date(0);
+        assertTrue(RepositoryRESTResource.ifRangeMatches(null, tag, date));
+        assertTrue(RepositoryRESTResource.ifRangeMatches("\"abc\"", tag, date));
+        assertFalse(RepositoryRESTResource.ifRangeMatches("\"def\"", tag, date));
+        assertFalse(RepositoryRESTResource.ifRangeMatches("W/\"abc\"", tag, date));
+        assertTrue(RepositoryRESTResource.ifRangeMatches("Thu, 01 Jan 1970 00:00:00 GMT", tag, date));
+        assertFalse(RepositoryRESTResource.ifRangeMatches("Fri, 02 Jan 1970 00:00:00 GMT", tag, date));
+    }
+}
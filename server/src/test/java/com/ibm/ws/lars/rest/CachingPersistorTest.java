@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.ws.lars.rest.CachingPersistor.ExpiringCache;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentList;
+
+/**
+ * Tests for {@link CachingPersistor}
+ */
+public class CachingPersistorTest {
+
+    private static final long TTL = TimeUnit.SECONDS.toNanos(30);
+
+    private CountingPersistor backing;
+    private CachingPersistor cache;
+    private long time;
+
+    @Before
+    public void setUp() {
+        backing = new CountingPersistor();
+        cache = createCache(10, TTL);
+        time = 0;
+    }
+
+    private CachingPersistor createCache(int maxEntries, long ttl) {
+        return new CachingPersistor(backing, maxEntries, 1024 * 1024, ttl) {
+            @Override
+            long now() {
+                return time;
+            }
+        };
+    }
+
+    @Test
+    public void testRetrieveAssetIsCached() throws Exception {
+        Asset asset = createAsset("foo");
+
+        assertEquals("foo", cache.retrieveAsset(asset.get_id()).get("name"));
+        assertEquals("foo", cache.retrieveAsset(asset.get_id()).get("name"));
+        assertEquals("The second retrieve should come from the cache", 1, backing.assetReads);
+    }
+
+    @Test
+    public void testCachedAssetIsCopied() throws Exception {
+        Asset asset = createAsset("foo");
+
+        cache.retrieveAsset(asset.get_id()).put("name", "changed");
+        assertEquals("Changes to a returned asset should not affect the cache", "foo", cache.retrieveAsset(asset.get_id()).get("name"));
+        assertEquals(1, backing.assetReads);
+    }
+
+    @Test
+    public void testUpdateInvalidates() throws Exception {
+        Asset asset = createAsset("foo");
+        cache.retrieveAsset(asset.get_id());
+
+        Asset updated = cache.retrieveAsset(asset.get_id());
+        updated.put("name", "bar");
+        cache.updateAsset(asset.get_id(), updated);
+
+        assertEquals("bar", cache.retrieveAsset(asset.get_id()).get("name"));
+        assertEquals(2, backing.assetReads);
+    }
+
+    @Test(expected = NonExistentArtefactException.class)
+    public void testDeleteInvalidates() throws Exception {
+        Asset asset = createAsset("foo");
+        cache.retrieveAsset(asset.get_id());
+        cache.deleteAsset(asset.get_id());
+        cache.retrieveAsset(asset.get_id());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        Asset asset = createAsset("foo");
+        cache.retrieveAsset(asset.get_id());
+
+        time += TTL - 1;
+        cache.retrieveAsset(asset.get_id());
+        assertEquals(1, backing.assetReads);
+
+        time += 1;
+        cache.retrieveAsset(asset.get_id());
+        assertEquals("The entry should have expired", 2, backing.assetReads);
+    }
+
+    @Test
+    public void testMaxEntries() throws Exception {
+        cache = createCache(2, TTL);
+        Asset a = createAsset("a");
+        Asset b = createAsset("b");
+        Asset c = createAsset("c");
+
+        cache.retrieveAsset(a.get_id());
+        cache.retrieveAsset(b.get_id());
+        cache.retrieveAsset(a.get_id());
+        cache.retrieveAsset(c.get_id());
+        assertEquals(3, backing.assetReads);
+
+        // b was least recently used, so should have been evicted
+        cache.retrieveAsset(a.get_id());
+        cache.retrieveAsset(c.get_id());
+        assertEquals(3, backing.assetReads);
+        cache.retrieveAsset(b.get_id());
+        assertEquals(4, backing.assetReads);
+    }
+
+    @Test
+    public void testMaxSize() {
+        ExpiringCache<String> sized = new ExpiringCache<>(10, 100, TTL);
+        sized.put("a", "a", 40, 0);
+        sized.put("b", "b", 40, 0);
+        sized.get("a", 0);
+        sized.put("c", "c", 40, 0);
+
+        // b was least recently used, so should have been evicted to make room for c
+        assertNull(sized.get("b", 0));
+        assertEquals("a", sized.get("a", 0));
+        assertEquals("c", sized.get("c", 0));
+        assertEquals(80, sized.size());
+
+        sized.put("d", "d", 101, 0);
+        assertNull("An entry bigger than the whole cache should not be cached", sized.get("d", 0));
+        assertEquals(80, sized.size());
+
+        sized.put("a", "a", 61, 0);
+        assertNull("Replacing an entry with a bigger one should evict others", sized.get("c", 0));
+        assertEquals(61, sized.size());
+
+        sized.remove("a");
+        assertEquals(0, sized.size());
+    }
+
+    @Test
+    public void testEstimateSize() {
+        long small = CachingPersistor.estimateSize(Collections.singletonMap("name", "foo"));
+        long large = CachingPersistor.estimateSize(Collections.singletonMap("name", new String(new char[1000])));
+        assertTrue("A longer string should be estimated to be bigger", large > small + 1000);
+        assertTrue("A list should be estimated to be bigger than its elements",
+                   CachingPersistor.estimateSize(Arrays.asList(Collections.singletonMap("name", "foo"), Collections.singletonMap("name", "foo"))) > 2 * small);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache = createCache(0, TTL);
+        Asset asset = createAsset("foo");
+        cache.retrieveAsset(asset.get_id());
+        cache.retrieveAsset(asset.get_id());
+        assertEquals(2, backing.assetReads);
+    }
+
+    @Test
+    public void testAttachmentsInvalidated() throws Exception {
+        Asset asset = createAsset("foo");
+        assertEquals(0, cache.findAttachmentsForAsset(asset.get_id()).size());
+        assertEquals(0, cache.findAttachmentsForAsset(asset.get_id()).size());
+        assertEquals(1, backing.attachmentReads);
+
+        Attachment attachment = new Attachment();
+        attachment.set_id(cache.allocateNewId());
+        attachment.setAssetId(asset.get_id());
+        attachment.setName("attachment");
+        cache.createAttachmentMetadata(attachment);
+
+        AttachmentList attachments = cache.findAttachmentsForAsset(asset.get_id());
+        assertEquals(1, attachments.size());
+        attachments.get(0).setUrl("http://example.com");
+        assertNull("Changes to a returned attachment should not affect the cache", cache.findAttachmentsForAsset(asset.get_id()).get(0).getUrl());
+        assertEquals(2, backing.attachmentReads);
+
+        cache.deleteAttachmentMetadata(attachment.get_id());
+        assertEquals(0, cache.findAttachmentsForAsset(asset.get_id()).size());
+        assertEquals(3, backing.attachmentReads);
+    }
+
+    @Test
+    public void testCountIsCached() throws Exception {
+        createAsset("foo");
+        createAsset("bar");
+
+        assertEquals(1, cache.countAllAssets(filters(filter("name", "foo", "baz"), filter("type", "x", "y")), null));
+        assertEquals("Filters in a different order should use the same entry", 1,
+                     cache.countAllAssets(filters(filter("type", "y", "x"), filter("name", "baz", "foo")), null));
+        assertEquals(1, backing.countReads);
+
+        assertEquals(2, cache.countAllAssets(new ArrayList<AssetFilter>(), null));
+        assertEquals(2, backing.countReads);
+    }
+
+    @Test
+    public void testWriteInvalidatesCount() throws Exception {
+        createAsset("foo");
+        assertEquals(1, cache.countAllAssets(new ArrayList<AssetFilter>(), null));
+
+        createAsset("bar");
+        assertEquals(2, cache.countAllAssets(new ArrayList<AssetFilter>(), null));
+        assertEquals(2, backing.countReads);
+
+        cache.deleteAttachmentContent("nonexistent");
+        assertEquals(2, cache.countAllAssets(new ArrayList<AssetFilter>(), null));
+        assertEquals("Any write should make cached counts stale", 3, backing.countReads);
+    }
+
+    @Test
+    public void testCountExpiry() throws Exception {
+        createAsset("foo");
+        cache.countAllAssets(new ArrayList<AssetFilter>(), null);
+        time += TTL;
+        cache.countAllAssets(new ArrayList<AssetFilter>(), null);
+        assertEquals(2, backing.countReads);
+    }
+
+    @Test
+    public void testCountKey() {
+        assertEquals(CachingPersistor.createCountKey(filters(filter("a", "x", "y")), null),
+                     CachingPersistor.createCountKey(filters(filter("a", "y", "x")), null));
+        assertNotEquals(CachingPersistor.createCountKey(filters(filter("a", "x")), null),
+                        CachingPersistor.createCountKey(filters(filter("a", "x")), "x"));
+        assertNotEquals("Separators in values must not be confused with the structure",
+                        CachingPersistor.createCountKey(filters(filter("a", "x"), filter("b", "y")), null),
+                        CachingPersistor.createCountKey(filters(filter("a", "x1:b1:y")), null));
+    }
+
+    private static AssetFilter filter(String key, String... values) {
+        List<Condition> conditions = new ArrayList<>();
+        for (String value : values) {
+            conditions.add(new Condition(Condition.Operation.EQUALS, value));
+        }
+        return new AssetFilter(key, conditions);
+    }
+
+    private static List<AssetFilter> filters(AssetFilter... filters) {
+        return new ArrayList<>(Arrays.asList(filters));
+    }
+
+    private Asset createAsset(String name) throws Exception {
+        Asset asset = new Asset();
+        asset.put("name", name);
+        asset.put("type", "x");
+        return cache.createAsset(asset);
+    }
+
+    private static class CountingPersistor extends MemoryPersistor {
+        int assetReads = 0;
+        int attachmentReads = 0;
+        int countReads = 0;
+
+        @Override
+        public Asset retrieveAsset(String assetId) throws NonExistentArtefactException {
+            assetReads++;
+            return super.retrieveAsset(assetId);
+        }
+
+        @Override
+        public AttachmentList findAttachmentsForAsset(String assetId) {
+            attachmentReads++;
+            return super.findAttachmentsForAsset(assetId);
+        }
+
+        @Override
+        public int countAllAssets(Collection<AssetFilter> filters, String searchTerm) {
+            countReads++;
+            return super.countAllAssets(filters, searchTerm);
+        }
+    }
+}
@@ -150,7 +150,8 @@ public class DummyUriInfo implements UriInfo {
     }
 
     /**
-     * Do a simplified parsing of query parameters, splitting strings on '&' and '='
+     * Do a simplified parsing of query parameters, splitting strings on '&' and '='. A parameter
+     * without an '=' has an empty value.
      * <p>
      * Decoding of parameters is not supported.
      */
@@ -163,10 +164,19 @@ public class DummyUriInfo implements UriInfo {
         MultivaluedMap<String, String> result = new MultivaluedMapImpl<String, String>();
 
         String query = fullUri.getRawQuery();
+        if (query == null) {
+            return result;
+        }
 
         for (String parameter : query.split("&")) {
             String[] parts = parameter.split("=", -1); //-1 => Do not trim trailing empty strings
 
+            if (parts.length == 1) {
+                // A parameter without a value, e.g. a range filter like size>3
+                result.add(parts[0], "");
+                continue;
+            }
+
             if (parts.length != 2) {
                 throw new RuntimeException("Bad parameter: " + parameter);
             }
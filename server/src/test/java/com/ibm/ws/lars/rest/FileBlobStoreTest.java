@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+import com.ibm.ws.lars.testutils.BasicChecks;
+
+/**
+ * Tests for {@link FileBlobStore}
+ */
+public class FileBlobStoreTest {
+
+    private static final byte[] CONTENT = "Some attachment content".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileBlobStore store;
+
+    @Before
+    public void setUp() {
+        store = new FileBlobStore(folder.getRoot());
+    }
+
+    @Test
+    public void testStoreAndRetrieve() throws Exception {
+        AttachmentContentMetadata metadata = store.store("text/plain", new ByteArrayInputStream(CONTENT));
+        assertEquals(CONTENT.length, metadata.length);
+        assertTrue("The id should start with the hash", metadata.filename.startsWith(metadata.sha256 + "-"));
+        assertTrue(FileBlobStore.isId(metadata.filename));
+
+        File file = new File(folder.getRoot(), metadata.sha256.substring(0, 2) + "/" + metadata.sha256.substring(2, 4) + "/" + metadata.filename);
+        assertTrue("The content should be stored under a path made from its hash", file.isFile());
+        assertEquals("The temporary file should have gone", 0, new File(folder.getRoot(), "tmp").list().length);
+
+        try (AttachmentContentResponse response = store.retrieve(metadata.filename, null)) {
+            assertEquals(CONTENT.length, response.getLength());
+            assertEquals(metadata.sha256, response.getEntityTag());
+            assertTrue(Arrays.equals(CONTENT, BasicChecks.slurp(response.getContentStream())));
+        }
+    }
+
+    /**
+     * An upload which fails partway through, for example by passing the size limit, shouldn't
+     * leave its temporary file behind
+     */
+    @Test
+    public void testFailedStoreRemovesTempFile() throws Exception {
+        final InputStream content = new LimitedInputStream(new ByteArrayInputStream(CONTENT), CONTENT.length - 1);
+        assertThrows(IOException.class, () -> store.store("text/plain", content));
+        assertEquals("The temporary file should have gone", 0, new File(folder.getRoot(), "tmp").list().length);
+    }
+
+    @Test
+    public void testSameContentStoredSeparately() throws Exception {
+        AttachmentContentMetadata first = store.store(null, new ByteArrayInputStream(CONTENT));
+        AttachmentContentMetadata second = store.store(null, new ByteArrayInputStream(CONTENT));
+        assertEquals(first.sha256, second.sha256);
+        assertNotEquals(first.filename, second.filename);
+
+        store.delete(first.filename);
+        try (InputStream stream = store.retrieve(second.filename, null).getContentStream()) {
+            assertTrue(Arrays.equals(CONTENT, BasicChecks.slurp(stream)));
+        }
+    }
+
+    @Test
+    public void testRetrieveRange() throws Exception {
+        AttachmentContentMetadata metadata = store.store(null, new ByteArrayInputStream(CONTENT));
+        try (AttachmentContentResponse response = store.retrieve(metadata.filename, ByteRange.parse("bytes=5-"))) {
+            assertEquals(5, response.getRange().getFirst());
+            assertEquals(CONTENT.length, response.getLength());
+            assertTrue(Arrays.equals(Arrays.copyOfRange(CONTENT, 5, CONTENT.length), BasicChecks.slurp(response.getContentStream())));
+        }
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        final AttachmentContentMetadata metadata = store.store(null, new ByteArrayInputStream(CONTENT));
+        store.delete(metadata.filename);
+        assertThrows(NonExistentArtefactException.class, () -> store.retrieve(metadata.filename, null));
+
+        // Deleting it again does nothing
+        store.delete(metadata.filename);
+    }
+
+    @Test
+    public void testInvalidIds() {
+        assertFalse("A GridFS id is not a FileBlobStore id", FileBlobStore.isId("0123456789abcdef01234567"));
+        assertFalse(FileBlobStore.isId(null));
+        assertThrows(NonExistentArtefactException.class, () -> store.retrieve("../../etc/passwd", null));
+    }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link HashingInputStream}
+ */
+public class HashingInputStreamTest {
+
+    @Test
+    public void testHashAndLength() throws Exception {
+        byte[] content = "abc".getBytes(StandardCharsets.UTF_8);
+        HashingInputStream stream = new HashingInputStream(new ByteArrayInputStream(content));
+        assertEquals('a', stream.read());
+        byte[] buffer = new byte[10];
+        assertEquals(2, stream.read(buffer, 0, buffer.length));
+        assertEquals(-1, stream.read(buffer, 0, buffer.length));
+
+        assertEquals(3, stream.getLength());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", stream.getSha256());
+        assertEquals("The hash should not change when asked for again",
+                     "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", stream.getSha256());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        try (HashingInputStream stream = new HashingInputStream(new ByteArrayInputStream(new byte[0]))) {
+            assertEquals(-1, stream.read());
+            assertEquals(0, stream.getLength());
+            assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", stream.getSha256());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LimitedInputStream}
+ */
+public class LimitedInputStreamTest {
+
+    @Test
+    public void testWithinLimit() throws Exception {
+        try (LimitedInputStream stream = new LimitedInputStream(new ByteArrayInputStream(new byte[10]), 10)) {
+            byte[] buffer = new byte[20];
+            assertEquals(10, stream.read(buffer, 0, buffer.length));
+            assertEquals(-1, stream.read());
+            assertFalse(stream.isLimitExceeded());
+        }
+    }
+
+    @Test
+    public void testOverLimit() throws Exception {
+        try (LimitedInputStream stream = new LimitedInputStream(new ByteArrayInputStream(new byte[11]), 10)) {
+            byte[] buffer = new byte[5];
+            assertEquals(5, stream.read(buffer, 0, buffer.length));
+            assertEquals(5, stream.read(buffer, 0, buffer.length));
+            assertFalse(stream.isLimitExceeded());
+            try {
+                stream.read();
+                fail("Reading past the limit should fail");
+            } catch (IOException e) {
+                // expected
+            }
+            assertTrue(stream.isLimitExceeded());
+        }
+    }
+}
@@ -22,7 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +38,7 @@ import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetChange;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
@@ -58,6 +65,15 @@ public class MemoryPersistor implements Persistor {
 
     private final Map<String, AttachmentContent> gridFS = new HashMap<>();
 
+    /** The id of the content with each hash */
+    private final Map<String, String> blobs = new HashMap<>();
+
+    private final Map<String, AssetChange> changes = new HashMap<>();
+
+    private long changeSequence = 0;
+
+    private long purgedChangeSequence = 0;
+
     /*
      * (non-Javadoc)
      *
@@ -69,9 +85,93 @@ public class MemoryPersistor implements Persistor {
         return new BasicAssetCursor(assets.values());
     }
 
+    /**
+     * Only simple filtering is supported, search terms, pagination and sorting are not.
+     */
     @Override
     public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions) {
-        throw new UnsupportedOperationException("Filtering is not supported in this test facade");
+        if (searchTerm != null || pagination != null || sortOptions != null) {
+            throw new UnsupportedOperationException("Searching, paging and sorting are not supported in this test facade");
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map<String, Object> asset : assets.values()) {
+            if (matchesAll(asset, filters)) {
+                results.add(asset);
+            }
+        }
+        return new BasicAssetCursor(results);
+    }
+
+    /**
+     * Fields are projected in memory, the other restrictions are as above.
+     */
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions,
+                                         Collection<String> fields) {
+        AssetCursor cursor = retrieveAllAssets(filters, searchTerm, pagination, sortOptions);
+        if (fields == null) {
+            return cursor;
+        }
+        List<Map<String, Object>> results = new ArrayList<>();
+        while (cursor.hasNext()) {
+            results.add(cursor.next().project(fields).getProperties());
+        }
+        return new BasicAssetCursor(results);
+    }
+
+    private static boolean matchesAll(Map<String, Object> asset, Collection<AssetFilter> filters) {
+        for (AssetFilter filter : filters) {
+            Object value = getField(asset, filter.getKey());
+            boolean matched = false;
+            boolean hasEquality = false;
+            for (Condition condition : filter.getConditions()) {
+                if (condition.getOperation().isRange()) {
+                    // Only string comparisons are supported here
+                    if (!(value instanceof String) || !inRange((String) value, condition)) {
+                        return false;
+                    }
+                    continue;
+                }
+                hasEquality = true;
+                boolean equal = value instanceof Collection ? ((Collection<?>) value).contains(condition.getValue())
+                        : Objects.equals(value, condition.getValue());
+                if (equal == (condition.getOperation() == Condition.Operation.EQUALS)) {
+                    matched = true;
+                }
+            }
+            if (hasEquality && !matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inRange(String value, Condition condition) {
+        int comparison = value.compareTo(condition.getValue());
+        switch (condition.getOperation()) {
+            case GREATER_THAN:
+                return comparison > 0;
+            case GREATER_THAN_OR_EQUAL:
+                return comparison >= 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case LESS_THAN_OR_EQUAL:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+    private static Object getField(Map<String, Object> asset, String key) {
+        Object current = asset;
+        for (String part : key.split("\\.")) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(part);
+        }
+        return current;
     }
 
     @Override
@@ -79,10 +179,105 @@ public class MemoryPersistor implements Persistor {
         throw new UnsupportedOperationException("Filtering is not supported in this test facade");
     }
 
-    /** {@inheritDoc} */
+    /**
+     * Only simple filtering is supported, search terms are not.
+     */
+    @Override
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(Collection<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        if (searchTerm != null) {
+            throw new UnsupportedOperationException("Searching is not supported in this test facade");
+        }
+
+        Map<String, Map<Object, Integer>> result = new LinkedHashMap<>();
+        for (String field : fields) {
+            Map<Object, Integer> counts = new LinkedHashMap<>();
+            for (Map<String, Object> asset : assets.values()) {
+                if (!matchesAll(asset, filters)) {
+                    continue;
+                }
+                Object value = getField(asset, field);
+                Collection<?> values = value instanceof Collection ? new LinkedHashSet<>((Collection<?>) value) : Collections.singleton(value);
+                for (Object v : values) {
+                    if (v != null) {
+                        Integer count = counts.get(v);
+                        counts.put(v, count == null ? 1 : count + 1);
+                    }
+                }
+            }
+            result.put(field, counts);
+        }
+        return result;
+    }
+
+    /**
+     * Only simple filtering is supported, search terms are not.
+     */
     @Override
     public int countAllAssets(Collection<AssetFilter> filters, String searchTerm) {
-        throw new UnsupportedOperationException("Filtering is not supported in this test facade");
+        if (searchTerm != null) {
+            throw new UnsupportedOperationException("Searching is not supported in this test facade");
+        }
+
+        int count = 0;
+        for (Map<String, Object> asset : assets.values()) {
+            if (matchesAll(asset, filters)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, Object> getQueryStatistics() {
+        return Collections.<String, Object> emptyMap();
+    }
+
+    @Override
+    public long recordAssetChange(String assetId, AssetChange.Type type, boolean published) {
+        AssetChange previous = changes.get(assetId);
+        boolean everPublished = published || (previous != null && previous.isEverPublished());
+        changeSequence++;
+        changes.put(assetId, new AssetChange(assetId, type, changeSequence, published, everPublished, new Date()));
+        return changeSequence;
+    }
+
+    @Override
+    public List<AssetChange> retrieveAssetChanges(long since, int limit) {
+        List<AssetChange> result = new ArrayList<>();
+        for (AssetChange change : changes.values()) {
+            if (change.getSequence() > since) {
+                result.add(change);
+            }
+        }
+        Collections.sort(result, new Comparator<AssetChange>() {
+            @Override
+            public int compare(AssetChange o1, AssetChange o2) {
+                return Long.compare(o1.getSequence(), o2.getSequence());
+            }
+        });
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    @Override
+    public long getLatestChangeSequence() {
+        return changeSequence;
+    }
+
+    @Override
+    public long getPurgedChangeSequence() {
+        return purgedChangeSequence;
+    }
+
+    @Override
+    public long purgeAssetChanges(Date deletedBefore) {
+        for (Iterator<AssetChange> i = changes.values().iterator(); i.hasNext();) {
+            AssetChange change = i.next();
+            if (change.getType() == AssetChange.Type.DELETED && change.getChangedOn().before(deletedBefore)) {
+                purgedChangeSequence = Math.max(purgedChangeSequence, change.getSequence());
+                i.remove();
+            }
+        }
+        return purgedChangeSequence;
     }
 
     /*
@@ -98,6 +293,17 @@ public class MemoryPersistor implements Persistor {
         return Asset.createAssetFromMap(new HashMap<>(assets.get(assetId)));
     }
 
+    @Override
+    public List<Asset> retrieveAssets(Collection<String> assetIds) {
+        List<Asset> results = new ArrayList<>();
+        for (String assetId : new LinkedHashSet<>(assetIds)) {
+            if (assets.containsKey(assetId)) {
+                results.add(Asset.createAssetFromMap(new HashMap<>(assets.get(assetId))));
+            }
+        }
+        return results;
+    }
+
     @Override
     public Asset createAsset(Asset newAsset) throws InvalidJsonAssetException {
         Map<String, Object> props = newAsset.getProperties();
@@ -107,6 +313,13 @@ public class MemoryPersistor implements Persistor {
         return Asset.createAssetFromMap(props);
     }
 
+    @Override
+    public void importAssets(List<Asset> assetsToImport) {
+        for (Asset asset : assetsToImport) {
+            assets.put(asset.get_id(), new HashMap<>(asset.getProperties()));
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -147,6 +360,18 @@ public class MemoryPersistor implements Persistor {
         return AttachmentList.createAttachmentListFromMaps(resultList);
     }
 
+    @Override
+    public Map<String, AttachmentList> findAttachmentsForAssets(Collection<String> assetIds) {
+        Map<String, AttachmentList> results = new HashMap<>();
+        for (String assetId : assetIds) {
+            AttachmentList list = findAttachmentsForAsset(assetId);
+            if (!list.isEmpty()) {
+                results.put(assetId, list);
+            }
+        }
+        return results;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -156,23 +381,29 @@ public class MemoryPersistor implements Persistor {
     @Override
     public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) throws AssetPersistenceException {
         try {
-            String id = getNextId();
+            HashingInputStream hashingStream = new HashingInputStream(attachmentContentStream);
 
             // Oh Java, I hate you for making me do this. Maybe if we start using
             // Apache Commons then wecan rip this out
             byte[] buffer = new byte[1024];
             int length;
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            while ((length = attachmentContentStream.read(buffer)) != -1) {
+            while ((length = hashingStream.read(buffer)) != -1) {
                 baos.write(buffer, 0, length);
             }
             byte[] contentBytes = baos.toByteArray();
+            String sha256 = hashingStream.getSha256();
+
+            String id = blobs.get(sha256);
+            if (id != null) {
+                gridFS.get(id).refs++;
+            } else {
+                id = getNextId();
+                gridFS.put(id, new AttachmentContent(name, contentType, id, contentBytes));
+                blobs.put(sha256, id);
+            }
 
-            AttachmentContent attachmentContent = new AttachmentContent(name, contentType, id, contentBytes);
-
-            gridFS.put(id, attachmentContent);
-
-            return new AttachmentContentMetadata(id, contentBytes.length);
+            return new AttachmentContentMetadata(id, contentBytes.length, sha256);
         } catch (IOException e) {
             throw new AssetPersistenceException(e);
         }
@@ -211,6 +442,17 @@ public class MemoryPersistor implements Persistor {
         return Attachment.createAttachmentFromMap(new HashMap<>(attachments.get(attachmentId)));
     }
 
+    @Override
+    public List<Attachment> retrieveAttachmentsMetadata(Collection<String> attachmentIds) {
+        List<Attachment> results = new ArrayList<>();
+        for (String attachmentId : new LinkedHashSet<>(attachmentIds)) {
+            if (attachments.containsKey(attachmentId)) {
+                results.add(Attachment.createAttachmentFromMap(new HashMap<>(attachments.get(attachmentId))));
+            }
+        }
+        return results;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -218,7 +460,25 @@ public class MemoryPersistor implements Persistor {
      */
     @Override
     public void deleteAttachmentContent(String attachmentId) {
-        throw new RuntimeException("not implemented");
+        AttachmentContent content = gridFS.get(attachmentId);
+        if (content != null && --content.refs <= 0) {
+            gridFS.remove(attachmentId);
+            blobs.values().remove(attachmentId);
+        }
+    }
+
+    /**
+     * @return the number of distinct pieces of attachment content stored
+     */
+    int getContentCount() {
+        return gridFS.size();
+    }
+
+    @Override
+    public void importAttachmentMetadata(List<Attachment> attachmentsToImport) {
+        for (Attachment attachment : attachmentsToImport) {
+            attachments.put(attachment.get_id(), new HashMap<>(attachment.getProperties()));
+        }
     }
 
     /*
@@ -228,7 +488,7 @@ public class MemoryPersistor implements Persistor {
      */
     @Override
     public void deleteAttachmentMetadata(String attachmentId) {
-        throw new RuntimeException("not implemented");
+        attachments.remove(attachmentId);
     }
 
     /*
@@ -245,6 +505,16 @@ public class MemoryPersistor implements Persistor {
         return new AttachmentContentResponse(contentStream, contentType);
     }
 
+    @Override
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId, ByteRange range) {
+        AttachmentContent content = gridFS.get(gridFSId);
+        int length = content.content.length;
+        ByteRange resolved = range == null ? null : range.resolve(length);
+        int offset = resolved == null ? 0 : (int) resolved.getFirst();
+        InputStream contentStream = new ByteArrayInputStream(content.content, offset, length - offset);
+        return new AttachmentContentResponse(contentStream, content.contentType, content.id, null, length, resolved);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -268,6 +538,7 @@ class AttachmentContent {
     String contentType;
     String id;
     byte[] content;
+    int refs = 1;
 
     public AttachmentContent(String name, String contentType, String id, byte[] content) {
         this.name = name;
@@ -22,20 +22,25 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import mockit.Expectations;
 import mockit.Injectable;
 import mockit.Mocked;
 
+import org.bson.types.ObjectId;
 import org.junit.Test;
 
 import com.ibm.ws.lars.rest.Condition.Operation;
 import com.ibm.ws.lars.rest.SortOptions.SortOrder;
 import com.ibm.ws.lars.rest.mongo.PersistenceBean;
+import com.mongodb.AggregationOptions;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
@@ -133,6 +138,63 @@ public class PersistenceBeanBasicSearchTest {
         createTestBean().retrieveAllAssets(filters, null, pagination, null);
     }
 
+    /**
+     * Test that a page following a page token is found with a range query on the sort field and
+     * id, and that the earlier results are not skipped over
+     */
+    @Test
+    public void testRetrieveAllAssetsAfterPageToken(final @Mocked DBCollection collection, final @Injectable DBCursor cursor) {
+        ObjectId lastId = new ObjectId("0123456789abcdef01234567");
+        BasicDBList or = new BasicDBList();
+        or.add(new BasicDBObject("key2", new BasicDBObject("$lt", "value2")));
+        or.add(new BasicDBObject("key2", "value2").append("_id", new BasicDBObject("$lt", lastId)));
+        or.add(new BasicDBObject("key2", null));
+        BasicDBList and = new BasicDBList();
+        and.add(new BasicDBObject("key1", "value1"));
+        BasicDBList filter = new BasicDBList();
+        filter.add(new BasicDBObject("$and", and));
+        filter.add(new BasicDBObject("$or", or));
+        final DBObject queryObject = new BasicDBObject("$and", filter);
+        final DBObject sortObject = new BasicDBObject("key2", -1).append("_id", -1);
+
+        new Expectations() {
+            {
+                collection.find(queryObject, (DBObject) withNull());
+                result = cursor;
+                cursor.skip(anyInt);
+                times = 0;
+                cursor.limit(10);
+                cursor.sort(sortObject);
+            }
+        };
+
+        List<AssetFilter> filters = new ArrayList<>();
+        filters.add(new AssetFilter("key1", Arrays.asList(new Condition[] { new Condition(Operation.EQUALS, "value1") })));
+        SortOptions sortOptions = new SortOptions("key2", SortOrder.DESCENDING);
+        PageToken pageToken = new PageToken(sortOptions, "value2", lastId.toHexString());
+        createTestBean().retrieveAllAssets(filters, null, PaginationOptions.afterPageToken(10, pageToken), sortOptions);
+    }
+
+    /**
+     * Test that a list of fields results in a projection object, and that it is combined with the
+     * text score when searching
+     */
+    @Test
+    public void testRetrieveAllAssetsWithFields(final @Mocked DBCollection collection, final @Mocked DBCursor cursor) {
+        final BasicDBObject projectionObject = new BasicDBObject("_id", 1).append("name", 1).append("wlpInformation.provideFeature", 1);
+        final BasicDBObject searchProjectionObject = new BasicDBObject("_id", 1).append("name", 1)
+                        .append("score", new BasicDBObject("$meta", "textScore"));
+        new Expectations() {
+            {
+                collection.find(new BasicDBObject(), projectionObject);
+                collection.find((DBObject) withNotNull(), searchProjectionObject);
+            }
+        };
+
+        createTestBean().retrieveAllAssets(Collections.<AssetFilter> emptySet(), null, null, null, Arrays.asList("name", "wlpInformation.provideFeature"));
+        createTestBean().retrieveAllAssets(Collections.<AssetFilter> emptySet(), "foo", null, null, Arrays.asList("name"));
+    }
+
     /**
      * Test that providing a SortOptions object results in the correct sort() method being called on
      * the result cursor
@@ -261,4 +323,59 @@ public class PersistenceBeanBasicSearchTest {
         assertEquals(3, count);
     }
 
+    /**
+     * Test that all the fields of a summary are counted with a single $facet aggregation
+     */
+    @Test
+    public void testGetDistinctValueCounts(final @Mocked DBCollection collection, final @Injectable Cursor cursor) {
+        BasicDBList list = new BasicDBList();
+        list.add(new BasicDBObject("key1", "value1"));
+        final BasicDBObject matchObject = new BasicDBObject("$match", new BasicDBObject("$and", list));
+        final BasicDBObject facetObject = new BasicDBObject("$facet", new BasicDBObject("f0", valueCountPipeline("$weather"))
+                        .append("f1", unwindFirst("$wlpInformation", valueCountPipeline("$wlpInformation.provideFeature"))));
+
+        BasicDBList weatherCounts = new BasicDBList();
+        weatherCounts.add(new BasicDBObject("_id", "cold").append("count", 1));
+        weatherCounts.add(new BasicDBObject("_id", "hot").append("count", 2));
+        final BasicDBObject facetResults = new BasicDBObject("f0", weatherCounts).append("f1", new BasicDBList());
+
+        new Expectations() {
+            {
+                collection.aggregate(Arrays.<DBObject> asList(matchObject, facetObject), (AggregationOptions) any);
+                result = cursor;
+                times = 1;
+
+                cursor.hasNext();
+                result = true;
+                cursor.next();
+                result = facetResults;
+            }
+        };
+
+        List<AssetFilter> filters = new ArrayList<>();
+        filters.add(new AssetFilter("key1", Arrays.asList(new Condition[] { new Condition(Operation.EQUALS, "value1") })));
+        Map<String, Map<Object, Integer>> counts = createTestBean().getDistinctValueCounts(Arrays.asList("weather", "wlpInformation.provideFeature"),
+                                                                                           filters, null);
+
+        Map<Object, Integer> expectedWeather = new LinkedHashMap<>();
+        expectedWeather.put("cold", 1);
+        expectedWeather.put("hot", 2);
+        assertEquals(expectedWeather, counts.get("weather"));
+        assertEquals(Collections.emptyMap(), counts.get("wlpInformation.provideFeature"));
+    }
+
+    private static List<DBObject> unwindFirst(String prefixRef, List<DBObject> pipeline) {
+        List<DBObject> stages = new ArrayList<>();
+        stages.add(new BasicDBObject("$unwind", prefixRef));
+        stages.addAll(pipeline);
+        return stages;
+    }
+
+    private static List<DBObject> valueCountPipeline(String fieldRef) {
+        return Arrays.<DBObject> asList(new BasicDBObject("$unwind", fieldRef),
+                                        new BasicDBObject("$group", new BasicDBObject("_id", new BasicDBObject("asset", "$_id").append("value", fieldRef))),
+                                        new BasicDBObject("$group", new BasicDBObject("_id", "$_id.value").append("count", new BasicDBObject("$sum", 1))),
+                                        new BasicDBObject("$sort", new BasicDBObject("_id", 1)));
+    }
+
 }
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ibm.ws.lars.rest.Condition.Operation;
+import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+
+/**
+ * Tests for {@link QueryStatistics} and {@link QueryShape}
+ */
+public class QueryStatisticsTest {
+
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static AssetFilter filter(String key, String value) {
+        return new AssetFilter(key, Arrays.asList(new Condition(Operation.EQUALS, value)));
+    }
+
+    @Test
+    public void testShapeIgnoresValues() {
+        QueryShape shape1 = new QueryShape("find", Arrays.asList(filter("type", "a"), filter("state", "b")), "foo", null, null);
+        QueryShape shape2 = new QueryShape("find", Arrays.asList(filter("state", "c"), filter("type", "d")), "bar", null, null);
+        assertEquals(shape1, shape2);
+        assertEquals(shape1.hashCode(), shape2.hashCode());
+        assertEquals(Arrays.asList("state", "type"), shape1.getFilterKeys());
+
+        assertFalse(shape1.equals(new QueryShape("find", Arrays.asList(filter("type", "a"), filter("state", "b")), null, null, null)));
+        assertFalse(shape1.equals(new QueryShape("count", Arrays.asList(filter("type", "a"), filter("state", "b")), "foo", null, null)));
+        assertFalse(shape1.equals(new QueryShape("find", Arrays.asList(filter("type", "a"), filter("state", "b")), "foo",
+                                                 new SortOptions("name", SortOrder.ASCENDING), null)));
+        assertFalse(shape1.equals(new QueryShape("find", Arrays.asList(filter("type", "a"), filter("state", "b")), "foo", null,
+                                                 Collections.singleton("name"))));
+    }
+
+    @Test
+    public void testRecord() {
+        QueryStatistics stats = new QueryStatistics(10, SLOW_NANOS);
+        QueryShape shape = new QueryShape("find", Arrays.asList(filter("type", "a")), null, new SortOptions("name", SortOrder.DESCENDING), null);
+
+        assertEquals(0, stats.record(shape, TimeUnit.MILLISECONDS.toNanos(3)));
+        assertEquals(1, stats.record(shape, TimeUnit.MILLISECONDS.toNanos(100)));
+        assertEquals(1, stats.record(shape, TimeUnit.MILLISECONDS.toNanos(7)));
+        assertEquals(2, stats.record(shape, TimeUnit.SECONDS.toNanos(10)));
+
+        List<Map<String, Object>> summary = stats.summarize();
+        assertEquals(1, summary.size());
+        Map<String, Object> shapeSummary = summary.get(0);
+        assertEquals("find", shapeSummary.get("operation"));
+        assertEquals(Arrays.asList("type"), shapeSummary.get("filterKeys"));
+        assertEquals(false, shapeSummary.get("search"));
+        assertEquals("name", shapeSummary.get("sortBy"));
+        assertEquals("DESCENDING", shapeSummary.get("sortOrder"));
+        assertFalse(shapeSummary.containsKey("fields"));
+        assertEquals(4L, shapeSummary.get("count"));
+        assertEquals(2L, shapeSummary.get("slowCount"));
+        assertEquals(10110.0, shapeSummary.get("totalMillis"));
+        assertEquals(10000.0, shapeSummary.get("maxMillis"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> histogram = (Map<String, Long>) shapeSummary.get("histogram");
+        assertEquals(Long.valueOf(1), histogram.get("<5ms"));
+        assertEquals(Long.valueOf(1), histogram.get("<10ms"));
+        assertEquals(Long.valueOf(1), histogram.get("<200ms"));
+        assertEquals(Long.valueOf(1), histogram.get(">=5000ms"));
+        assertEquals(Long.valueOf(0), histogram.get("<1ms"));
+    }
+
+    @Test
+    public void testSummaryOrderedByTotalTime() {
+        QueryStatistics stats = new QueryStatistics(10, SLOW_NANOS);
+        QueryShape fast = new QueryShape("count", null, null, null, null);
+        QueryShape slow = new QueryShape("find", null, null, null, null);
+        stats.record(fast, 10);
+        stats.record(slow, 1000);
+
+        List<Map<String, Object>> summary = stats.summarize();
+        assertEquals("find", summary.get(0).get("operation"));
+        assertEquals("count", summary.get(1).get("operation"));
+    }
+
+    @Test
+    public void testMaxShapes() {
+        QueryStatistics stats = new QueryStatistics(1, SLOW_NANOS);
+        QueryShape shape1 = new QueryShape("find", Arrays.asList(filter("type", "a")), null, null, null);
+        QueryShape shape2 = new QueryShape("find", Arrays.asList(filter("state", "a")), null, null, null);
+
+        assertEquals(1, stats.record(shape1, SLOW_NANOS));
+        assertEquals(0, stats.record(shape2, SLOW_NANOS));
+        assertEquals(2, stats.record(shape1, SLOW_NANOS));
+        assertEquals(1, stats.getDropped());
+        assertEquals(1, stats.summarize().size());
+
+        stats.clear();
+        assertEquals(0, stats.getDropped());
+        assertTrue(stats.summarize().isEmpty());
+    }
+
+    @Test
+    public void testTimerOnlyRecordsOnce() {
+        QueryStatistics stats = new QueryStatistics(10, 0);
+        QueryShape shape = new QueryShape("find", null, null, null, null);
+        QueryStatistics.Timer timer = stats.start(shape);
+        assertEquals(shape, timer.getShape());
+        assertEquals(1, timer.stop());
+        assertEquals(0, timer.stop());
+        assertEquals(1L, stats.summarize().get(0).get("count"));
+    }
+}
@@ -15,28 +15,34 @@
  *******************************************************************************/
 package com.ibm.ws.lars.rest;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 
 import mockit.Expectations;
 import mockit.Mocked;
 
-import org.apache.wink.common.model.multipart.BufferedInMultiPart;
+import org.apache.wink.common.model.multipart.InMultiPart;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.AttachmentTooLargeException;
 import com.ibm.ws.lars.rest.exceptions.InvalidIdException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.InvalidParameterException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AttachmentList;
 import com.ibm.ws.lars.rest.model.RepositoryResourceLifecycleException;
 
 public class RepositoryRESTResourceLoggingTest {
@@ -72,7 +78,8 @@ public class RepositoryRESTResourceLoggingTest {
     }
 
     @Test
-    public void testGetAsset(@Mocked final Logger logger, @Mocked final SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+    public void testGetAsset(@Mocked final Logger logger, @Mocked final SecurityContext sc, @Mocked final Request request,
+                             @Mocked final Asset asset) throws InvalidIdException, NonExistentArtefactException, InvalidParameterException {
 
         new Expectations() {
             {
@@ -81,14 +88,16 @@ public class RepositoryRESTResourceLoggingTest {
                 logger.fine("getAsset called with id of 'ffffffffffffffffffffffff'");
                 sc.isUserInRole("Administrator");
                 result = true;
+                asset.toJsonBytes();
+                result = "{}".getBytes(StandardCharsets.UTF_8);
             }
         };
 
-        getRestResource().getAsset(NON_EXISTENT_ID, dummyUriInfo, sc);
+        getRestResource().getAsset(NON_EXISTENT_ID, dummyUriInfo, sc, request);
     }
 
     @Test
-    public void testGetAssets(@Mocked final Logger logger, @Mocked final UriInfo info, @Mocked SecurityContext context) throws URISyntaxException, JsonProcessingException, InvalidParameterException {
+    public void testGetAssets(@Mocked final Logger logger, @Mocked final UriInfo info, @Mocked SecurityContext context, @Mocked Request request) throws URISyntaxException, IOException, InvalidParameterException {
 
         new Expectations() {
             {
@@ -104,7 +113,7 @@ public class RepositoryRESTResourceLoggingTest {
             }
         };
 
-        getRestResource().getAssets(info, context);
+        getRestResource().getAssets(info, context, request);
     }
 
     @Test
@@ -159,8 +168,11 @@ public class RepositoryRESTResourceLoggingTest {
         getRestResource().deleteAsset(NON_EXISTENT_ID);
     }
 
-    @Test
-    public void testCreateAttachmentWithContent(@Mocked final Logger logger, @Mocked final BufferedInMultiPart inMultiPart) throws InvalidJsonAssetException, InvalidIdException, AssetPersistenceException, NonExistentArtefactException {
+    /**
+     * The mocked multipart is empty, so the attachmentInfo part is missing
+     */
+    @Test(expected = InvalidJsonAssetException.class)
+    public void testCreateAttachmentWithContent(@Mocked final Logger logger, @Mocked final InMultiPart inMultiPart) throws InvalidJsonAssetException, InvalidIdException, AssetPersistenceException, NonExistentArtefactException, AttachmentTooLargeException {
 
         new Expectations() {
             {
@@ -191,7 +203,8 @@ public class RepositoryRESTResourceLoggingTest {
     }
 
     @Test
-    public void testGetAttachments(@Mocked final Logger logger, @Mocked final SecurityContext sc) throws Exception {
+    public void testGetAttachments(@Mocked final Logger logger, @Mocked final SecurityContext sc, @Mocked final Request request,
+                                   @Mocked final AttachmentList attachments) throws Exception {
 
         new Expectations() {
             {
@@ -200,10 +213,12 @@ public class RepositoryRESTResourceLoggingTest {
                 logger.fine("getAttachments called for assetId: " + NON_EXISTENT_ID);
                 sc.isUserInRole("Administrator");
                 result = true;
+                attachments.toJson();
+                result = "[]";
             }
         };
 
-        getRestResource().getAttachments(NON_EXISTENT_ID, dummyUriInfo, sc);
+        getRestResource().getAttachments(NON_EXISTENT_ID, dummyUriInfo, sc, request);
     }
 
     @Test
@@ -222,7 +237,7 @@ public class RepositoryRESTResourceLoggingTest {
     }
 
     @Test
-    public void testGetAttachmentContent(@Mocked final Logger logger, @Mocked final SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+    public void testGetAttachmentContent(@Mocked final Logger logger, @Mocked final SecurityContext sc, @Mocked final Request request) throws InvalidIdException, NonExistentArtefactException {
 
         new Expectations() {
             {
@@ -236,7 +251,7 @@ public class RepositoryRESTResourceLoggingTest {
             }
         };
 
-        getRestResource().getAttachmentContent(NON_EXISTENT_ID, NON_EXISTENT_ID, "no_name", dummyUriInfo, sc);
+        getRestResource().getAttachmentContent(NON_EXISTENT_ID, NON_EXISTENT_ID, "no_name", null, null, dummyUriInfo, sc, request);
     }
 
     @Test
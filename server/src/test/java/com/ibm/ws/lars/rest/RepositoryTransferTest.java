@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
+import com.ibm.ws.lars.rest.injection.AssetServiceLayerInjection;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentList;
+
+/**
+ * Tests for {@link RepositoryTransfer}
+ */
+public class RepositoryTransferTest {
+
+    private static final byte[] CONTENT = "Some attachment content".getBytes(StandardCharsets.UTF_8);
+
+    private MemoryPersistor source;
+    private AssetServiceLayer service;
+    private Asset published;
+    private Asset draft;
+    private Attachment attachment;
+
+    @Before
+    public void setUp() throws Exception {
+        source = new MemoryPersistor();
+        service = new AssetServiceLayer();
+        AssetServiceLayerInjection.setConfiguration(service, new Configuration());
+        AssetServiceLayerInjection.setPersistenceBean(service, source);
+
+        published = service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"published\"}"), "user");
+        service.updateAssetState(Asset.StateAction.PUBLISH, published.get_id());
+        service.updateAssetState(Asset.StateAction.APPROVE, published.get_id());
+        draft = service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"draft\"}"), "user");
+        attachment = service.createAttachmentWithContent(published.get_id(), "file.txt", Attachment.jsonToAttachment("{}"), "text/plain",
+                                                         new ByteArrayInputStream(CONTENT), new DummyUriInfo(new URI("http://localhost:9080/ma/v1/")));
+    }
+
+    @Test
+    public void testExportAndImport() throws Exception {
+        String exported = export(true);
+        String[] lines = exported.split("\n");
+        assertEquals(exported, 3, lines.length);
+        assertTrue(exported.contains("\"content\""));
+
+        MemoryPersistor target = new MemoryPersistor();
+        Map<String, Object> result = new RepositoryTransfer(target).importRepository(stream(exported));
+        assertEquals(2, result.get("assets"));
+        assertEquals(1, result.get("attachments"));
+
+        assertEquals(Asset.State.PUBLISHED, target.retrieveAsset(published.get_id()).getState());
+        assertEquals("draft", target.retrieveAsset(draft.get_id()).getProperty("name"));
+
+        AttachmentList attachments = target.findAttachmentsForAsset(published.get_id());
+        assertEquals(1, attachments.size());
+        Attachment imported = attachments.get(0);
+        assertEquals(attachment.get_id(), imported.get_id());
+        assertEquals("file.txt", imported.getName());
+        assertEquals(CONTENT.length, imported.getSize());
+        try (InputStream content = target.retrieveAttachmentContent(imported.getGridFSId()).getContentStream()) {
+            assertArrayEquals(CONTENT, readAll(content));
+        }
+
+        // Imported assets appear in the change feed
+        assertEquals(2, target.retrieveAssetChanges(0, 100).size());
+    }
+
+    @Test
+    public void testExportWithoutContent() throws Exception {
+        String exported = export(false);
+        assertFalse(exported.contains("\"content\""));
+
+        MemoryPersistor target = new MemoryPersistor();
+        new RepositoryTransfer(target).importRepository(stream(exported));
+        Attachment imported = target.findAttachmentsForAsset(published.get_id()).get(0);
+        assertNull("The attachment shouldn't refer to content in another repository", imported.getGridFSId());
+        assertEquals("file.txt", imported.getName());
+    }
+
+    @Test
+    public void testRestoreWithoutContent() throws Exception {
+        String exported = export(false);
+
+        new RepositoryTransfer(source).importRepository(stream(exported));
+        Attachment imported = source.findAttachmentsForAsset(published.get_id()).get(0);
+        assertEquals("The attachment should still refer to its content", attachment.getGridFSId(), imported.getGridFSId());
+        assertEquals(1, source.getContentCount());
+
+        // The restored attachment holds the only reference to the content
+        source.deleteAttachmentContent(imported.getGridFSId());
+        assertEquals(0, source.getContentCount());
+    }
+
+    @Test
+    public void testImportReleasesReplacedContent() throws Exception {
+        String exported = export(true);
+
+        new RepositoryTransfer(source).importRepository(stream(exported));
+        Attachment imported = source.findAttachmentsForAsset(published.get_id()).get(0);
+        assertEquals(1, source.getContentCount());
+
+        // The replaced attachment's reference was released, so one delete removes the content
+        source.deleteAttachmentContent(imported.getGridFSId());
+        assertEquals(0, source.getContentCount());
+    }
+
+    @Test
+    public void testImportReplacesExistingAsset() throws Exception {
+        String exported = export(true);
+        service.updateAssetState(Asset.StateAction.UNPUBLISH, published.get_id());
+
+        new RepositoryTransfer(source).importRepository(stream(exported));
+        assertEquals(Asset.State.PUBLISHED, source.retrieveAsset(published.get_id()).getState());
+    }
+
+    @Test
+    public void testExportFindsAttachmentsInBatches() throws Exception {
+        for (int i = 0; i < 150; i++) {
+            Asset asset = service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"asset" + i + "\"}"), "user");
+            service.createAttachmentWithContent(asset.get_id(), "file" + i + ".txt", Attachment.jsonToAttachment("{}"), "text/plain",
+                                                new ByteArrayInputStream(CONTENT), new DummyUriInfo(new URI("http://localhost:9080/ma/v1/")));
+        }
+        final AtomicInteger queries = new AtomicInteger();
+        MemoryPersistor counting = new MemoryPersistor() {
+            @Override
+            public AttachmentList findAttachmentsForAsset(String assetId) {
+                queries.incrementAndGet();
+                return super.findAttachmentsForAsset(assetId);
+            }
+
+            @Override
+            public Map<String, AttachmentList> findAttachmentsForAssets(Collection<String> assetIds) {
+                queries.incrementAndGet();
+                return source.findAttachmentsForAssets(assetIds);
+            }
+
+            @Override
+            public AssetCursor retrieveAllAssets() {
+                return source.retrieveAllAssets();
+            }
+        };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RepositoryTransfer(counting).exportRepository(out, false);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(152 + 151, lines.length);
+        assertEquals("One query for each batch of 100 assets", 2, queries.get());
+
+        // Each asset is still followed by its attachments
+        String assetId = null;
+        for (String line : lines) {
+            if (line.startsWith("{\"asset\"")) {
+                assetId = Asset.deserializeAssetFromJson(line.substring(9, line.length() - 1)).get_id();
+            } else {
+                assertEquals(assetId, Attachment.jsonToAttachment(line.substring(14, line.length() - 1)).getAssetId());
+            }
+        }
+    }
+
+    @Test(expected = InvalidJsonAssetException.class)
+    public void testImportNotAnObject() throws Exception {
+        new RepositoryTransfer(new MemoryPersistor()).importRepository(stream("[1]"));
+    }
+
+    @Test(expected = InvalidJsonAssetException.class)
+    public void testImportInvalidId() throws Exception {
+        new RepositoryTransfer(new MemoryPersistor()).importRepository(stream("{\"asset\":{\"_id\":\"nothex\",\"state\":\"draft\"}}"));
+    }
+
+    @Test(expected = InvalidJsonAssetException.class)
+    public void testImportMalformed() throws Exception {
+        new RepositoryTransfer(new MemoryPersistor()).importRepository(stream("{\"asset\":{"));
+    }
+
+    private String export(boolean includeContent) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RepositoryTransfer(source).exportRepository(out, includeContent);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readAll(InputStream stream) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+}
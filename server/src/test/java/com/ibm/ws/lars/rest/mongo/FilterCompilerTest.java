@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import static com.ibm.ws.lars.rest.Condition.Operation.EQUALS;
+import static com.ibm.ws.lars.rest.Condition.Operation.GREATER_THAN;
+import static com.ibm.ws.lars.rest.Condition.Operation.GREATER_THAN_OR_EQUAL;
+import static com.ibm.ws.lars.rest.Condition.Operation.LESS_THAN;
+import static com.ibm.ws.lars.rest.Condition.Operation.LESS_THAN_OR_EQUAL;
+import static com.ibm.ws.lars.rest.Condition.Operation.NOT_EQUALS;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.ibm.ws.lars.rest.AssetFilter;
+import com.ibm.ws.lars.rest.Condition;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+/**
+ * Tests for {@link FilterCompiler}
+ */
+public class FilterCompilerTest {
+
+    private static BasicDBObject compile(Condition... conditions) {
+        return FilterCompiler.compile(Collections.singleton(new AssetFilter("field", Arrays.asList(conditions))), null);
+    }
+
+    private static BasicDBObject and(BasicDBObject... predicates) {
+        BasicDBList list = new BasicDBList();
+        list.addAll(Arrays.asList(predicates));
+        return new BasicDBObject("$and", list);
+    }
+
+    @Test
+    public void testNoFilters() {
+        assertEquals(new BasicDBObject(), FilterCompiler.compile(Collections.<AssetFilter> emptyList(), null));
+        assertEquals(and(new BasicDBObject("$text", new BasicDBObject("$search", "foo"))), FilterCompiler.compile(null, "foo"));
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(and(new BasicDBObject("field", "a")), compile(new Condition(EQUALS, "a")));
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$ne", "a"))), compile(new Condition(NOT_EQUALS, "a")));
+    }
+
+    @Test
+    public void testOrBecomesIn() {
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$in", Arrays.asList("a", "b", "c")))),
+                     compile(new Condition(EQUALS, "a"), new Condition(EQUALS, "b"), new Condition(EQUALS, "c")));
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$nin", Arrays.asList("a", "b")))),
+                     compile(new Condition(NOT_EQUALS, "a"), new Condition(NOT_EQUALS, "b")));
+    }
+
+    @Test
+    public void testMixedNotEquals() {
+        BasicDBList or = new BasicDBList();
+        or.add(new BasicDBObject("field", new BasicDBObject("$ne", "a")));
+        or.add(new BasicDBObject("field", "b"));
+        assertEquals(and(new BasicDBObject("$or", or)), compile(new Condition(NOT_EQUALS, "a"), new Condition(EQUALS, "b")));
+
+        assertEquals(and(new BasicDBObject("$or", or), new BasicDBObject("field", new BasicDBObject("$gt", "c"))),
+                     compile(new Condition(NOT_EQUALS, "a"), new Condition(EQUALS, "b"), new Condition(GREATER_THAN, "c")));
+    }
+
+    @Test
+    public void testRanges() {
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$gte", "2026-01-01").append("$lt", "2026-02-01"))),
+                     compile(new Condition(GREATER_THAN_OR_EQUAL, "2026-01-01"), new Condition(LESS_THAN, "2026-02-01")));
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$gt", 5L).append("$lte", 7.5))),
+                     compile(new Condition(GREATER_THAN, "5"), new Condition(LESS_THAN_OR_EQUAL, "7.5")));
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$gt", "8.5.5.6"))), compile(new Condition(GREATER_THAN, "8.5.5.6")));
+    }
+
+    @Test
+    public void testEqualsWithRange() {
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$eq", "a").append("$gt", "0.x"))),
+                     compile(new Condition(EQUALS, "a"), new Condition(GREATER_THAN, "0.x")));
+        assertEquals(and(new BasicDBObject("field", new BasicDBObject("$in", Arrays.asList("a", "b")).append("$lt", "z"))),
+                     compile(new Condition(EQUALS, "a"), new Condition(EQUALS, "b"), new Condition(LESS_THAN, "z")));
+    }
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+
+import org.junit.Test;
+
+import com.ibm.ws.lars.rest.AssetFilter;
+import com.ibm.ws.lars.rest.Condition;
+import com.ibm.ws.lars.rest.Condition.Operation;
+import com.ibm.ws.lars.rest.QueryShape;
+import com.ibm.ws.lars.rest.SortOptions;
+import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * Tests for {@link IndexProvisioner}
+ */
+public class IndexProvisionerTest {
+
+    @Mocked
+    DBCollection collection;
+
+    @Mocked
+    Logger logger;
+
+    private static QueryShape shape(String searchTerm, SortOptions sortOptions, String... keys) {
+        List<AssetFilter> filters = new ArrayList<>();
+        for (String key : keys) {
+            filters.add(new AssetFilter(key, Arrays.asList(new Condition(Operation.EQUALS, "x"))));
+        }
+        return new QueryShape("find", filters, searchTerm, sortOptions, null);
+    }
+
+    @Test
+    public void testParseIndexes() {
+        List<DBObject> indexes = IndexProvisioner.parseIndexes(" type, wlpInformation.shortName ;;name");
+        assertEquals(2, indexes.size());
+        assertEquals(new BasicDBObject("type", 1).append("wlpInformation.shortName", 1), indexes.get(0));
+        assertEquals(new BasicDBObject("name", 1), indexes.get(1));
+        assertEquals(Collections.emptyList(), IndexProvisioner.parseIndexes(null));
+    }
+
+    @Test
+    public void testCreateKeys() {
+        assertEquals(new BasicDBObject("state", 1).append("type", 1).append("name", -1),
+                     IndexProvisioner.createKeys(shape(null, new SortOptions("name", SortOrder.DESCENDING), "type", "state")));
+        assertEquals(new BasicDBObject("type", 1), IndexProvisioner.createKeys(shape(null, new SortOptions("type", SortOrder.DESCENDING), "type")));
+        assertEquals(new BasicDBObject("type", 1), IndexProvisioner.createKeys(shape(null, new SortOptions("_id", SortOrder.ASCENDING), "type")));
+        assertNull(IndexProvisioner.createKeys(shape(null, null)));
+        assertNull(IndexProvisioner.createKeys(shape(null, null, "a", "b", "c", "d", "e")));
+    }
+
+    @Test
+    public void testCreateIndexes() {
+        new IndexProvisioner("type,name", false, 1, Runnable::run).createIndexes(collection);
+
+        new Verifications() {
+            {
+                List<DBObject> created = new ArrayList<>();
+                collection.createIndex(withCapture(created), new BasicDBObject("background", true));
+                times = IndexProvisioner.DEFAULT_INDEXES.size() + 1;
+
+                List<DBObject> expected = new ArrayList<>(IndexProvisioner.DEFAULT_INDEXES);
+                expected.add(new BasicDBObject("type", 1).append("name", 1));
+                assertEquals(expected, created);
+            }
+        };
+    }
+
+    @Test
+    public void testSlowQueryCreatesIndexAtThreshold() {
+        new Expectations() {
+            {
+                collection.getIndexInfo();
+                result = Arrays.asList(new BasicDBObject("key", new BasicDBObject("_id", 1)));
+                collection.findOne((DBObject) any);
+                result = null;
+            }
+        };
+
+        IndexProvisioner provisioner = new IndexProvisioner(null, true, 3, Runnable::run);
+        QueryShape shape = shape(null, null, "type", "state");
+        provisioner.slowQuery(collection, shape, 2);
+        provisioner.slowQuery(collection, shape, 3);
+        provisioner.slowQuery(collection, shape, 4);
+
+        new Verifications() {
+            {
+                collection.createIndex(new BasicDBObject("state", 1).append("type", 1), new BasicDBObject("background", true));
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void testSlowQueryNoIndex() {
+        new Expectations() {
+            {
+                collection.getIndexInfo();
+                result = Arrays.asList(new BasicDBObject("key", new BasicDBObject("type", 1).append("state", 1).append("name", 1)));
+            }
+        };
+
+        // Disabled
+        new IndexProvisioner(null, false, 1, Runnable::run).slowQuery(collection, shape(null, null, "type"), 1);
+        // Searches use the text index
+        new IndexProvisioner(null, true, 1, Runnable::run).slowQuery(collection, shape("foo", null, "type"), 1);
+        // Already indexed
+        new IndexProvisioner(null, true, 1, Runnable::run).slowQuery(collection, shape(null, null, "state", "type"), 1);
+
+        new Verifications() {
+            {
+                collection.createIndex((DBObject) any, (DBObject) any);
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void testSlowQueryParallelLists() {
+        new Expectations() {
+            {
+                collection.getIndexInfo();
+                result = Collections.emptyList();
+                collection.findOne((DBObject) any);
+                result = new BasicDBObject();
+            }
+        };
+
+        new IndexProvisioner(null, true, 1, Runnable::run).slowQuery(collection, shape(null, null, "tags", "wlpInformation.provideFeature"), 1);
+
+        new Verifications() {
+            {
+                collection.createIndex((DBObject) any, (DBObject) any);
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void testGetPathPrefixes() {
+        assertEquals(Arrays.asList("type"), IndexProvisioner.getPathPrefixes("type"));
+        assertEquals(Arrays.asList("wlpInformation", "wlpInformation.appliesToFilterInfo", "wlpInformation.appliesToFilterInfo.productId"),
+                     IndexProvisioner.getPathPrefixes("wlpInformation.appliesToFilterInfo.productId"));
+    }
+
+    /**
+     * Lists in parent paths count, but a parent both fields share doesn't
+     */
+    @Test
+    public void testSlowQueryParallelListsInParentPath() {
+        new Expectations() {
+            {
+                collection.getIndexInfo();
+                result = Collections.emptyList();
+                collection.findOne((DBObject) any);
+                result = null;
+            }
+        };
+
+        new IndexProvisioner(null, true, 1, Runnable::run).slowQuery(collection,
+                                                                     shape(null, null, "type", "wlpInformation.appliesToFilterInfo.productId"), 1);
+
+        new Verifications() {
+            {
+                DBObject query;
+                collection.findOne(query = withCapture());
+
+                BasicDBList parents = new BasicDBList();
+                parents.add(array("wlpInformation"));
+                parents.add(array("wlpInformation.appliesToFilterInfo"));
+                parents.add(array("wlpInformation.appliesToFilterInfo.productId"));
+                BasicDBList both = new BasicDBList();
+                both.add(array("type"));
+                both.add(new BasicDBObject("$or", parents));
+                assertEquals(new BasicDBObject("$and", both), query);
+            }
+        };
+    }
+
+    /**
+     * The work for a slow query is done on the executor, not the thread which ran the query
+     */
+    @Test
+    public void testSlowQueryUsesExecutor() {
+        List<Runnable> queued = new LinkedList<>();
+        new IndexProvisioner(null, true, 1, queued::add).slowQuery(collection, shape(null, null, "type"), 1);
+        assertEquals(1, queued.size());
+
+        new Verifications() {
+            {
+                collection.getIndexInfo();
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * If the index can't be created, the next slow query tries again
+     */
+    @Test
+    public void testSlowQueryRetriesAfterFailure() {
+        new Expectations() {
+            {
+                collection.getIndexInfo();
+                result = Collections.emptyList();
+                collection.createIndex((DBObject) any, (DBObject) any);
+                result = new Delegate<Void>() {
+                    private int calls = 0;
+
+                    @SuppressWarnings("unused")
+                    void createIndex(DBObject keys, DBObject options) {
+                        if (calls++ == 0) {
+                            throw new MongoException("Failed");
+                        }
+                    }
+                };
+            }
+        };
+
+        IndexProvisioner provisioner = new IndexProvisioner(null, true, 1, Runnable::run);
+        QueryShape shape = shape(null, null, "type");
+        provisioner.slowQuery(collection, shape, 1);
+        provisioner.slowQuery(collection, shape, 2);
+        provisioner.slowQuery(collection, shape, 3);
+
+        new Verifications() {
+            {
+                collection.createIndex(new BasicDBObject("type", 1), new BasicDBObject("background", true));
+                times = 2;
+            }
+        };
+    }
+
+    private static DBObject array(String path) {
+        return new BasicDBObject(path, new BasicDBObject("$type", "array"));
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.bson.BasicBSONEncoder;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetOperation;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+/**
+ * Tests for {@link MongoAssetCursor}
+ */
+public class MongoAssetCursorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectId ID = new ObjectId("0123456789abcdef01234567");
+
+    private static DBObject createRawObject() {
+        BasicDBList tags = new BasicDBList();
+        tags.add("a");
+        tags.add(Integer.valueOf(2));
+        tags.add(new BasicDBObject("nested", Boolean.TRUE));
+        BasicDBObject object = new BasicDBObject("_id", ID)
+                        .append("name", "foo")
+                        .append("size", Long.valueOf(1234567890123L))
+                        .append("rating", Double.valueOf(4.5))
+                        .append("missing", null)
+                        .append("tags", tags)
+                        .append("wlpInformation", new BasicDBObject("provideFeature", Arrays.asList("feature-1.0")))
+                        .append("score", Double.valueOf(1.5));
+        byte[] bytes = new BasicBSONEncoder().encode(object);
+        return RawDBObject.FACTORY.create().decode(bytes, (DBCollection) null);
+    }
+
+    private static String writeNext(MongoAssetCursor cursor) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            cursor.writeNext(generator);
+        }
+        return writer.toString();
+    }
+
+    @Test
+    public void testWriteNext(@Mocked final DBCursor dbCursor) throws IOException {
+        new Expectations() {
+            {
+                dbCursor.next();
+                result = createRawObject();
+            }
+        };
+
+        String json = writeNext(new MongoAssetCursor(dbCursor, true));
+        assertEquals("{\"_id\":\"0123456789abcdef01234567\",\"name\":\"foo\",\"size\":1234567890123,\"rating\":4.5,\"missing\":null,"
+                     + "\"tags\":[\"a\",2,{\"nested\":true}],\"wlpInformation\":{\"provideFeature\":[\"feature-1.0\"]}}", json);
+    }
+
+    @Test
+    public void testWriteNextKeepsScore(@Mocked final DBCursor dbCursor) throws IOException {
+        new Expectations() {
+            {
+                dbCursor.next();
+                result = createRawObject();
+            }
+        };
+
+        Map<?, ?> written = MAPPER.readValue(writeNext(new MongoAssetCursor(dbCursor)), Map.class);
+        assertEquals(1.5, written.get("score"));
+    }
+
+    @Test
+    public void testNext(@Mocked final DBCursor dbCursor) {
+        new Expectations() {
+            {
+                dbCursor.next();
+                result = createRawObject();
+            }
+        };
+
+        Asset asset = new MongoAssetCursor(dbCursor, true).next();
+        assertEquals(ID.toHexString(), asset.get_id());
+        assertEquals("foo", asset.get("name"));
+        assertEquals(Long.valueOf(1234567890123L), asset.get("size"));
+        List<?> tags = asset.get("tags");
+        assertEquals("a", tags.get(0));
+        assertEquals(2, tags.get(1));
+        assertEquals(Boolean.TRUE, ((Map<?, ?>) tags.get(2)).get("nested"));
+        assertEquals(Arrays.asList("feature-1.0"), ((Map<?, ?>) asset.get("wlpInformation")).get("provideFeature"));
+        assertFalse(asset.getProperties().containsKey("score"));
+    }
+
+    /**
+     * Test that operations still see an asset when the cursor is written out
+     */
+    @Test
+    public void testWriteNextWithOperation(@Mocked final DBCursor dbCursor) throws IOException {
+        new Expectations() {
+            {
+                dbCursor.next();
+                result = createRawObject();
+            }
+        };
+
+        MongoAssetCursor cursor = new MongoAssetCursor(dbCursor, true);
+        cursor.addOperation(new AssetOperation() {
+            @Override
+            public void perform(Asset asset) {
+                asset.setProperty("name", "bar");
+            }
+        });
+
+        Map<?, ?> written = MAPPER.readValue(writeNext(cursor), Map.class);
+        assertEquals(ID.toHexString(), written.get("_id"));
+        assertEquals("bar", written.get("name"));
+        assertFalse(written.containsKey("score"));
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+
+/**
+ * Tests for how {@link PersistenceBean} works out which changes have been committed to the change
+ * log
+ */
+public class PersistenceBeanChangesTest {
+
+    private static final long NOW = 1000000000000L;
+
+    @Test
+    public void testNoCounter() {
+        assertEquals(0, PersistenceBean.getCommittedSequence(null, NOW));
+        assertEquals(0, PersistenceBean.getCommittedSequence(new BasicDBObject("purged", 3L), NOW));
+    }
+
+    @Test
+    public void testNothingPending() {
+        assertEquals(7, PersistenceBean.getCommittedSequence(new BasicDBObject("seq", 7L), NOW));
+        assertEquals(7, PersistenceBean.getCommittedSequence(new BasicDBObject("seq", 7L).append("pending", Arrays.asList()), NOW));
+    }
+
+    /**
+     * A pending change holds back every change after it
+     */
+    @Test
+    public void testPending() {
+        BasicDBObject counter = new BasicDBObject("seq", 7L).append("pending", Arrays.asList(pending(7, NOW), pending(5, NOW - 10)));
+        assertEquals(4, PersistenceBean.getCommittedSequence(counter, NOW));
+    }
+
+    /**
+     * A change which has been pending for too long no longer holds back the changes after it
+     */
+    @Test
+    public void testPendingTimedOut() {
+        BasicDBObject counter = new BasicDBObject("seq", 7L).append("pending", Arrays.asList(pending(5, NOW - PersistenceBean.PENDING_CHANGE_TIMEOUT),
+                                                                                             pending(7, NOW)));
+        assertEquals(6, PersistenceBean.getCommittedSequence(counter, NOW));
+    }
+
+    private static BasicDBObject pending(long sequence, long started) {
+        return new BasicDBObject("seq", sequence).append("started", new Date(started));
+    }
+}
@@ -27,6 +27,7 @@ import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.StateAction;
 import com.ibm.ws.repository.common.enums.Visibility;
+import com.ibm.ws.repository.transport.client.ListElementHandler;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.client.RepositoryWriteableClient;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
@@ -143,11 +144,21 @@ public abstract class AbstractFileWriteableClient implements RepositoryWriteable
         return _readClient.getAsset(assetId);
     }
 
+    @Override
+    public List<Asset> getAssetsById(Collection<String> assetIds) throws IOException, BadVersionException, RequestFailureException {
+        return _readClient.getAssetsById(assetIds);
+    }
+
     @Override
     public Collection<Asset> getAllAssets() throws IOException, RequestFailureException {
         return _readClient.getAllAssets();
     }
 
+    @Override
+    public <E extends Exception> void getAllAssets(ListElementHandler<? super Asset, E> handler) throws IOException, RequestFailureException, E {
+        _readClient.getAllAssets(handler);
+    }
+
     @Override
     public Collection<Asset> getAssets(ResourceType type) throws IOException, RequestFailureException {
         return _readClient.getAssets(type);
@@ -168,6 +179,11 @@ public abstract class AbstractFileWriteableClient implements RepositoryWriteable
         return _readClient.getAttachment(asset, attachment);
     }
 
+    @Override
+    public InputStream getAttachment(Asset asset, Attachment attachment, long offset) throws IOException, BadVersionException, RequestFailureException {
+        return _readClient.getAttachment(asset, attachment, offset);
+    }
+
     @Override
     public List<Asset> findAssets(String searchString, Collection<ResourceType> types) throws IOException, RequestFailureException {
         return _readClient.findAssets(searchString, types);
@@ -502,6 +502,42 @@ public class MassiveEsaTest {
                      State.AWAITING_APPROVAL, featureInMassive.getState());
     }
 
+    /**
+     * Test that several features can be uploaded at once and that the results are reported in order
+     */
+    @Test
+    public void testParallelUpload() throws Throwable {
+        List<File> esas = Arrays.asList(new File(esaDir, "simple.esa"),
+                                        new File(esaDir, "simple.with.short.name.esa"),
+                                        new File(esaDir, "simple.hidden.esa"));
+        final List<File> uploaded = new ArrayList<>();
+        final List<String> features = new ArrayList<>();
+
+        massiveEsa.addEsasToMassive(esas, 2, new MassiveEsa.EsaUploadListener() {
+            @Override
+            public UploadStrategy getStrategy(File esa) {
+                return new UpdateInPlaceStrategy(State.AWAITING_APPROVAL, State.AWAITING_APPROVAL, false);
+            }
+
+            @Override
+            public void uploaded(File esa, EsaResource resource) {
+                uploaded.add(esa);
+                features.add(resource.getProvideFeature());
+            }
+
+            @Override
+            public void failed(File esa, RepositoryException e) {
+                fail("Upload of " + esa + " failed: " + e);
+            }
+        });
+
+        assertEquals("Results reported out of order", esas, uploaded);
+        assertEquals("Wrong features uploaded",
+                     Arrays.asList("com.ibm.ws.test.simple", "com.ibm.ws.test.simple.with.short.name", "com.ibm.ws.test.simple.hidden"),
+                     features);
+        assertEquals("Wrong number of assets in the repository", 3, repoConnection.getAllResources().size());
+    }
+
     /**
      * Test to make sure that public features can be added to Massive by using the short name to
      * indicate it should be public
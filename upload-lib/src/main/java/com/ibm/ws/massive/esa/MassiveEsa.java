@@ -28,8 +28,10 @@ import java.nio.file.PathMatcher;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,6 +43,14 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -126,6 +136,204 @@ public class MassiveEsa extends MassiveUploader implements RepositoryUploader<Es
         return resources;
     }
 
+    /**
+     * This method will add a list of ESAs into MaaSive, working on several ESAs at once.
+     * <p>
+     * Each ESA goes through two stages. First it is read and its resource is built, which only
+     * uses the local disk and CPU, then the resource is uploaded, which is mostly waiting on the
+     * repository. The stages run on separate thread pools so that reading one ESA overlaps with
+     * uploading others. No more than <code>2 * parallelism</code> ESAs are in progress at once, so
+     * ESAs which have been read don't pile up waiting for an upload thread.
+     * <p>
+     * The listener is only called from the calling thread, once for each ESA and in the order in
+     * which the ESAs were given, so it can report progress without any locking. If an ESA fails,
+     * no further ESAs are started but those already in progress are allowed to finish and are
+     * reported before the first failure is thrown.
+     *
+     * @param esas The ESAs to add
+     * @param parallelism the maximum number of ESAs to upload at once
+     * @param listener supplies the strategy for each ESA and receives the results
+     * @throws RepositoryException the first exception thrown by any of the ESAs, in the order in
+     *             which they were given
+     */
+    public void addEsasToMassive(List<File> esas, int parallelism, EsaUploadListener listener) throws RepositoryException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+
+        int readThreads = Math.min(parallelism, Runtime.getRuntime().availableProcessors());
+        ExecutorService readExecutor = Executors.newFixedThreadPool(readThreads, new UploadThreadFactory("read"));
+        ExecutorService uploadExecutor = Executors.newFixedThreadPool(parallelism, new UploadThreadFactory("upload"));
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        int maxInFlight = 2 * parallelism;
+
+        Deque<PendingUpload> inFlight = new ArrayDeque<PendingUpload>();
+        Iterator<File> toStart = esas.iterator();
+        RepositoryException failure = null;
+        try {
+            while (true) {
+                while (failure == null && toStart.hasNext() && inFlight.size() < maxInFlight) {
+                    File esa = toStart.next();
+                    UploadStrategy strategy = listener.getStrategy(esa);
+                    PendingUpload pending = new PendingUpload(esa);
+                    pending.future = readExecutor.submit(new ReadStage(esa, strategy, uploadExecutor, stopped));
+                    inFlight.add(pending);
+                }
+
+                PendingUpload next = inFlight.poll();
+                if (next == null) {
+                    break;
+                }
+
+                try {
+                    EsaResource resource = next.get();
+                    if (resource != null) {
+                        listener.uploaded(next.esa, resource);
+                    }
+                } catch (RepositoryException e) {
+                    stopped.set(true);
+                    listener.failed(next.esa, e);
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        } finally {
+            readExecutor.shutdownNow();
+            uploadExecutor.shutdownNow();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Supplies the upload strategy for each ESA passed to
+     * {@link MassiveEsa#addEsasToMassive(List, int, EsaUploadListener)} and receives the results.
+     * <p>
+     * All methods are called from the thread which called <code>addEsasToMassive</code>.
+     */
+    public interface EsaUploadListener {
+
+        /**
+         * Called just before work on an ESA starts
+         *
+         * @param esa the ESA
+         * @return the strategy to use to upload it
+         */
+        UploadStrategy getStrategy(File esa);
+
+        /**
+         * Called when an ESA has been uploaded
+         *
+         * @param esa the ESA
+         * @param resource the resource which was uploaded
+         */
+        void uploaded(File esa, EsaResource resource);
+
+        /**
+         * Called when an ESA could not be uploaded
+         *
+         * @param esa the ESA
+         * @param e the reason it failed
+         */
+        void failed(File esa, RepositoryException e);
+    }
+
+    /**
+     * An ESA which has been started but whose result hasn't been reported yet
+     */
+    private static class PendingUpload {
+        private final File esa;
+        private Future<Future<EsaResource>> future;
+
+        PendingUpload(File esa) {
+            this.esa = esa;
+        }
+
+        /**
+         * Waits for both stages to finish
+         *
+         * @return the resource, or <code>null</code> if the ESA was skipped because an earlier one
+         *         failed
+         */
+        EsaResource get() throws RepositoryException {
+            Future<EsaResource> upload = unwrap(future);
+            return upload == null ? null : unwrap(upload);
+        }
+
+        private <T> T unwrap(Future<T> stage) throws RepositoryException {
+            try {
+                return stage.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RepositoryException) {
+                    throw (RepositoryException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RepositoryException("Unexpected exception uploading " + esa, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RepositoryException("Interrupted uploading " + esa, e);
+            }
+        }
+    }
+
+    /**
+     * Reads an ESA then hands its resource over to the upload executor
+     */
+    private class ReadStage implements Callable<Future<EsaResource>> {
+        private final File esa;
+        private final UploadStrategy strategy;
+        private final ExecutorService uploadExecutor;
+        private final AtomicBoolean stopped;
+
+        ReadStage(File esa, UploadStrategy strategy, ExecutorService uploadExecutor, AtomicBoolean stopped) {
+            this.esa = esa;
+            this.strategy = strategy;
+            this.uploadExecutor = uploadExecutor;
+            this.stopped = stopped;
+        }
+
+        @Override
+        public Future<EsaResource> call() throws RepositoryException {
+            if (stopped.get()) {
+                return null;
+            }
+            final EsaResourceWritable resource = createResource(esa, null);
+            return uploadExecutor.submit(new Callable<EsaResource>() {
+                @Override
+                public EsaResource call() throws RepositoryException {
+                    resource.uploadToMassive(strategy);
+                    return resource;
+                }
+            });
+        }
+    }
+
+    /**
+     * Makes daemon threads, so that an abandoned upload doesn't keep the JVM running
+     */
+    private static class UploadThreadFactory implements ThreadFactory {
+        private final String stage;
+        private final AtomicInteger count = new AtomicInteger();
+
+        UploadThreadFactory(String stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "MassiveEsa-" + stage + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -143,8 +351,25 @@ public class MassiveEsa extends MassiveUploader implements RepositoryUploader<Es
      * com.ibm.ws.massive.resources.UploadStrategy)
      */
     @Override
-    @SuppressWarnings("deprecation")
     public EsaResourceWritable uploadFile(File esa, UploadStrategy strategy, String contentUrl) throws RepositoryException {
+        EsaResourceWritable resource = createResource(esa, contentUrl);
+
+        // Publish to massive
+        resource.uploadToMassive(strategy);
+
+        return resource;
+    }
+
+    /**
+     * Reads an ESA and builds the resource for it, without talking to the repository.
+     *
+     * @param esa the ESA file
+     * @param contentUrl the URL of the content, or <code>null</code> to upload the ESA itself
+     * @return the resource, ready to be uploaded
+     * @throws RepositoryException if the ESA can't be read or is invalid
+     */
+    @SuppressWarnings("deprecation")
+    private EsaResourceWritable createResource(File esa, String contentUrl) throws RepositoryException {
 
         ArtifactMetadata artifactMetadata = explodeArtifact(esa);
 
@@ -328,14 +553,6 @@ public class MassiveEsa extends MassiveUploader implements RepositoryUploader<Es
 
         resource.setIBMInstallTo(feature.getHeader("IBM-InstallTo"));
 
-        // Publish to massive
-        try {
-            resource.uploadToMassive(strategy);
-        } catch (RepositoryException re) {
-            throw re;
-        }
-
-//        resource.dump(System.out);
         return resource;
     }
 